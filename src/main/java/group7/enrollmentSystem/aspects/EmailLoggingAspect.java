@@ -1,21 +1,15 @@
 package group7.enrollmentSystem.aspects;
 
-import jakarta.mail.MessagingException;
-import org.aspectj.lang.JoinPoint;
+import group7.enrollmentSystem.helpers.AsyncLogSink;
+import group7.enrollmentSystem.models.EmailOutbox;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Aspect
@@ -26,49 +20,54 @@ public class EmailLoggingAspect {
     private long executionTimeThreshold;
 
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
 
     private final AtomicInteger emailCounter = new AtomicInteger(0);
-    private final ThreadLocal<Deque<Integer>> emailIdStack = ThreadLocal.withInitial(ArrayDeque::new);
-    private final ThreadLocal<Long> startTime = ThreadLocal.withInitial(System::currentTimeMillis);
-    private final String logFileName;
+    private final AsyncLogSink.LogFile emailLog;
 
-    public EmailLoggingAspect() {
-        this.logFileName = "logs/email_logs_" + LocalDateTime.now().format(FILE_DATE_FORMAT) + ".log";
-        createLogsDirectory();
+    public EmailLoggingAspect(AsyncLogSink logSink) {
+        this.emailLog = logSink.file("email_logs.log");
     }
 
-    @Pointcut("execution(* group7.enrollmentSystem.helpers.EmailService.*(..))")
+    // Actual SMTP sends; queueing an email is not logged here
+    @Pointcut("execution(* group7.enrollmentSystem.helpers.EmailService.deliver(..))")
     public void emailSendingMethods() {}
 
-    @Before("emailSendingMethods()")
-    public void logBeforeEmailSending(JoinPoint joinPoint) {
+    // The id and start time live in this frame, so each send is timed on the thread that runs it
+    @Around("emailSendingMethods()")
+    public Object logEmailSending(ProceedingJoinPoint joinPoint) throws Throwable {
         int currentEmailId = emailCounter.incrementAndGet();
-        emailIdStack.get().push(currentEmailId);
-        startTime.set(System.currentTimeMillis());
+        long startedAt = System.nanoTime();
 
         String methodName = joinPoint.getSignature().getName();
-        String recipient = getRecipient(joinPoint.getArgs());
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        EmailOutbox email = getEmail(joinPoint.getArgs());
+        String recipient = email != null ? email.getRecipient() : "Unknown";
 
-        String logMessage = String.format("[%s] SENDING EMAIL [E%d] - Recipient(s): %s | Method: %s",
-                timestamp, currentEmailId, recipient, methodName);
-
-        logToFile(logMessage);
-    }
+        logToFile(String.format("[%s] SENDING EMAIL [E%d] - Recipient(s): %s | Method: %s | Thread: %s",
+                timestamp(), currentEmailId, recipient, methodName, Thread.currentThread().getName()));
 
-    @AfterReturning("emailSendingMethods()")
-    public void logAfterEmailSuccess(JoinPoint joinPoint) {
-        int currentEmailId = emailIdStack.get().peek();
-        String methodName = joinPoint.getSignature().getName();
-        String recipient = getRecipient(joinPoint.getArgs());
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            String timestamp = timestamp();
+
+            String errorLog = String.format("[%s] EMAIL [E%d] SEND FAILED - Recipient(s): %s | Method: %s | Error: %s",
+                    timestamp, currentEmailId, recipient, methodName, ex.getMessage());
+            logToFile(errorLog);
+
+            String timeLog = String.format("[%s] EMAIL [E%d] PROCESSING TIME - Recipient(s): %s | Method: %s | Time: %d ms",
+                    timestamp, currentEmailId, recipient, methodName, duration);
+            logToFile(timeLog);
+            throw ex;
+        }
 
-        long duration = System.currentTimeMillis() - startTime.get();
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        String timestamp = timestamp();
 
         // Log email details if available
-        if (hasEmailDetails(joinPoint.getArgs())) {
-            logEmailDetails(currentEmailId, timestamp, joinPoint.getArgs());
+        if (email != null) {
+            logEmailDetails(currentEmailId, timestamp, email);
         }
 
         String successLog = String.format("[%s] EMAIL [E%d] SENT SUCCESSFULLY - Recipient(s): %s | Method: %s",
@@ -80,82 +79,36 @@ public class EmailLoggingAspect {
                 duration > executionTimeThreshold ? " (WARNING: Exceeded threshold of " + executionTimeThreshold + " ms)" : "");
         logToFile(timeLog);
 
-        emailIdStack.get().pop();
-    }
-
-    @AfterThrowing(pointcut = "emailSendingMethods()", throwing = "ex")
-    public void logAfterEmailFailure(JoinPoint joinPoint, Throwable ex) {
-        int currentEmailId = emailIdStack.get().pop();
-        String methodName = joinPoint.getSignature().getName();
-        String recipient = getRecipient(joinPoint.getArgs());
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-
-        long duration = System.currentTimeMillis() - startTime.get();
-
-        String errorLog = String.format("[%s] EMAIL [E%d] SEND FAILED - Recipient(s): %s | Method: %s | Error: %s",
-                timestamp, currentEmailId, recipient, methodName, ex.getMessage());
-        logToFile(errorLog);
-
-        String timeLog = String.format("[%s] EMAIL [E%d] PROCESSING TIME - Recipient(s): %s | Method: %s | Time: %d ms",
-                timestamp, currentEmailId, recipient, methodName, duration);
-        logToFile(timeLog);
-    }
-
-    private boolean hasEmailDetails(Object[] args) {
-        return args.length >= 4 && args[3] instanceof Map;
+        return result;
     }
 
-    private String getRecipient(Object[] args) {
-        return args.length > 0 ? args[0].toString() : "Unknown";
+    private String timestamp() {
+        return LocalDateTime.now().format(TIMESTAMP_FORMAT);
     }
 
-    private void logEmailDetails(int emailId, String timestamp, Object[] args) {
-        try {
-            StringBuilder details = new StringBuilder();
-            details.append(String.format("EMAIL [E%d] DETAILS:\n", emailId));
-
-            String to = args.length > 0 ? args[0].toString() : "Unknown";
-            String subject = args.length > 1 ? args[1].toString() : "Unknown";
-            String templateName = args.length > 2 ? args[2].toString() : "Unknown";
-            @SuppressWarnings("unchecked")
-            Map<String, Object> model = args.length > 3 ? (Map<String, Object>) args[3] : null;
-
-            details.append(String.format("  Time: %s\n", timestamp));
-            details.append(String.format("  Recipient: %s\n", to));
-            details.append(String.format("  Subject: %s\n", subject));
-            details.append(String.format("  Template: %s\n", templateName));
-
-            if (model != null) {
-                details.append("  Model Content:\n");
-                model.forEach((key, value) ->
-                        details.append(String.format("    %s: %s\n", key, value)));
+    private EmailOutbox getEmail(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof EmailOutbox email) {
+                return email;
             }
-
-            logToFile(details.toString());
-        } catch (Exception e) {
-            System.err.println("Failed to log email details: " + e.getMessage());
         }
+        return null;
     }
 
-    private void createLogsDirectory() {
-        try {
-            Files.createDirectories(Paths.get("logs"));
-        } catch (IOException e) {
-            System.err.println("Failed to create logs directory: " + e.getMessage());
-        }
+    private void logEmailDetails(int emailId, String timestamp, EmailOutbox email) {
+        StringBuilder details = new StringBuilder();
+        details.append(String.format("EMAIL [E%d] DETAILS:\n", emailId));
+        details.append(String.format("  Time: %s\n", timestamp));
+        details.append(String.format("  Outbox Id: %s\n", email.getId()));
+        details.append(String.format("  Recipient: %s\n", email.getRecipient()));
+        details.append(String.format("  Subject: %s\n", email.getSubject()));
+        details.append(String.format("  Template: %s\n", email.getTemplateName()));
+        details.append(String.format("  Attempt: %d\n", email.getAttempts() + 1));
+        logToFile(details.toString());
     }
 
+    // Queued for the sink's writer thread; the sending thread never touches the file
     private void logToFile(String content) {
-        // Log to console
-        System.out.println(content);
-
-        // Log to file
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(logFileName, true))) {
-            writer.write(content);
-            writer.newLine();
-            writer.newLine();
-        } catch (IOException e) {
-            System.err.println("Failed to write to log file: " + e.getMessage());
-        }
+        emailLog.append(content + "\n\n");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,231 @@
+package group7.enrollmentSystem.aspects;
+
+import group7.enrollmentSystem.dtos.classDtos.MethodLatencyDto;
+import group7.enrollmentSystem.dtos.classDtos.TracingSettingsDto;
+import group7.enrollmentSystem.dtos.classDtos.TracingStatsDto;
+import group7.enrollmentSystem.helpers.AsyncLogSink;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times every service and controller call into a per-method latency histogram. Only a sample of calls, plus every
+ * slow or failed one, is written to {@code trace.log}, with arguments and results summarised to a bounded length
+ * and handed to the {@link AsyncLogSink}, so request threads never walk entity graphs in {@code toString} or wait
+ * on log I/O.
+ * <p>
+ * Sampling and the disabled packages can be changed at runtime; calls into a disabled package only pay for the
+ * lookup that finds it disabled.
+ */
+@Aspect
+@Component
+public class TracingAspect {
+
+    private static final int MAX_ARGS = 8;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final Map<Method, MethodTrace> traces = new ConcurrentHashMap<>();
+    private final AsyncLogSink logSink;
+    private final AsyncLogSink.LogFile traceLog;
+    private final int maxValueLength;
+    private final long slowThresholdNanos;
+    private volatile double sampleRate;
+    private volatile List<String> disabledPackages;
+
+    private static final class MethodTrace {
+        final String name;
+        final String packageName;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        volatile boolean enabled;
+
+        MethodTrace(Method method) {
+            this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName() + "(..)";
+            this.packageName = method.getDeclaringClass().getPackageName();
+        }
+    }
+
+    public TracingAspect(AsyncLogSink logSink,
+                         @Value("${tracing.sample-rate:0.01}") double sampleRate,
+                         @Value("${tracing.disabled-packages:}") List<String> disabledPackages,
+                         @Value("${tracing.max-value-length:120}") int maxValueLength,
+                         @Value("${tracing.slow-threshold-ms:1000}") long slowThresholdMillis) {
+        this.maxValueLength = maxValueLength;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.logSink = logSink;
+        this.traceLog = logSink.file("trace.log");
+        updateSettings(new TracingSettingsDto(sampleRate, disabledPackages));
+    }
+
+    // Pointcut for all methods in services and controllers
+    @Pointcut("within(@org.springframework.stereotype.Service *) || within(@org.springframework.stereotype.Controller *) || within(@org.springframework.web.bind.annotation.RestController *)")
+    public void traceableBeans() {}
+
+    @Around("traceableBeans()")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodTrace trace = traces.get(method);
+        if (trace == null) {
+            trace = traces.computeIfAbsent(method, this::newTrace);
+        }
+        if (!trace.enabled) {
+            return joinPoint.proceed();
+        }
+
+        long startedAt = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            long elapsed = System.nanoTime() - startedAt;
+            trace.histogram.record(elapsed);
+            trace.errors.increment();
+            log("!!! " + trace.name + " " + elapsed / 1000 + "us args=" + summarizeArgs(joinPoint.getArgs())
+                    + " threw " + ex.getClass().getSimpleName() + ": " + truncate(String.valueOf(ex.getMessage())));
+            throw ex;
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        trace.histogram.record(elapsed);
+
+        boolean slow = elapsed >= slowThresholdNanos;
+        if (slow || isSampled()) {
+            log((slow ? "SLOW " : "") + trace.name + " " + elapsed / 1000 + "us args="
+                    + summarizeArgs(joinPoint.getArgs()) + " returned " + summarize(result));
+        }
+        return result;
+    }
+
+    public TracingSettingsDto getSettings() {
+        return new TracingSettingsDto(sampleRate, disabledPackages);
+    }
+
+    /**
+     * Replaces the sample rate (0 to 1) and the disabled package prefixes; takes effect on the next call.
+     */
+    public TracingSettingsDto updateSettings(TracingSettingsDto settings) {
+        if (settings.getSampleRate() < 0 || settings.getSampleRate() > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        List<String> packages = settings.getDisabledPackages() == null ? List.of()
+                : settings.getDisabledPackages().stream().map(String::trim).filter(p -> !p.isEmpty()).toList();
+        this.sampleRate = settings.getSampleRate();
+        this.disabledPackages = packages;
+        traces.values().forEach(trace -> trace.enabled = isEnabled(trace.packageName));
+        return getSettings();
+    }
+
+    /**
+     * Latency per traced method, slowest in total first.
+     */
+    public TracingStatsDto getStats() {
+        List<MethodLatencyDto> methods = traces.values().stream()
+                .filter(trace -> trace.histogram.getCount() > 0)
+                .sorted(Comparator.comparingLong((MethodTrace trace) -> trace.histogram.getTotalNanos()).reversed())
+                .map(trace -> {
+                    LatencyHistogram histogram = trace.histogram;
+                    long calls = histogram.getCount();
+                    return new MethodLatencyDto(trace.name, calls, trace.errors.sum(),
+                            histogram.getTotalNanos() / 1000.0 / calls,
+                            histogram.percentileMicros(50), histogram.percentileMicros(95),
+                            histogram.percentileMicros(99), histogram.getMaxMicros());
+                })
+                .toList();
+        return new TracingStatsDto(getSettings(), logSink.getDropped(), methods);
+    }
+
+    private MethodTrace newTrace(Method method) {
+        MethodTrace trace = new MethodTrace(method);
+        trace.enabled = isEnabled(trace.packageName);
+        return trace;
+    }
+
+    private boolean isEnabled(String packageName) {
+        for (String disabled : disabledPackages) {
+            if (packageName.equals(disabled) || packageName.startsWith(disabled + ".")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void log(String line) {
+        traceLog.append(LocalDateTime.now().format(TIMESTAMP_FORMAT) + " [" + Thread.currentThread().getName() + "] "
+                + line + System.lineSeparator());
+    }
+
+    private boolean isSampled() {
+        double rate = sampleRate;
+        return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private String summarizeArgs(Object[] args) {
+        StringBuilder summary = new StringBuilder("[");
+        for (int i = 0; i < args.length && i < MAX_ARGS; i++) {
+            if (i > 0) {
+                summary.append(", ");
+            }
+            summary.append(summarize(args[i]));
+        }
+        if (args.length > MAX_ARGS) {
+            summary.append(", +").append(args.length - MAX_ARGS).append(" more");
+        }
+        return summary.append(']').toString();
+    }
+
+    // Only values with a cheap, bounded toString are printed; anything else (entities, DTOs, models) by type and size
+    public String summarize(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "byte[" + bytes.length + "]";
+        }
+        if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?> || value instanceof TemporalAccessor
+                || value instanceof UUID) {
+            return truncate(value.toString());
+        }
+        String type = value.getClass().getSimpleName();
+        if (!Hibernate.isInitialized(value)) {
+            return type + "[uninitialized]";
+        }
+        if (value instanceof Collection<?> collection) {
+            return type + "[size=" + collection.size() + "]";
+        }
+        if (value instanceof Map<?, ?> map) {
+            return type + "[size=" + map.size() + "]";
+        }
+        if (value.getClass().isArray()) {
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+        }
+        if (value instanceof Optional<?> optional) {
+            return optional.map(inner -> "Optional[" + summarize(inner) + "]").orElse("Optional.empty");
+        }
+        if (value instanceof ResponseEntity<?> response) {
+            return "ResponseEntity[" + response.getStatusCode().value() + ", " + summarize(response.getBody()) + "]";
+        }
+        return type;
+    }
+
+    private String truncate(String text) {
+        return text.length() <= maxValueLength ? text
+                : text.substring(0, maxValueLength) + "...(" + text.length() + " chars)";
+    }
+}
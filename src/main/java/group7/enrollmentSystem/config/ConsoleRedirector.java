@@ -1,67 +1,79 @@
 package group7.enrollmentSystem.config;
 
+import group7.enrollmentSystem.helpers.AsyncLogSink;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 
 @Component
+@RequiredArgsConstructor
 public class ConsoleRedirector {
 
-    private static final String LOG_DIR = "logs";
-    private static final String CONSOLE_LOG_FILE = LOG_DIR + "/consoleOutput.txt";
+    private static final String CONSOLE_LOG_FILE = "consoleOutput.txt";
+
+    private final AsyncLogSink logSink;
+
+    private PrintStream originalOut;
+    private PrintStream originalErr;
 
     @PostConstruct
     public void redirectConsoleOutput() {
-        try {
-            Files.createDirectories(Paths.get(LOG_DIR));
+        AsyncLogSink.LogFile consoleLog = logSink.file(CONSOLE_LOG_FILE);
 
-            FileOutputStream fos = new FileOutputStream(CONSOLE_LOG_FILE, true);
-            PrintStream fileStream = new PrintStream(fos, true);
+        // Original terminal output streams
+        originalOut = System.out;
+        originalErr = System.err;
 
-            // Original terminal output streams
-            PrintStream originalOut = System.out;
-            PrintStream originalErr = System.err;
+        // Tee both file and original terminal
+        System.setOut(new PrintStream(new TeeOutputStream(originalOut, consoleLog), true));
+        System.setErr(new PrintStream(new TeeOutputStream(originalErr, consoleLog), true));
 
-            // Tee both file and original terminal
-            System.setOut(new PrintStream(new TeeOutputStream(originalOut, fileStream), true));
-            System.setErr(new PrintStream(new TeeOutputStream(originalErr, fileStream), true));
+        System.out.println("[" + LocalDateTime.now() + "] Console output redirected to file AND terminal.");
+    }
 
-            System.out.println("[" + LocalDateTime.now() + "] Console output redirected to file AND terminal.");
-        } catch (IOException e) {
-            e.printStackTrace();
+    // Put the terminal streams back before the sink stops taking output
+    @PreDestroy
+    public void restoreConsoleOutput() {
+        if (originalOut != null) {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
         }
     }
 
-    // TeeOutputStream sends output to both original and file
+    // TeeOutputStream sends output to the original stream and queues a copy for the log file
     private static class TeeOutputStream extends OutputStream {
-        private final OutputStream out1;
-        private final OutputStream out2;
+        private final OutputStream terminal;
+        private final AsyncLogSink.LogFile file;
 
-        public TeeOutputStream(OutputStream out1, OutputStream out2) {
-            this.out1 = out1;
-            this.out2 = out2;
+        public TeeOutputStream(OutputStream terminal, AsyncLogSink.LogFile file) {
+            this.terminal = terminal;
+            this.file = file;
         }
 
         @Override
         public void write(int b) throws IOException {
-            out1.write(b);
-            out2.write(b);
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        // PrintStream hands over whole encoded chunks, so each println reaches both sides in one piece
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            terminal.write(b, off, len);
+            file.append(b, off, len);
         }
 
         @Override
         public void flush() throws IOException {
-            out1.flush();
-            out2.flush();
+            terminal.flush();
         }
 
         @Override
         public void close() throws IOException {
-            out1.close();
-            out2.close();
+            terminal.close();
         }
     }
 }
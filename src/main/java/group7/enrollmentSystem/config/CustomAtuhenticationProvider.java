@@ -8,6 +8,7 @@ import group7.enrollmentSystem.models.Student;
 import group7.enrollmentSystem.models.User;
 import group7.enrollmentSystem.repos.StudentRepo;
 import group7.enrollmentSystem.repos.UserRepo;
+import group7.enrollmentSystem.services.PasswordVerificationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -15,7 +16,6 @@ import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
@@ -24,7 +24,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CustomAtuhenticationProvider implements AuthenticationProvider {
     private final UserRepo userRepo;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordVerificationService passwordVerificationService;
     private final StudentRepo studentRepo;
 
     @Override
@@ -38,9 +38,11 @@ public class CustomAtuhenticationProvider implements AuthenticationProvider {
         }
 
         User user = data.get();
-        if(!passwordEncoder.matches(rawPassword, user.getPassword())){
+        // Hashed on the bounded password pool, not on this request thread
+        if(!passwordVerificationService.matches(rawPassword, user.getPassword())){
             throw new BadCredentialsException("Invalid credentials");
         }
+        passwordVerificationService.rehashIfNeeded(user, rawPassword);
 
         if(!user.isEnabled()){
 
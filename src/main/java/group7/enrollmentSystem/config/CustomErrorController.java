@@ -28,6 +28,7 @@ public class CustomErrorController implements ErrorController {
             case 404 -> errorMessage.append("The page you are looking for does not exist.");
             case 403 -> errorMessage.append("You do not have permission to access this page.");
             case 500 -> errorMessage.append("An internal server error occurred. Please try again later.");
+            case 503 -> errorMessage.append("Too many sign-ins right now. Please try again in a few seconds.");
             default -> errorMessage.append("An unexpected error occurred.");
         }
 
@@ -3,6 +3,7 @@ package group7.enrollmentSystem.config;
 
 import group7.enrollmentSystem.enums.OnHoldTypes;
 import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 
 public class CustomExceptions {
 
@@ -49,6 +50,20 @@ public class CustomExceptions {
         }
     }
 
+    // Internal so the authentication manager passes it straight up instead of trying other providers
+    public static class LoginThrottledException extends InternalAuthenticationServiceException {
+        private final int retryAfterSeconds;
+
+        public LoginThrottledException(int retryAfterSeconds) {
+            super("Too many sign-ins right now. Please try again in a few seconds.");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
     public static class StudentNotFoundException extends RuntimeException {
         public StudentNotFoundException(String email) {
             super("Student " + email + " not found.");
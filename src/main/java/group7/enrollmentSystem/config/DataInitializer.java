@@ -40,9 +40,11 @@ public class DataInitializer implements CommandLineRunner {
     private final CoursePrerequisiteRepo coursePrerequisiteRepo;
     private final StudentProgrammeRepo studentProgrammeRepo;
     private final StudentHoldHistoryRepo studentHoldHistoryRepo;
+    private final IdSequenceAligner idSequenceAligner;
 
     @Override
     public void run(String... args) {
+        idSequenceAligner.align();
         initializeCourseEnrollmentStatus();
         initializeAdminUser();
         initializeStudents();
@@ -53,6 +55,7 @@ public class DataInitializer implements CommandLineRunner {
         linkStudentsToProgrammes();     // Assign students to BSE or BNS
         initializeCourseEnrollments();
         restoreCoursePrerequisiteFromBackup();
+        idSequenceAligner.align();          // The restore writes explicit ids
     }
     private void restoreCoursePrerequisiteFromBackup() {
         if (coursePrerequisiteRepo.count() > 0) {
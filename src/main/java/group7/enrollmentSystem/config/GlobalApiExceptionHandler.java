@@ -3,6 +3,7 @@ package group7.enrollmentSystem.config;
 import group7.enrollmentSystem.dtos.classDtos.ErrorResponseDTO;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.DisabledException;
@@ -63,6 +64,12 @@ public class GlobalApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.LOCKED)
                 .body(new ErrorResponseDTO(e.getMessage(), 423));
     }
+    @ExceptionHandler(CustomExceptions.LoginThrottledException.class)
+    public ResponseEntity<ErrorResponseDTO> handleLoginThrottled(CustomExceptions.LoginThrottledException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ErrorResponseDTO(e.getMessage(), 503));
+    }
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ErrorResponseDTO> handleAuthenticationException(AuthenticationException e) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
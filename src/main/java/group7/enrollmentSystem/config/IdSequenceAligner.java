@@ -0,0 +1,24 @@
+package group7.enrollmentSystem.config;
+
+import group7.enrollmentSystem.models.IdSequences;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * MySQL has no sequences, so Hibernate keeps each one as a one-row {@code <name>} table. Rows inserted with explicit
+ * ids (the prerequisite backup restore, or tables that were filled while the ids were still AUTO_INCREMENT) are not
+ * seen by those tables; this moves every sequence past the highest id in its table, with one allocation to spare.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdSequenceAligner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void align() {
+        IdSequences.TABLES.forEach((sequence, table) -> jdbcTemplate.update(
+                "UPDATE " + sequence + " SET next_val = GREATEST(next_val, " +
+                        "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + 1 + " + IdSequences.ALLOCATION_SIZE + ")"));
+    }
+}
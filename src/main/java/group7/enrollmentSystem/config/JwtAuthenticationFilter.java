@@ -1,9 +1,6 @@
 package group7.enrollmentSystem.config;
 
 import group7.enrollmentSystem.helpers.JwtService;
-import group7.enrollmentSystem.models.User;
-import group7.enrollmentSystem.repos.UserRepo;
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.io.IOException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -11,22 +8,31 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
-import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Static resources never carry a token worth checking
+    private static final List<String> SKIPPED_PATH_PREFIXES = List.of("/styles/", "/images/", "/scripts/", "/favicon.ico");
+
     private final JwtService jwtService;
-    private final UserRepo userRepo;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        for (String prefix : SKIPPED_PATH_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -42,21 +48,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        Claims claims;
+        JwtService.VerifiedToken token;
         try {
-            claims = jwtService.parseToken(jwt);
-            Date issuedAt = claims.getIssuedAt();
-            long now = System.currentTimeMillis();
-            long issuedAtMillis = issuedAt.getTime();
-            long threshHold = 15 * 60 * 1000;
-            if (now - issuedAtMillis >= threshHold) {
-                //Generate a new token with a new expiration
-                String username = claims.getSubject();
-                User user = userRepo.findByEmail(username).orElseThrow();
-                List<String> roles = claims.get("roles", List.class);
-                String newToken = jwtService.generateToken(user, 3600);
-                response.setHeader("X-New-Token", newToken);
-            }
+            token = jwtService.verify(jwt);
+            // Same replacement for every request in the window, built from the token's own roles
+            jwtService.refreshIfDue(token).ifPresent(newToken -> response.setHeader("X-New-Token", newToken));
 
             // System.out.println("JWT successfully parsed");
         } catch (io.jsonwebtoken.ExpiredJwtException e) {
@@ -73,21 +69,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        String username = claims.getSubject();
+        String username = token.subject();
        // System.out.println("Authenticated user from token: " + username);
 
-        List<String> roles = claims.get("roles", List.class);
-       // System.out.println("Roles from token: " + roles);
-
-        List<GrantedAuthority> authorities = roles.stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                     username,
                     null,
-                    authorities
+                    token.authorities()
             );
             SecurityContextHolder.getContext().setAuthentication(authToken);
            // System.out.println("SecurityContext authentication set");
@@ -96,5 +85,3 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 }
-
-
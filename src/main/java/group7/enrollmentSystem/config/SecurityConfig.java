@@ -1,8 +1,10 @@
 package group7.enrollmentSystem.config;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
@@ -33,7 +35,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/student/**").hasRole("STUDENT")
-                        .requestMatchers("/login","/api/**", "/register", "/styles/**", "/images/**").permitAll()
+                        .requestMatchers("/login","/api/**", "/register", "/styles/**", "/images/**", "/error").permitAll()
                         .anyRequest().authenticated()
                 )
 
@@ -42,7 +44,10 @@ public class SecurityConfig {
                 .formLogin(login -> login
                         .loginPage("/login")
                         .failureHandler((request, response, exception) -> {
-                            if (exception instanceof CustomExceptions.StudentOnHoldException) {
+                            if (exception instanceof CustomExceptions.LoginThrottledException throttled) {
+                                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(throttled.getRetryAfterSeconds()));
+                                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, throttled.getMessage());
+                            } else if (exception instanceof CustomExceptions.StudentOnHoldException) {
                                 response.sendRedirect("/login?hold=" +
                                         ((CustomExceptions.StudentOnHoldException)exception).getHoldType().name());
                             } else if (exception instanceof DisabledException) {
@@ -0,0 +1,205 @@
+package group7.enrollmentSystem.config;
+
+import group7.enrollmentSystem.helpers.TransactionHooks;
+import group7.enrollmentSystem.helpers.UploadStore;
+import group7.enrollmentSystem.models.CompassionateApplication;
+import group7.enrollmentSystem.models.GraduationApplication;
+import group7.enrollmentSystem.models.User;
+import group7.enrollmentSystem.repos.CompassionateApplicationRepo;
+import group7.enrollmentSystem.repos.GraduationApplicationRepo;
+import group7.enrollmentSystem.repos.UserRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Moves files uploaded before the {@link UploadStore} into it. Compassionate application documents and signatures,
+ * graduation application signatures and profile pictures that still name a file in the flat upload directory are
+ * stored and pointed at the stored copy instead; the old file is deleted once every row naming it is committed.
+ * A row whose file is missing keeps its path, which resolves, as before, to nothing.
+ * <p>
+ * Each row is updated in its own transaction, so a restart part way through carries on where it stopped. Files in
+ * the flat directory that no row names any more, such as those of rows committed just before a run stopped, are
+ * deleted at the end of every run. When the flat directory holds no files, startup does nothing more than list it.
+ */
+@Component
+public class UploadStoreMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadStoreMigration.class);
+    // The UUIDs the old upload code put into names to keep them unique
+    private static final Pattern UUID_PART = Pattern.compile(
+            "_?[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}_?");
+
+    private final UploadStore uploadStore;
+    private final CompassionateApplicationRepo compassionateApplicationRepo;
+    private final GraduationApplicationRepo graduationApplicationRepo;
+    private final UserRepo userRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final Path legacyDirectory;
+    private final boolean enabled;
+
+    public UploadStoreMigration(UploadStore uploadStore, CompassionateApplicationRepo compassionateApplicationRepo,
+                                GraduationApplicationRepo graduationApplicationRepo, UserRepo userRepo,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${upload-store.directory:uploadedFiles}") String legacyDirectory,
+                                @Value("${upload-store.migrate-legacy:true}") boolean enabled) {
+        this.uploadStore = uploadStore;
+        this.compassionateApplicationRepo = compassionateApplicationRepo;
+        this.graduationApplicationRepo = graduationApplicationRepo;
+        this.userRepo = userRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.legacyDirectory = Paths.get(legacyDirectory);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void migrateOnStartup() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * Returns the number of rows updated.
+     */
+    public int migrate() {
+        if (!hasLegacyFiles()) {
+            return 0;
+        }
+        Set<Path> migrated = new HashSet<>();
+        // Flat files a row still names after its transaction, which the sweep at the end must keep
+        Set<Path> stillNamed = new HashSet<>();
+        int updated = 0;
+
+        for (Long id : compassionateApplicationRepo.findAll().stream().map(CompassionateApplication::getId).toList()) {
+            updated += inTransaction(() -> compassionateApplicationRepo.findById(id).map(app -> {
+                List<String> documents = app.getDocumentPaths() == null ? List.of() : app.getDocumentPaths();
+                List<String> movedDocuments = documents.stream().map(path -> migrate(path, migrated, stillNamed)).toList();
+                String signature = migrate(app.getStudentSignatureFilePath(), migrated, stillNamed);
+                if (movedDocuments.equals(documents) && Objects.equals(signature, app.getStudentSignatureFilePath())) {
+                    return false;
+                }
+                app.setDocumentPaths(new ArrayList<>(movedDocuments));
+                app.setStudentSignatureFilePath(signature);
+                compassionateApplicationRepo.save(app);
+                return true;
+            }).orElse(false));
+        }
+
+        for (Long id : graduationApplicationRepo.findAll().stream().map(GraduationApplication::getId).toList()) {
+            updated += inTransaction(() -> graduationApplicationRepo.findById(id).map(app -> {
+                String signature = migrate(app.getStudentSignatureFilePath(), migrated, stillNamed);
+                if (Objects.equals(signature, app.getStudentSignatureFilePath())) {
+                    return false;
+                }
+                app.setStudentSignatureFilePath(signature);
+                graduationApplicationRepo.save(app);
+                return true;
+            }).orElse(false));
+        }
+
+        // Profile pictures were stored as a name in the upload directory rather than a path
+        for (User listed : userRepo.findByPfpFilePathIsNotNull()) {
+            if (uploadStore.isReference(listed.getPfpFilePath())) {
+                continue;
+            }
+            updated += inTransaction(() -> userRepo.findById(listed.getId()).map(user -> {
+                String picture = user.getPfpFilePath();
+                String moved = uploadStore.isReference(picture) ? picture
+                        : migrate(picture, legacyDirectory.resolve(picture), migrated, stillNamed);
+                if (moved.equals(picture)) {
+                    return false;
+                }
+                user.setPfpFilePath(moved);
+                userRepo.save(user);
+                return true;
+            }).orElse(false));
+        }
+
+        migrated.removeAll(stillNamed);
+        migrated.forEach(this::delete);
+        int orphaned = 0;
+        try (Stream<Path> files = Files.list(legacyDirectory)) {
+            for (Path file : files.filter(Files::isRegularFile).map(file -> file.toAbsolutePath().normalize()).toList()) {
+                if (!stillNamed.contains(file) && !migrated.contains(file) && delete(file)) {
+                    orphaned++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list {}: {}", legacyDirectory, e.getMessage());
+        }
+        logger.info("Moved {} uploaded files into the upload store, updating {} rows; deleted {} files no row names",
+                migrated.size(), updated, orphaned);
+        return updated;
+    }
+
+    private String migrate(String path, Set<Path> migrated, Set<Path> stillNamed) {
+        return path == null || uploadStore.isReference(path) ? path
+                : migrate(path, Paths.get(path), migrated, stillNamed);
+    }
+
+    private String migrate(String path, Path file, Set<Path> migrated, Set<Path> stillNamed) {
+        Path named = file.toAbsolutePath().normalize();
+        if (!Files.isRegularFile(file)) {
+            logger.warn("Uploaded file {} is missing, leaving its path as it is", path);
+            return path;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            String reference = uploadStore.store(in, originalName(file.getFileName().toString()));
+            TransactionHooks.afterCommit(() -> migrated.add(named));
+            TransactionHooks.onRollback(() -> stillNamed.add(named));
+            return reference;
+        } catch (IOException e) {
+            logger.warn("Could not move uploaded file {} into the upload store: {}", path, e.getMessage());
+            stillNamed.add(named);
+            return path;
+        }
+    }
+
+    private boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete migrated upload {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private int inTransaction(Supplier<Boolean> update) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> update.get())) ? 1 : 0;
+    }
+
+    private boolean hasLegacyFiles() {
+        if (!Files.isDirectory(legacyDirectory)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.list(legacyDirectory)) {
+            return files.anyMatch(Files::isRegularFile);
+        } catch (IOException e) {
+            logger.warn("Could not list {}: {}", legacyDirectory, e.getMessage());
+            return false;
+        }
+    }
+
+    // medical_<uuid>.pdf, <uuid>_signature.png and <uuid>_photo.jpg were uploaded as medical.pdf, signature.png
+    // and photo.jpg
+    private static String originalName(String fileName) {
+        String name = UUID_PART.matcher(fileName).replaceFirst("");
+        return name.isBlank() || name.startsWith(".") ? fileName : name;
+    }
+}
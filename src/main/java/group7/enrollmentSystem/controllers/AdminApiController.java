@@ -1,5 +1,6 @@
 package group7.enrollmentSystem.controllers;
 
+import group7.enrollmentSystem.aspects.TracingAspect;
 import group7.enrollmentSystem.config.CustomExceptions;
 import group7.enrollmentSystem.dtos.appDtos.LoginResponse;
 import group7.enrollmentSystem.dtos.classDtos.*;
@@ -15,25 +16,36 @@ import group7.enrollmentSystem.helpers.FileUploads;
 import group7.enrollmentSystem.helpers.JwtService;
 import group7.enrollmentSystem.models.*;
 import group7.enrollmentSystem.repos.*;
+import group7.enrollmentSystem.services.BulkDocumentExportService;
 import group7.enrollmentSystem.services.CourseProgrammeService;
 import group7.enrollmentSystem.services.CourseService;
+import group7.enrollmentSystem.services.EmailOutboxDispatcher;
+import group7.enrollmentSystem.services.EnrollmentImportService;
+import group7.enrollmentSystem.services.HoldRestrictionMatrixService;
+import group7.enrollmentSystem.services.PasswordVerificationService;
 import group7.enrollmentSystem.services.StudentHoldService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -51,7 +63,13 @@ public class AdminApiController {
     private final StudentRepo studentRepo;
     private final StudentHoldService studentHoldService;
     private final HoldServiceRestrictionRepo restrictionRepo;
+    private final HoldRestrictionMatrixService holdRestrictionMatrixService;
     private final FileUploads fileUploads;
+    private final EnrollmentImportService enrollmentImportService;
+    private final PasswordVerificationService passwordVerificationService;
+    private final TracingAspect tracingAspect;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+    private final BulkDocumentExportService bulkDocumentExportService;
 
     @PostMapping("/fileMeta")
     public ResponseEntity<List<Map<String, String>>> getFileMetadata(@RequestBody List<String> filePaths) {
@@ -65,45 +83,18 @@ public class AdminApiController {
 
 
     @PostMapping("/getFiles")
-    public ResponseEntity<byte[]> getFilesAsZip(@RequestBody Map<String, List<String>> request) {
-        try {
-            List<String> filePaths = request.get("filePaths");
-            byte[] zipData = fileUploads.createZipFromFiles(filePaths);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"supporting_documents.zip\"")
-                    .header(HttpHeaders.CONTENT_TYPE, "application/zip")
-                    .body(zipData);
-
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<StreamingResponseBody> getFilesAsZip(@RequestBody Map<String, List<String>> request) {
+        List<String> filePaths = request.get("filePaths");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"supporting_documents.zip\"")
+                .header(HttpHeaders.CONTENT_TYPE, "application/zip")
+                .body(out -> fileUploads.writeZip(filePaths, out));
     }
 
-
-
     @PostMapping("/getFile")
-    public ResponseEntity<byte[]> getFile(@RequestBody Map<String, String> request) {
-        try {
-            String fileName = request.get("fileName");
-            System.out.println("Retrieving file: " + fileName);
-            byte[] fileData = fileUploads.retrieveFile(fileName);
-            if (fileData == null) {
-                return ResponseEntity.notFound().build();
-            }
-
-            // Detect MIME type dynamically
-            String mimeType = Files.probeContentType(Paths.get(fileName));
-            if (mimeType == null) {
-                mimeType = "application/octet-stream"; // Fallback MIME type
-            }
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, mimeType)
-                    .body(fileData);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public ResponseEntity<Resource> getFile(@RequestBody Map<String, String> request, HttpServletRequest servletRequest)
+            throws IOException {
+        return fileUploads.serveFile(request.get("fileName"), servletRequest);
     }
 
 
@@ -472,9 +463,104 @@ public class AdminApiController {
         restriction.setBlockGraduationApplication(dto.isBlockGraduationApplication());
 
         restriction = restrictionRepo.save(restriction);
+        holdRestrictionMatrixService.refresh();
         return ResponseEntity.ok(studentHoldService.convertToDto(restriction));
     }
 
+    @Operation(
+            summary = "Import enrollments",
+            description = "Bulk-loads current enrollments from a CSV of studentId,courseCode[,semester] lines. " +
+                    "Each row gets the checks of a student's own enrollment (semester offering, existing enrollment, holds, " +
+                    "the 4-course quota, prerequisites and seats); rows that fail them, or name unknown students or courses, are skipped and reported."
+    )
+    @PostMapping(value = "/enrollments/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<EnrollmentImportResultDto> importEnrollments(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(enrollmentImportService.importCsv(in));
+        }
+    }
+
+    @Operation(
+            summary = "Export programme documents",
+            description = "Queues a job that renders the transcript and audit PDF of every student currently in the programme into one ZIP. " +
+                    "Poll the returned job for progress; its downloadUrl is set once the ZIP is ready."
+    )
+    @PostMapping("/exports/programmes/{programmeCode}")
+    public ResponseEntity<BulkExportJobDto> startProgrammeExport(@PathVariable String programmeCode) {
+        return ResponseEntity.accepted().body(bulkDocumentExportService.startProgrammeExport(programmeCode));
+    }
+
+    @Operation(
+            summary = "Document exports",
+            description = "Recent export jobs, newest first, with their progress."
+    )
+    @GetMapping("/exports")
+    public ResponseEntity<List<BulkExportJobDto>> getExports() {
+        return ResponseEntity.ok(bulkDocumentExportService.getJobs());
+    }
+
+    @Operation(
+            summary = "Document export progress",
+            description = "Students exported and failed so far, and the download link once the job has completed."
+    )
+    @GetMapping("/exports/{jobId}")
+    public ResponseEntity<BulkExportJobDto> getExport(@PathVariable String jobId) {
+        return ResponseEntity.of(bulkDocumentExportService.getJob(jobId));
+    }
+
+    @Operation(
+            summary = "Download document export",
+            description = "The ZIP of a completed export job, with a folder of PDFs per student."
+    )
+    @GetMapping("/exports/{jobId}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable String jobId) throws IOException {
+        Optional<Path> zip = bulkDocumentExportService.getExportFile(jobId);
+        if (zip.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zip.get().getFileName() + "\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .contentLength(Files.size(zip.get()))
+                .body(new FileSystemResource(zip.get()));
+    }
+
+    @Operation(
+            summary = "Password hashing stats",
+            description = "Queue depth, rejections and hash latency of the pool that checks login passwords."
+    )
+    @GetMapping("/password-hashing/stats")
+    public ResponseEntity<PasswordHashingStatsDto> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordVerificationService.getStats());
+    }
+
+    @Operation(
+            summary = "Email outbox stats",
+            description = "Emails waiting in the outbox, send throughput, retries and whether sending is paused after the mail server pushed back."
+    )
+    @GetMapping("/email-outbox/stats")
+    public ResponseEntity<EmailOutboxStatsDto> getEmailOutboxStats() {
+        return ResponseEntity.ok(emailOutboxDispatcher.getStats());
+    }
+
+    @Operation(
+            summary = "Method latency",
+            description = "Per-method call counts and latency percentiles from the tracing aspect, with its current settings."
+    )
+    @GetMapping("/tracing")
+    public ResponseEntity<TracingStatsDto> getTracingStats() {
+        return ResponseEntity.ok(tracingAspect.getStats());
+    }
+
+    @Operation(
+            summary = "Update tracing settings",
+            description = "Sets the fraction of calls written to the trace log and the package prefixes that are not traced at all."
+    )
+    @PutMapping("/tracing/settings")
+    public ResponseEntity<TracingSettingsDto> updateTracingSettings(@RequestBody TracingSettingsDto settings) {
+        return ResponseEntity.ok(tracingAspect.updateSettings(settings));
+    }
+
     @Operation(summary = "Check service access for student")
     @GetMapping("/check-service-access/{studentId}")
     public ResponseEntity<Map<String, Boolean>> checkServiceAccess(
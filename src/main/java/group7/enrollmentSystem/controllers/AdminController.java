@@ -8,6 +8,7 @@ import group7.enrollmentSystem.repos.*;
 import group7.enrollmentSystem.services.CourseEnrollmentService;
 import group7.enrollmentSystem.services.CourseProgrammeService;
 import group7.enrollmentSystem.services.CourseService;
+import group7.enrollmentSystem.services.EnrollmentStateService;
 import group7.enrollmentSystem.services.FormsService;
 import group7.enrollmentSystem.services.ProgrammeService;
 import jakarta.servlet.http.HttpServletResponse;
@@ -33,7 +34,7 @@ import java.util.List;
 public class AdminController {
     private final CourseRepo courseRepo;
     private final CourseService courseService;
-    private final EnrollmentStateRepo enrollmentStateRepo;
+    private final EnrollmentStateService enrollmentStateService;
 
     private final CourseProgrammeService courseProgrammeService;
     private final ProgrammeRepo programmeRepo;
@@ -52,8 +53,7 @@ public class AdminController {
         model.addAttribute("user", user);
 
         // Fetch the enrollment state
-        EnrollmentState enrollmentState = enrollmentStateRepo.findById(1L).orElseThrow(() -> new RuntimeException("Enrollment state not found"));
-        model.addAttribute("enrollmentState", enrollmentState);
+        model.addAttribute("enrollmentState", enrollmentStateService.getState());
 
         return "admin";
     }
@@ -223,9 +223,7 @@ public class AdminController {
     //---------Control for Admin to turn off/on students' access to enrollment page-----------------
     @PostMapping("/toggleEnrollment")
     public String toggleEnrollment(RedirectAttributes redirectAttributes) {
-        EnrollmentState enrollmentState = enrollmentStateRepo.findById(1L).orElseThrow(() -> new RuntimeException("Enrollment state not found"));
-        enrollmentState.setOpen(!enrollmentState.isOpen());
-        enrollmentStateRepo.save(enrollmentState);
+        EnrollmentStateService.Snapshot enrollmentState = enrollmentStateService.toggleOpen();
 
         String message = enrollmentState.isOpen() ? "Student Course Enrollment is now open." : "Student Course Enrollment is now closed.";
         redirectAttributes.addFlashAttribute("message", message);
@@ -234,11 +232,7 @@ public class AdminController {
     }
     @PostMapping("/toggleSemester")
     public String toggleSemester(RedirectAttributes redirectAttributes) {
-        EnrollmentState enrollmentState = enrollmentStateRepo.findById(1L)
-                .orElseThrow(() -> new RuntimeException("Enrollment state not found"));
-
-        enrollmentState.setSemesterOne(!enrollmentState.isSemesterOne());
-        enrollmentStateRepo.save(enrollmentState);
+        EnrollmentStateService.Snapshot enrollmentState = enrollmentStateService.toggleSemester();
 
         String message = enrollmentState.isSemesterOne()
                 ? "Switched to Semester 1."
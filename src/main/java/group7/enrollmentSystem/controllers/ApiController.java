@@ -1,9 +1,11 @@
 package group7.enrollmentSystem.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import group7.enrollmentSystem.dtos.appDtos.CourseIdsResponse;
 import group7.enrollmentSystem.dtos.appDtos.LoginResponse;
 import group7.enrollmentSystem.dtos.classDtos.EmailRequest;
 import group7.enrollmentSystem.dtos.classDtos.LoginRequest;
+import group7.enrollmentSystem.dtos.classDtos.PrerequisiteRenderDto;
 import group7.enrollmentSystem.dtos.serverKtDtos.CourseIdDto;
 import group7.enrollmentSystem.dtos.serverKtDtos.CourseIdsDto;
 import group7.enrollmentSystem.helpers.EmailService;
@@ -16,12 +18,17 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -37,6 +44,7 @@ public class ApiController {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/send")
     public ResponseEntity<String> sendTestMail(@RequestBody EmailRequest request) {
@@ -44,8 +52,8 @@ public class ApiController {
         model.put("subject", request.getSubject());
         model.put("header", request.getHeader());
         model.put("body", request.getBody());
-        emailService.sendHtmlMail(request.getTo(), request.getSubject(), "notification", model);
-        return ResponseEntity.ok("Email sent to " + request.getTo());
+        emailService.queueHtmlMail(request.getTo(), request.getSubject(), "notification", model);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body("Email queued for " + request.getTo());
     }
 
     @Operation(
@@ -90,18 +98,40 @@ public class ApiController {
     @PostMapping("/generateSvgBatch")
     public ResponseEntity<List<CourseIdsResponse>> generateBatchSvg(@RequestBody CourseIdsDto request) {
         List<Long> courseIds = request.getCourseIds();
+        Map<Long, PrerequisiteRenderDto> renders = courseService.getRenderedPrerequisites(courseIds);
         List<CourseIdsResponse> response = new ArrayList<>();
         for(Long id : courseIds) {
-            String code = courseService.getMermaidDiagramForCourse(id);
-            if (code == null || code.trim().isEmpty()) {
-                code = "graph TD; A[Code missing] --> B[Course ID: " + id + "]";
-            }
-            code = code.replace("\n", "; ").replace("\r", "");
-            response.add(new CourseIdsResponse(id, code));
+            response.add(new CourseIdsResponse(id, flatMermaidOrPlaceholder(id, renders.get(id))));
         }
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Stream SVG diagrams for multiple courses",
+            description = "Streams one JSON object per line (NDJSON) with each course's Mermaid diagram code as soon as it is rendered. " +
+                    "Lines arrive in completion order, not request order."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Diagram codes streamed as NDJSON"),
+            @ApiResponse(responseCode = "400", description = "Invalid course IDs"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or expired token"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/generateSvgBatch/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBatchSvg(@RequestBody CourseIdsDto request) {
+        List<Long> courseIds = request.getCourseIds();
+        StreamingResponseBody body = out -> courseService.streamRenderedPrerequisites(courseIds, (id, render) -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(new CourseIdsResponse(id, flatMermaidOrPlaceholder(id, render))));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @Operation(
             summary = "Generate SVG diagram for a course",
             description = "Generates Mermaid diagram code for a single course's prerequisite structure."
@@ -114,12 +144,16 @@ public class ApiController {
     })
     @PostMapping("/generateSvg")
     public ResponseEntity<String> generateSvg(@RequestBody CourseIdDto request) {
-        String code = courseService.getMermaidDiagramForCourse(request.getCourseId());
+        Long id = request.getCourseId();
+        return ResponseEntity.ok(flatMermaidOrPlaceholder(id, courseService.getRenderedPrerequisites(id)));
+    }
+
+    private String flatMermaidOrPlaceholder(Long courseId, PrerequisiteRenderDto render) {
+        String code = render.getFlatMermaid();
         if (code == null || code.trim().isEmpty()) {
-            code = "graph TD; A[Code missing] --> B[Course ID: " + request.getCourseId() + "]";
+            code = "graph TD; A[Code missing] --> B[Course ID: " + courseId + "]";
         }
-        code = code.replace("\n", "; ").replace("\r", "");
-        return ResponseEntity.ok(code);
+        return code;
     }
 
 
@@ -0,0 +1,33 @@
+package group7.enrollmentSystem.controllers;
+
+import group7.enrollmentSystem.services.StudentHoldService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.thymeleaf.context.LazyContextVariable;
+
+import java.security.Principal;
+
+/**
+ * Exposes the signed-in student's hold access snapshot to student page templates as {@code holdAccess},
+ * e.g. {@code ${holdAccess.canAccess('COURSE_ENROLLMENT')}}. It is only built if a template reads it,
+ * and then shares the per-request snapshot the controller's own checks use.
+ */
+@ControllerAdvice(assignableTypes = StudentController.class)
+@RequiredArgsConstructor
+public class StudentAccessAdvice {
+
+    private final StudentHoldService studentHoldService;
+
+    @ModelAttribute("holdAccess")
+    public LazyContextVariable<StudentHoldService.AccessSnapshot> holdAccess(Principal principal) {
+        if (principal == null) return null;
+        String email = principal.getName();
+        return new LazyContextVariable<>() {
+            @Override
+            protected StudentHoldService.AccessSnapshot loadValue() {
+                return studentHoldService.getAccessSnapshot(email);
+            }
+        };
+    }
+}
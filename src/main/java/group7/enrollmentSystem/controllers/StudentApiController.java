@@ -1,6 +1,5 @@
 package group7.enrollmentSystem.controllers;
 
-import com.itextpdf.text.DocumentException;
 import group7.enrollmentSystem.config.CustomExceptions;
 import group7.enrollmentSystem.dtos.appDtos.*;
 import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentDto;
@@ -12,8 +11,11 @@ import group7.enrollmentSystem.dtos.serverKtDtos.MessageDto;
 import group7.enrollmentSystem.dtos.serverKtDtos.UserIdDto;
 import group7.enrollmentSystem.enums.OnHoldTypes;
 
+import group7.enrollmentSystem.helpers.InvoicePdfGeneratorService;
 import group7.enrollmentSystem.helpers.JwtService;
 import group7.enrollmentSystem.helpers.ProgrammeAuditPdfGeneratorService;
+import group7.enrollmentSystem.helpers.StudentDocumentCache;
+import group7.enrollmentSystem.helpers.StudentDocumentCache.DocumentType;
 import group7.enrollmentSystem.models.*;
 import group7.enrollmentSystem.repos.UserRepo;
 import group7.enrollmentSystem.repos.StudentRepo;
@@ -37,6 +39,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.security.Principal;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +57,8 @@ public class StudentApiController {
     private final JwtService jwtService;
     private final UserRepo userRepo;
     private final ProgrammeAuditPdfGeneratorService programmeAuditPdfGeneratorService;
+    private final InvoicePdfGeneratorService invoicePdfGeneratorService;
+    private final StudentDocumentCache studentDocumentCache;
     private final StudentRepo studentRepo;
     private final StudentHoldService studentHoldService;
 
@@ -218,8 +223,8 @@ public class StudentApiController {
      * Downloads the student's programme audit as a PDF.
      *
      * @param authentication the authentication object containing the student's email.
-     * @return a PDF file containing the audit report.
-     * @throws Exception if PDF generation fails.
+     * @param ifNoneMatch the ETag of a copy the client already has, if any.
+     * @return a PDF file containing the audit report, or 304 if the client's copy is current.
      */
     @Operation(
             summary = "Download audit report (PDF)",
@@ -227,37 +232,33 @@ public class StudentApiController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully generated PDF audit"),
+            @ApiResponse(responseCode = "304", description = "The audit matching If-None-Match is still current"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or expired token"),
             @ApiResponse(responseCode = "403", description = "Forbidden - User doesn't have required permissions"),
             @ApiResponse(responseCode = "404", description = "Student not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error while generating PDF")
     })
     @PostMapping("/audit/download")
-    public ResponseEntity<byte[]> downloadStudentAudit(Authentication authentication) throws Exception {
+    public ResponseEntity<Resource> downloadStudentAudit(Authentication authentication,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws IOException {
         String email = authentication.getName();
-        Student student = studentRepo.findByEmail(email)
+        Long studentId = studentRepo.findIdByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
-        // Build the audit DTO from service
-        StudentFullAuditDto auditDto = studentProgrammeAuditService.getFullAudit(student.getStudentId());
-
-        // Generate PDF
-        byte[] pdfBytes = programmeAuditPdfGeneratorService.generateAuditPdf(auditDto);
-
-        // Return PDF as a downloadable response
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "student_audit.pdf");
-
-        return ResponseEntity.ok().headers(headers).body(pdfBytes);
+        // The audit is only built and rendered when the student has no current copy cached
+        return studentDocumentCache.download(DocumentType.AUDIT, studentId, ifNoneMatch, out -> {
+            Student student = studentRepo.findById(studentId)
+                    .orElseThrow(() -> new RuntimeException("Student not found"));
+            StudentFullAuditDto auditDto = studentProgrammeAuditService.getFullAudit(student.getStudentId());
+            programmeAuditPdfGeneratorService.writeAuditPdf(auditDto, out);
+        });
     }
     /**
      * Downloads the student's invoice as a PDF document.
      *
      * @param request a map containing "userId" of the student.
-     * @return a PDF invoice for the student.
-     * @throws DocumentException if there's an error generating the PDF.
-     * @throws IOException if file IO fails.
+     * @param ifNoneMatch the ETag of a copy the client already has, if any.
+     * @return a PDF invoice for the student, or 304 if the client's copy is current.
      */
     @Operation(
             summary = "Download student invoice (PDF)",
@@ -265,6 +266,7 @@ public class StudentApiController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully generated PDF invoice"),
+            @ApiResponse(responseCode = "304", description = "The invoice matching If-None-Match is still current"),
             @ApiResponse(responseCode = "400", description = "Invalid user ID format"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or expired token"),
             @ApiResponse(responseCode = "403", description = "Forbidden - User doesn't have required permissions"),
@@ -272,13 +274,11 @@ public class StudentApiController {
             @ApiResponse(responseCode = "500", description = "Internal server error while generating PDF")
     })
     @PostMapping("/invoice/download")
-    public ResponseEntity<byte[]> downloadInvoice(@RequestBody UserIdDto request) throws DocumentException, IOException {
+    public ResponseEntity<Resource> downloadInvoice(@RequestBody UserIdDto request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws IOException {
         Student student = studentRepo.findById(request.getUserId()).orElseThrow();
-        byte[] pdfBytes = studentService.generateInvoicePdfForStudent(student.getEmail());
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "invoice.pdf");
-        return ResponseEntity.ok().headers(headers).body(pdfBytes);
+        return studentDocumentCache.download(DocumentType.INVOICE, student.getId(), ifNoneMatch, out ->
+                invoicePdfGeneratorService.writeInvoicePdf(studentService.getInvoiceForStudent(student.getEmail()), out));
     }
 
     /**
@@ -389,7 +389,7 @@ public class StudentApiController {
     public ResponseEntity<Resource> getProfilePicture(@PathVariable Long userId) throws IOException {
         Resource fileResource = studentService.getProfilePicture(userId);
 
-        String contentType = Files.probeContentType(Paths.get(fileResource.getURI()));
+        String contentType = Files.probeContentType(Paths.get(fileResource.getFilename()));
 
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType != null ? contentType : "application/octet-stream"))
@@ -412,6 +412,19 @@ public class StudentApiController {
         return ResponseEntity.ok(activeHolds);
     }
 
+    @Operation(summary = "Check access to all services",
+            description = "Returns, for every hold-restricted service, whether the student can access it")
+    @GetMapping("/check-access")
+    public ResponseEntity<Map<StudentHoldService.HoldRestrictionType, Boolean>> checkAllAccess(Authentication authentication) {
+        StudentHoldService.AccessSnapshot snapshot = studentHoldService.getAccessSnapshot(authentication.getName());
+
+        Map<StudentHoldService.HoldRestrictionType, Boolean> access = new EnumMap<>(StudentHoldService.HoldRestrictionType.class);
+        for (StudentHoldService.HoldRestrictionType restrictionType : StudentHoldService.HoldRestrictionType.values()) {
+            access.put(restrictionType, snapshot.canAccess(restrictionType));
+        }
+        return ResponseEntity.ok(access);
+    }
+
     @Operation(summary = "Check service access",
             description = "Checks if a specific service is accessible for the student")
     @GetMapping("/check-service-access")
@@ -1,6 +1,5 @@
 package group7.enrollmentSystem.controllers;
 
-import com.itextpdf.text.DocumentException;
 import group7.enrollmentSystem.config.CustomExceptions;
 import group7.enrollmentSystem.dtos.appDtos.EnrollCourseRequest;
 import group7.enrollmentSystem.dtos.classDtos.*;
@@ -10,11 +9,14 @@ import group7.enrollmentSystem.helpers.JwtService;
 import group7.enrollmentSystem.models.*;
 import group7.enrollmentSystem.repos.*;
 import group7.enrollmentSystem.services.*;
+import group7.enrollmentSystem.helpers.CoursesTranscriptPdfGeneratorService;
 import group7.enrollmentSystem.helpers.InvoicePdfGeneratorService;
+import group7.enrollmentSystem.helpers.StudentDocumentCache;
+import group7.enrollmentSystem.helpers.StudentDocumentCache.DocumentType;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -35,11 +37,13 @@ public class StudentController {
     private final CourseEnrollmentService courseEnrollmentService;
     private final StudentRepo studentRepo;
     private final StudentProgrammeService studentProgrammeService;
-    private final EnrollmentStateRepo enrollmentStateRepo;
+    private final EnrollmentStateService enrollmentStateService;
     private final CourseRepo courseRepo;
     private final CourseEnrollmentRepo courseEnrollmentRepo;
     private final UserRepo userRepo;
     private final InvoicePdfGeneratorService invoicePdfGeneratorService;
+    private final CoursesTranscriptPdfGeneratorService coursesTranscriptPdfGeneratorService;
+    private final StudentDocumentCache studentDocumentCache;
     private final StudentService studentService;
     private final StudentProgrammeAuditService auditService;
     private final StudentHoldService studentHoldService;
@@ -49,8 +53,7 @@ public class StudentController {
 
     @GetMapping("/enrollment")
     public String enrollment(Model model, Principal principal) {
-        EnrollmentState state = enrollmentStateRepo.findById(1L)
-                .orElseThrow(() -> new RuntimeException("Enrollment state not found"));
+        EnrollmentStateService.Snapshot state = enrollmentStateService.getState();
 
 //        if (!state.isOpen()) {
 //            model.addAttribute("pageOpen", false);
@@ -75,15 +78,14 @@ public class StudentController {
         Programme programme = studentProgrammeService.getStudentProgramme(student);
 
         int semester = state.isSemesterOne() ? 1 : 2;
-        List<CourseEnrollmentDto> eligibleCourses = studentService.getEligibleCourses(principal.getName());
-        List<CourseEnrollmentDto> enrolledCourses = studentService.getEnrolledCourses(student);
+        EnrollmentPageDto enrollmentPage = studentService.getEnrollmentPage(student, programme, state.isSemesterOne());
 
         model.addAttribute("student", student);
         model.addAttribute("programme", programme.getName());
         model.addAttribute("semester", semester);
         model.addAttribute("pageOpen", true);
-        model.addAttribute("activeEnrollments", enrolledCourses);
-        model.addAttribute("eligibleCourses", eligibleCourses);
+        model.addAttribute("activeEnrollments", enrollmentPage.getEnrolledCourses());
+        model.addAttribute("eligibleCourses", enrollmentPage.getEligibleCourses());
 
         return "enrollment";
     }
@@ -196,13 +198,13 @@ public class StudentController {
         return "studentAudit"; // this maps to studentAudit.html in templates folder
     }
     @GetMapping("/invoice/download")
-    public ResponseEntity<byte[]> downloadInvoice(Principal principal) throws DocumentException, IOException {
-        byte[] pdfBytes = studentService.generateInvoicePdfForStudent(principal.getName());
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "invoice.pdf");
-
-        return ResponseEntity.ok().headers(headers).body(pdfBytes);
+    public ResponseEntity<Resource> downloadInvoice(Principal principal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws IOException {
+        Long studentId = studentRepo.findIdByEmail(principal.getName())
+                .orElseThrow(() -> new RuntimeException("Student not found"));
+        // Only rendered when the student has no current invoice cached
+        return studentDocumentCache.download(DocumentType.INVOICE, studentId, ifNoneMatch, out ->
+                invoicePdfGeneratorService.writeInvoicePdf(studentService.getInvoiceForStudent(principal.getName()), out));
     }
 
     private boolean checkAccess(Principal principal, StudentHoldService.HoldRestrictionType restrictionType) {
@@ -218,20 +220,20 @@ public class StudentController {
         Student student = studentRepo.findByEmail(authentication.getName())
                 .orElseThrow(() -> new CustomExceptions.StudentNotFoundException(authentication.getName()));
 
-        StudentHoldViewDto holdStatus = studentHoldService.getStudentHoldDetails(authentication.getName());
-        model.addAttribute("holdStatus", holdStatus);
+        // The template reads the student's holds from holdAccess
         return "viewHolds";
     }
 
     @GetMapping("/completedCourses/download")
-    public ResponseEntity<byte[]> downloadTranscript(Principal principal) throws DocumentException, IOException {
+    public ResponseEntity<Resource> downloadTranscript(Principal principal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws IOException {
         try {
             studentHoldService.checkAccess(principal.getName(), StudentHoldService.HoldRestrictionType.GENERATE_TRANSCRIPT);
-            byte[] pdfBytes = studentService.generateCoursesTranscriptPdfForStudent(principal.getName());
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "transcript.pdf");
-            return ResponseEntity.ok().headers(headers).body(pdfBytes);
+            Long studentId = studentRepo.findIdByEmail(principal.getName())
+                    .orElseThrow(() -> new RuntimeException("Student not found"));
+            return studentDocumentCache.download(DocumentType.TRANSCRIPT, studentId, ifNoneMatch, out ->
+                    coursesTranscriptPdfGeneratorService.writeTranscriptPdf(
+                            studentService.getCoursesTranscriptForStudent(principal.getName()), out));
         } catch (CustomExceptions.StudentOnHoldException e) {
             throw new CustomExceptions.ServiceRestrictedException("DOWNLOAD_TRANSCRIPT", e.getHoldType());
         }
@@ -0,0 +1,24 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import group7.enrollmentSystem.enums.BulkExportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BulkExportJobDto {
+    private String id;
+    private String programmeCode;
+    private BulkExportStatus status;
+    private int students;
+    private int exported;
+    private int failed;
+    private List<String> errors;
+    private long zipBytes;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private String downloadUrl;
+}
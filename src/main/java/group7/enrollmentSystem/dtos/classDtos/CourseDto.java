@@ -14,6 +14,7 @@ public class CourseDto {
     private Short level;
     private boolean offeredSem1;
     private boolean offeredSem2;
+    private Integer capacity;
     private String prerequisites;
     private List<String> programmes;
     private List<Long> programmeIds;
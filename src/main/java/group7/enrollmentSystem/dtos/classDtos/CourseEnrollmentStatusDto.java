@@ -0,0 +1,21 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One row of a student's enrollment history with the flags needed to tell completed,
+ * failed and currently taken courses apart in a single query.
+ */
+@Data
+@AllArgsConstructor
+public class CourseEnrollmentStatusDto {
+    private Long courseId;
+    private String courseCode;
+    private String title;
+    private double cost;
+    private boolean paid;
+    private boolean completed;
+    private boolean failed;
+    private boolean currentlyTaking;
+}
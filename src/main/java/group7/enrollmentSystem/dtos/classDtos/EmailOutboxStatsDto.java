@@ -0,0 +1,22 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class EmailOutboxStatsDto {
+    private long queueDepth;
+    private long failedInQueue;
+    private long sent;
+    private long retried;
+    private long failed;
+    private long droppedDuplicates;
+    private long batches;
+    private long lastBatchSize;
+    private long lastBatchMillis;
+    private double sentPerSecond;
+    private LocalDateTime pausedUntil;
+}
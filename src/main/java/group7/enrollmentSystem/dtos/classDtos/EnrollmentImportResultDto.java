@@ -0,0 +1,17 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk enrollment import: rows written, rows skipped and why (first few only).
+ */
+@Data
+@AllArgsConstructor
+public class EnrollmentImportResultDto {
+    private int imported;
+    private int skipped;
+    private List<String> errors;
+}
@@ -0,0 +1,13 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class EnrollmentPageDto {
+    private List<CourseEnrollmentDto> eligibleCourses;
+    private List<CourseEnrollmentDto> enrolledCourses;
+}
@@ -0,0 +1,17 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MethodLatencyDto {
+    private String method;
+    private long calls;
+    private long errors;
+    private double meanMicros;
+    private long p50Micros;
+    private long p95Micros;
+    private long p99Micros;
+    private long maxMicros;
+}
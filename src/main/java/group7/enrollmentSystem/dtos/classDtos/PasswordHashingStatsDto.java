@@ -0,0 +1,20 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PasswordHashingStatsDto {
+    private int poolSize;
+    private int activeThreads;
+    private int queueDepth;
+    private int queueRemainingCapacity;
+    private long verifications;
+    private long rejected;
+    private long rehashed;
+    private double averageHashMillis;
+    private double maxHashMillis;
+    private double averageQueueWaitMillis;
+    private int bcryptStrength;
+}
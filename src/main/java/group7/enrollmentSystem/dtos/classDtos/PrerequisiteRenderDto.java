@@ -0,0 +1,16 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Rendered forms of a course's prerequisites: the readable expression,
+ * the Mermaid graph and the same graph flattened onto one line with "; ".
+ */
+@Data
+@AllArgsConstructor
+public class PrerequisiteRenderDto {
+    private String expression;
+    private String mermaid;
+    private String flatMermaid;
+}
@@ -0,0 +1,16 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Number of students currently taking a course in one semester of one year.
+ */
+@Data
+@AllArgsConstructor
+public class SeatCountDto {
+    private Long courseId;
+    private int academicYear;
+    private int semester;
+    private long seatsTaken;
+}
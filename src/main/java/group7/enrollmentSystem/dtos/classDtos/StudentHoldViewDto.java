@@ -1,7 +1,6 @@
 package group7.enrollmentSystem.dtos.classDtos;
 
 import group7.enrollmentSystem.enums.OnHoldTypes;
-import group7.enrollmentSystem.models.OnHoldStatus;
 import lombok.Data;
 
 import java.util.List;
@@ -13,7 +12,7 @@ public class StudentHoldViewDto {
     private String email;
     private boolean hasHold;
     //private OnHoldTypes holdType;
-    private List<OnHoldStatus> activeHolds;
+    private List<OnHoldTypes> activeHolds;
     private String holdMessage;
 
     private boolean canRegisterCourses;
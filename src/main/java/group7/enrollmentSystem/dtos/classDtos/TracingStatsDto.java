@@ -0,0 +1,14 @@
+package group7.enrollmentSystem.dtos.classDtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TracingStatsDto {
+    private TracingSettingsDto settings;
+    private long droppedLines;
+    private List<MethodLatencyDto> methods;
+}
@@ -0,0 +1,6 @@
+package group7.enrollmentSystem.dtos.interfaceDtos;
+
+public interface CourseIdAndLevel {
+    public Long getCourseId();
+    public Short getLevel();
+}
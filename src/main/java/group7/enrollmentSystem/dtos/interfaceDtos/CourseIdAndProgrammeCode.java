@@ -0,0 +1,6 @@
+package group7.enrollmentSystem.dtos.interfaceDtos;
+
+public interface CourseIdAndProgrammeCode {
+    public Long getCourseId();
+    public String getProgrammeCode();
+}
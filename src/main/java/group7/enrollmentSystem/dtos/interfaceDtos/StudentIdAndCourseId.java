@@ -0,0 +1,6 @@
+package group7.enrollmentSystem.dtos.interfaceDtos;
+
+public interface StudentIdAndCourseId {
+    public Long getStudentId();
+    public Long getCourseId();
+}
@@ -0,0 +1,8 @@
+package group7.enrollmentSystem.dtos.interfaceDtos;
+
+import group7.enrollmentSystem.enums.OnHoldTypes;
+
+public interface StudentIdAndHoldType {
+    public Long getStudentId();
+    public OnHoldTypes getHoldType();
+}
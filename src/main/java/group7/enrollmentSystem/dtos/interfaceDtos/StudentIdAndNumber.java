@@ -0,0 +1,6 @@
+package group7.enrollmentSystem.dtos.interfaceDtos;
+
+public interface StudentIdAndNumber {
+    public Long getId();
+    public String getStudentId();
+}
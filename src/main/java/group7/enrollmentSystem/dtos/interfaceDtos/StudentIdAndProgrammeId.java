@@ -0,0 +1,6 @@
+package group7.enrollmentSystem.dtos.interfaceDtos;
+
+public interface StudentIdAndProgrammeId {
+    public Long getStudentId();
+    public Long getProgrammeId();
+}
@@ -0,0 +1,6 @@
+package group7.enrollmentSystem.dtos.interfaceDtos;
+
+public interface StudentNumberAndEmail {
+    public String getStudentId();
+    public String getEmail();
+}
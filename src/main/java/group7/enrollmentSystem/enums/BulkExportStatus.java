@@ -0,0 +1,8 @@
+package group7.enrollmentSystem.enums;
+
+public enum BulkExportStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
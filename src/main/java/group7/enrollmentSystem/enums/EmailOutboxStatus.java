@@ -0,0 +1,9 @@
+package group7.enrollmentSystem.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    // Claimed by a dispatcher that is sending it
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,306 @@
+package group7.enrollmentSystem.helpers;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log files written by one background thread. Producers put entries into a lock-free ring buffer and return
+ * straight away; when the ring is full the entry is dropped and counted rather than blocking the caller. The
+ * writer drains the ring into a buffer per file and writes those to a {@link FileChannel} once the ring is empty.
+ * <p>
+ * Each file is rotated when it would grow past {@code log-sink.max-file-bytes} or has been open longer than
+ * {@code log-sink.max-file-age-minutes}: the active file is renamed with a timestamp and a new one started, so
+ * the configured name always holds the latest output.
+ */
+@Component
+public class AsyncLogSink {
+
+    private static final DateTimeFormatter ROTATED_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final long maxFileAgeMillis;
+    // Captured before anything redirects System.err, so write failures cannot loop back into the sink
+    private final PrintStream errorStream = System.err;
+
+    // Bounded multi-producer ring (Vyukov): a slot is free for position p when its sequence is p, readable at p + 1
+    private final int mask;
+    private final LogFile[] targets;
+    private final Object[] payloads;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final Map<String, LogFile> files = new ConcurrentHashMap<>();
+    private final List<LogFile> openFiles = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong flushedPosition = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * A file fed by this sink. Everything but the name is only touched by the writer thread.
+     */
+    public final class LogFile {
+        private final String fileName;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private FileChannel channel;
+        private long size;
+        private long openedAtMillis;
+
+        private LogFile(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public Path getPath() {
+            return directory.resolve(fileName);
+        }
+
+        /**
+         * Queues text to be written as is; returns false if it was dropped because the sink is full.
+         */
+        public boolean append(String text) {
+            return offer(this, text);
+        }
+
+        /**
+         * Queues a copy of the given bytes; returns false if they were dropped because the sink is full.
+         */
+        public boolean append(byte[] bytes, int offset, int length) {
+            byte[] copy = new byte[length];
+            System.arraycopy(bytes, offset, copy, 0, length);
+            return offer(this, copy);
+        }
+    }
+
+    public AsyncLogSink(@Value("${log-sink.directory:logs}") String directory,
+                        @Value("${log-sink.capacity:16384}") int capacity,
+                        @Value("${log-sink.max-file-bytes:10485760}") long maxFileBytes,
+                        @Value("${log-sink.max-file-age-minutes:1440}") long maxFileAgeMinutes) {
+        this.directory = Paths.get(directory);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFileAgeMillis = TimeUnit.MINUTES.toMillis(maxFileAgeMinutes);
+        int slots = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = slots - 1;
+        this.targets = new LogFile[slots];
+        this.payloads = new Object[slots];
+        this.sequences = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            sequences.set(i, i);
+        }
+        this.writer = Thread.ofPlatform().name("log-sink-writer").daemon().start(this::run);
+    }
+
+    /**
+     * The file with the given name in the sink's directory; the same handle is returned for the same name.
+     */
+    public LogFile file(String fileName) {
+        return files.computeIfAbsent(fileName, LogFile::new);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Waits until everything appended before this call has been written to its file, or the timeout passes.
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (flushedPosition.get() < target) {
+            if (System.nanoTime() > deadline || !writer.isAlive()) {
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean offer(LogFile file, Object payload) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    targets[index] = file;
+                    payloads[index] = payload;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            int drained = drain();
+            if (drained == 0) {
+                flushAll();
+                if (!running && tail.get() == head) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        for (LogFile file : openFiles) {
+            closeChannel(file);
+        }
+    }
+
+    private int drain() {
+        int drained = 0;
+        long now = System.currentTimeMillis();
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return drained;
+            }
+            LogFile file = targets[index];
+            Object payload = payloads[index];
+            targets[index] = null;
+            payloads[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+            drained++;
+            byte[] bytes = payload instanceof byte[] raw ? raw : ((String) payload).getBytes(StandardCharsets.UTF_8);
+            write(file, bytes, now);
+        }
+    }
+
+    private void write(LogFile file, byte[] bytes, long now) {
+        try {
+            if (file.channel == null) {
+                open(file, now);
+            }
+            long pending = file.size + file.buffer.position();
+            if (pending > 0 && (pending + bytes.length > maxFileBytes || now - file.openedAtMillis >= maxFileAgeMillis)) {
+                rotate(file, now);
+            }
+            if (bytes.length > file.buffer.remaining()) {
+                writeBuffer(file);
+            }
+            if (bytes.length > file.buffer.capacity()) {
+                file.size += writeFully(file.channel, ByteBuffer.wrap(bytes));
+            } else {
+                file.buffer.put(bytes);
+            }
+        } catch (IOException e) {
+            errorStream.println("Failed to write log file " + file.fileName + ": " + e.getMessage());
+            file.buffer.clear();
+            closeChannel(file);
+        }
+    }
+
+    private void flushAll() {
+        long position = head;
+        for (LogFile file : openFiles) {
+            try {
+                writeBuffer(file);
+            } catch (IOException e) {
+                errorStream.println("Failed to write log file " + file.fileName + ": " + e.getMessage());
+                file.buffer.clear();
+            }
+        }
+        flushedPosition.set(position);
+    }
+
+    private void open(LogFile file, long now) throws IOException {
+        Files.createDirectories(directory);
+        file.channel = FileChannel.open(file.getPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        file.size = file.channel.size();
+        file.openedAtMillis = now;
+        if (!openFiles.contains(file)) {
+            openFiles.add(file);
+        }
+    }
+
+    private void rotate(LogFile file, long now) throws IOException {
+        writeBuffer(file);
+        closeChannel(file);
+        String name = file.fileName;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        String stamp = LocalDateTime.now().format(ROTATED_SUFFIX);
+        Path rotated = directory.resolve(base + "_" + stamp + extension);
+        for (int n = 1; Files.exists(rotated); n++) {
+            rotated = directory.resolve(base + "_" + stamp + "-" + n + extension);
+        }
+        Files.move(file.getPath(), rotated);
+        open(file, now);
+    }
+
+    private void writeBuffer(LogFile file) throws IOException {
+        if (file.buffer.position() == 0 || file.channel == null) {
+            return;
+        }
+        file.buffer.flip();
+        file.size += writeFully(file.channel, file.buffer);
+        file.buffer.clear();
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    private void closeChannel(LogFile file) {
+        if (file.channel == null) {
+            return;
+        }
+        try {
+            file.channel.close();
+        } catch (IOException e) {
+            errorStream.println("Failed to close log file " + file.fileName + ": " + e.getMessage());
+        }
+        file.channel = null;
+    }
+}
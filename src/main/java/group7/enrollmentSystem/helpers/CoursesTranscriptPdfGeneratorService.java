@@ -1,47 +1,39 @@
 package group7.enrollmentSystem.helpers;
 
 import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
 import group7.enrollmentSystem.dtos.classDtos.CoursesTranscriptDTO;
-import lombok.AllArgsConstructor;
-import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.List;
 
+import static group7.enrollmentSystem.helpers.PdfRenderingService.*;
+
 @Service
 @RequiredArgsConstructor
 public class CoursesTranscriptPdfGeneratorService {
 
     private final GradeService gradeService;
+    private final PdfRenderingService pdfRenderingService;
 
-    public byte[] generateTranscriptPdf(CoursesTranscriptDTO dto) throws DocumentException, IOException {
-        Document document = new Document();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        PdfWriter.getInstance(document, out);
-        document.open();
-
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 16, Font.BOLD);
-        Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
-        Font normalFont = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
-
-        // Add USP Logo
-        ClassPathResource imageResource = new ClassPathResource("static/images/usp_logo.png");
-        Image logo = Image.getInstance(imageResource.getURL());
-        logo.scaleToFit(110, 110);
-        document.add(logo);
-        document.add(new Paragraph("\n"));
+    /**
+     * Writes the transcript PDF to {@code out} without buffering the whole document.
+     */
+    public void writeTranscriptPdf(CoursesTranscriptDTO dto, OutputStream out) throws IOException {
+        pdfRenderingService.render(out, document -> addTranscript(document, dto));
+    }
 
+    private void addTranscript(Document document, CoursesTranscriptDTO dto) throws DocumentException {
         // Header Info
-        document.add(new Paragraph("ACADEMIC TRANSCRIPT", titleFont));
-        document.add(new Paragraph("Student ID: " + dto.getStudentId(), normalFont));
-        document.add(new Paragraph("Name: " + dto.getStudentName(), normalFont));
-        document.add(new Paragraph("Programme: " + dto.getProgramme(), normalFont));
+        document.add(new Paragraph("ACADEMIC TRANSCRIPT", TITLE_FONT));
+        document.add(new Paragraph("Student ID: " + dto.getStudentId(), NORMAL_FONT));
+        document.add(new Paragraph("Name: " + dto.getStudentName(), NORMAL_FONT));
+        document.add(new Paragraph("Programme: " + dto.getProgramme(), NORMAL_FONT));
         document.add(new Paragraph("\n"));
 
         // Prepare filtered completed list (show only highest fail or highest pass per course)
@@ -70,9 +62,9 @@ public class CoursesTranscriptPdfGeneratorService {
 
         // Convert to list and pass to section
         List<CoursesTranscriptDTO.CourseTranscriptRow> completedFiltered = new ArrayList<>(finalCompleted.values());
-        addCourseTableSection(document, "History", completedFiltered, headerFont, normalFont);
-        addCourseTableSection(document, "Passed Courses", dto.getPassedCourses(), headerFont, normalFont);
-        addCourseTableSection(document, "Failed Courses", dto.getFailedCourses(), headerFont, normalFont);
+        addCourseTableSection(document, "History", completedFiltered);
+        addCourseTableSection(document, "Passed Courses", dto.getPassedCourses());
+        addCourseTableSection(document, "Failed Courses", dto.getFailedCourses());
 
         // GPA Calculation (based on completed courses)
         double totalGpa = 0;
@@ -108,21 +100,18 @@ public class CoursesTranscriptPdfGeneratorService {
         }
 
 
-        document.add(new Paragraph(String.format("Calculated GPA: %.2f", gpa), headerFont));
-        document.add(new Paragraph("Total Units Completed: " + dto.getCompletedCourses().size(), normalFont));
-        document.add(new Paragraph("Total Units Passed: " + dto.getPassedCourses().size(), normalFont));
-        document.add(new Paragraph("Total Units Failed: " + failedOnlyAttempts.size(), normalFont));
+        document.add(new Paragraph(String.format("Calculated GPA: %.2f", gpa), HEADER_FONT));
+        document.add(new Paragraph("Total Units Completed: " + dto.getCompletedCourses().size(), NORMAL_FONT));
+        document.add(new Paragraph("Total Units Passed: " + dto.getPassedCourses().size(), NORMAL_FONT));
+        document.add(new Paragraph("Total Units Failed: " + failedOnlyAttempts.size(), NORMAL_FONT));
 
-        document.close();
-        return out.toByteArray();
     }
 
     private void addCourseTableSection(Document document, String title,
-                                       List<CoursesTranscriptDTO.CourseTranscriptRow> rows,
-                                       Font headerFont, Font normalFont) throws DocumentException {
+                                       List<CoursesTranscriptDTO.CourseTranscriptRow> rows) throws DocumentException {
         if (rows == null || rows.isEmpty()) return;
 
-        document.add(new Paragraph(title, headerFont));
+        document.add(new Paragraph(title, HEADER_FONT));
         document.add(new Paragraph("\n"));
 
         PdfPTable table = new PdfPTable(4);
@@ -131,16 +120,16 @@ public class CoursesTranscriptPdfGeneratorService {
 
         String[] headers = {"Course Code", "Course Title", "Grade", "Mark"};
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
             cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
             table.addCell(cell);
         }
 
         for (CoursesTranscriptDTO.CourseTranscriptRow row : rows) {
-            table.addCell(new Phrase(row.getCourseCode(), normalFont));
-            table.addCell(new Phrase(row.getTitle(), normalFont));
-            table.addCell(new Phrase(row.getGrade(), normalFont));
-            table.addCell(new Phrase(String.valueOf(row.getMark()), normalFont));
+            table.addCell(new Phrase(row.getCourseCode(), NORMAL_FONT));
+            table.addCell(new Phrase(row.getTitle(), NORMAL_FONT));
+            table.addCell(new Phrase(row.getGrade(), NORMAL_FONT));
+            table.addCell(new Phrase(String.valueOf(row.getMark()), NORMAL_FONT));
         }
 
         document.add(table);
@@ -2,12 +2,14 @@ package group7.enrollmentSystem.helpers;
 
 import group7.enrollmentSystem.config.CustomExceptions;
 import group7.enrollmentSystem.enums.OnHoldTypes;
+import group7.enrollmentSystem.models.EmailOutbox;
+import group7.enrollmentSystem.services.EmailOutboxService;
 import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
@@ -15,62 +17,75 @@ import org.thymeleaf.spring6.SpringTemplateEngine;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Renders notification emails and queues them in the outbox; nothing here talks to the mail server except
+ * {@link #openTransport()} and {@link #deliver}, which EmailOutboxDispatcher uses to send a batch over one connection.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final JavaMailSenderImpl mailSender;
     private final SpringTemplateEngine templateEngine;
+    private final EmailOutboxService emailOutboxService;
+
+    /**
+     * Renders the template and queues the email in the caller's transaction.
+     */
+    public void queueHtmlMail(String to, String subject, String templateName, Map<String, Object> model) {
+        Context context = new Context();
+        context.setVariables(model);
+        String htmlContent = templateEngine.process(templateName, context);
+        emailOutboxService.enqueue(to, subject, templateName, htmlContent);
+    }
 
-    public void sendHtmlMail(String to, String subject, String templateName, Map<String, Object> model) {
-        try {
-            Context context = new Context();
-            context.setVariables(model);
-            String htmlContent = templateEngine.process(templateName, context);
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+    /**
+     * Connects to the configured mail server; the caller sends any number of emails over it and closes it.
+     */
+    public Transport openTransport() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp");
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
 
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true); // true = is HTML
+    public void deliver(Transport transport, EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
 
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getHtmlBody(), true); // true = is HTML
+        if (mailSender.getUsername() != null) {
+            helper.setFrom(mailSender.getUsername());
         }
+        message.saveChanges();
+
+        transport.sendMessage(message, message.getAllRecipients());
     }
-    @Async
-    public void sendHtmlMailAsync(String to, String subject, String templateName, Map<String, Object> model) {
-        sendHtmlMail(to, subject, templateName, model);
-    }
-    @Async
+
     public void notifyStudentGradeChangeRequest(String studentEmail, Map<String, Object> studentModel) {
         String subject = "Grade Change Request Notification";
         String templateName = "notification";
-        sendHtmlMail(studentEmail, subject, templateName, studentModel);
+        queueHtmlMail(studentEmail, subject, templateName, studentModel);
     }
-    @Async
     public void notifyAdminGradeChangeRequest(String mail, Map<String, Object> adminModel) {
         String subject = "Grade Change Request Notification";
         String templateName = "notification";
-        sendHtmlMail(mail, subject, templateName, adminModel);
+        queueHtmlMail(mail, subject, templateName, adminModel);
     }
 
-    @Async
     public void notifyAdminNewApplication(String mail, Map<String, Object> adminModel) {
         String subject = "New Application Notification";
         String templateName = "email_admin";
-        sendHtmlMail(mail, subject, templateName, adminModel);
+        queueHtmlMail(mail, subject, templateName, adminModel);
     }
-    @Async
     public void notifyStudentApplicationSubmission(String mail, Map<String, Object> studentModel) {
         String subject = "New Application Notification";
         String templateName = "email_generic";
-        sendHtmlMail(mail, subject, templateName, studentModel);
+        queueHtmlMail(mail, subject, templateName, studentModel);
     }
 
-    @Async
     public void notifyStudentHoldAdded(String studentEmail, String studentName, OnHoldTypes holdType) {
         String subject = "Account Hold Notification";
         String holdMessage = CustomExceptions.StudentOnHoldException.getHoldMessage(holdType);
@@ -82,10 +97,9 @@ public class EmailService {
                 "<p>" + holdMessage + "</p>" +
                 "<p>Contact the administration for any questions.</p>");
 
-        sendHtmlMail(studentEmail, subject, "notification", model);
+        queueHtmlMail(studentEmail, subject, "notification", model);
     }
 
-    @Async
     public void notifyStudentHoldRemoved(String studentEmail, String studentName, OnHoldTypes holdType) {
         String subject = "Account Hold Notification";
         String holdTypeName = holdType.toString().toLowerCase().replace("_", " ");
@@ -97,10 +111,9 @@ public class EmailService {
                 "<p>The <strong>" + holdTypeName + " </strong>hold has been removed from your account.</p>" +
                 "<p>You can now access all available services restricted by this hold.</p>");
 
-        sendHtmlMail(studentEmail, subject, "notification", model);
+        queueHtmlMail(studentEmail, subject, "notification", model);
     }
 
-    @Async
     public void notifyAdminHoldChange(String adminEmail, String studentName, String studentEmail, OnHoldTypes holdType, boolean added) {
         String action = added ? "added" : "removed";
         String subject = "Student Hold " + action.substring(0, 1).toUpperCase() + action.substring(1);
@@ -113,10 +126,9 @@ public class EmailService {
                 "<p><strong>Student Name:</strong> " + studentName + "</p>" +
                 "<p><strong>Student Email:</strong> " + studentEmail + "</p>");
 
-        sendHtmlMail(adminEmail, subject, "notification", model);
+        queueHtmlMail(adminEmail, subject, "notification", model);
     }
 
-    @Async
     public void notifyStudentApplicationStatusUpdate(String studentEmail, String fullName, String studentId, String applicationType, String status) {
         Map<String, Object> model = new HashMap<>();
         model.put("fullName", fullName);
@@ -124,10 +136,9 @@ public class EmailService {
         model.put("applicationType", applicationType);
         model.put("status", status);
 
-        sendHtmlMail(studentEmail, "Your Application Status Update", "status_report", model);
+        queueHtmlMail(studentEmail, "Your Application Status Update", "status_report", model);
     }
 
-    @Async
     public void notifyAdminApplicationStatusChange(String adminEmail, String fullName, String studentId, String applicationType, String status) {
         Map<String, Object> model = new HashMap<>();
         model.put("fullName", fullName);
@@ -135,7 +146,7 @@ public class EmailService {
         model.put("applicationType", applicationType);
         model.put("status", status);
 
-        sendHtmlMail(adminEmail, "Student Application Status Updated", "status_report", model);
+        queueHtmlMail(adminEmail, "Student Application Status Updated", "status_report", model);
     }
 
 }
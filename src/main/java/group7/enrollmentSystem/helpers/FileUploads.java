@@ -1,16 +1,23 @@
 package group7.enrollmentSystem.helpers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.io.FilenameUtils;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
-import java.io.ByteArrayOutputStream;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.*;
 import java.util.*;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -18,7 +25,19 @@ import java.util.zip.ZipOutputStream;
 @RequiredArgsConstructor
 public class FileUploads {
 
-    private static final String UPLOAD_DIR = "uploadedFiles";
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    // Deflating these again costs CPU and saves next to nothing
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "pdf", "jpg", "jpeg", "png", "gif", "webp", "heic", "zip", "gz", "7z", "rar",
+            "docx", "xlsx", "pptx", "odt", "ods", "mp3", "mp4");
+
+    // Request attributes through which Tomcat's connector sends a file itself (Globals.SENDFILE_*)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final UploadStore uploadStore;
 
     public String saveFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
@@ -26,27 +45,8 @@ public class FileUploads {
             return null;
         }
 
-        try {
-            // Clean and extract parts of filename
-            String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-            String baseName = FilenameUtils.getBaseName(originalFilename); // name without extension
-            String extension = FilenameUtils.getExtension(originalFilename); // file extension
-
-            // Create filename as originalName_UUID.extension
-            String filename = baseName + "_" + UUID.randomUUID() + "." + extension;
-
-            // Create upload directory if not exists
-            Path uploadDir = Paths.get("uploadedFiles");
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-
-            // Save the file
-            Path destination = uploadDir.resolve(filename);
-            Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
-
-            return "uploadedFiles/" + filename;
-
+        try (InputStream in = file.getInputStream()) {
+            return uploadStore.store(in, file.getOriginalFilename());
         } catch (IOException e) {
             System.err.println("Failed to store file: " + file.getOriginalFilename());
             e.printStackTrace();
@@ -72,45 +72,89 @@ public class FileUploads {
         try {
             String base64Data = base64Image.split(",")[1];
             byte[] imageBytes = Base64.getDecoder().decode(base64Data);
-            String filename = UUID.randomUUID() + "_signature.png";
-
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            Files.createDirectories(uploadPath);
-
-            Path signaturePath = uploadPath.resolve(filename);
-            Files.write(signaturePath, imageBytes);
-
-            return UPLOAD_DIR + "/" + filename;
+            return uploadStore.store(new ByteArrayInputStream(imageBytes), "signature.png");
         } catch (IOException e) {
             throw new RuntimeException("Failed to store signature image", e);
         }
     }
-    // Function to retrieve a single file
-    public byte[] retrieveFile(String filePath) throws IOException {
-        Path path = Paths.get(filePath);
-        byte[] fileBytes = Files.readAllBytes(path);
-        byte[] fileData = new byte[fileBytes.length];
-        for (int i = 0; i < fileBytes.length; i++) {
-            fileData[i] = fileBytes[i];
+
+    /**
+     * Releases stored files that are no longer referenced, once the surrounding transaction commits.
+     */
+    public void release(Collection<String> filePaths) {
+        filePaths.stream().filter(Objects::nonNull).forEach(uploadStore::release);
+    }
+
+    /**
+     * An uploaded file as a response. Without a Range header, and when the container can send files itself
+     * (Tomcat's sendfile), the file goes from the page cache to the socket without being copied through the heap.
+     * Otherwise it is streamed from disk, and Spring answers a Range with 206 and just the requested bytes.
+     */
+    public ResponseEntity<Resource> serveFile(String filePath, HttpServletRequest request) throws IOException {
+        Path path = uploadStore.resolve(filePath).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(path)) {
+            return ResponseEntity.notFound().build();
+        }
+        MediaType mediaType = mediaType(uploadStore.fileName(filePath));
+
+        if (request.getHeader(HttpHeaders.RANGE) == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            long length = Files.size(path);
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return ResponseEntity.ok()
+                    .contentType(mediaType)
+                    .contentLength(length)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .build();
         }
-        return fileData;
+        return ResponseEntity.ok().contentType(mediaType).body(new FileSystemResource(path));
     }
 
-    // Function to retrieve multiple files
-    public List<byte[]> retrieveFiles(List<String> filePaths) throws IOException {
-        List<byte[]> filesData = new ArrayList<>();
+    /**
+     * Writes the files to {@code out} as a ZIP, one file at a time through a small buffer. Formats that are already
+     * compressed are stored rather than deflated again, which means reading them once for the CRC first. Missing
+     * files are skipped, and a name already in the ZIP gets a number added. {@code out} is not closed.
+     */
+    public void writeZip(List<String> filePaths, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Set<String> names = new HashSet<>();
+        byte[] buffer = new byte[COPY_BUFFER_BYTES];
         for (String filePath : filePaths) {
-            filesData.add(retrieveFile(filePath));
+            Path path = uploadStore.resolve(filePath);
+            if (!Files.isRegularFile(path)) {
+                System.err.println("Skipping missing file in ZIP: " + filePath);
+                continue;
+            }
+            String name = uploadStore.fileName(filePath);
+            ZipEntry entry = new ZipEntry(uniqueName(names, name));
+            entry.setLastModifiedTime(Files.getLastModifiedTime(path));
+            if (COMPRESSED_EXTENSIONS.contains(FilenameUtils.getExtension(name).toLowerCase())) {
+                long size = Files.size(path);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(size);
+                entry.setCompressedSize(size);
+                entry.setCrc(crc(path, buffer));
+            }
+            zip.putNextEntry(entry);
+            try (InputStream in = Files.newInputStream(path)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+            }
+            zip.closeEntry();
         }
-        return filesData;
+        zip.finish();
+        zip.flush();
     }
 
     public List<Map<String, String>> getFileMetadata(List<String> filePaths) throws IOException {
         List<Map<String, String>> metadataList = new ArrayList<>();
 
         for (String path : filePaths) {
-            String mimeType = Files.probeContentType(Paths.get(path));
-            String name = Paths.get(path).getFileName().toString();
+            String name = uploadStore.fileName(path);
+            String mimeType = Files.probeContentType(Paths.get(name));
 
             Map<String, String> info = new HashMap<>();
             info.put("name", name);
@@ -122,25 +166,30 @@ public class FileUploads {
 
         return metadataList;
     }
-    public byte[] createZipFromFiles(List<String> filePaths) throws IOException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ZipOutputStream zos = new ZipOutputStream(baos)) {
-
-            for (String path : filePaths) {
-                byte[] fileData = retrieveFile(path);
-                if (fileData == null) continue;
-
-                String fileName = Paths.get(path).getFileName().toString();
-                ZipEntry entry = new ZipEntry(fileName);
-                zos.putNextEntry(entry);
-                zos.write(fileData);
-                zos.closeEntry();
-            }
 
-            zos.finish();
-            return baos.toByteArray();
+    // By the uploaded name, as stored files are named by their hash
+    private static MediaType mediaType(String fileName) throws IOException {
+        String mimeType = Files.probeContentType(Paths.get(fileName));
+        return mimeType == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(mimeType);
+    }
+
+    private static long crc(Path path, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
         }
+        return crc.getValue();
     }
 
+    private static String uniqueName(Set<String> names, String fileName) {
+        String name = fileName;
+        for (int copy = 2; !names.add(name); copy++) {
+            String extension = FilenameUtils.getExtension(fileName);
+            name = FilenameUtils.getBaseName(fileName) + " (" + copy + ")" + (extension.isEmpty() ? "" : "." + extension);
+        }
+        return name;
+    }
 }
-
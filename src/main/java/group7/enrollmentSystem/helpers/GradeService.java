@@ -3,60 +3,218 @@ package group7.enrollmentSystem.helpers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Grade thresholds from an external JSON file ({@code grades.config-file}), seeded from the bundled
+ * {@code configs/grades.json} the first time. The thresholds are compiled into a grade for every mark from 0 to 100
+ * and a grade point per grade, and swapped as a whole when the file changes, so {@link #getGrade(int)} is
+ * two array reads. An edit that does not parse or validate is logged and the previous thresholds stay in use.
+ */
 @Service
 public class GradeService {
 
-    private Map<String, Map<String, Object>> gradeData;
+    private static final Logger logger = LoggerFactory.getLogger(GradeService.class);
+    private static final String BUNDLED_THRESHOLDS = "configs/grades.json";
+    private static final String LOWEST_PASSING_GRADE = "D";
+    private static final String FALLBACK_GRADE = "F";
+    private static final int MAX_MARK = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path configFile;
+    private volatile GradeTable table;
+    private final AtomicLong revision = new AtomicLong();
+    private WatchService watchService;
+
+    /**
+     * Compiled thresholds. {@code gradeIndexByMark[mark]} indexes {@code grades} and {@code gradePoints};
+     * marks below every threshold fall back to F, which is listed even when the file has no F entry.
+     */
+    private record GradeTable(String[] grades, double[] gradePoints, byte[] gradeIndexByMark,
+                              Map<String, Integer> indexByGrade, int lowestPassingMark) {
+    }
+
+    public GradeService(@Value("${grades.config-file:config/grades.json}") String configFile) {
+        this.configFile = Paths.get(configFile).toAbsolutePath();
+    }
 
     @PostConstruct
     public void loadGradeThresholds() throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        gradeData = objectMapper.readValue(
-                new ClassPathResource("configs/grades.json").getFile(),
-                new TypeReference<Map<String, Map<String, Object>>>() {}
-        );
-        System.out.println("Grade thresholds loaded: " + gradeData);
+        if (Files.notExists(configFile)) {
+            Files.createDirectories(configFile.getParent());
+            try (InputStream bundled = new ClassPathResource(BUNDLED_THRESHOLDS).getInputStream()) {
+                Files.copy(bundled, configFile);
+            }
+            logger.info("Grade thresholds copied to {}", configFile);
+        }
+        Map<String, Map<String, Object>> thresholds = read(configFile);
+        use(compile(thresholds));
+        logger.info("Grade thresholds loaded from {}: {}", configFile, thresholds);
+        startWatcher();
+    }
+
+    @PreDestroy
+    public void stopWatcher() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
     }
 
     public String getGrade(int mark) {
-        return gradeData.entrySet().stream()
-                .sorted((e1, e2) -> {
-                    Integer v1 = (Integer) e1.getValue().get("mark");
-                    Integer v2 = (Integer) e2.getValue().get("mark");
-                    return v2.compareTo(v1);
-                })
-                .filter(entry -> mark >= (Integer) entry.getValue().get("mark"))
-                .map(Map.Entry::getKey)
-                .findFirst()
-                .orElse("F");
+        GradeTable current = table;
+        if (mark < 0) {
+            return FALLBACK_GRADE;
+        }
+        return current.grades()[current.gradeIndexByMark()[Math.min(mark, MAX_MARK)]];
     }
 
     public double getGradePoint(String grade) {
-        Map<String, Object> data = gradeData.get(grade);
-        if (data == null) return 0.0;
-        Object gpaObj = data.get("gpa");
-        return gpaObj instanceof Number ? ((Number) gpaObj).doubleValue() : 0.0;
+        GradeTable current = table;
+        Integer index = grade == null ? null : current.indexByGrade().get(grade);
+        return index == null ? 0.0 : current.gradePoints()[index];
     }
 
     public int getLowestPassingMark() {
-        return (int) gradeData.get("D").get("mark");
+        return table.lowestPassingMark();
+    }
+
+    /**
+     * Moves on each time thresholds are applied, so anything built from grades can tell it is out of date.
+     */
+    public long getRevision() {
+        return revision.get();
     }
 
+    /**
+     * Validates and applies new thresholds, then writes them to the external file so they survive a restart.
+     */
     public void setGradeThresholds(Map<String, Map<String, Object>> newData) throws IOException {
         if (newData == null || newData.isEmpty()) {
             throw new IllegalArgumentException("Grade thresholds cannot be null or empty");
         }
-        this.gradeData = newData;
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.writeValue(
-                new ClassPathResource("configs/grades.json").getFile(),
-                this.gradeData
-        );
+        GradeTable compiled = compile(newData);
+        // Written next to the file and moved over it, so the watcher never reads a half-written file
+        Path temp = Files.createTempFile(configFile.getParent(), "grades", ".json.tmp");
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), newData);
+            Files.move(temp, configFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        use(compiled);
+    }
+
+    /**
+     * Re-reads the external file. Called by the watcher; a file that fails to load leaves the current thresholds.
+     */
+    public void reload() {
+        try {
+            use(compile(read(configFile)));
+            logger.info("Grade thresholds reloaded from {}", configFile);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Grade thresholds in {} not applied, keeping the previous ones: {}", configFile, e.getMessage());
+        }
+    }
+
+    private void use(GradeTable compiled) {
+        table = compiled;
+        revision.incrementAndGet();
+    }
+
+    private Map<String, Map<String, Object>> read(Path file) throws IOException {
+        return objectMapper.readValue(file.toFile(), new TypeReference<Map<String, Map<String, Object>>>() {});
+    }
+
+    private void startWatcher() throws IOException {
+        watchService = configFile.getFileSystem().newWatchService();
+        configFile.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread.ofPlatform().name("grade-config-watch").daemon().start(this::watch);
+    }
+
+    private void watch() {
+        Path fileName = configFile.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= fileName.equals(event.context());
+                }
+                if (changed) {
+                    reload();
+                }
+                if (!key.reset()) {
+                    logger.warn("Stopped watching {}: directory is no longer accessible", configFile.getParent());
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private static GradeTable compile(Map<String, Map<String, Object>> thresholds) {
+        if (thresholds == null || thresholds.isEmpty()) {
+            throw new IllegalArgumentException("Grade thresholds cannot be null or empty");
+        }
+        List<String> grades = new ArrayList<>();
+        Map<String, Integer> markByGrade = new HashMap<>();
+        Map<String, Double> gpaByGrade = new HashMap<>();
+        thresholds.forEach((grade, data) -> {
+            Object mark = data == null ? null : data.get("mark");
+            Object gpa = data == null ? null : data.get("gpa");
+            if (!(mark instanceof Integer) || (Integer) mark < 0 || (Integer) mark > MAX_MARK) {
+                throw new IllegalArgumentException("Grade " + grade + " needs a whole mark from 0 to " + MAX_MARK);
+            }
+            if (!(gpa instanceof Number)) {
+                throw new IllegalArgumentException("Grade " + grade + " needs a numeric gpa");
+            }
+            grades.add(grade);
+            markByGrade.put(grade, (Integer) mark);
+            gpaByGrade.put(grade, ((Number) gpa).doubleValue());
+        });
+        if (!markByGrade.containsKey(LOWEST_PASSING_GRADE)) {
+            throw new IllegalArgumentException("Grade thresholds must include " + LOWEST_PASSING_GRADE);
+        }
+        if (!markByGrade.containsKey(FALLBACK_GRADE)) {
+            grades.add(FALLBACK_GRADE);
+            gpaByGrade.put(FALLBACK_GRADE, 0.0);
+        }
+        if (grades.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many grades: " + grades.size());
+        }
+
+        // Lowest threshold first, so a later (higher) grade overwrites the marks it covers
+        grades.sort(Comparator.comparingInt((String grade) -> markByGrade.getOrDefault(grade, -1)));
+        String[] gradeArray = grades.toArray(String[]::new);
+        double[] gradePoints = new double[gradeArray.length];
+        Map<String, Integer> indexByGrade = new HashMap<>();
+        byte fallback = (byte) grades.indexOf(FALLBACK_GRADE);
+        byte[] gradeIndexByMark = new byte[MAX_MARK + 1];
+        Arrays.fill(gradeIndexByMark, fallback);
+        for (int i = 0; i < gradeArray.length; i++) {
+            gradePoints[i] = gpaByGrade.get(gradeArray[i]);
+            indexByGrade.put(gradeArray[i], i);
+            Integer from = markByGrade.get(gradeArray[i]);
+            if (from != null) {
+                Arrays.fill(gradeIndexByMark, from, MAX_MARK + 1, (byte) i);
+            }
+        }
+        return new GradeTable(gradeArray, gradePoints, gradeIndexByMark, Map.copyOf(indexByGrade),
+                markByGrade.get(LOWEST_PASSING_GRADE));
     }
 }
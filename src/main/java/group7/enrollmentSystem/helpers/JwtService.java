@@ -1,34 +1,65 @@
 package group7.enrollmentSystem.helpers;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
-import java.util.Date;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class JwtService {
 
+    public static final long REFRESH_AFTER_MS = 15 * 60 * 1000;
+    public static final long REFRESHED_TOKEN_SECONDS = 3600;
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
     private final Key jwtKey; // Injected from JwtConfig
+    // Immutable once built, so one parser serves every request thread
+    private final JwtParser parser;
+    private final Map<String, VerifiedToken> verifiedBySignature = new ConcurrentHashMap<>();
+    private final Map<RefreshKey, RefreshedToken> refreshedByGrant = new ConcurrentHashMap<>();
+
+    /**
+     * What the filter needs from a token whose signature has been checked.
+     */
+    public record VerifiedToken(String token, String subject, List<String> roles, List<GrantedAuthority> authorities,
+                                long issuedAtMillis, long expiresAtMillis) {
+    }
+
+    private record RefreshedToken(String token, long issuedAtMillis) {
+    }
+
+    // Roles sorted, so the same grant listed in another order shares its replacement
+    private record RefreshKey(String subject, List<String> roles) {
+    }
+
+    public JwtService(Key jwtKey) {
+        this.jwtKey = jwtKey;
+        this.parser = Jwts.parserBuilder().setSigningKey(jwtKey).build();
+    }
 
     public String generateToken(UserDetails userDetails, long expirationInSeconds) {
-        Map<String, Object> claims = Map.of(
-                "roles", userDetails.getAuthorities()
-                        .stream().map(GrantedAuthority::getAuthority)
-                        .collect(Collectors.toList())
-        );
+        return generateToken(userDetails.getUsername(), userDetails.getAuthorities()
+                .stream().map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()), expirationInSeconds);
+    }
+
+    public String generateToken(String subject, List<String> roles, long expirationInSeconds) {
+        Map<String, Object> claims = Map.of("roles", roles);
+        long now = System.currentTimeMillis();
         return Jwts.builder()
-                .setSubject(userDetails.getUsername())
+                .setSubject(subject)
                 .addClaims(claims)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationInSeconds * 1000))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationInSeconds * 1000))
                 .signWith(jwtKey)
                 .compact();
     }
@@ -42,11 +73,64 @@ public class JwtService {
      * @return The claims from the JWT.
      */
     public Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(jwtKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verifies a token, skipping the signature check for a token already verified and not yet expired.
+     * Throws JwtException if the token is invalid or expired.
+     */
+    public VerifiedToken verify(String token) {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        VerifiedToken cached = verifiedBySignature.get(signature);
+        // The whole token must match, not just its signature, or a changed payload could borrow a verified one
+        if (cached != null && cached.token().equals(token) && System.currentTimeMillis() < cached.expiresAtMillis()) {
+            return cached;
+        }
+
+        Claims claims = parseToken(token);
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get("roles", List.class);
+        roles = roles == null ? List.of() : List.copyOf(roles);
+        VerifiedToken verified = new VerifiedToken(token, claims.getSubject(), roles,
+                roles.stream().<GrantedAuthority>map(SimpleGrantedAuthority::new).toList(),
+                claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime(),
+                claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime());
+        if (verifiedBySignature.size() >= MAX_CACHED_TOKENS) {
+            prune(verifiedBySignature, entry -> entry.expiresAtMillis() <= System.currentTimeMillis());
+        }
+        verifiedBySignature.put(signature, verified);
+        return verified;
     }
-}
 
+    /**
+     * A replacement for a token issued more than {@value #REFRESH_AFTER_MS} ms ago, or empty while it is fresh.
+     * The roles come from the token itself. Every request from the same subject with the same roles within the
+     * refresh window gets the same replacement, so a client that has not switched over yet does not mint a new
+     * token per request, and a token never comes back with roles other than its own.
+     */
+    public Optional<String> refreshIfDue(VerifiedToken verified) {
+        long now = System.currentTimeMillis();
+        if (now - verified.issuedAtMillis() < REFRESH_AFTER_MS) {
+            return Optional.empty();
+        }
+        if (refreshedByGrant.size() >= MAX_CACHED_TOKENS) {
+            prune(refreshedByGrant, entry -> now - entry.issuedAtMillis() >= REFRESH_AFTER_MS);
+        }
+        RefreshKey key = new RefreshKey(verified.subject(), verified.roles().stream().sorted().toList());
+        RefreshedToken refreshed = refreshedByGrant.compute(key, (grant, current) ->
+                current != null && now - current.issuedAtMillis() < REFRESH_AFTER_MS
+                        ? current
+                        : new RefreshedToken(
+                                generateToken(grant.subject(), verified.roles(), REFRESHED_TOKEN_SECONDS), now));
+        return Optional.of(refreshed.token());
+    }
+
+    // Drops stale entries; if that is not enough the map is cleared, which only costs re-verification
+    private static <K, V> void prune(Map<K, V> cache, Predicate<V> stale) {
+        cache.values().removeIf(stale);
+        if (cache.size() >= MAX_CACHED_TOKENS) {
+            cache.clear();
+        }
+    }
+}
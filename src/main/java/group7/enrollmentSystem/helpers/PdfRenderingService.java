@@ -0,0 +1,106 @@
+package group7.enrollmentSystem.helpers;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Shared setup for the generated PDFs. The USP logo is decoded and compressed and the fonts are built once, not
+ * for every document. Each document draws the logo header into a template placed on its first page and
+ * is written straight to the caller's stream.
+ */
+@Service
+public class PdfRenderingService {
+
+    public static final Font TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 16, Font.BOLD);
+    public static final Font HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
+    public static final Font NORMAL_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
+    public static final Font FINE_HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 8, Font.BOLD);
+    public static final Font FINE_PRINT_FONT = new Font(Font.FontFamily.HELVETICA, 8, Font.NORMAL);
+
+    private final Image logo;
+
+    public PdfRenderingService() throws IOException, DocumentException {
+        try (InputStream in = new ClassPathResource("static/images/usp_logo.png").getInputStream()) {
+            logo = deflated(Image.getInstance(in.readAllBytes()));
+        }
+        logo.scaleToFit(110, 110);
+    }
+
+    /**
+     * The body of a document, added after the header.
+     */
+    @FunctionalInterface
+    public interface PdfContent {
+        void write(Document document) throws DocumentException;
+    }
+
+    /**
+     * Writes a PDF to {@code out} as it is laid out: the logo header, then {@code content}. The stream is not
+     * closed, so it can be a response body, a file or a ZIP entry.
+     *
+     * @throws IOException if writing fails, or wrapping the DocumentException if the content cannot be laid out
+     */
+    public void render(OutputStream out, PdfContent content) throws IOException {
+        Document document = new Document();
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+
+            document.add(Image.getInstance(header(writer)));
+            document.add(new Paragraph("\n"));
+
+            content.write(document);
+            document.close();
+        } catch (DocumentException e) {
+            throw new IOException("Could not lay out PDF: " + e.getMessage(), e);
+        }
+        out.flush();
+    }
+
+    // The logo drawn once into a template of its own size, so the header sits in the flow exactly as the logo would.
+    // The copy shares the compressed image data, so the PNG is not decoded or deflated again
+    private PdfTemplate header(PdfWriter writer) throws DocumentException {
+        float width = logo.getScaledWidth();
+        float height = logo.getScaledHeight();
+        PdfTemplate header = writer.getDirectContent().createTemplate(width, height);
+        header.addImage(Image.getInstance(logo), width, 0, 0, height, 0, 0);
+        return header;
+    }
+
+    // iText keeps a decoded PNG as raw samples and deflates them into every document that uses it; compressing
+    // them here once means each document only copies the compressed bytes
+    private static Image deflated(Image image) throws DocumentException, IOException {
+        if (!image.isImgRaw() || image.isDeflated() || image.getBpc() == 1) {
+            return image;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(image.getRawData());
+        } finally {
+            deflater.end();
+        }
+        Image copy = Image.getInstance((int) image.getWidth(), (int) image.getHeight(), image.getColorspace(),
+                image.getBpc(), compressed.toByteArray(), image.getTransparency());
+        copy.setDeflated(true);
+        copy.setAdditional(image.getAdditional());
+        copy.setDpi(image.getDpiX(), image.getDpiY());
+        if (image.isMask()) {
+            copy.makeMask();
+        }
+        if (image.getImageMask() != null) {
+            copy.setImageMask(deflated(image.getImageMask()));
+        }
+        return copy;
+    }
+}
@@ -4,60 +4,53 @@ package group7.enrollmentSystem.helpers;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
 import group7.enrollmentSystem.dtos.classDtos.CourseAuditDto;
 import group7.enrollmentSystem.dtos.classDtos.StudentFullAuditDto;
-import org.springframework.core.io.ClassPathResource;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static group7.enrollmentSystem.helpers.PdfRenderingService.*;
+
 @Service
+@RequiredArgsConstructor
 public class ProgrammeAuditPdfGeneratorService {
 
-    public byte[] generateAuditPdf(StudentFullAuditDto auditDto) throws DocumentException, IOException {
-        Document document = new Document();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        PdfWriter.getInstance(document, out);
-        document.open();
-
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 16, Font.BOLD);
-        Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
-        Font normalFont = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
-
-        // Add USP Logo
-        ClassPathResource imageResource = new ClassPathResource("static/images/usp_logo.png");
-        Image logo = Image.getInstance(imageResource.getURL());
-        logo.scaleToFit(110, 110);
-        document.add(logo);
-        document.add(new Paragraph("\n"));
+    private final PdfRenderingService pdfRenderingService;
+
+    /**
+     * Writes the audit PDF to {@code out} without buffering the whole document.
+     */
+    public void writeAuditPdf(StudentFullAuditDto auditDto, OutputStream out) throws IOException {
+        pdfRenderingService.render(out, document -> addAudit(document, auditDto));
+    }
 
+    private void addAudit(Document document, StudentFullAuditDto auditDto) throws DocumentException {
         // Title
-        document.add(new Paragraph("USP Student Audit", titleFont));
+        document.add(new Paragraph("USP Student Audit", TITLE_FONT));
         document.add(new Paragraph("\n"));
 
         // Student Info
-        document.add(new Paragraph("Student ID: " + auditDto.getStudentId(), normalFont));
-        document.add(new Paragraph("Student Name: " + auditDto.getStudentName(), normalFont));
-        document.add(new Paragraph("Programme: " + auditDto.getProgrammeName(), normalFont));
-        document.add(new Paragraph("Status: " + auditDto.getStatus(), normalFont));
+        document.add(new Paragraph("Student ID: " + auditDto.getStudentId(), NORMAL_FONT));
+        document.add(new Paragraph("Student Name: " + auditDto.getStudentName(), NORMAL_FONT));
+        document.add(new Paragraph("Programme: " + auditDto.getProgrammeName(), NORMAL_FONT));
+        document.add(new Paragraph("Status: " + auditDto.getStatus(), NORMAL_FONT));
         document.add(new Paragraph("\n"));
 
         // Audit Sections
-        addAuditSection(document, "Completed:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Completed"), headerFont, normalFont);
-        addAuditSection(document, "Failed:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Failed"), headerFont, normalFont);
-        addAuditSection(document, "Registered:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Registered"), headerFont, normalFont);
-        addAuditSection(document, "Unregistered Courses:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Unregistered"), headerFont, normalFont);
+        addAuditSection(document, "Completed:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Completed"));
+        addAuditSection(document, "Failed:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Failed"));
+        addAuditSection(document, "Registered:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Registered"));
+        addAuditSection(document, "Unregistered Courses:", filterCoursesByStatus(auditDto.getProgrammeCourses(), "Unregistered"));
 
-        document.close();
-        return out.toByteArray();
     }
 
-    private void addAuditSection(Document document, String sectionTitle, List<CourseAuditDto> courses, Font headerFont, Font normalFont) throws DocumentException {
-        document.add(new Paragraph(sectionTitle, headerFont));
+    private void addAuditSection(Document document, String sectionTitle, List<CourseAuditDto> courses) throws DocumentException {
+        document.add(new Paragraph(sectionTitle, HEADER_FONT));
 
         PdfPTable table = new PdfPTable(4);
         table.setWidthPercentage(100);
@@ -66,7 +59,7 @@ public class ProgrammeAuditPdfGeneratorService {
 
         String[] headers = {"Course Code", "Course Name", "Course Level", "Course Status"};
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, HEADER_FONT));
             cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
             table.addCell(cell);
         }
@@ -92,9 +85,9 @@ public class ProgrammeAuditPdfGeneratorService {
                 colorIndex++;
             }
 
-            table.addCell(createColoredCell(course.getCourseCode(), normalFont, rowColor));
-            table.addCell(createColoredCell(course.getTitle(), normalFont, rowColor));
-            table.addCell(createColoredCell(String.valueOf(course.getLevel()), normalFont, rowColor));
+            table.addCell(createColoredCell(course.getCourseCode(), NORMAL_FONT, rowColor));
+            table.addCell(createColoredCell(course.getTitle(), NORMAL_FONT, rowColor));
+            table.addCell(createColoredCell(String.valueOf(course.getLevel()), NORMAL_FONT, rowColor));
 
             String status;
             if (course.isCompleted()) {
@@ -105,11 +98,11 @@ public class ProgrammeAuditPdfGeneratorService {
                 status = "Unregistered";
             }
 
-            table.addCell(createColoredCell(status, normalFont, rowColor));
+            table.addCell(createColoredCell(status, NORMAL_FONT, rowColor));
         }
 
         if (courses.isEmpty()) {
-            PdfPCell empty = new PdfPCell(new Phrase("No courses in this category", normalFont));
+            PdfPCell empty = new PdfPCell(new Phrase("No courses in this category", NORMAL_FONT));
             empty.setColspan(4);
             table.addCell(empty);
         }
@@ -0,0 +1,192 @@
+package group7.enrollmentSystem.helpers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.*;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Rendered invoices, transcripts and audits kept on disk, one per student and document, tagged with the
+ * {@link StudentDocumentVersions} version they were rendered at. The tag is also the document's ETag, so a client
+ * that already has the current document gets a 304 without the data being read, and anyone else gets the stored
+ * file until the student's data changes.
+ * <p>
+ * The index is in memory and ordered by last download; once the files pass {@code document-cache.max-bytes}, the
+ * least recently downloaded are deleted. As the index does not survive a restart, the directory is cleared on
+ * startup.
+ */
+@Service
+public class StudentDocumentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentDocumentCache.class);
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    public enum DocumentType {
+        INVOICE("invoice.pdf"), TRANSCRIPT("transcript.pdf"), AUDIT("student_audit.pdf");
+
+        private final String fileName;
+
+        DocumentType(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    /**
+     * Renders a document that is not cached at its current version.
+     */
+    @FunctionalInterface
+    public interface DocumentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private record Entry(String etag, Path file, long size) {
+    }
+
+    private final StudentDocumentVersions versions;
+    private final GradeService gradeService;
+    private final Path directory;
+    private final long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently downloaded
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong fileSequence = new AtomicLong();
+    private long totalBytes;
+
+    public StudentDocumentCache(StudentDocumentVersions versions, GradeService gradeService,
+                                @Value("${document-cache.directory:cache/documents}") String directory,
+                                @Value("${document-cache.max-bytes:268435456}") long maxBytes) throws IOException {
+        this.versions = versions;
+        this.gradeService = gradeService;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory);
+        try (Stream<Path> leftovers = Files.list(this.directory)) {
+            for (Path file : leftovers.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * The ETag of a student's document as it would be rendered now. Invoices also change daily, as they carry the
+     * date printed, and transcripts whenever the grade thresholds change.
+     */
+    public String getETag(DocumentType type, Long studentId) {
+        String extra = switch (type) {
+            case INVOICE -> "." + LocalDate.now();
+            case TRANSCRIPT -> "." + gradeService.getRevision();
+            case AUDIT -> "";
+        };
+        return "\"" + type.name().toLowerCase() + "-" + studentId + "-" + versions.getVersion(studentId) + extra + "\"";
+    }
+
+    /**
+     * The response for a download: 304 when {@code ifNoneMatch} names the current ETag, otherwise the stored PDF,
+     * rendered with {@code writer} first if it is missing or out of date.
+     */
+    public ResponseEntity<Resource> download(DocumentType type, Long studentId, String ifNoneMatch,
+                                             DocumentWriter writer) throws IOException {
+        String etag = getETag(type, studentId);
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+
+        String key = type.name().toLowerCase() + "-" + studentId;
+        Entry entry;
+        InputStream in;
+        synchronized (entries) {
+            entry = entries.get(key);
+            in = entry != null && entry.etag().equals(etag) ? Files.newInputStream(entry.file()) : null;
+        }
+        if (in == null) {
+            entry = render(key, etag, writer);
+            in = store(key, type, studentId, entry);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", type.fileName);
+        return ResponseEntity.ok().headers(headers).eTag(etag).cacheControl(REVALIDATE)
+                .contentLength(entry.size()).body(new InputStreamResource(in));
+    }
+
+    private Entry render(String key, String etag, DocumentWriter writer) throws IOException {
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                writer.write(out);
+            }
+            Path file = directory.resolve(key + "-" + fileSequence.incrementAndGet() + ".pdf");
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            return new Entry(etag, file, Files.size(file));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Opens the rendered file before anything can evict it; an open file can still be read after it is deleted
+    private InputStream store(String key, DocumentType type, Long studentId, Entry entry) throws IOException {
+        if (!entry.etag().equals(getETag(type, studentId))) {
+            // The data changed while rendering, so keep it for this response only
+            return Files.newInputStream(entry.file(), StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        InputStream in = Files.newInputStream(entry.file());
+        List<Path> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Entry replaced = entries.put(key, entry);
+            totalBytes += entry.size();
+            if (replaced != null) {
+                totalBytes -= replaced.size();
+                evicted.add(replaced.file());
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Entry old = eldest.next();
+                eldest.remove();
+                totalBytes -= old.size();
+                evicted.add(old.file());
+            }
+        }
+        for (Path file : evicted) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete cached document {}: {}", file, e.getMessage());
+            }
+        }
+        return in;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
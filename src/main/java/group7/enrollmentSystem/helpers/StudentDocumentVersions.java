@@ -0,0 +1,223 @@
+package group7.enrollmentSystem.helpers;
+
+import group7.enrollmentSystem.models.CourseEnrollment;
+import group7.enrollmentSystem.models.Student;
+import group7.enrollmentSystem.models.StudentDocumentGeneration;
+import group7.enrollmentSystem.models.StudentProgramme;
+import group7.enrollmentSystem.repos.StudentDocumentGenerationRepo;
+import group7.enrollmentSystem.repos.StudentRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A version per student for the data their invoice, transcript and audit are built from. It moves on whenever one
+ * of the student's enrollments, programmes or holds changes, and for every student when a course or programme
+ * changes, so a document rendered at one version can be served again until the version moves.
+ * <p>
+ * Versions are stored with the data, a student's on their own row and the one all students share in
+ * {@link StudentDocumentGeneration}, so every app node reads the same version. The changes a transaction makes are
+ * collected as its entities are written and counted with one statement each just before it commits: the versions
+ * move in the same commit as the change, and a change that rolls back moves nothing.
+ */
+@Component
+public class StudentDocumentVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentDocumentVersions.class);
+
+    private final StudentRepo studentRepo;
+    private final StudentDocumentGenerationRepo generationRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate ownTransaction;
+
+    // What one transaction changed, counted before it commits
+    private static final class Changes {
+        final Set<Long> studentIds = new HashSet<>();
+        boolean all;
+
+        boolean isEmpty() {
+            return !all && studentIds.isEmpty();
+        }
+    }
+
+    public StudentDocumentVersions(StudentRepo studentRepo, StudentDocumentGenerationRepo generationRepo,
+                                   EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.studentRepo = studentRepo;
+        this.generationRepo = generationRepo;
+        this.entityManager = entityManager;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // So the first course or programme edit only has to update the row
+    @EventListener(ApplicationReadyEvent.class)
+    void createGeneration() {
+        try {
+            ownTransaction.executeWithoutResult(status -> {
+                if (!generationRepo.existsById(StudentDocumentGeneration.ID)) {
+                    generationRepo.saveAndFlush(new StudentDocumentGeneration(0));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Created by another node starting at the same time
+        }
+    }
+
+    /**
+     * The current version of a student's documents.
+     */
+    public String getVersion(Long studentId) {
+        long generation = generationRepo.findGeneration().orElse(0L);
+        long version = studentId == null ? 0 : studentRepo.findDocumentVersion(studentId).orElse(0L);
+        return generation + "." + version;
+    }
+
+    public void bump(Long studentId) {
+        if (studentId != null) {
+            record(changes -> changes.studentIds.add(studentId));
+        }
+    }
+
+    public void bumpAll() {
+        record(changes -> changes.all = true);
+    }
+
+    /**
+     * Makes sure the transaction's changes are counted before it commits. Entities are usually written at commit,
+     * after the point where the counts can still join the transaction, so this is called as soon as the transaction
+     * loads or persists an entity that may change a version, and the commit then flushes them first.
+     */
+    void watch() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            changes();
+        }
+    }
+
+    private void record(Consumer<Changes> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.accept(changes());
+            return;
+        }
+        // Outside a transaction there is nothing to wait for
+        Changes changes = new Changes();
+        change.accept(changes);
+        ownTransaction.executeWithoutResult(status -> count(changes));
+    }
+
+    // Kept with the transaction's synchronizations, which a transaction started inside it does not see
+    private Changes changes() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof CountBeforeCommit counter && counter.owner() == this) {
+                return counter.changes;
+            }
+        }
+        CountBeforeCommit counter = new CountBeforeCommit();
+        TransactionSynchronizationManager.registerSynchronization(counter);
+        return counter.changes;
+    }
+
+    private void count(Changes changes) {
+        if (changes.all && generationRepo.bump() == 0) {
+            generationRepo.save(new StudentDocumentGeneration(1));
+        }
+        if (!changes.studentIds.isEmpty()) {
+            studentRepo.bumpDocumentVersions(changes.studentIds);
+        }
+        changes.all = false;
+        changes.studentIds.clear();
+    }
+
+    private final class CountBeforeCommit implements TransactionSynchronization {
+
+        private final Changes changes = new Changes();
+
+        StudentDocumentVersions owner() {
+            return StudentDocumentVersions.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (readOnly || !TransactionSynchronizationManager.isActualTransactionActive()) {
+                return;
+            }
+            // Writes still queued in the persistence context report their changes as they are flushed
+            entityManager.flush();
+            count(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            // Only entities written after beforeCommit, which nothing here does, are left over
+            if (status == STATUS_COMMITTED && !changes.isEmpty()) {
+                try {
+                    ownTransaction.executeWithoutResult(transaction -> count(changes));
+                } catch (RuntimeException e) {
+                    logger.warn("Could not move student document versions: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Bumps versions as the entities behind the documents are written through JPA. Enrollments and programmes are
+     * written from many services, so listening here keeps every write path covered. Hibernate creates the listener
+     * through Spring; outside the full application (as in JPA slice tests) there are no versions to bump.
+     */
+    public static class EntityListener {
+
+        private final ObjectProvider<StudentDocumentVersions> versions;
+
+        public EntityListener(ObjectProvider<StudentDocumentVersions> versions) {
+            this.versions = versions;
+        }
+
+        @PostLoad
+        @PrePersist
+        void watched(Object entity) {
+            StudentDocumentVersions documentVersions = versions.getIfAvailable();
+            if (documentVersions != null) {
+                documentVersions.watch();
+            }
+        }
+
+        @PostPersist
+        @PostUpdate
+        @PostRemove
+        void changed(Object entity) {
+            StudentDocumentVersions documentVersions = versions.getIfAvailable();
+            if (documentVersions == null) {
+                return;
+            }
+            // Only the id is read, so a lazy student reference is not loaded
+            switch (entity) {
+                case CourseEnrollment enrollment -> documentVersions.bump(studentId(enrollment.getStudent()));
+                case StudentProgramme programme -> documentVersions.bump(studentId(programme.getStudent()));
+                case Student student -> documentVersions.bump(student.getId());
+                default -> documentVersions.bumpAll();
+            }
+        }
+
+        private static Long studentId(Student student) {
+            return student == null ? null : student.getId();
+        }
+    }
+}
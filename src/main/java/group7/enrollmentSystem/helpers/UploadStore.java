@@ -0,0 +1,220 @@
+package group7.enrollmentSystem.helpers;
+
+import group7.enrollmentSystem.models.StoredUpload;
+import group7.enrollmentSystem.repos.StoredUploadRepo;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Uploaded files stored once per distinct content. An upload is hashed with SHA-256 while it is written to a temp
+ * file, then moved to {@code <directory>/ab/cd/<sha256>}, where {@code ab} and {@code cd} are the first two bytes of
+ * the hash, so no directory grows past a few hundred entries. A file that is already stored is not written again;
+ * its {@link StoredUpload} reference count goes up instead, and the file is deleted when the count goes back to 0.
+ * <p>
+ * Callers keep a reference of the form {@code sha256:<hash>/<name>}, which also carries the name the file was
+ * uploaded under, for downloads and content types. Anything else is a path from before the store and resolves as
+ * the path it is.
+ */
+@Service
+public class UploadStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadStore.class);
+    private static final String REFERENCE_PREFIX = "sha256:";
+    private static final Pattern REFERENCE = Pattern.compile("sha256:([0-9a-f]{64})/(.+)");
+
+    private final StoredUploadRepo storedUploadRepo;
+    private final TransactionTemplate ownTransaction;
+    private final Path directory;
+    private final Path tempDirectory;
+
+    public UploadStore(StoredUploadRepo storedUploadRepo, PlatformTransactionManager transactionManager,
+                       @Value("${upload-store.directory:uploadedFiles}") String directory) throws IOException {
+        this.storedUploadRepo = storedUploadRepo;
+        // Counts are committed on their own, so a long request does not hold the row locks
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.tempDirectory = this.directory.resolve(".tmp");
+
+        // Uploads cut off by a restart never reached the store
+        Files.createDirectories(tempDirectory);
+        try (Stream<Path> leftovers = Files.list(tempDirectory)) {
+            for (Path file : leftovers.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Stores {@code content} and returns a reference to it. If the surrounding transaction rolls back, the reference
+     * is released again.
+     */
+    public String store(InputStream content, String fileName) throws IOException {
+        String name = displayName(fileName);
+        Path temp = Files.createTempFile(tempDirectory, "upload", ".part");
+        try {
+            MessageDigest sha256 = sha256();
+            long size;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = new DigestOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)), sha256)) {
+                size = content.transferTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+
+            // Counted before the file is placed, so a release of the last other reference cannot delete it under us
+            addReference(hash, size);
+            try {
+                Path blob = blobPath(hash);
+                if (!Files.exists(blob)) {
+                    Files.createDirectories(blob.getParent());
+                    try {
+                        Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // Stored by a concurrent upload of the same content
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                releaseNow(hash);
+                throw e;
+            }
+            TransactionHooks.onRollback(() -> releaseNow(hash));
+            return REFERENCE_PREFIX + hash + "/" + name;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Gives up a reference once the surrounding transaction commits, or straight away outside one. Paths from
+     * before the store are left alone.
+     */
+    public void release(String reference) {
+        Matcher matcher = match(reference);
+        if (matcher != null) {
+            String hash = matcher.group(1);
+            TransactionHooks.afterCommit(() -> releaseNow(hash));
+        }
+    }
+
+    public boolean isReference(String reference) {
+        return match(reference) != null;
+    }
+
+    /**
+     * Where the file behind a reference, or a path from before the store, is on disk.
+     */
+    public Path resolve(String reference) {
+        Matcher matcher = match(reference);
+        return matcher != null ? blobPath(matcher.group(1)) : Paths.get(reference);
+    }
+
+    /**
+     * The name the file was uploaded under.
+     */
+    public String fileName(String reference) {
+        Matcher matcher = match(reference);
+        return matcher != null ? matcher.group(2) : Paths.get(reference).getFileName().toString();
+    }
+
+    /**
+     * The file behind a reference, named as it was uploaded rather than by its hash.
+     */
+    public Resource getResource(String reference) {
+        String name = fileName(reference);
+        return new FileSystemResource(resolve(reference)) {
+            @Override
+            public String getFilename() {
+                return name;
+            }
+        };
+    }
+
+    public int getReferenceCount(String reference) {
+        Matcher matcher = match(reference);
+        return matcher == null ? 0 : storedUploadRepo.findById(matcher.group(1)).map(StoredUpload::getRefCount).orElse(0);
+    }
+
+    private void addReference(String hash, long size) {
+        try {
+            ownTransaction.executeWithoutResult(status -> {
+                if (storedUploadRepo.addReference(hash) == 0) {
+                    storedUploadRepo.saveAndFlush(new StoredUpload(hash, size));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent upload of the same content inserted the row first
+            ownTransaction.executeWithoutResult(status -> storedUploadRepo.addReference(hash));
+        }
+    }
+
+    // The file is deleted while the deleted row is still locked, so an upload of the same content waits for it and
+    // then writes the file again
+    private void releaseNow(String hash) {
+        try {
+            ownTransaction.executeWithoutResult(status -> {
+                storedUploadRepo.removeReference(hash);
+                if (storedUploadRepo.deleteIfUnreferenced(hash) > 0) {
+                    try {
+                        Files.deleteIfExists(blobPath(hash));
+                    } catch (IOException e) {
+                        logger.warn("Could not delete stored upload {}: {}", hash, e.getMessage());
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not release stored upload {}: {}", hash, e.getMessage());
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static Matcher match(String reference) {
+        if (reference == null || !reference.startsWith(REFERENCE_PREFIX)) {
+            return null;
+        }
+        Matcher matcher = REFERENCE.matcher(reference);
+        return matcher.matches() ? matcher : null;
+    }
+
+    private static String displayName(String fileName) {
+        String name = fileName == null ? "" : FilenameUtils.getName(StringUtils.cleanPath(fileName));
+        return name.isBlank() ? "upload" : name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
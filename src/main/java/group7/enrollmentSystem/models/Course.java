@@ -1,5 +1,6 @@
 package group7.enrollmentSystem.models;
 
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.lang.reflect.Type;
 
 @Entity
+@EntityListeners(StudentDocumentVersions.EntityListener.class)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -25,6 +27,8 @@ public class Course {
     private double cost;
     private boolean offeredSem1;
     private boolean offeredSem2;
+    // Seats per semester; null means the course is not capped
+    private Integer capacity;
 
     public Course(String courseCode, String title, String description, double creditPoints, short level,double cost, boolean offeredSem1, boolean offeredSem2) {
         this.courseCode = courseCode;
@@ -1,6 +1,7 @@
 package group7.enrollmentSystem.models;
 
 import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -9,10 +10,12 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
+@EntityListeners(StudentDocumentVersions.EntityListener.class)
 @Data
 public class CourseEnrollment {
-   @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_enrollment_seq")
+    @SequenceGenerator(name = "course_enrollment_seq", sequenceName = "course_enrollment_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
     @ManyToOne
     @JoinColumn(name = "student_id", nullable = false)
@@ -14,7 +14,8 @@ import lombok.NoArgsConstructor;
 @Table(name = "course_prerequisite")
 public class CoursePrerequisite {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_prerequisite_seq")
+    @SequenceGenerator(name = "course_prerequisite_seq", sequenceName = "course_prerequisite_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
     @ManyToOne
     @JoinColumn(name = "course_id", nullable = false)
@@ -1,17 +1,20 @@
 package group7.enrollmentSystem.models;
 
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(StudentDocumentVersions.EntityListener.class)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class CourseProgramme {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_programme_seq")
+    @SequenceGenerator(name = "course_programme_seq", sequenceName = "course_programme_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,62 @@
+package group7.enrollmentSystem.models;
+
+import group7.enrollmentSystem.enums.EmailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent, or the record of one that was. Rows are written in the same transaction as the
+ * change they announce and sent afterwards by EmailOutboxDispatcher, so a notification is never sent for a rolled
+ * back change and never lost when the mail server is unavailable.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_dedupe", columnList = "dedupe_key"),
+        @Index(name = "idx_email_outbox_claim", columnList = "claim_token")
+})
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    // SHA-256 of recipient, subject and body
+    @Column(name = "dedupe_key", nullable = false, length = 64)
+    private String dedupeKey;
+    @Column(nullable = false)
+    private String recipient;
+    @Column(nullable = false)
+    private String subject;
+    private String templateName;
+    @Column(columnDefinition = "text", nullable = false)
+    private String htmlBody;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmailOutboxStatus status;
+    private int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(length = 500)
+    private String lastError;
+    // Set when a dispatcher claims the row for a batch, so no other instance sends it at the same time
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+    private LocalDateTime claimedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    public EmailOutbox(String dedupeKey, String recipient, String subject, String templateName, String htmlBody) {
+        this.dedupeKey = dedupeKey;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.templateName = templateName;
+        this.htmlBody = htmlBody;
+        this.status = EmailOutboxStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
@@ -1,7 +1,9 @@
 package group7.enrollmentSystem.models;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Entity
@@ -11,4 +13,8 @@ public class EnrollmentState {
     private Long id;
     private boolean open;
     private boolean semesterOne;
+    // Bumped on every change; nodes poll it to notice toggles made elsewhere
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
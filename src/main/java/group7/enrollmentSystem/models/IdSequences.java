@@ -0,0 +1,21 @@
+package group7.enrollmentSystem.models;
+
+import java.util.Map;
+
+/**
+ * Pooled id sequences for the tables written in bulk. Hibernate takes {@link #ALLOCATION_SIZE} ids per round trip,
+ * so inserts into these tables can be sent as JDBC batches, which IDENTITY columns rule out.
+ */
+public final class IdSequences {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Sequence name -> table it numbers
+    public static final Map<String, String> TABLES = Map.of(
+            "course_enrollment_seq", "course_enrollment",
+            "course_prerequisite_seq", "course_prerequisite",
+            "course_programme_seq", "course_programme");
+
+    private IdSequences() {
+    }
+}
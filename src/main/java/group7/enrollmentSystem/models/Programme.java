@@ -2,12 +2,14 @@ package group7.enrollmentSystem.models;
 
 import java.util.List;
 
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(StudentDocumentVersions.EntityListener.class)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -0,0 +1,36 @@
+package group7.enrollmentSystem.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The seats taken in one course for one semester of one year, shared by every app node: SeatInventoryService
+ * leases seats from the row before giving them out, so it can be ahead of the enrollments by the seats nodes hold
+ * unused until their next flush. Checked against the current enrollments on first use.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "course_offering_seat_ledger",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"course_id", "academic_year", "semester"}))
+public class SeatLedger {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    @Column(name = "academic_year", nullable = false)
+    private int academicYear;
+    private int semester;
+    private int seatsTaken;
+    private LocalDateTime updatedAt;
+
+    public SeatLedger(Long courseId, int academicYear, int semester) {
+        this.courseId = courseId;
+        this.academicYear = academicYear;
+        this.semester = semester;
+    }
+}
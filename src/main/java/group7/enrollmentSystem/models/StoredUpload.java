@@ -0,0 +1,32 @@
+package group7.enrollmentSystem.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One distinct uploaded file in the UploadStore, named by the SHA-256 of its content. Every application or profile
+ * that points at the file holds a reference; when the last one is released, the row and the file are deleted.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "stored_upload")
+public class StoredUpload {
+    @Id
+    @Column(length = 64)
+    private String sha256;
+    private long size;
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+    private LocalDateTime createdAt;
+
+    public StoredUpload(String sha256, long size) {
+        this.sha256 = sha256;
+        this.size = size;
+        this.refCount = 1;
+        this.createdAt = LocalDateTime.now();
+    }
+}
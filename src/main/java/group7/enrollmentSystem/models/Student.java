@@ -1,6 +1,7 @@
 package group7.enrollmentSystem.models;
 
 import group7.enrollmentSystem.enums.OnHoldTypes;
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
 import jakarta.persistence.*;
         import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -10,6 +11,7 @@ import java.util.*;
 
 @EqualsAndHashCode(callSuper = true)
 @Entity
+@EntityListeners(StudentDocumentVersions.EntityListener.class)
 @Data
 @PrimaryKeyJoinColumn(name = "id")
 @AttributeOverrides({
@@ -27,6 +29,11 @@ public class Student extends User {
     @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OnHoldStatus> onHoldStatusList = new ArrayList<>();
 
+    // Moved by StudentDocumentVersions with a single statement in the transaction of the change; never written
+    // from the entity, so a student saved with an older copy cannot put it back
+    @Column(name = "document_version", nullable = false, updatable = false)
+    private long documentVersion;
+
     public Student(String studentId, String firstName, String lastName, String address, String phoneNumber) {
         this.studentId = studentId;
         this.setFirstName(firstName);
@@ -0,0 +1,27 @@
+package group7.enrollmentSystem.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row counting changes that move every student's documents, such as an edit to a course or programme.
+ * Per-student changes are counted on the student's own row instead.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "student_document_generation")
+public class StudentDocumentGeneration {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+    @Column(nullable = false)
+    private long generation;
+
+    public StudentDocumentGeneration(long generation) {
+        this.id = ID;
+        this.generation = generation;
+    }
+}
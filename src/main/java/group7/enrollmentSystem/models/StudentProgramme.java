@@ -1,6 +1,7 @@
 package group7.enrollmentSystem.models;
 
 import group7.enrollmentSystem.enums.ProgrammeStatus;
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -8,6 +9,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@EntityListeners(StudentDocumentVersions.EntityListener.class)
 @Data
 public class StudentProgramme {
     @Id
@@ -1,6 +1,9 @@
 package group7.enrollmentSystem.repos;
 
 import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentDto;
+import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentStatusDto;
+import group7.enrollmentSystem.dtos.classDtos.SeatCountDto;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndCourseId;
 import group7.enrollmentSystem.models.Course;
 import group7.enrollmentSystem.models.CourseEnrollment;
 import group7.enrollmentSystem.models.Programme;
@@ -41,6 +44,13 @@ public interface CourseEnrollmentRepo extends JpaRepository<CourseEnrollment, Lo
     List<Long> getCompletedCourseIdsByStudent(Student student);
     @Query("SELECT ce.course.id FROM CourseEnrollment ce WHERE ce.currentlyTaking = TRUE AND ce.student = :student")
     List<Long> getAppliedCourseIdsByStudent(Student student);
+    @Query("SELECT new group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentStatusDto(" +
+            "c.id, c.courseCode, c.title, c.cost, ce.paid, ce.completed, ce.failed, ce.currentlyTaking) " +
+            "FROM CourseEnrollment ce JOIN ce.course c WHERE ce.student = :student " +
+            "AND (ce.currentlyTaking = TRUE OR (ce.completed = TRUE AND ce.failed = FALSE)) ORDER BY ce.id")
+    List<CourseEnrollmentStatusDto> getEnrollmentStatusByStudent(@Param("student") Student student);
+
+    List<CourseEnrollment> findByProgrammeAndCurrentlyTakingTrue(Programme programme);
 
     void deleteAllByProgramme(Programme programme);
 
@@ -51,6 +61,20 @@ public interface CourseEnrollmentRepo extends JpaRepository<CourseEnrollment, Lo
     List<CourseEnrollment> findByStudentAndCourseInAndCurrentlyTakingTrue(Student student, List<Course> selectedCourses);
 
     List<CourseEnrollment> findByRequestGradeChangeTrue();
+
+    @Query("SELECT new group7.enrollmentSystem.dtos.classDtos.SeatCountDto(ce.course.id, " +
+            "COALESCE(YEAR(ce.dateEnrolled), 0), ce.semesterEnrolled, COUNT(ce)) " +
+            "FROM CourseEnrollment ce WHERE ce.currentlyTaking = TRUE " +
+            "GROUP BY ce.course.id, COALESCE(YEAR(ce.dateEnrolled), 0), ce.semesterEnrolled")
+    List<SeatCountDto> countCurrentlyTakingByCourseAndSemester();
+
+    @Query("SELECT ce.student.id AS studentId, ce.course.id AS courseId FROM CourseEnrollment ce " +
+            "WHERE ce.currentlyTaking = TRUE AND ce.student.id IN :studentIds")
+    List<StudentIdAndCourseId> findCurrentlyTakingByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT ce.student.id AS studentId, ce.course.id AS courseId FROM CourseEnrollment ce " +
+            "WHERE ce.completed = TRUE AND ce.failed = FALSE AND ce.student.id IN :studentIds")
+    List<StudentIdAndCourseId> findCompletedByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
 }
 
 
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CoursePrerequisiteRepo extends JpaRepository<CoursePrerequisite, Long> {
@@ -20,6 +21,12 @@ public interface CoursePrerequisiteRepo extends JpaRepository<CoursePrerequisite
     List<CoursePrerequisite> findByCourse(Course course);
     @Query("SELECT cp FROM CoursePrerequisite cp WHERE cp.course.id = :courseId")
     List<CoursePrerequisite> findByCourseId(@Param("courseId") Long courseId);
+    @Query("SELECT cp FROM CoursePrerequisite cp JOIN FETCH cp.course LEFT JOIN FETCH cp.prerequisite " +
+            "LEFT JOIN FETCH cp.programme WHERE cp.course.id IN :courseIds")
+    List<CoursePrerequisite> findByCourseIds(@Param("courseIds") Collection<Long> courseIds);
+    @Query("SELECT cp FROM CoursePrerequisite cp JOIN FETCH cp.course LEFT JOIN FETCH cp.prerequisite " +
+            "LEFT JOIN FETCH cp.programme ORDER BY cp.id")
+    List<CoursePrerequisite> findAllWithCourses();
 
     @Query("SELECT new group7.enrollmentSystem.dtos.classDtos.CoursePrerequisiteDto(" +
             "cp.course.id, cp.prerequisite.id, cp.prerequisite.courseCode, cp.prerequisiteType, cp.groupId) " +
@@ -1,5 +1,8 @@
 package group7.enrollmentSystem.repos;
 
+import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentDto;
+import group7.enrollmentSystem.dtos.interfaceDtos.CourseIdAndLevel;
+import group7.enrollmentSystem.dtos.interfaceDtos.CourseIdAndProgrammeCode;
 import group7.enrollmentSystem.models.Course;
 import group7.enrollmentSystem.models.CourseProgramme;
 import group7.enrollmentSystem.models.Programme;
@@ -16,6 +19,8 @@ public interface CourseProgrammeRepo extends JpaRepository<CourseProgramme, Long
     List<CourseProgramme> findByProgrammeId(Long programme_id);
     @Query("SELECT cp.programme FROM CourseProgramme cp WHERE cp.course.id = :courseId")
     List<Programme> findProgrammesByCourseId(@Param("courseId") Long courseId);
+    @Query("SELECT cp.course.id AS courseId, cp.programme.programmeCode AS programmeCode FROM CourseProgramme cp ORDER BY cp.id")
+    List<CourseIdAndProgrammeCode> findAllCourseIdsAndProgrammeCodes();
     // Fetch all courses linked to a specific programme
     @Query("SELECT cp.course FROM CourseProgramme cp WHERE cp.programme.programmeCode = :programmeCode")
     List<Course> findCoursesByProgrammeCode(@Param("programmeCode") String programmeCode);
@@ -34,12 +39,20 @@ public interface CourseProgrammeRepo extends JpaRepository<CourseProgramme, Long
     @Query("SELECT cp.course.id FROM CourseProgramme cp WHERE cp.programme = :programme")
     List<Long> getCourseIdsByProgramme(Programme programme);
 
+    @Query("SELECT cp.course.id AS courseId, cp.course.level AS level FROM CourseProgramme cp WHERE cp.programme.id = :programmeId")
+    List<CourseIdAndLevel> getCourseIdsAndLevelsByProgrammeId(@Param("programmeId") Long programmeId);
+
     @Query("SELECT cp.course.id FROM CourseProgramme cp WHERE cp.programme = :programme AND cp.course.offeredSem1 = TRUE")
     List<Long> getCourseIdsByProgrammeAndSemester1(Programme programme);
     @Query("SELECT cp.course.id FROM CourseProgramme cp WHERE cp.programme = :programme AND cp.course.offeredSem2 = TRUE")
     List<Long> getCourseIdsByProgrammeAndSemester2(Programme programme);
     @Query("SELECT cp.course FROM CourseProgramme cp WHERE cp.programme = :programme")
     List<Course> getCoursesByProgramme(Programme programme);
+    @Query("SELECT new group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentDto(c.id, c.courseCode, c.title, c.cost, FALSE) " +
+            "FROM CourseProgramme cp JOIN cp.course c WHERE cp.programme = :programme " +
+            "AND ((:semesterOne = TRUE AND c.offeredSem1 = TRUE) OR (:semesterOne = FALSE AND c.offeredSem2 = TRUE))")
+    List<CourseEnrollmentDto> getCourseRowsByProgrammeAndSemester(@Param("programme") Programme programme,
+                                                                  @Param("semesterOne") boolean semesterOne);
 
     void deleteAllByProgramme(Programme programme);
 }
@@ -0,0 +1,48 @@
+package group7.enrollmentSystem.repos;
+
+import group7.enrollmentSystem.enums.EmailOutboxStatus;
+import group7.enrollmentSystem.models.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepo extends JpaRepository<EmailOutbox, Long> {
+
+    String CLAIMABLE = "((e.status = group7.enrollmentSystem.enums.EmailOutboxStatus.PENDING AND e.nextAttemptAt <= :now) " +
+            "OR (e.status = group7.enrollmentSystem.enums.EmailOutboxStatus.SENDING AND e.claimedAt < :staleBefore))";
+
+    // Due rows, and rows whose claim is older than staleBefore because the instance sending them went away
+    @Query("SELECT e.id FROM EmailOutbox e WHERE " + CLAIMABLE + " ORDER BY e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore, Pageable page);
+
+    // Conditional, so of two instances that read the same ids only one claims each row
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = group7.enrollmentSystem.enums.EmailOutboxStatus.SENDING, " +
+            "e.claimToken = :token, e.claimedAt = :now WHERE e.id IN :ids AND " + CLAIMABLE)
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+
+    List<EmailOutbox> findByClaimTokenOrderById(String claimToken);
+
+    // A copy that is queued or being sent means the same email is already on its way
+    @Query("SELECT COUNT(e) > 0 FROM EmailOutbox e WHERE e.dedupeKey = :dedupeKey AND e.status IN " +
+            "(group7.enrollmentSystem.enums.EmailOutboxStatus.PENDING, group7.enrollmentSystem.enums.EmailOutboxStatus.SENDING)")
+    boolean existsUnsent(@Param("dedupeKey") String dedupeKey);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    // One statement for a whole batch instead of merging every row
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.sentAt = :handledAt, e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int markHandled(@Param("ids") Collection<Long> ids, @Param("status") EmailOutboxStatus status,
+                    @Param("handledAt") LocalDateTime handledAt);
+}
@@ -5,6 +5,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 public interface EnrollmentStateRepo extends JpaRepository<EnrollmentState, Long> {
-    @Query("SELECT e.semesterOne FROM EnrollmentState e WHERE e.id = 1")
-    boolean isSemesterOne();
+    @Query("SELECT e.version FROM EnrollmentState e WHERE e.id = 1")
+    Long findVersion();
 }
@@ -0,0 +1,39 @@
+package group7.enrollmentSystem.repos;
+
+import group7.enrollmentSystem.models.SeatLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface SeatLedgerRepo extends JpaRepository<SeatLedger, Long> {
+
+    Optional<SeatLedger> findByCourseIdAndAcademicYearAndSemester(Long courseId, int academicYear, int semester);
+
+    @Query("SELECT l.seatsTaken FROM SeatLedger l WHERE l.id = :id")
+    Optional<Integer> findSeatsTaken(@Param("id") Long id);
+
+    // Conditional, so nodes leasing from the same row at once can never take more than the capacity between them
+    @Modifying
+    @Query("UPDATE SeatLedger l SET l.seatsTaken = l.seatsTaken + :seats, l.updatedAt = :now " +
+            "WHERE l.id = :id AND l.seatsTaken + :seats <= :capacity")
+    int lease(@Param("id") Long id, @Param("seats") int seats, @Param("capacity") int capacity,
+              @Param("now") LocalDateTime now);
+
+    // Never below zero, in case a seat is released that was never counted
+    @Modifying
+    @Query("UPDATE SeatLedger l SET l.seatsTaken = CASE WHEN l.seatsTaken > :seats THEN l.seatsTaken - :seats ELSE 0 END, " +
+            "l.updatedAt = :now WHERE l.id = :id")
+    int handBack(@Param("id") Long id, @Param("seats") int seats, @Param("now") LocalDateTime now);
+
+    // Raised to the enrollments it must at least cover; lowered only once no node has leased or handed back seats
+    // since idleBefore, as until then the difference may be seats another node still holds
+    @Modifying
+    @Query("UPDATE SeatLedger l SET l.seatsTaken = :enrolled, l.updatedAt = :now WHERE l.id = :id AND " +
+            "(l.seatsTaken < :enrolled OR (l.seatsTaken > :enrolled AND (l.updatedAt IS NULL OR l.updatedAt < :idleBefore)))")
+    int repair(@Param("id") Long id, @Param("enrolled") int enrolled, @Param("now") LocalDateTime now,
+               @Param("idleBefore") LocalDateTime idleBefore);
+}
@@ -0,0 +1,23 @@
+package group7.enrollmentSystem.repos;
+
+import group7.enrollmentSystem.models.StoredUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+// Reference counts are changed with single statements, so concurrent uploads of the same file cannot lose a count
+public interface StoredUploadRepo extends JpaRepository<StoredUpload, String> {
+
+    @Modifying
+    @Query("UPDATE StoredUpload s SET s.refCount = s.refCount + 1 WHERE s.sha256 = :sha256")
+    int addReference(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredUpload s SET s.refCount = s.refCount - 1 WHERE s.sha256 = :sha256 AND s.refCount > 0")
+    int removeReference(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("DELETE FROM StoredUpload s WHERE s.sha256 = :sha256 AND s.refCount = 0")
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+}
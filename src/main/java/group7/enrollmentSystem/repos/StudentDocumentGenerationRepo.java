@@ -0,0 +1,18 @@
+package group7.enrollmentSystem.repos;
+
+import group7.enrollmentSystem.models.StudentDocumentGeneration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface StudentDocumentGenerationRepo extends JpaRepository<StudentDocumentGeneration, Long> {
+
+    @Query("SELECT g.generation FROM StudentDocumentGeneration g WHERE g.id = 1")
+    Optional<Long> findGeneration();
+
+    @Modifying
+    @Query("UPDATE StudentDocumentGeneration g SET g.generation = g.generation + 1 WHERE g.id = 1")
+    int bump();
+}
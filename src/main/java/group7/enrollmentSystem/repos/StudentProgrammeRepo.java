@@ -1,11 +1,15 @@
 package group7.enrollmentSystem.repos;
 
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndProgrammeId;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentNumberAndEmail;
 import group7.enrollmentSystem.models.Programme;
 import group7.enrollmentSystem.models.Student;
 import group7.enrollmentSystem.models.StudentProgramme;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +21,12 @@ public interface StudentProgrammeRepo extends JpaRepository<StudentProgramme, Lo
     Optional<Programme> findStudentCurrentProgramme(Student student);
 
     void deleteAllByProgramme(Programme programme);
+
+    @Query("SELECT sp.student.id AS studentId, sp.programme.id AS programmeId FROM StudentProgramme sp " +
+            "WHERE sp.student.id IN :studentIds AND sp.currentProgramme = true")
+    List<StudentIdAndProgrammeId> findCurrentProgrammeIdsByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT sp.student.studentId AS studentId, sp.student.email AS email FROM StudentProgramme sp " +
+            "WHERE sp.programme = :programme AND sp.currentProgramme = true ORDER BY sp.student.studentId")
+    List<StudentNumberAndEmail> findCurrentStudentsByProgramme(@Param("programme") Programme programme);
 }
@@ -1,8 +1,15 @@
 package group7.enrollmentSystem.repos;
 
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndHoldType;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndNumber;
 import group7.enrollmentSystem.models.Student;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +19,40 @@ public interface StudentRepo extends JpaRepository<Student, Long> {
 
   Optional<Student> findByStudentId(String studentId);
 
+    @Query("SELECT s.id FROM Student s WHERE s.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
+    @Query("SELECT s.id AS id, s.studentId AS studentId FROM Student s WHERE s.studentId IN :studentIds")
+    List<StudentIdAndNumber> findIdsByStudentIdIn(@Param("studentIds") Collection<String> studentIds);
+
+    /**
+     * Loads the student and write-locks its row until the transaction ends, serialising enrollment writes for
+     * that student across app nodes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Student s WHERE s.id = :id")
+    Optional<Student> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Write-locks the rows of several students, in id order so two callers never wait on each other, without
+     * loading the students themselves.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s.id FROM Student s WHERE s.id IN :ids ORDER BY s.id")
+    List<Long> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.id AS studentId, h.onHoldType AS holdType FROM Student s JOIN s.onHoldStatusList h " +
+            "WHERE h.onHold = TRUE AND s.id IN :ids")
+    List<StudentIdAndHoldType> findActiveHoldsByStudentIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.documentVersion FROM Student s WHERE s.id = :id")
+    Optional<Long> findDocumentVersion(@Param("id") Long id);
+
+    // Native, as JPQL updates of a joined subclass go through a temporary table of matching ids
+    @Modifying
+    @Query(value = "UPDATE student SET document_version = document_version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int bumpDocumentVersions(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT COUNT(e) FROM CourseEnrollment e WHERE e.student = :student AND e.currentlyTaking = true")
     int getCurrentlyAppliedByStudent(Student student);
 
@@ -0,0 +1,272 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.dtos.classDtos.BulkExportJobDto;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentNumberAndEmail;
+import group7.enrollmentSystem.enums.BulkExportStatus;
+import group7.enrollmentSystem.helpers.CoursesTranscriptPdfGeneratorService;
+import group7.enrollmentSystem.helpers.ProgrammeAuditPdfGeneratorService;
+import group7.enrollmentSystem.models.Programme;
+import group7.enrollmentSystem.repos.ProgrammeRepo;
+import group7.enrollmentSystem.repos.StudentProgrammeRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports the transcript and audit PDF of every student currently in a programme into one ZIP on disk. Jobs run one
+ * at a time in the background; within a job the students are rendered on a pool of {@code bulk-export.threads}
+ * threads and written to the ZIP by the job's thread as they finish.
+ * <p>
+ * At most two renders per thread are in flight or waiting to be written, so memory holds a handful of PDFs
+ * whatever the cohort size; the rest of the cohort is only its student ids. The PDFs are already compressed, so
+ * they are stored in the ZIP as they are. A student whose documents fail is listed in the job and in the ZIP's
+ * {@code errors.txt}, and the export carries on. Finished jobs and their ZIPs are kept for
+ * {@code bulk-export.retention-hours}.
+ */
+@Service
+public class BulkDocumentExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkDocumentExportService.class);
+    private static final int MAX_LISTED_ERRORS = 50;
+
+    private final ProgrammeRepo programmeRepo;
+    private final StudentProgrammeRepo studentProgrammeRepo;
+    private final StudentService studentService;
+    private final StudentProgrammeAuditService studentProgrammeAuditService;
+    private final CoursesTranscriptPdfGeneratorService coursesTranscriptPdfGeneratorService;
+    private final ProgrammeAuditPdfGeneratorService programmeAuditPdfGeneratorService;
+    private final Path directory;
+    private final long retentionHours;
+    private final int window;
+    private final ExecutorService renderPool;
+    private final ExecutorService jobRunner;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private static class Job {
+        final String id = UUID.randomUUID().toString();
+        final String programmeCode;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicInteger exported = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<String> errors = new CopyOnWriteArrayList<>();
+        volatile BulkExportStatus status = BulkExportStatus.QUEUED;
+        volatile int students;
+        volatile long zipBytes;
+        volatile LocalDateTime finishedAt;
+        volatile Path zip;
+
+        Job(String programmeCode) {
+            this.programmeCode = programmeCode;
+        }
+    }
+
+    // One student's documents, or why they could not be rendered
+    private record Rendered(String studentId, byte[] transcript, byte[] audit, String error) {
+    }
+
+    public BulkDocumentExportService(ProgrammeRepo programmeRepo, StudentProgrammeRepo studentProgrammeRepo,
+                                     StudentService studentService,
+                                     StudentProgrammeAuditService studentProgrammeAuditService,
+                                     CoursesTranscriptPdfGeneratorService coursesTranscriptPdfGeneratorService,
+                                     ProgrammeAuditPdfGeneratorService programmeAuditPdfGeneratorService,
+                                     @Value("${bulk-export.directory:exports}") String directory,
+                                     @Value("${bulk-export.threads:4}") int threads,
+                                     @Value("${bulk-export.retention-hours:24}") long retentionHours) throws IOException {
+        this.programmeRepo = programmeRepo;
+        this.studentProgrammeRepo = studentProgrammeRepo;
+        this.studentService = studentService;
+        this.studentProgrammeAuditService = studentProgrammeAuditService;
+        this.coursesTranscriptPdfGeneratorService = coursesTranscriptPdfGeneratorService;
+        this.programmeAuditPdfGeneratorService = programmeAuditPdfGeneratorService;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.retentionHours = retentionHours;
+        this.window = threads * 2;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(threads, task ->
+                Thread.ofPlatform().name("bulk-export-render-" + threadNumber.incrementAndGet()).daemon().unstarted(task));
+        this.jobRunner = Executors.newSingleThreadExecutor(task ->
+                Thread.ofPlatform().name("bulk-export-job").daemon().unstarted(task));
+
+        // Jobs are not kept across restarts, so neither are their files
+        Files.createDirectories(this.directory);
+        try (Stream<Path> leftovers = Files.list(this.directory)) {
+            for (Path file : leftovers.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobRunner.shutdownNow();
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Queues an export of every student whose current programme is {@code programmeCode}.
+     */
+    public BulkExportJobDto startProgrammeExport(String programmeCode) {
+        Programme programme = programmeRepo.findByProgrammeCode(programmeCode)
+                .orElseThrow(() -> new IllegalArgumentException("Programme not found: " + programmeCode));
+        Job job = new Job(programme.getProgrammeCode());
+        jobs.put(job.id, job);
+        jobRunner.submit(() -> run(job, programme));
+        return toDto(job);
+    }
+
+    public Optional<BulkExportJobDto> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(this::toDto);
+    }
+
+    public List<BulkExportJobDto> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.createdAt).reversed())
+                .map(this::toDto)
+                .toList();
+    }
+
+    /**
+     * The ZIP of a completed job.
+     */
+    public Optional<Path> getExportFile(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null || job.status != BulkExportStatus.COMPLETED ? Optional.empty() : Optional.of(job.zip);
+    }
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void removeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        for (Job job : jobs.values()) {
+            if (job.finishedAt != null && job.finishedAt.isBefore(cutoff)) {
+                jobs.remove(job.id);
+                deleteQuietly(job.zip);
+            }
+        }
+    }
+
+    private void run(Job job, Programme programme) {
+        job.status = BulkExportStatus.RUNNING;
+        Path part = directory.resolve(job.id + ".zip.part");
+        try {
+            List<StudentNumberAndEmail> students = studentProgrammeRepo.findCurrentStudentsByProgramme(programme);
+            job.students = students.size();
+            logger.info("Bulk export {} started for {} students of {}", job.id, students.size(), job.programmeCode);
+
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(part)))) {
+                zip.setMethod(ZipOutputStream.STORED);
+                CompletionService<Rendered> completion = new ExecutorCompletionService<>(renderPool);
+                int submitted = 0;
+                for (int written = 0; written < students.size(); written++) {
+                    while (submitted < students.size() && submitted - written < window) {
+                        StudentNumberAndEmail student = students.get(submitted++);
+                        completion.submit(() -> render(student));
+                    }
+                    write(job, zip, completion.take().get());
+                }
+                if (!job.errors.isEmpty()) {
+                    putEntry(zip, "errors.txt", String.join("\n", job.errors).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            Path finished = directory.resolve(job.programmeCode + "_" + job.id + ".zip");
+            Files.move(part, finished, StandardCopyOption.ATOMIC_MOVE);
+            job.zip = finished;
+            job.zipBytes = Files.size(finished);
+            job.finishedAt = LocalDateTime.now();
+            job.status = BulkExportStatus.COMPLETED;
+            logger.info("Bulk export {} completed: {} exported, {} failed, {} bytes",
+                    job.id, job.exported.get(), job.failed.get(), job.zipBytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, "Interrupted");
+        } catch (Exception e) {
+            logger.error("Bulk export {} failed", job.id, e);
+            fail(job, e.getMessage());
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    private Rendered render(StudentNumberAndEmail student) {
+        try {
+            ByteArrayOutputStream transcript = new ByteArrayOutputStream();
+            coursesTranscriptPdfGeneratorService.writeTranscriptPdf(
+                    studentService.getCoursesTranscriptForStudent(student.getEmail()), transcript);
+            ByteArrayOutputStream audit = new ByteArrayOutputStream();
+            programmeAuditPdfGeneratorService.writeAuditPdf(
+                    studentProgrammeAuditService.getFullAudit(student.getStudentId()), audit);
+            return new Rendered(student.getStudentId(), transcript.toByteArray(), audit.toByteArray(), null);
+        } catch (Exception e) {
+            return new Rendered(student.getStudentId(), null, null, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void write(Job job, ZipOutputStream zip, Rendered rendered) throws IOException {
+        if (rendered.error() != null) {
+            job.failed.incrementAndGet();
+            if (job.errors.size() < MAX_LISTED_ERRORS) {
+                job.errors.add(rendered.studentId() + ": " + rendered.error());
+            }
+            return;
+        }
+        putEntry(zip, rendered.studentId() + "/transcript.pdf", rendered.transcript());
+        putEntry(zip, rendered.studentId() + "/audit.pdf", rendered.audit());
+        job.exported.incrementAndGet();
+    }
+
+    private static void putEntry(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static void fail(Job job, String message) {
+        job.errors.add(0, "Export failed: " + message);
+        job.finishedAt = LocalDateTime.now();
+        job.status = BulkExportStatus.FAILED;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete export file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private BulkExportJobDto toDto(Job job) {
+        String downloadUrl = job.status == BulkExportStatus.COMPLETED ? "/api/admin/exports/" + job.id + "/download" : null;
+        return new BulkExportJobDto(job.id, job.programmeCode, job.status, job.students, job.exported.get(),
+                job.failed.get(), List.copyOf(job.errors), job.zipBytes, job.createdAt, job.finishedAt, downloadUrl);
+    }
+}
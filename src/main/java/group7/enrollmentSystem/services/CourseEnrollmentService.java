@@ -28,22 +28,32 @@ public class CourseEnrollmentService {
     private final CourseRepo courseRepo;
     private final CoursePrerequisiteRepo coursePrerequisiteRepo;
     private final CourseService courseService;
-    private final EnrollmentStateRepo enrollmentStateRepo;
+    private final EnrollmentStateService enrollmentStateService;
+    private final SeatInventoryService seatInventoryService;
 
     // Cancel enrollment
+    @Transactional
     public void cancelEnrollment(Long enrollmentId) {
         CourseEnrollment enrollment = courseEnrollmentRepo.findById(enrollmentId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found"));
+        boolean heldSeat = enrollment.isCurrentlyTaking();
         enrollment.setCurrentlyTaking(false);
         enrollment.setCancelled(true); // Set cancelled to true
         courseEnrollmentRepo.save(enrollment);
+        if (heldSeat) {
+            seatInventoryService.releaseAfterCommit(enrollment);
+        }
     }
 
 
     // Reactivate enrollment
+    @Transactional
     public void activateEnrollment(Long enrollmentId) {
         CourseEnrollment enrollment = courseEnrollmentRepo.findById(enrollmentId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found"));
+        if (!enrollment.isCurrentlyTaking()) {
+            seatInventoryService.reserve(enrollment);
+        }
         enrollment.setCurrentlyTaking(true);
         enrollment.setCancelled(false); // Set cancelled to false
         courseEnrollmentRepo.save(enrollment);
@@ -173,6 +183,7 @@ public class CourseEnrollmentService {
                 enrollment.setCurrentlyTaking(true);
                 enrollment.setDateEnrolled(LocalDate.now());
                 enrollment.setSemesterEnrolled(semester);
+                seatInventoryService.reserve(enrollment);
                 courseEnrollmentRepo.save(enrollment);
             }
         }
@@ -247,7 +258,8 @@ public class CourseEnrollmentService {
         List<Course> coursesForLevel = programmeCourses.stream()
                 .filter(course -> course.getLevel() != null && course.getLevel() == level)
                 .toList();
-        EnrollmentState state = enrollmentStateRepo.findById(1L).orElseThrow(() -> new RuntimeException("Enrollment state not found"));
+        int semester = enrollmentStateService.getState().getSemester();
+        List<CourseEnrollment> enrollments = new ArrayList<>(coursesForLevel.size());
         for (Course course : coursesForLevel) {
             CourseEnrollment enrollment = new CourseEnrollment();
             enrollment.setStudent(student);
@@ -257,10 +269,11 @@ public class CourseEnrollmentService {
             enrollment.setCancelled(false);
             enrollment.setCurrentlyTaking(false);
             enrollment.setDateEnrolled(LocalDate.now());
-            enrollment.setSemesterEnrolled(state.isSemesterOne() ? 1 : 2);
+            enrollment.setSemesterEnrolled(semester);
             enrollment.setProgramme(programme);
-            courseEnrollmentRepo.save(enrollment);
+            enrollments.add(enrollment);
         }
+        courseEnrollmentRepo.saveAll(enrollments);
     }
 
     public List<CourseEnrollment> getAllGradeChangeRequests() {
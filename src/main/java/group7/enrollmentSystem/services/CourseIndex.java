@@ -0,0 +1,90 @@
+package group7.enrollmentSystem.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps course ids to dense bit positions so sets of courses can be packed into {@code long[]} words.
+ * Positions are handed out on first sight and never reused, which keeps masks compiled into
+ * prerequisite rules valid for bitsets built later on.
+ */
+@Component
+public class CourseIndex {
+
+    private final Map<Long, Integer> indexByCourseId = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    public int indexOf(Long courseId) {
+        Integer index = indexByCourseId.get(courseId);
+        if (index != null) return index;
+        return indexByCourseId.computeIfAbsent(courseId, id -> nextIndex.getAndIncrement());
+    }
+
+    public int size() {
+        return nextIndex.get();
+    }
+
+    public long[] toBits(Collection<Long> courseIds) {
+        int[] indexes = new int[courseIds.size()];
+        int max = -1;
+        int i = 0;
+        for (Long courseId : courseIds) {
+            indexes[i] = indexOf(courseId);
+            max = Math.max(max, indexes[i++]);
+        }
+        long[] bits = new long[(max >> 6) + 1];
+        for (int index : indexes) {
+            bits[index >> 6] |= 1L << index;
+        }
+        return bits;
+    }
+
+    public boolean contains(long[] bits, Long courseId) {
+        return get(bits, indexOf(courseId));
+    }
+
+    public static boolean get(long[] bits, int index) {
+        int word = index >> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * True when every bit of {@code mask} is also set in {@code bits}.
+     */
+    public static boolean containsAll(long[] bits, long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            long word = i < bits.length ? bits[i] : 0L;
+            if ((mask[i] & ~word) != 0) return false;
+        }
+        return true;
+    }
+
+    public static boolean intersects(long[] bits, long[] mask) {
+        int n = Math.min(bits.length, mask.length);
+        for (int i = 0; i < n; i++) {
+            if ((bits[i] & mask[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    public static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public static int countCommon(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+}
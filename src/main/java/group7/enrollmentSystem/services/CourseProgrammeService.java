@@ -19,6 +19,7 @@ public class CourseProgrammeService {
     private final CourseProgrammeRepo courseProgrammeRepo;
     private final CourseRepo courseRepo;
     private final ProgrammeRepo programmeRepo;
+    private final ProgrammeCourseLevelService programmeCourseLevelService;
 
 
     // Get all courses for programme
@@ -51,6 +52,7 @@ public class CourseProgrammeService {
             courseProgramme.setCourse(course.get());
             courseProgramme.setProgramme(programme.get());
             courseProgrammeRepo.save(courseProgramme);
+            programmeCourseLevelService.evict(programme.get().getId());
         } else {
             throw new RuntimeException("Course or Programme not found");
         }
@@ -65,6 +67,7 @@ public class CourseProgrammeService {
             Optional<CourseProgramme> courseProgramme = courseProgrammeRepo.findByCourseAndProgramme(course.get(), programme.get());
             if (courseProgramme.isPresent()) {
                 courseProgrammeRepo.delete(courseProgramme.get());
+                programmeCourseLevelService.evict(programme.get().getId());
             } else {
                 throw new RuntimeException("Course is not linked to this programme.");
             }
@@ -83,6 +86,7 @@ public class CourseProgrammeService {
             courseProgramme.setCourse(course.get());
             courseProgramme.setProgramme(programme.get());
             courseProgrammeRepo.save(courseProgramme);
+            programmeCourseLevelService.evict(programme.get().getId());
         } else {
             throw new RuntimeException("Course or Programme not found");
         }
@@ -107,6 +111,7 @@ public class CourseProgrammeService {
             courseProgramme.setCourse(course.get());
             courseProgramme.setProgramme(programme.get());
             courseProgrammeRepo.save(courseProgramme);
+            programmeCourseLevelService.evictAll();
         } else {
             throw new RuntimeException("CourseProgramme, Course, or Programme not found");
         }
@@ -115,5 +120,6 @@ public class CourseProgrammeService {
     // Delete a CourseProgramme record
     public void deleteCourseProgramme(Long id) {
         courseProgrammeRepo.deleteById(id);
+        programmeCourseLevelService.evictAll();
     }
 }
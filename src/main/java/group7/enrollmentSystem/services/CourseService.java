@@ -1,6 +1,7 @@
 package group7.enrollmentSystem.services;
 
 import group7.enrollmentSystem.dtos.classDtos.*;
+import group7.enrollmentSystem.dtos.interfaceDtos.CourseIdAndProgrammeCode;
 import group7.enrollmentSystem.enums.PrerequisiteType;
 import group7.enrollmentSystem.enums.SpecialPrerequisiteType;
 import group7.enrollmentSystem.models.Course;
@@ -11,12 +12,14 @@ import group7.enrollmentSystem.repos.CoursePrerequisiteRepo;
 import group7.enrollmentSystem.repos.CourseProgrammeRepo;
 import group7.enrollmentSystem.repos.CourseRepo;
 import group7.enrollmentSystem.repos.ProgrammeRepo;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -28,10 +31,32 @@ public class CourseService {
     private final CoursePrerequisiteRepo coursePrerequisiteRepo;
     private final CourseProgrammeRepo courseProgrammeRepo;
     private final ProgrammeRepo programmeRepo;
+    private final PrerequisiteRuleService prerequisiteRuleService;
+    private final ProgrammeCourseLevelService programmeCourseLevelService;
+
+    private final Map<Long, CachedRender> renderCache = new ConcurrentHashMap<>();
+
+    private static final int RENDER_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    // Bounded pool for batch diagram rendering; when its queue is full the request thread renders instead
+    private final ThreadPoolExecutor renderExecutor = new ThreadPoolExecutor(
+            RENDER_THREADS, RENDER_THREADS, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256),
+            Thread.ofPlatform().name("mermaid-render-", 0).daemon().factory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    private record CachedRender(PrerequisiteRuleService.Version version, PrerequisiteRenderDto render) {
+    }
 
     public List<CourseDto> getAllCoursesWithProgrammesAndPrereqs() {
         List<Course> allCourses = courseRepo.findAll();
 
+        // Load every programme link and prerequisite row once and group them in memory
+        Map<Long, List<String>> programmeCodesByCourseId = courseProgrammeRepo.findAllCourseIdsAndProgrammeCodes().stream()
+                .collect(Collectors.groupingBy(CourseIdAndProgrammeCode::getCourseId,
+                        Collectors.mapping(CourseIdAndProgrammeCode::getProgrammeCode, Collectors.toList())));
+        Map<Long, List<CoursePrerequisite>> prerequisitesByCourseId = coursePrerequisiteRepo.findAllWithCourses().stream()
+                .collect(Collectors.groupingBy(cp -> cp.getCourse().getId()));
+
         return allCourses.stream().map(course -> {
             CourseDto dto = new CourseDto();
             dto.setId(course.getId());
@@ -42,21 +67,33 @@ public class CourseService {
             dto.setLevel(course.getLevel());
             dto.setOfferedSem1(course.isOfferedSem1());
             dto.setOfferedSem2(course.isOfferedSem2());
+            dto.setCapacity(course.getCapacity());
+            dto.setProgrammes(programmeCodesByCourseId.getOrDefault(course.getId(), new ArrayList<>()));
 
-            // Fetch Programme Codes
-            List<String> programmeCodes = courseProgrammeRepo.findProgrammesByCourseId(course.getId()).stream()
-                    .map(Programme::getProgrammeCode)
-                    .collect(Collectors.toList());
-            dto.setProgrammes(programmeCodes);
-
-            // Fetch Prerequisites
-            List<CoursePrerequisite> prerequisites = coursePrerequisiteRepo.findByCourseId(course.getId());
+            List<CoursePrerequisite> prerequisites = prerequisitesByCourseId.getOrDefault(course.getId(), List.of());
             if (prerequisites.isEmpty()) {
                 dto.setPrerequisites(null);
                 dto.setHasPreReqs(false);
                 return dto;
             }
 
+            // Store the final formatted prerequisite string
+            dto.setPrerequisites(buildPrerequisiteExpression(prerequisites));
+            dto.setHasPreReqs(true);
+
+            return dto;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * A course's prerequisite rows grouped the way both the expression and the Mermaid renderer walk them:
+     * rows by groupId, the top-level parent groups in order, and each group's subgroups.
+     */
+    private record PrerequisiteGroups(Map<Integer, List<CoursePrerequisite>> groupedPrereqs,
+                                      List<Integer> parentGroups,
+                                      Map<Integer, Set<Integer>> parentToChildGroupMap) {
+
+        static PrerequisiteGroups of(List<CoursePrerequisite> prerequisites) {
             // Group prerequisites by groupId
             Map<Integer, List<CoursePrerequisite>> groupedPrereqs = prerequisites.stream()
                     .collect(Collectors.groupingBy(CoursePrerequisite::getGroupId));
@@ -67,10 +104,9 @@ public class CourseService {
                     .sorted(Comparator.comparingInt(CoursePrerequisite::getGroupId))
                     .map(CoursePrerequisite::getGroupId)
                     .distinct()
-                    .collect(Collectors.toList());
+                    .toList();
 
             // Map parent groups to their subgroups
-            // Instead of a List, use a Set
             Map<Integer, Set<Integer>> parentToChildGroupMap = new HashMap<>();
             for (CoursePrerequisite cp : prerequisites) {
                 if (cp.isChild()) {
@@ -79,32 +115,37 @@ public class CourseService {
                             .add(cp.getGroupId());
                 }
             }
+            return new PrerequisiteGroups(groupedPrereqs, parentGroups, parentToChildGroupMap);
+        }
 
+        PrerequisiteType operatorToNext(int groupId) {
+            return groupedPrereqs.get(groupId).get(0).getOperatorToNext();
+        }
+    }
 
-            // Build prerequisite expression using StringBuilder
-            StringBuilder prerequisiteExpression = new StringBuilder();
-            for (int i = 0; i < parentGroups.size(); i++) {
-                int parentGroupId = parentGroups.get(i);
-                String parentGroupExpression = buildGroupExpression(parentGroupId, groupedPrereqs, parentToChildGroupMap);
+    /**
+     * Builds the full prerequisite expression of one course, joining parent groups with their operatorToNext.
+     */
+    private String buildPrerequisiteExpression(List<CoursePrerequisite> prerequisites) {
+        PrerequisiteGroups groups = PrerequisiteGroups.of(prerequisites);
+        List<Integer> parentGroups = groups.parentGroups();
+        Map<Integer, List<CoursePrerequisite>> groupedPrereqs = groups.groupedPrereqs();
+        Map<Integer, Set<Integer>> parentToChildGroupMap = groups.parentToChildGroupMap();
 
-                prerequisiteExpression.append(parentGroupExpression);
+        StringBuilder prerequisiteExpression = new StringBuilder();
+        for (int i = 0; i < parentGroups.size(); i++) {
+            int parentGroupId = parentGroups.get(i);
+            prerequisiteExpression.append(buildGroupExpression(parentGroupId, groupedPrereqs, parentToChildGroupMap));
 
-                // Append operatorToNext AFTER the current group, if it's not the last one
-                if (i < parentGroups.size() - 1) {
-                    PrerequisiteType operatorToNext = groupedPrereqs.get(parentGroupId).get(0).getOperatorToNext();
-                    if (operatorToNext != null) {
-                        prerequisiteExpression.append(" ").append(operatorToNext).append(" ");
-                    }
+            // Append operatorToNext AFTER the current group, if it's not the last one
+            if (i < parentGroups.size() - 1) {
+                PrerequisiteType operatorToNext = groups.operatorToNext(parentGroupId);
+                if (operatorToNext != null) {
+                    prerequisiteExpression.append(" ").append(operatorToNext).append(" ");
                 }
             }
-
-
-            // Store the final formatted prerequisite string
-            dto.setPrerequisites(prerequisiteExpression.toString());
-            dto.setHasPreReqs(true);
-
-            return dto;
-        }).collect(Collectors.toList());
+        }
+        return prerequisiteExpression.toString();
     }
 
     /**
@@ -124,6 +165,32 @@ public class CourseService {
         StringBuilder groupExpression = new StringBuilder();
         PrerequisiteType groupType = group.get(0).getPrerequisiteType();
 
+        List<String> expressions = buildGroupLabels(group);
+
+        // Add subgroups
+        if (parentToChildGroupMap.containsKey(groupId)) {
+            for (int childGroupId : parentToChildGroupMap.get(groupId)) {
+                String childExpr = buildGroupExpression(childGroupId, groupedPrereqs, parentToChildGroupMap);
+                if (!childExpr.isEmpty()) {
+                    expressions.add(childExpr);
+                }
+            }
+        }
+
+        // Combine expressions
+        String joined = String.join(" " + groupType + " ", expressions);
+
+        // Wrap in parentheses if needed
+        if (expressions.size() > 1) {
+            return "(" + joined + ")";
+        }
+        return joined;
+    }
+
+    /**
+     * Leaf labels of one group: the combined admission label first, then every other item in row order.
+     */
+    private List<String> buildGroupLabels(List<CoursePrerequisite> group) {
         // Separate admission items
         List<CoursePrerequisite> admissionItems = group.stream()
                 .filter(cp -> cp.isSpecial() && cp.getSpecialType() == SpecialPrerequisiteType.ADMISSION_PROGRAMME)
@@ -156,24 +223,7 @@ public class CourseService {
             expressions.add(buildPrerequisiteLabel(cp));
         }
 
-        // Add subgroups
-        if (parentToChildGroupMap.containsKey(groupId)) {
-            for (int childGroupId : parentToChildGroupMap.get(groupId)) {
-                String childExpr = buildGroupExpression(childGroupId, groupedPrereqs, parentToChildGroupMap);
-                if (!childExpr.isEmpty()) {
-                    expressions.add(childExpr);
-                }
-            }
-        }
-
-        // Combine expressions
-        String joined = String.join(" " + groupType + " ", expressions);
-
-        // Wrap in parentheses if needed
-        if (expressions.size() > 1) {
-            return "(" + joined + ")";
-        }
-        return joined;
+        return expressions;
     }
 
     private String buildPrerequisiteLabel(CoursePrerequisite cp) {
@@ -237,6 +287,7 @@ public class CourseService {
     public void updateCourse(CourseDto dto) {
         Course course = courseRepo.findById(dto.getId())
                 .orElseThrow(() -> new RuntimeException("Course not found"));
+        boolean courseCodeChanged = !Objects.equals(course.getCourseCode(), dto.getCourseCode());
 
         course.setCourseCode(dto.getCourseCode());
         course.setTitle(dto.getTitle());
@@ -245,15 +296,23 @@ public class CourseService {
         course.setLevel(dto.getLevel());
         course.setOfferedSem1(dto.isOfferedSem1());
         course.setOfferedSem2(dto.isOfferedSem2());
+        course.setCapacity(dto.getCapacity());
         courseRepo.save(course);
 
         // Update CourseProgrammes
         courseProgrammeRepo.deleteByCourse(course);
         if (dto.getProgrammeIds() != null) {
-            for (Long pid : dto.getProgrammeIds()) {
-                Programme p = programmeRepo.findById(pid).orElseThrow();
-                courseProgrammeRepo.save(new CourseProgramme(null, course, p, false));
+            List<CourseProgramme> links = new ArrayList<>();
+            for (Programme p : findProgrammes(dto.getProgrammeIds())) {
+                links.add(new CourseProgramme(null, course, p, false));
             }
+            courseProgrammeRepo.saveAll(links);
+        }
+        // Level or programme links may have changed
+        programmeCourseLevelService.evictAll();
+        // The course code shows up in other courses' prerequisite labels
+        if (courseCodeChanged) {
+            prerequisiteRuleService.evictAll();
         }
     }
 
@@ -263,11 +322,14 @@ public class CourseService {
         Optional<Course> optionalCourse = courseRepo.findByCourseCode(courseCode);
         if (optionalCourse.isPresent()) {
             courseRepo.delete(optionalCourse.get());
+            prerequisiteRuleService.evictAll();
+            programmeCourseLevelService.evictAll();
         } else {
             throw new RuntimeException("Course not found with code: " + courseCode);
         }
     }
 
+    @Transactional
     public void addCourse(CourseDto courseDto) {
         // Create and save the main course
         Course course = new Course();
@@ -278,21 +340,38 @@ public class CourseService {
         course.setLevel(courseDto.getLevel());
         course.setOfferedSem1(courseDto.isOfferedSem1());
         course.setOfferedSem2(courseDto.isOfferedSem2());
+        course.setCapacity(courseDto.getCapacity());
 
         courseRepo.save(course);
 
         // Save CourseProgramme entries
         if (courseDto.getProgrammeIds() != null) {
-            for (Long programmeId : courseDto.getProgrammeIds()) {
-                Programme programme = programmeRepo.findById(programmeId)
-                        .orElseThrow(() -> new IllegalArgumentException("Invalid programme ID: " + programmeId));
+            List<CourseProgramme> links = new ArrayList<>();
+            for (Programme programme : findProgrammes(courseDto.getProgrammeIds())) {
                 CourseProgramme cp = new CourseProgramme();
                 cp.setCourse(course);
                 cp.setProgramme(programme);
                 cp.setOptional(false);
-                courseProgrammeRepo.save(cp);
+                links.add(cp);
+            }
+            courseProgrammeRepo.saveAll(links);
+            links.forEach(cp -> programmeCourseLevelService.evict(cp.getProgramme().getId()));
+        }
+    }
+
+    // Loads the programmes in one query, in the order given
+    private List<Programme> findProgrammes(List<Long> programmeIds) {
+        Map<Long, Programme> byId = programmeRepo.findAllById(programmeIds).stream()
+                .collect(Collectors.toMap(Programme::getId, Function.identity()));
+        List<Programme> programmes = new ArrayList<>(programmeIds.size());
+        for (Long programmeId : programmeIds) {
+            Programme programme = byId.get(programmeId);
+            if (programme == null) {
+                throw new IllegalArgumentException("Invalid programme ID: " + programmeId);
             }
+            programmes.add(programme);
         }
+        return programmes;
     }
 
     @Transactional
@@ -416,6 +495,7 @@ public class CourseService {
         }
 
         coursePrerequisiteRepo.saveAll(prerequisitesToSave);
+        prerequisiteRuleService.evict(mainCourse.getId());
     }
 
 
@@ -424,6 +504,7 @@ public class CourseService {
         Course mainCourse = courseRepo.findById(request.getCourseId())
                 .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + request.getCourseId()));
         coursePrerequisiteRepo.deleteByCourse(mainCourse);
+        prerequisiteRuleService.evict(mainCourse.getId());
         addPrerequisites(request);
     }
     private void validatePrerequisiteGroups(List<FlatCoursePrerequisiteDTO> prerequisites) {
@@ -567,152 +648,220 @@ public class CourseService {
         return root;
     }
     public String getMermaidDiagramForCourse(Long courseId) {
-        Optional<Course> courseOpt = courseRepo.findById(courseId);
-        if (courseOpt.isEmpty()) {
-            return "%% Error: Course not found";
-        }
+        return getRenderedPrerequisites(courseId).getMermaid();
+    }
 
-        Course course = courseOpt.get();
-        List<CoursePrerequisite> prerequisites = coursePrerequisiteRepo.findByCourseId(courseId);
+    public PrerequisiteRenderDto getRenderedPrerequisites(Long courseId) {
+        return getRenderedPrerequisites(List.of(courseId)).get(courseId);
+    }
 
-        if (prerequisites.isEmpty()) {
-            return "%% No prerequisites found for this course";
+    /**
+     * Expression, Mermaid and flattened Mermaid code for several courses.
+     * Cached renders are reused while the course's prerequisite version is unchanged; the rest are built
+     * from one query for the courses and one for their prerequisite rows.
+     */
+    public Map<Long, PrerequisiteRenderDto> getRenderedPrerequisites(Collection<Long> courseIds) {
+        Map<Long, PrerequisiteRenderDto> renders = new HashMap<>();
+        Map<Long, PrerequisiteRuleService.Version> missing = collectCachedRenders(courseIds, renders::put);
+        if (missing.isEmpty()) return renders;
+
+        Map<Long, Course> coursesById = courseRepo.findAllById(missing.keySet()).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        Map<Long, List<CoursePrerequisite>> prerequisitesByCourseId = coursePrerequisiteRepo.findByCourseIds(missing.keySet()).stream()
+                .collect(Collectors.groupingBy(cp -> cp.getCourse().getId()));
+
+        missing.forEach((courseId, version) -> renders.put(courseId,
+                renderAndCache(courseId, version, coursesById.get(courseId), prerequisitesByCourseId)));
+        return renders;
+    }
+
+    /**
+     * Like {@link #getRenderedPrerequisites(Collection)}, but hands each render to {@code sink} as soon as it is ready
+     * so callers can stream them. Cached renders go out first; the rest are prefetched with one IN query for the
+     * courses and one for their prerequisite rows, then rendered in parallel on a bounded pool.
+     * {@code sink} is only ever called from the calling thread.
+     */
+    public void streamRenderedPrerequisites(Collection<Long> courseIds, BiConsumer<Long, PrerequisiteRenderDto> sink) {
+        Map<Long, PrerequisiteRuleService.Version> missing = collectCachedRenders(new LinkedHashSet<>(courseIds), sink);
+        if (missing.isEmpty()) return;
+
+        Map<Long, Course> coursesById = courseRepo.findAllById(missing.keySet()).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        Map<Long, List<CoursePrerequisite>> prerequisitesByCourseId = coursePrerequisiteRepo.findByCourseIds(missing.keySet()).stream()
+                .collect(Collectors.groupingBy(cp -> cp.getCourse().getId()));
+
+        CompletionService<Map.Entry<Long, PrerequisiteRenderDto>> completion = new ExecutorCompletionService<>(renderExecutor);
+        missing.forEach((courseId, version) -> completion.submit(() -> Map.entry(courseId,
+                renderAndCache(courseId, version, coursesById.get(courseId), prerequisitesByCourseId))));
+
+        for (int i = 0; i < missing.size(); i++) {
+            try {
+                Map.Entry<Long, PrerequisiteRenderDto> render = completion.take().get();
+                sink.accept(render.getKey(), render.getValue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while rendering prerequisite diagrams", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to render prerequisite diagram", e.getCause());
+            }
         }
+    }
 
-        // Group prerequisites
-        Map<Integer, List<CoursePrerequisite>> groupedPrereqs = prerequisites.stream()
-                .collect(Collectors.groupingBy(CoursePrerequisite::getGroupId));
+    /**
+     * Passes every still-valid cached render to {@code sink} and returns the current version of each course that needs rendering.
+     */
+    private Map<Long, PrerequisiteRuleService.Version> collectCachedRenders(
+            Collection<Long> courseIds, BiConsumer<Long, PrerequisiteRenderDto> sink) {
+        Map<Long, PrerequisiteRuleService.Version> missing = new LinkedHashMap<>();
+        for (Long courseId : courseIds) {
+            PrerequisiteRuleService.Version version = prerequisiteRuleService.getVersion(courseId);
+            CachedRender cached = renderCache.get(courseId);
+            if (cached != null && cached.version().equals(version)) {
+                sink.accept(courseId, cached.render());
+            } else {
+                missing.put(courseId, version);
+            }
+        }
+        return missing;
+    }
 
-        List<Integer> parentGroups = prerequisites.stream()
-                .filter(cp -> cp.isParent() && !cp.isChild())
-                .sorted(Comparator.comparingInt(CoursePrerequisite::getGroupId))
-                .map(CoursePrerequisite::getGroupId)
-                .distinct()
-                .toList();
+    private PrerequisiteRenderDto renderAndCache(Long courseId, PrerequisiteRuleService.Version version, Course course,
+                                                 Map<Long, List<CoursePrerequisite>> prerequisitesByCourseId) {
+        if (course == null) {
+            String error = "%% Error: Course not found";
+            return new PrerequisiteRenderDto(null, error, error);
+        }
+        PrerequisiteRenderDto render = renderPrerequisites(course, prerequisitesByCourseId.getOrDefault(courseId, List.of()));
+        renderCache.put(courseId, new CachedRender(version, render));
+        return render;
+    }
 
-        Map<Integer, Set<Integer>> parentToChildGroupMap = new HashMap<>();
-        for (CoursePrerequisite cp : prerequisites) {
-            if (cp.isChild()) {
-                parentToChildGroupMap
-                        .computeIfAbsent(cp.getParentId(), k -> new HashSet<>())
-                        .add(cp.getGroupId());
-            }
+    @PreDestroy
+    void shutdownRenderExecutor() {
+        renderExecutor.shutdown();
+    }
+
+    private PrerequisiteRenderDto renderPrerequisites(Course course, List<CoursePrerequisite> prerequisites) {
+        if (prerequisites.isEmpty()) {
+            String none = "%% No prerequisites found for this course";
+            return new PrerequisiteRenderDto(null, none, none);
         }
+        return new PrerequisiteRenderDto(buildPrerequisiteExpression(prerequisites),
+                renderMermaid(course.getCourseCode(), prerequisites, false),
+                renderMermaid(course.getCourseCode(), prerequisites, true));
+    }
+    /**
+     * Mermaid flowchart of a course's prerequisites, walked straight from the grouped rows instead of
+     * re-parsing the expression text, so labels are never split on the words they contain.
+     * Nodes are numbered in pre-order from the course root; top-level AND runs bind tighter than OR, as in the expression.
+     * With {@code flat} every line ends in "; " rather than a newline, the form the SVG endpoints send on.
+     */
+    public String renderMermaid(String courseCode, List<CoursePrerequisite> prerequisites, boolean flat) {
+        MermaidWriter writer = new MermaidWriter(flat ? "; " : "\n");
+        int root = writer.node(courseCode + " (Main Course)");
+        PrerequisiteGroups groups = PrerequisiteGroups.of(prerequisites);
+        if (!groups.parentGroups().isEmpty()) {
+            writer.edge(root, renderParentGroups(groups, writer));
+        }
+        return writer.finish();
+    }
 
-        StringBuilder prerequisiteExpression = new StringBuilder();
+    private int renderParentGroups(PrerequisiteGroups groups, MermaidWriter writer) {
+        // Split the parent groups into runs joined by AND, the runs themselves being joined by OR
+        List<Integer> parentGroups = groups.parentGroups();
+        List<List<Integer>> andRuns = new ArrayList<>();
+        List<Integer> run = new ArrayList<>();
         for (int i = 0; i < parentGroups.size(); i++) {
-            int parentGroupId = parentGroups.get(i);
-            String expr = buildGroupExpression(parentGroupId, groupedPrereqs, parentToChildGroupMap);
-            prerequisiteExpression.append(expr);
-
-            if (i < parentGroups.size() - 1) {
-                PrerequisiteType op = groupedPrereqs.get(parentGroupId).get(0).getOperatorToNext();
-                if (op != null) {
-                    prerequisiteExpression.append(" ").append(op).append(" ");
-                }
+            run.add(parentGroups.get(i));
+            if (i < parentGroups.size() - 1 && groups.operatorToNext(parentGroups.get(i)) == PrerequisiteType.OR) {
+                andRuns.add(run);
+                run = new ArrayList<>();
             }
         }
+        andRuns.add(run);
 
-        return convertToMermaid(course.getCourseCode(), prerequisiteExpression.toString());
+        if (andRuns.size() == 1) return renderAndRun(andRuns.get(0), groups, writer);
+        int or = writer.node(PrerequisiteType.OR.name());
+        for (List<Integer> andRun : andRuns) {
+            writer.edge(or, renderAndRun(andRun, groups, writer));
+        }
+        return or;
     }
-    public String convertToMermaid(String courseCode, String expression) {
-        StringBuilder sb = new StringBuilder("graph TD\n");
-        AtomicInteger nodeId = new AtomicInteger(0);
-        List<String> nodes = new ArrayList<>();
-        List<String> edges = new ArrayList<>();
 
-        // Generate unique node
-        Function<String, String> getNode = label -> {
-            String id = "N" + nodeId.getAndIncrement();
-            String safeLabel = label.replace("\"", "\\\"");
-            nodes.add(id + "[\"" + safeLabel + "\"]");
-            return id;
-        };
-
-        // Fully wrapped check
-        Function<String, Boolean> isFullyWrapped = str -> {
-            str = str.trim();
-            if (!str.startsWith("(") || !str.endsWith(")")) return false;
-            int depth = 0;
-            for (int i = 0; i < str.length(); i++) {
-                char c = str.charAt(i);
-                if (c == '(') depth++;
-                if (c == ')') depth--;
-                if (depth == 0 && i < str.length() - 1) return false;
-            }
-            return depth == 0;
-        };
-        // Recursive parser
-        Function<String, String> parse = new Function<>() {
-            @Override
-            public String apply(String expr) {
-                expr = expr.trim();
-                if (isFullyWrapped.apply(expr)) {
-                    expr = expr.substring(1, expr.length() - 1).trim();
-                }
+    private int renderAndRun(List<Integer> groupIds, PrerequisiteGroups groups, MermaidWriter writer) {
+        if (groupIds.size() == 1) return renderGroup(groupIds.get(0), groups, writer);
+        int and = writer.node(PrerequisiteType.AND.name());
+        for (int groupId : groupIds) {
+            writer.edge(and, renderGroup(groupId, groups, writer));
+        }
+        return and;
+    }
 
-                List<String> parts = splitByTopLevel(expr, "OR");
-                String operator = "OR";
+    private int renderGroup(int groupId, PrerequisiteGroups groups, MermaidWriter writer) {
+        List<CoursePrerequisite> group = groups.groupedPrereqs().get(groupId);
+        List<String> labels = buildGroupLabels(group);
+        List<Integer> childGroupIds = groups.parentToChildGroupMap().getOrDefault(groupId, Set.of()).stream()
+                .filter(groups.groupedPrereqs()::containsKey)
+                .toList();
 
-                if (parts.size() == 1) {
-                    parts = splitByTopLevel(expr, "AND");
-                    operator = "AND";
-                }
+        // A group with a single item is drawn as that item, without an operator node
+        if (labels.size() + childGroupIds.size() == 1) {
+            return labels.isEmpty()
+                    ? renderGroup(childGroupIds.get(0), groups, writer)
+                    : writer.node(labels.get(0));
+        }
+        int operator = writer.node(String.valueOf(group.get(0).getPrerequisiteType()));
+        for (String label : labels) {
+            writer.edge(operator, writer.node(label));
+        }
+        for (int childGroupId : childGroupIds) {
+            writer.edge(operator, renderGroup(childGroupId, groups, writer));
+        }
+        return operator;
+    }
 
-                if (parts.size() == 1) {
-                    return getNode.apply(parts.get(0));
-                }
+    /**
+     * Writes node lines into one buffer as they are numbered and keeps edges as id pairs until the end,
+     * since Mermaid code lists every node before the edges.
+     */
+    private static final class MermaidWriter {
+        private final String lineEnd;
+        private final StringBuilder sb = new StringBuilder("graph TD");
+        private int nextNodeId;
+        private int[] edges = new int[16];
+        private int edgeCount;
+
+        MermaidWriter(String lineEnd) {
+            this.lineEnd = lineEnd;
+            sb.append(lineEnd);
+        }
 
-                String opNode = getNode.apply(operator);
-                for (String part : parts) {
-                    String childId = this.apply(part);
-                    edges.add(opNode + " --> " + childId);
-                }
-                return opNode;
-            }
-        };
-        // Root
-        String root = getNode.apply(courseCode + " (Main Course)");
-        String body = parse.apply(expression);
-        edges.add(root + " --> " + body);
-        nodes.forEach(line -> sb.append(line).append("\n"));
-        edges.forEach(line -> sb.append(line).append("\n"));
-        return sb.toString();
-    }
-    private List<String> splitByTopLevel(String expr, String operator) {
-        List<String> parts = new ArrayList<>();
-        int depth = 0;
-        int braceDepth = 0;
-        StringBuilder current = new StringBuilder();
-
-        for (int i = 0; i < expr.length(); i++) {
-            char c = expr.charAt(i);
-            if (c == '(') depth++;
-            else if (c == ')') depth--;
-            else if (c == '{') braceDepth++;
-            else if (c == '}') braceDepth--;
-
-            // Check for operator at top level (outside both () and {})
-            if (depth == 0 && braceDepth == 0 && expr.startsWith(" " + operator + " ", i)) {
-                parts.add(current.toString().trim());
-                current.setLength(0);
-                i += operator.length() + 1;
-            } else {
-                current.append(c);
-            }
+        int node(String label) {
+            int id = nextNodeId++;
+            sb.append('N').append(id).append("[\"").append(label.replace("\"", "\\\"")).append("\"]").append(lineEnd);
+            return id;
         }
 
-        if (current.length() > 0) {
-            parts.add(current.toString().trim());
+        void edge(int from, int to) {
+            if (edgeCount + 2 > edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+            edges[edgeCount++] = from;
+            edges[edgeCount++] = to;
         }
 
-        return parts;
+        String finish() {
+            for (int i = 0; i < edgeCount; i += 2) {
+                sb.append('N').append(edges[i]).append(" --> N").append(edges[i + 1]).append(lineEnd);
+            }
+            return sb.toString();
+        }
     }
 
-
     @Transactional
     public void deletePrerequisites(Course course) {
         coursePrerequisiteRepo.deleteByCourse(course);
+        prerequisiteRuleService.evict(course.getId());
     }
     //Temporary
     //Used to fetch prerequisiteCourseCodes for Prerequisite Column in selectCourses Page
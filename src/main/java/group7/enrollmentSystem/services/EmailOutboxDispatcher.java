@@ -0,0 +1,279 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.dtos.classDtos.EmailOutboxStatsDto;
+import group7.enrollmentSystem.enums.EmailOutboxStatus;
+import group7.enrollmentSystem.helpers.EmailService;
+import group7.enrollmentSystem.models.EmailOutbox;
+import group7.enrollmentSystem.repos.EmailOutboxRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends due outbox emails in batches, each batch over one SMTP connection. A message that fails is retried with
+ * exponential backoff up to {@code email.outbox.max-attempts} times; a permanent (5xx) rejection fails it at once.
+ * When the server answers with a temporary (4xx) error, as Gmail does when throttling, or drops the connection,
+ * the rest of the batch is left queued and sending pauses for the backoff.
+ * <p>
+ * Each batch is claimed before it is sent: the due rows are moved to SENDING under a token of the batch's own by a
+ * conditional update, so when several instances poll the same table each row goes out from one of them. A claim
+ * left behind by an instance that stopped mid-batch is taken over after {@code email.outbox.claim-timeout-minutes}.
+ * Polling runs on a thread of its own, so a slow mail server never holds up the application's scheduled jobs.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepo emailOutboxRepo;
+    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffSeconds;
+    private final long maxBackoffSeconds;
+    private final long pollIntervalMs;
+    private final long claimTimeoutMinutes;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("email-outbox-dispatch").daemon().factory());
+
+    private volatile LocalDateTime pausedUntil;
+    private int consecutivePauses;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong lastBatchMillis = new AtomicLong();
+
+    public EmailOutboxDispatcher(EmailOutboxRepo emailOutboxRepo, EmailService emailService,
+                                 EmailOutboxService emailOutboxService,
+                                 @Value("${email.outbox.batch-size:50}") int batchSize,
+                                 @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${email.outbox.backoff-seconds:30}") long backoffSeconds,
+                                 @Value("${email.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                                 @Value("${email.outbox.poll-interval-ms:2000}") long pollIntervalMs,
+                                 @Value("${email.outbox.claim-timeout-minutes:10}") long claimTimeoutMinutes) {
+        this.emailOutboxRepo = emailOutboxRepo;
+        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffSeconds = backoffSeconds;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+        this.pollIntervalMs = pollIntervalMs;
+        this.claimTimeoutMinutes = claimTimeoutMinutes;
+    }
+
+    @PostConstruct
+    void startPolling() {
+        poller.scheduleWithFixedDelay(this::dispatchQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopPolling() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Sends batches until nothing is due, the server pushes back or a batch comes back short.
+     */
+    public synchronized void dispatchDue() {
+        while (!isPaused() && dispatchBatch() == batchSize) {
+            // A full batch means more may be waiting
+        }
+    }
+
+    /**
+     * Sends one batch of due emails over a single connection.
+     *
+     * @return how many emails were handled (sent or rescheduled)
+     */
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = claimBatch(now);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long startedAt = System.nanoTime();
+
+        Transport transport;
+        try {
+            transport = emailService.openTransport();
+        } catch (MessagingException e) {
+            logger.warn("Mail server connection failed, {} queued emails wait: {}", batch.size(), e.getMessage());
+            batch.forEach(email -> scheduleRetry(email, e, now));
+            emailOutboxRepo.saveAll(batch);
+            pause(now);
+            return 0;
+        }
+
+        List<Long> sentIds = new ArrayList<>();
+        List<EmailOutbox> rescheduled = new ArrayList<>();
+        boolean pushedBack = false;
+        int attempted = 0;
+        try {
+            for (EmailOutbox email : batch) {
+                attempted++;
+                try {
+                    emailService.deliver(transport, email);
+                    sentIds.add(email.getId());
+                } catch (MessagingException e) {
+                    scheduleRetry(email, e, now);
+                    rescheduled.add(email);
+                    if (isTemporary(e) || !transport.isConnected()) {
+                        pushedBack = true;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("Closing mail transport failed: {}", e.getMessage());
+            }
+        }
+
+        LocalDateTime sentAt = LocalDateTime.now();
+        if (!sentIds.isEmpty()) {
+            emailOutboxRepo.markHandled(sentIds, EmailOutboxStatus.SENT, sentAt);
+        }
+        // The rest of a batch the server pushed back on goes back to the queue as it was
+        for (EmailOutbox email : batch.subList(attempted, batch.size())) {
+            email.setStatus(EmailOutboxStatus.PENDING);
+            rescheduled.add(email);
+        }
+        if (!rescheduled.isEmpty()) {
+            emailOutboxRepo.saveAll(rescheduled);
+        }
+
+        sent.add(sentIds.size());
+        batches.increment();
+        long elapsed = System.nanoTime() - startedAt;
+        batchNanos.add(elapsed);
+        lastBatchSize.set(batch.size());
+        lastBatchMillis.set(TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+        if (pushedBack) {
+            logger.warn("Mail server pushed back after {} emails, pausing the outbox", sentIds.size());
+            pause(now);
+            return 0;
+        }
+        consecutivePauses = 0;
+        pausedUntil = null;
+        return sentIds.size() + rescheduled.size();
+    }
+
+    public EmailOutboxStatsDto getStats() {
+        long sentCount = sent.sum();
+        long nanos = batchNanos.sum();
+        return new EmailOutboxStatsDto(
+                emailOutboxRepo.countByStatus(EmailOutboxStatus.PENDING)
+                        + emailOutboxRepo.countByStatus(EmailOutboxStatus.SENDING),
+                emailOutboxRepo.countByStatus(EmailOutboxStatus.FAILED),
+                sentCount,
+                retried.sum(),
+                failed.sum(),
+                emailOutboxService.getDroppedDuplicates(),
+                batches.sum(),
+                lastBatchSize.get(),
+                lastBatchMillis.get(),
+                nanos == 0 ? 0 : sentCount / (nanos / 1_000_000_000.0),
+                pausedUntil);
+    }
+
+    // The scheduled task would stop for good on an exception
+    private void dispatchQuietly() {
+        try {
+            dispatchDue();
+        } catch (RuntimeException e) {
+            logger.warn("Email outbox dispatch failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private List<EmailOutbox> claimBatch(LocalDateTime now) {
+        LocalDateTime staleBefore = now.minusMinutes(claimTimeoutMinutes);
+        List<Long> dueIds = emailOutboxRepo.findDueIds(now, staleBefore, PageRequest.of(0, batchSize));
+        if (dueIds.isEmpty()) {
+            return List.of();
+        }
+        String token = UUID.randomUUID().toString();
+        if (emailOutboxRepo.claim(dueIds, token, now, staleBefore) == 0) {
+            return List.of();
+        }
+        return emailOutboxRepo.findByClaimTokenOrderById(token);
+    }
+
+    private boolean isPaused() {
+        LocalDateTime until = pausedUntil;
+        return until != null && LocalDateTime.now().isBefore(until);
+    }
+
+    private void pause(LocalDateTime now) {
+        consecutivePauses++;
+        pausedUntil = now.plusSeconds(backoff(consecutivePauses));
+    }
+
+    private void scheduleRetry(EmailOutbox email, MessagingException e, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        email.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        if (isPermanent(e) || attempts >= maxAttempts) {
+            email.setStatus(EmailOutboxStatus.FAILED);
+            failed.increment();
+            logger.error("Giving up on email '{}' to {} after {} attempts: {}",
+                    email.getSubject(), email.getRecipient(), attempts, error);
+        } else {
+            email.setStatus(EmailOutboxStatus.PENDING);
+            email.setNextAttemptAt(now.plusSeconds(backoff(attempts)));
+            retried.increment();
+        }
+    }
+
+    private long backoff(int attempts) {
+        return Math.min(maxBackoffSeconds, backoffSeconds << Math.min(attempts - 1, 30));
+    }
+
+    private static boolean isTemporary(MessagingException e) {
+        int code = smtpReturnCode(e);
+        return code >= 400 && code < 500;
+    }
+
+    private static boolean isPermanent(MessagingException e) {
+        return smtpReturnCode(e) >= 500;
+    }
+
+    // The server's reply code, from the exception or the one it wraps (Angus puts address failures there)
+    private static int smtpReturnCode(MessagingException e) {
+        for (Exception cause = e; cause != null;
+             cause = cause instanceof MessagingException messaging ? messaging.getNextException() : null) {
+            if (cause instanceof SMTPSendFailedException sendFailed) {
+                return sendFailed.getReturnCode();
+            }
+            if (cause instanceof SMTPAddressFailedException addressFailed) {
+                return addressFailed.getReturnCode();
+            }
+        }
+        return -1;
+    }
+}
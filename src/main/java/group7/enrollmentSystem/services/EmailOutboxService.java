@@ -0,0 +1,66 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.models.EmailOutbox;
+import group7.enrollmentSystem.repos.EmailOutboxRepo;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes outgoing emails to the outbox table. Callers that change data and announce it do both in one transaction,
+ * so the email is only sent if the change commits; EmailOutboxDispatcher sends it afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    private final EmailOutboxRepo emailOutboxRepo;
+
+    private final LongAdder droppedDuplicates = new LongAdder();
+
+    /**
+     * Queues an email, joining the caller's transaction if there is one. An identical email (same recipient,
+     * subject and body) that has not gone out yet is not queued again, since the copy waiting already says it.
+     * Once that copy is sent, the same email is a new event (a hold placed again after it was lifted) and is queued.
+     *
+     * @return false if the email was dropped as a duplicate
+     */
+    @Transactional
+    public boolean enqueue(String to, String subject, String templateName, String htmlBody) {
+        String dedupeKey = dedupeKey(to, subject, htmlBody);
+        if (emailOutboxRepo.existsUnsent(dedupeKey)) {
+            logger.debug("Skipping duplicate email '{}' to {}", subject, to);
+            droppedDuplicates.increment();
+            return false;
+        }
+        emailOutboxRepo.save(new EmailOutbox(dedupeKey, to, subject, templateName, htmlBody));
+        return true;
+    }
+
+    public long getDroppedDuplicates() {
+        return droppedDuplicates.sum();
+    }
+
+    static String dedupeKey(String to, String subject, String htmlBody) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{to, subject, htmlBody}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
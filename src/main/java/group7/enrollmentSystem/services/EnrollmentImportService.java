@@ -0,0 +1,268 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.dtos.classDtos.EnrollmentImportResultDto;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndCourseId;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndHoldType;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndNumber;
+import group7.enrollmentSystem.dtos.interfaceDtos.StudentIdAndProgrammeId;
+import group7.enrollmentSystem.helpers.TransactionHooks;
+import group7.enrollmentSystem.models.*;
+import group7.enrollmentSystem.repos.*;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk-loads current enrollments for a cohort from CSV lines of {@code studentId,courseCode[,semester]}.
+ * Every row gets the checks a student's own enrollment gets: the course is offered in the semester and not already
+ * being taken, the student has a current programme and no hold on their account, stays within the
+ * {@value #MAX_CURRENT_COURSES}-course quota and meets the prerequisites, and the course has a seat left. Rows that
+ * fail are skipped and reported; the rest are still written.
+ * <p>
+ * Students are imported {@value #STUDENTS_PER_TRANSACTION} at a time, each group in its own transaction under the
+ * locks {@link StudentService#enrollStudent} takes: the students' lock stripes, then their rows. Within a group,
+ * programmes, enrollments and holds are looked up in one query each (students and programmes as id references only,
+ * so their eager associations are never loaded), and the rows are persisted in JDBC batches, flushing and clearing
+ * the persistence context every {@value #FLUSH_EVERY} rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class EnrollmentImportService {
+
+    private static final int LOOKUP_CHUNK = 1000;
+    private static final int STUDENTS_PER_TRANSACTION = 500;
+    private static final int FLUSH_EVERY = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_CURRENT_COURSES = 4;
+
+    private final StudentRepo studentRepo;
+    private final CourseRepo courseRepo;
+    private final StudentProgrammeRepo studentProgrammeRepo;
+    private final CourseEnrollmentRepo courseEnrollmentRepo;
+    private final EnrollmentStateService enrollmentStateService;
+    private final SeatInventoryService seatInventoryService;
+    private final PrerequisiteRuleService prerequisiteRuleService;
+    private final ProgrammeCourseLevelService programmeCourseLevelService;
+    private final HoldRestrictionMatrixService holdRestrictionMatrixService;
+    private final CourseIndex courseIndex;
+    private final StudentEnrollmentLocks studentEnrollmentLocks;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    private record Row(int line, String studentId, String courseCode, int semester) {
+    }
+
+    private record CourseSemester(long courseId, int semester) {
+    }
+
+    // Skipped lines: all are counted, only the first few are described
+    private static final class Problems {
+        int count;
+        final List<String> errors = new ArrayList<>();
+
+        void add(int line, String problem) {
+            count++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + line + ": " + problem);
+            }
+        }
+    }
+
+    /**
+     * Imports every valid row. Rows for unknown students or courses, and rows failing any enrollment check, are
+     * skipped and reported.
+     */
+    public EnrollmentImportResultDto importCsv(InputStream csv) throws IOException {
+        Problems problems = new Problems();
+        int defaultSemester = enrollmentStateService.getState().getSemester();
+        List<Row> rows = parse(csv, defaultSemester, problems);
+
+        Map<String, Long> studentIds = findStudentIds(rows);
+        Map<String, Course> courses = courseRepo.findByCourseCodeIn(
+                        rows.stream().map(Row::courseCode).distinct().toList()).stream()
+                .collect(Collectors.toMap(Course::getCourseCode, Function.identity()));
+        Map<Long, PrerequisiteRuleService.Rule> rules =
+                prerequisiteRuleService.getRules(courses.values().stream().map(Course::getId).toList());
+
+        // Each known student's rows, in file order
+        Map<Long, List<Row>> rowsByStudent = new LinkedHashMap<>();
+        for (Row row : rows) {
+            Long studentId = studentIds.get(row.studentId());
+            if (studentId == null) {
+                problems.add(row.line(), "unknown student " + row.studentId());
+            } else if (!courses.containsKey(row.courseCode())) {
+                problems.add(row.line(), "unknown course " + row.courseCode());
+            } else {
+                rowsByStudent.computeIfAbsent(studentId, id -> new ArrayList<>()).add(row);
+            }
+        }
+
+        int imported = 0;
+        for (List<Long> group : chunks(List.copyOf(rowsByStudent.keySet()), STUDENTS_PER_TRANSACTION)) {
+            imported += importGroup(group, rowsByStudent, courses, rules, problems);
+        }
+        return new EnrollmentImportResultDto(imported, problems.count, problems.errors);
+    }
+
+    private int importGroup(List<Long> studentIds, Map<Long, List<Row>> rowsByStudent, Map<String, Course> courses,
+                            Map<Long, PrerequisiteRuleService.Rule> rules, Problems problems) {
+        List<Lock> locks = studentEnrollmentLocks.forStudents(studentIds);
+        locks.forEach(Lock::lock);
+        try {
+            Integer imported = new TransactionTemplate(transactionManager).execute(status ->
+                    importLocked(studentIds, rowsByStudent, courses, rules, problems));
+            return imported == null ? 0 : imported;
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    private int importLocked(List<Long> studentIds, Map<Long, List<Row>> rowsByStudent, Map<String, Course> courses,
+                             Map<Long, PrerequisiteRuleService.Rule> rules, Problems problems) {
+        // First statement, so the lookups below see every enrollment committed before it
+        studentRepo.lockByIdIn(studentIds);
+
+        Map<Long, Long> programmeIds = new HashMap<>();
+        for (StudentIdAndProgrammeId current : studentProgrammeRepo.findCurrentProgrammeIdsByStudentIdIn(studentIds)) {
+            programmeIds.put(current.getStudentId(), current.getProgrammeId());
+        }
+        Map<Long, Set<Long>> currentCourses = new HashMap<>();
+        for (StudentIdAndCourseId existing : courseEnrollmentRepo.findCurrentlyTakingByStudentIdIn(studentIds)) {
+            currentCourses.computeIfAbsent(existing.getStudentId(), id -> new HashSet<>()).add(existing.getCourseId());
+        }
+        Map<Long, List<Long>> completedCourses = new HashMap<>();
+        for (StudentIdAndCourseId completed : courseEnrollmentRepo.findCompletedByStudentIdIn(studentIds)) {
+            completedCourses.computeIfAbsent(completed.getStudentId(), id -> new ArrayList<>()).add(completed.getCourseId());
+        }
+        Map<Long, Integer> blockedServices = new HashMap<>();
+        for (StudentIdAndHoldType hold : studentRepo.findActiveHoldsByStudentIdIn(studentIds)) {
+            if (hold.getHoldType() != null) {
+                blockedServices.merge(hold.getStudentId(), holdRestrictionMatrixService.getBlockedMask(hold.getHoldType()),
+                        (a, b) -> a | b);
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        int year = today.getYear();
+        // Seats are taken as rows are accepted and all handed back if the transaction rolls back
+        Map<CourseSemester, Integer> seats = new HashMap<>();
+        TransactionHooks.onRollback(() -> seats.forEach((key, count) -> {
+            for (int i = 0; i < count; i++) {
+                seatInventoryService.release(key.courseId(), year, key.semester());
+            }
+        }));
+
+        int imported = 0;
+        for (Long studentId : studentIds) {
+            Long programmeId = programmeIds.get(studentId);
+            Set<Long> current = currentCourses.computeIfAbsent(studentId, id -> new HashSet<>());
+            PrerequisiteRuleService.EligibilityContext ctx = programmeId == null ? null
+                    : new PrerequisiteRuleService.EligibilityContext(programmeId,
+                    courseIndex.toBits(completedCourses.getOrDefault(studentId, List.of())),
+                    level -> programmeCourseLevelService.getCoursesAtLevel(programmeId, level));
+            boolean onHold = blockedServices.getOrDefault(studentId, 0) != 0;
+
+            for (Row row : rowsByStudent.get(studentId)) {
+                Course course = courses.get(row.courseCode());
+                String problem = !isOffered(course, row.semester()) ? row.courseCode() + " is not offered in Semester " + row.semester()
+                        : current.contains(course.getId()) ? row.studentId() + " is already enrolled in " + row.courseCode()
+                        : programmeId == null ? row.studentId() + " has no current programme"
+                        : onHold ? row.studentId() + " has a hold on their account"
+                        : current.size() >= MAX_CURRENT_COURSES ? row.studentId() + " already has the maximum of " + MAX_CURRENT_COURSES + " courses"
+                        : !rules.get(course.getId()).test(ctx) ? row.studentId() + " does not meet the prerequisites for " + row.courseCode()
+                        : !seatInventoryService.tryReserve(course, year, row.semester()) ? row.courseCode() + " is full for Semester " + row.semester()
+                        : null;
+                if (problem != null) {
+                    problems.add(row.line(), problem);
+                    continue;
+                }
+                seats.merge(new CourseSemester(course.getId(), row.semester()), 1, Integer::sum);
+                current.add(course.getId());
+
+                CourseEnrollment enrollment = new CourseEnrollment();
+                enrollment.setStudent(entityManager.getReference(Student.class, studentId));
+                enrollment.setCourse(entityManager.getReference(Course.class, course.getId()));
+                enrollment.setProgramme(entityManager.getReference(Programme.class, programmeId));
+                enrollment.setCurrentlyTaking(true);
+                enrollment.setDateEnrolled(today);
+                enrollment.setSemesterEnrolled(row.semester());
+                entityManager.persist(enrollment);
+
+                // Keep the persistence context small
+                if (++imported % FLUSH_EVERY == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.flush();
+        return imported;
+    }
+
+    private List<Row> parse(InputStream csv, int defaultSemester, Problems problems) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.trim().toLowerCase().startsWith("studentid"))) {
+                continue;
+            }
+            String[] cells = line.split(",");
+            if (cells.length < 2 || cells.length > 3 || cells[0].isBlank() || cells[1].isBlank()) {
+                problems.add(lineNumber, "expected studentId,courseCode[,semester]");
+                continue;
+            }
+            int semester = defaultSemester;
+            if (cells.length == 3 && !cells[2].isBlank()) {
+                String value = cells[2].trim();
+                if (!value.equals("1") && !value.equals("2")) {
+                    problems.add(lineNumber, "semester must be 1 or 2");
+                    continue;
+                }
+                semester = Integer.parseInt(value);
+            }
+            rows.add(new Row(lineNumber, cells[0].trim(), cells[1].trim(), semester));
+        }
+        return rows;
+    }
+
+    private Map<String, Long> findStudentIds(List<Row> rows) {
+        List<String> studentNumbers = rows.stream().map(Row::studentId).distinct().toList();
+        Map<String, Long> studentIds = new HashMap<>();
+        for (List<String> chunk : chunks(studentNumbers, LOOKUP_CHUNK)) {
+            for (StudentIdAndNumber student : studentRepo.findIdsByStudentIdIn(chunk)) {
+                studentIds.put(student.getStudentId(), student.getId());
+            }
+        }
+        return studentIds;
+    }
+
+    private static boolean isOffered(Course course, int semester) {
+        return semester == 1 ? course.isOfferedSem1() : course.isOfferedSem2();
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += size) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + size)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,136 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.helpers.TransactionHooks;
+import group7.enrollmentSystem.models.EnrollmentState;
+import group7.enrollmentSystem.repos.EnrollmentStateRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of the single EnrollmentState row. Readers get an immutable snapshot that is swapped as a whole,
+ * so a request sees open and semester from the same version without a query.
+ * <p>
+ * A toggle on this node publishes its snapshot when it commits. Other nodes poll the row's version every
+ * {@value #POLL_INTERVAL_MS} ms and reload when it moved, so every node follows a toggle within that delay. The poll
+ * runs on a thread of its own, so a long scheduled job elsewhere in the application cannot hold it back.
+ */
+@Service
+@RequiredArgsConstructor
+public class EnrollmentStateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentStateService.class);
+    static final long POLL_INTERVAL_MS = 2000;
+
+    private final EnrollmentStateRepo enrollmentStateRepo;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("enrollment-state-poll").daemon().factory());
+
+    public record Snapshot(boolean open, boolean semesterOne, long version) {
+        // Bean-style accessors so templates can read ${enrollmentState.open}
+        public boolean isOpen() {
+            return open;
+        }
+
+        public boolean isSemesterOne() {
+            return semesterOne;
+        }
+
+        public int getSemester() {
+            return semesterOne ? 1 : 2;
+        }
+    }
+
+    /**
+     * The current state, loaded on first use. Take it once per request and read both flags from it.
+     */
+    public Snapshot getState() {
+        Snapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    public boolean isOpen() {
+        return getState().open();
+    }
+
+    public boolean isSemesterOne() {
+        return getState().semesterOne();
+    }
+
+    @Transactional
+    public Snapshot toggleOpen() {
+        return update(state -> state.setOpen(!state.isOpen()));
+    }
+
+    @Transactional
+    public Snapshot toggleSemester() {
+        return update(state -> state.setSemesterOne(!state.isSemesterOne()));
+    }
+
+    @PostConstruct
+    void startPolling() {
+        poller.scheduleWithFixedDelay(this::pollForChanges, POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopPolling() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Reloads the snapshot when another node has changed the row since it was taken. Until the first read
+     * there is nothing to keep fresh.
+     */
+    public void pollForChanges() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            return;
+        }
+        try {
+            Long version = enrollmentStateRepo.findVersion();
+            if (version != null && version != current.version()) {
+                reload();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Enrollment state poll failed, keeping version {}: {}", current.version(), e.getMessage());
+        }
+    }
+
+    public Snapshot reload() {
+        EnrollmentState state = enrollmentStateRepo.findById(1L)
+                .orElseThrow(() -> new RuntimeException("Enrollment state not found"));
+        return publish(snapshotOf(state));
+    }
+
+    private Snapshot update(Consumer<EnrollmentState> change) {
+        EnrollmentState state = enrollmentStateRepo.findById(1L)
+                .orElseThrow(() -> new RuntimeException("Enrollment state not found"));
+        change.accept(state);
+        // Flushed here so the version is bumped before the snapshot is taken
+        Snapshot updated = snapshotOf(enrollmentStateRepo.saveAndFlush(state));
+        TransactionHooks.afterCommit(() -> publish(updated));
+        return updated;
+    }
+
+    // A poll that read the row just before a local toggle committed must not put the older version back
+    private Snapshot publish(Snapshot next) {
+        return snapshot.accumulateAndGet(next,
+                (current, candidate) -> current == null || candidate.version() >= current.version() ? candidate : current);
+    }
+
+    private static Snapshot snapshotOf(EnrollmentState state) {
+        return new Snapshot(state.isOpen(), state.isSemesterOne(), state.getVersion() == null ? 0 : state.getVersion());
+    }
+}
@@ -16,6 +16,7 @@ import group7.enrollmentSystem.repos.ProgrammeRepo;
 import group7.enrollmentSystem.repos.StudentRepo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -23,6 +24,7 @@ import java.io.Writer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +41,7 @@ public class FormsService {
     private final EmailService emailService;
     private final FileUploads fileUploads;
 
+    @Transactional
     public void processGraduationForm(String email) {
         GraduationFormDTO form = new GraduationFormDTO();
         Student student = studentRepo.findByEmail(email)
@@ -56,7 +59,7 @@ public class FormsService {
         graduationApplicationRepository.save(app);
 
         // Send email to admin
-        emailService.sendHtmlMailAsync(
+        emailService.queueHtmlMail(
                 "adriandougjonajitino@gmail.com",
                 "New Graduation Application Submitted",
                 "graduation-email",
@@ -68,7 +71,7 @@ public class FormsService {
         );
 
         // Send confirmation to student
-        emailService.sendHtmlMailAsync(
+        emailService.queueHtmlMail(
                 student.getEmail(),
                 "Your Graduation Application Confirmation",
                 "graduation-email",
@@ -80,6 +83,7 @@ public class FormsService {
         );
     }
 
+    @Transactional
     public void submitGraduationApplication(String email, GraduationFormDTO form) {
         Student student = studentRepo.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
@@ -154,6 +158,7 @@ public class FormsService {
         return graduationApplicationRepository.findAll();
     }
 
+    @Transactional
     public void updateApplicationStatus(Long applicationId, ApplicationStatus status) {
         GraduationApplication app = graduationApplicationRepository.findById(applicationId)
                 .orElseThrow(() -> new RuntimeException("Application not found"));
@@ -172,6 +177,7 @@ public class FormsService {
     }
 
 
+    @Transactional
     public void submitApplication(String email, CompassionateFormDTO form) {
         Student student = studentRepo.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
@@ -221,12 +227,9 @@ public class FormsService {
                 "studentId", student.getStudentId()
         );
 
-        try {
-            emailService.notifyAdminNewApplication("adriandougjonajitino@gmail.com", adminModel);
-            emailService.notifyStudentApplicationSubmission(email, studentModel);
-        } catch (Exception e) {
-            System.out.println("[ERROR] Email sending failed: " + e.getMessage());
-        }
+        // Queued with the application, so they go out only if it is saved
+        emailService.notifyAdminNewApplication("adriandougjonajitino@gmail.com", adminModel);
+        emailService.notifyStudentApplicationSubmission(email, studentModel);
     }
 
 
@@ -234,6 +237,7 @@ public class FormsService {
         return compassionateRepo.findAll();
     }
 
+    @Transactional
     public void updateOtherApplicationStatus(Long applicationId, ApplicationStatus status) {
         CompassionateApplication app = compassionateRepo.findById(applicationId)
                 .orElseThrow(() -> new RuntimeException("Compassionate application not found"));
@@ -287,11 +291,18 @@ public class FormsService {
         GraduationApplication app = graduationApplicationRepository.findById(applicationId)
                 .orElseThrow(() -> new RuntimeException("Graduation application not found"));
         graduationApplicationRepository.delete(app);
+        fileUploads.release(Collections.singletonList(app.getStudentSignatureFilePath()));
     }
     public void deleteCompassionateApplication(Long applicationId) {
         CompassionateApplication app = compassionateRepo.findById(applicationId)
                 .orElseThrow(() -> new RuntimeException("Compassionate application not found"));
         compassionateRepo.delete(app);
+        List<String> files = new ArrayList<>();
+        if (app.getDocumentPaths() != null) {
+            files.addAll(app.getDocumentPaths());
+        }
+        files.add(app.getStudentSignatureFilePath());
+        fileUploads.release(files);
     }
 
     public boolean hasGraduationApp(String studentId) {
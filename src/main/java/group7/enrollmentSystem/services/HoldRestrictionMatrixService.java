@@ -0,0 +1,119 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.enums.OnHoldTypes;
+import group7.enrollmentSystem.helpers.TransactionHooks;
+import group7.enrollmentSystem.models.HoldServiceRestriction;
+import group7.enrollmentSystem.models.OnHoldStatus;
+import group7.enrollmentSystem.repos.HoldServiceRestrictionRepo;
+import group7.enrollmentSystem.services.StudentHoldService.HoldRestrictionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the HoldServiceRestriction table: for each hold type, the services it blocks.
+ * Each hold type is also packed into a bitmask over {@link HoldRestrictionType} ordinals, so a student's
+ * active holds reduce to one int and "is this service blocked" is a single AND.
+ */
+@Service
+@RequiredArgsConstructor
+public class HoldRestrictionMatrixService {
+
+    private final HoldServiceRestrictionRepo restrictionRepo;
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private volatile Matrix matrix;
+
+    private record Matrix(EnumMap<OnHoldTypes, EnumSet<HoldRestrictionType>> blockedByHoldType, int[] maskByHoldType) {
+    }
+
+    /**
+     * Services blocked by one hold type. A hold type without a restriction row blocks nothing.
+     */
+    public Set<HoldRestrictionType> getBlockedServices(OnHoldTypes holdType) {
+        return Collections.unmodifiableSet(getMatrix().blockedByHoldType().get(holdType));
+    }
+
+    public int getBlockedMask(OnHoldTypes holdType) {
+        return getMatrix().maskByHoldType()[holdType.ordinal()];
+    }
+
+    /**
+     * Union of the services blocked by every active hold in the list.
+     */
+    public int getBlockedMask(Collection<OnHoldStatus> holds) {
+        int[] maskByHoldType = getMatrix().maskByHoldType();
+        int mask = 0;
+        for (OnHoldStatus hold : holds) {
+            if (hold.isOnHold() && hold.getOnHoldType() != null) {
+                mask |= maskByHoldType[hold.getOnHoldType().ordinal()];
+            }
+        }
+        return mask;
+    }
+
+    public static int bit(HoldRestrictionType restrictionType) {
+        return 1 << restrictionType.ordinal();
+    }
+
+    public static boolean isBlocked(int mask, HoldRestrictionType restrictionType) {
+        return (mask & bit(restrictionType)) != 0;
+    }
+
+    /**
+     * Drops the compiled matrix so the next check reloads the table, again after the current transaction if there is one.
+     */
+    public void refresh() {
+        TransactionHooks.evictNowAndAfterCompletion(() -> {
+            refreshes.incrementAndGet();
+            matrix = null;
+        });
+    }
+
+    private Matrix getMatrix() {
+        Matrix current = matrix;
+        if (current == null) {
+            long generation = refreshes.get();
+            current = load();
+            // Only keep it if no refresh happened while loading
+            if (refreshes.get() == generation) {
+                matrix = current;
+            }
+        }
+        return current;
+    }
+
+    private Matrix load() {
+        EnumMap<OnHoldTypes, EnumSet<HoldRestrictionType>> blockedByHoldType = new EnumMap<>(OnHoldTypes.class);
+        for (OnHoldTypes holdType : OnHoldTypes.values()) {
+            blockedByHoldType.put(holdType, EnumSet.noneOf(HoldRestrictionType.class));
+        }
+        for (HoldServiceRestriction restriction : restrictionRepo.findAll()) {
+            if (restriction.getHoldType() == null) continue;
+            blockedByHoldType.put(restriction.getHoldType(), blockedServices(restriction));
+        }
+
+        int[] maskByHoldType = new int[OnHoldTypes.values().length];
+        blockedByHoldType.forEach((holdType, blocked) -> {
+            for (HoldRestrictionType restrictionType : blocked) {
+                maskByHoldType[holdType.ordinal()] |= bit(restrictionType);
+            }
+        });
+        return new Matrix(blockedByHoldType, maskByHoldType);
+    }
+
+    private static EnumSet<HoldRestrictionType> blockedServices(HoldServiceRestriction restriction) {
+        EnumSet<HoldRestrictionType> blocked = EnumSet.noneOf(HoldRestrictionType.class);
+        if (restriction.isBlockCourseEnrollment()) blocked.add(HoldRestrictionType.COURSE_ENROLLMENT);
+        if (restriction.isBlockViewCompletedCourses()) blocked.add(HoldRestrictionType.VIEW_COMPLETED_COURSES);
+        if (restriction.isBlockStudentAudit()) blocked.add(HoldRestrictionType.STUDENT_AUDIT);
+        if (restriction.isBlockGenerateTranscript()) blocked.add(HoldRestrictionType.GENERATE_TRANSCRIPT);
+        if (restriction.isBlockViewApplicationPage()) blocked.add(HoldRestrictionType.FORMS_APPLICATION);
+        if (restriction.isBlockGradeChangeRequest()) blocked.add(HoldRestrictionType.GRADE_CHANGE_REQUEST);
+        if (restriction.isBlockCompassionateApplication()) blocked.add(HoldRestrictionType.COMPASSIONATE_APPLICATION);
+        if (restriction.isBlockGraduationApplication()) blocked.add(HoldRestrictionType.GRADUATION_APPLICATION);
+        return blocked;
+    }
+}
@@ -0,0 +1,165 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.config.CustomExceptions;
+import group7.enrollmentSystem.dtos.classDtos.PasswordHashingStatsDto;
+import group7.enrollmentSystem.models.User;
+import group7.enrollmentSystem.repos.UserRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt password checks on a pool with one thread per core and a bounded queue, so a login storm uses at
+ * most the CPUs and never the request threads' time slices for hashing. When the queue is full, or a check waits
+ * longer than {@value #MAX_WAIT_SECONDS} s, the login fails fast with
+ * {@link CustomExceptions.LoginThrottledException}, which the login endpoints turn into 503 with Retry-After.
+ * <p>
+ * Hashes stored with a cost other than {@code security.password.bcrypt-strength} are re-encoded after a
+ * successful login, in the background and only when the pool has room.
+ */
+@Service
+public class PasswordVerificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordVerificationService.class);
+    private static final long MAX_WAIT_SECONDS = 10;
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepo userRepo;
+    private final int strength;
+    private final int retryAfterSeconds;
+    private final ThreadPoolExecutor pool;
+
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public PasswordVerificationService(PasswordEncoder passwordEncoder, UserRepo userRepo,
+                                       @Value("${security.password.bcrypt-strength:10}") int strength,
+                                       @Value("${security.password.queue-capacity:200}") int queueCapacity,
+                                       @Value("${security.password.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepo = userRepo;
+        this.strength = strength;
+        this.retryAfterSeconds = retryAfterSeconds;
+        int cores = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(cores, cores, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> Thread.ofPlatform().name("password-check-" + threadNumber.incrementAndGet()).daemon().unstarted(task),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Checks a password on the hashing pool. The calling thread waits, but does no hashing itself.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        long queuedAt = System.nanoTime();
+        Future<Boolean> check;
+        try {
+            check = pool.submit(() -> {
+                long startedAt = System.nanoTime();
+                verifications.increment();
+                waitNanos.add(startedAt - queuedAt);
+                try {
+                    return passwordEncoder.matches(rawPassword, encodedPassword);
+                } finally {
+                    recordHash(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new CustomExceptions.LoginThrottledException(retryAfterSeconds);
+        }
+        try {
+            return check.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            rejected.increment();
+            throw new CustomExceptions.LoginThrottledException(retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomExceptions.LoginThrottledException(retryAfterSeconds);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Re-encodes a just-verified password at the configured cost when its stored hash uses another one.
+     * Skipped while the pool is busy; the next login tries again.
+     */
+    public void rehashIfNeeded(User user, String rawPassword) {
+        String current = user.getPassword();
+        if (!needsRehash(current)) {
+            return;
+        }
+        // Keep a free slot for logins: a rehash only goes in while the queue is less than half full
+        if (pool.getQueue().remainingCapacity() < pool.getQueue().size()) {
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                long startedAt = System.nanoTime();
+                String upgraded = passwordEncoder.encode(rawPassword);
+                recordHash(System.nanoTime() - startedAt);
+                // Only replaces the hash that was verified, so a password changed meanwhile is kept
+                if (userRepo.updatePasswordIfUnchanged(user.getId(), current, upgraded) == 1) {
+                    rehashed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Password rehash for user {} skipped, hashing pool is full", user.getId());
+        }
+    }
+
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public PasswordHashingStatsDto getStats() {
+        long hashCount = hashes.sum();
+        long verified = verifications.sum();
+        return new PasswordHashingStatsDto(
+                pool.getPoolSize(),
+                pool.getActiveCount(),
+                pool.getQueue().size(),
+                pool.getQueue().remainingCapacity(),
+                verified,
+                rejected.sum(),
+                rehashed.sum(),
+                hashCount == 0 ? 0 : hashNanos.sum() / hashCount / 1_000_000.0,
+                maxHashNanos.get() / 1_000_000.0,
+                verified == 0 ? 0 : waitNanos.sum() / verified / 1_000_000.0,
+                strength);
+    }
+
+    private void recordHash(long nanos) {
+        hashes.increment();
+        hashNanos.add(nanos);
+        maxHashNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
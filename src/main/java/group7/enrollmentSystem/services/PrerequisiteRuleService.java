@@ -0,0 +1,280 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.enums.PrerequisiteType;
+import group7.enrollmentSystem.enums.SpecialPrerequisiteType;
+import group7.enrollmentSystem.models.CoursePrerequisite;
+import group7.enrollmentSystem.repos.CoursePrerequisiteRepo;
+import group7.enrollmentSystem.helpers.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles the flat group/child/operatorToNext rows of {@link CoursePrerequisite}
+ * into an immutable rule tree per course and keeps it in memory.
+ * Trees are only rebuilt after {@link #evict(Long)} / {@link #evictAll()} is called
+ * by the code paths that change prerequisite rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class PrerequisiteRuleService {
+
+    private final CoursePrerequisiteRepo coursePrerequisiteRepo;
+    private final CourseIndex courseIndex;
+
+    private final Map<Long, Rule> rulesByCourseId = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong fullEvictions = new AtomicLong();
+    private final Map<Long, Long> versionByCourseId = new ConcurrentHashMap<>();
+
+    /**
+     * Everything a rule needs to know about the student being checked.
+     * Course sets are bitsets over {@link CourseIndex}.
+     *
+     * @param programmeId            the student's current programme
+     * @param completed              courses the student has passed
+     * @param programmeCoursesAtLevel courses of the student's programme for a given level
+     */
+    public record EligibilityContext(Long programmeId,
+                                     long[] completed,
+                                     Function<Short, long[]> programmeCoursesAtLevel) {
+    }
+
+    /**
+     * Changes whenever the prerequisite rows of a course (or all courses) are evicted.
+     * Lets other caches built from the same rows tell whether their entries are still current.
+     */
+    public record Version(long generation, long courseVersion) {
+    }
+
+    public sealed interface Rule permits Constant, Group, AdmissionProgramme, LevelPercent {
+        boolean test(EligibilityContext ctx);
+    }
+
+    public record Constant(boolean value) implements Rule {
+        static final Constant TRUE = new Constant(true);
+        static final Constant FALSE = new Constant(false);
+
+        @Override
+        public boolean test(EligibilityContext ctx) {
+            return value;
+        }
+    }
+
+    /**
+     * A term inside a group. Terms scoped to a programme are skipped (not failed)
+     * for students of any other programme.
+     */
+    public record Term(Long scopeProgrammeId, Rule rule) {
+        boolean appliesTo(EligibilityContext ctx) {
+            return scopeProgrammeId == null || scopeProgrammeId.equals(ctx.programmeId());
+        }
+    }
+
+    /**
+     * Plain course prerequisites of a group packed into one mask per programme scope.
+     */
+    public record CourseMask(Long scopeProgrammeId, long[] mask) {
+        boolean appliesTo(EligibilityContext ctx) {
+            return scopeProgrammeId == null || scopeProgrammeId.equals(ctx.programmeId());
+        }
+    }
+
+    /**
+     * AND/OR node. Course prerequisites are checked word-wise against the completed bitset,
+     * child groups and special prerequisites are checked as terms.
+     * A group with nothing applicable to the student is satisfied.
+     */
+    public record Group(PrerequisiteType type, List<CourseMask> courseMasks, List<Term> terms) implements Rule {
+        @Override
+        public boolean test(EligibilityContext ctx) {
+            boolean and = type == PrerequisiteType.AND;
+            boolean any = false;
+            for (CourseMask courseMask : courseMasks) {
+                if (!courseMask.appliesTo(ctx)) continue;
+                any = true;
+                if (and && !CourseIndex.containsAll(ctx.completed(), courseMask.mask())) return false;
+                if (!and && CourseIndex.intersects(ctx.completed(), courseMask.mask())) return true;
+            }
+            for (Term term : terms) {
+                if (!term.appliesTo(ctx)) continue;
+                any = true;
+                boolean result = term.rule().test(ctx);
+                if (and && !result) return false;
+                if (!and && result) return true;
+            }
+            return !any || and;
+        }
+    }
+
+    public record AdmissionProgramme(Long programmeId) implements Rule {
+        @Override
+        public boolean test(EligibilityContext ctx) {
+            return programmeId != null && programmeId.equals(ctx.programmeId());
+        }
+    }
+
+    public record LevelPercent(short level, double requiredPercent) implements Rule {
+        @Override
+        public boolean test(EligibilityContext ctx) {
+            long[] levelCourses = ctx.programmeCoursesAtLevel().apply(level);
+            int total = CourseIndex.count(levelCourses);
+            int completed = CourseIndex.countCommon(levelCourses, ctx.completed());
+            return total > 0 && ((double) completed / total) >= requiredPercent;
+        }
+    }
+
+    public boolean isSatisfied(Long courseId, EligibilityContext ctx) {
+        return getRule(courseId).test(ctx);
+    }
+
+    public Rule getRule(Long courseId) {
+        return rulesByCourseId.computeIfAbsent(courseId,
+                id -> compile(coursePrerequisiteRepo.findByCourseId(id)));
+    }
+
+    public Version getVersion(Long courseId) {
+        return new Version(fullEvictions.get(), versionByCourseId.getOrDefault(courseId, 0L));
+    }
+
+    /**
+     * Rules for several courses, compiling the ones not cached yet from a single query.
+     */
+    public Map<Long, Rule> getRules(Collection<Long> courseIds) {
+        Map<Long, Rule> rules = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long courseId : courseIds) {
+            Rule rule = rulesByCourseId.get(courseId);
+            if (rule != null) {
+                rules.put(courseId, rule);
+            } else {
+                missing.add(courseId);
+            }
+        }
+        if (missing.isEmpty()) return rules;
+
+        long generation = evictions.get();
+        Map<Long, List<CoursePrerequisite>> rowsByCourseId = coursePrerequisiteRepo.findByCourseIds(missing).stream()
+                .collect(Collectors.groupingBy(cp -> cp.getCourse().getId()));
+        for (Long courseId : missing) {
+            Rule rule = compile(rowsByCourseId.getOrDefault(courseId, List.of()));
+            rules.put(courseId, rule);
+            rulesByCourseId.putIfAbsent(courseId, rule);
+        }
+        // Rows read before an eviction may be stale, don't keep them
+        if (evictions.get() != generation) {
+            missing.forEach(courseId -> rulesByCourseId.remove(courseId, rules.get(courseId)));
+        }
+        return rules;
+    }
+
+    /**
+     * Drops the compiled tree of a course and bumps its version. When called inside a transaction the eviction
+     * is repeated after commit so a concurrent reader cannot re-cache the old rows.
+     */
+    public void evict(Long courseId) {
+        TransactionHooks.evictNowAndAfterCompletion(() -> {
+            evictions.incrementAndGet();
+            versionByCourseId.merge(courseId, 1L, Long::sum);
+            rulesByCourseId.remove(courseId);
+        });
+    }
+
+    public void evictAll() {
+        TransactionHooks.evictNowAndAfterCompletion(() -> {
+            evictions.incrementAndGet();
+            fullEvictions.incrementAndGet();
+            rulesByCourseId.clear();
+        });
+    }
+
+    /**
+     * Compiles the prerequisite rows of one course. Parent groups are folded left to right
+     * in groupId order using the operatorToNext of the preceding group.
+     */
+    public Rule compile(List<CoursePrerequisite> cps) {
+        if (cps.isEmpty()) return Constant.TRUE;
+
+        Map<Integer, List<CoursePrerequisite>> byGroup = cps.stream()
+                .collect(Collectors.groupingBy(CoursePrerequisite::getGroupId, TreeMap::new, Collectors.toList()));
+
+        List<Integer> parentGroupIds = cps.stream()
+                .filter(cp -> cp.isParent() && !cp.isChild())
+                .map(CoursePrerequisite::getGroupId)
+                .distinct()
+                .sorted()
+                .toList();
+
+        if (parentGroupIds.isEmpty()) return Constant.FALSE;
+
+        Map<Integer, Rule> compiledGroups = new HashMap<>();
+        Rule result = compileGroup(parentGroupIds.getFirst(), byGroup, compiledGroups, new HashSet<>());
+        for (int i = 1; i < parentGroupIds.size(); i++) {
+            PrerequisiteType operator = byGroup.get(parentGroupIds.get(i - 1)).stream()
+                    .filter(CoursePrerequisite::isParent)
+                    .findFirst()
+                    .map(CoursePrerequisite::getOperatorToNext)
+                    .orElse(PrerequisiteType.AND);
+            Rule next = compileGroup(parentGroupIds.get(i), byGroup, compiledGroups, new HashSet<>());
+            result = new Group(operator, List.of(), List.of(new Term(null, result), new Term(null, next)));
+        }
+        return result;
+    }
+
+    private Rule compileGroup(int groupId,
+                                     Map<Integer, List<CoursePrerequisite>> byGroup,
+                                     Map<Integer, Rule> compiledGroups,
+                                     Set<Integer> visiting) {
+        Rule cached = compiledGroups.get(groupId);
+        if (cached != null) return cached;
+        if (!visiting.add(groupId)) {
+            throw new IllegalStateException("Cyclic prerequisite group: " + groupId);
+        }
+
+        List<CoursePrerequisite> entries = byGroup.getOrDefault(groupId, List.of());
+        if (entries.isEmpty()) {
+            visiting.remove(groupId);
+            compiledGroups.put(groupId, Constant.TRUE);
+            return Constant.TRUE;
+        }
+
+        PrerequisiteType type = entries.getFirst().getPrerequisiteType() == PrerequisiteType.AND
+                ? PrerequisiteType.AND
+                : PrerequisiteType.OR;
+        Map<Long, List<Long>> courseIdsByScope = new LinkedHashMap<>();
+        List<Term> terms = new ArrayList<>();
+
+        for (CoursePrerequisite cp : entries) {
+            if (cp.isSpecial()) {
+                if (cp.getSpecialType() == SpecialPrerequisiteType.ADMISSION_PROGRAMME) {
+                    terms.add(new Term(null, new AdmissionProgramme(
+                            cp.getProgramme() != null ? cp.getProgramme().getId() : null)));
+                } else if (cp.getSpecialType() == SpecialPrerequisiteType.COMPLETION_LEVEL_PERCENT) {
+                    terms.add(new Term(null, new LevelPercent(cp.getTargetLevel(), cp.getPercentageValue())));
+                }
+                continue;
+            }
+
+            Long scope = cp.getProgramme() != null ? cp.getProgramme().getId() : null;
+            if (cp.getPrerequisite() != null) {
+                courseIdsByScope.computeIfAbsent(scope, k -> new ArrayList<>()).add(cp.getPrerequisite().getId());
+            }
+            if (cp.getChildId() != 0) {
+                terms.add(new Term(scope, compileGroup(cp.getChildId(), byGroup, compiledGroups, visiting)));
+            }
+        }
+
+        visiting.remove(groupId);
+        List<CourseMask> courseMasks = courseIdsByScope.entrySet().stream()
+                .map(e -> new CourseMask(e.getKey(), courseIndex.toBits(e.getValue())))
+                .toList();
+        Rule rule = new Group(type, courseMasks, List.copyOf(terms));
+        compiledGroups.put(groupId, rule);
+        return rule;
+    }
+}
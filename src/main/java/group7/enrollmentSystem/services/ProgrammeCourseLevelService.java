@@ -0,0 +1,53 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.dtos.interfaceDtos.CourseIdAndLevel;
+import group7.enrollmentSystem.helpers.TransactionHooks;
+import group7.enrollmentSystem.repos.CourseProgrammeRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps, per programme, the programme's courses grouped by level as bitsets over {@link CourseIndex}.
+ * Used by COMPLETION_LEVEL_PERCENT prerequisites so they can be answered without touching the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProgrammeCourseLevelService {
+
+    private static final long[] NO_COURSES = new long[0];
+
+    private final CourseProgrammeRepo courseProgrammeRepo;
+    private final CourseIndex courseIndex;
+
+    private final Map<Long, Map<Short, long[]>> coursesByLevelByProgramme = new ConcurrentHashMap<>();
+
+    public long[] getCoursesAtLevel(Long programmeId, short level) {
+        return getCoursesByLevel(programmeId).getOrDefault(level, NO_COURSES);
+    }
+
+    public Map<Short, long[]> getCoursesByLevel(Long programmeId) {
+        return coursesByLevelByProgramme.computeIfAbsent(programmeId, this::load);
+    }
+
+    private Map<Short, long[]> load(Long programmeId) {
+        Map<Short, List<Long>> courseIdsByLevel = new HashMap<>();
+        for (CourseIdAndLevel course : courseProgrammeRepo.getCourseIdsAndLevelsByProgrammeId(programmeId)) {
+            if (course.getLevel() == null) continue;
+            courseIdsByLevel.computeIfAbsent(course.getLevel(), l -> new ArrayList<>()).add(course.getCourseId());
+        }
+        Map<Short, long[]> coursesByLevel = new HashMap<>();
+        courseIdsByLevel.forEach((level, ids) -> coursesByLevel.put(level, courseIndex.toBits(ids)));
+        return Map.copyOf(coursesByLevel);
+    }
+
+    public void evict(Long programmeId) {
+        TransactionHooks.evictNowAndAfterCompletion(() -> coursesByLevelByProgramme.remove(programmeId));
+    }
+
+    public void evictAll() {
+        TransactionHooks.evictNowAndAfterCompletion(coursesByLevelByProgramme::clear);
+    }
+}
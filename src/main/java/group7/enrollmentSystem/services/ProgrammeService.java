@@ -19,6 +19,9 @@ public class ProgrammeService {
     private final CoursePrerequisiteRepo coursePrerequisiteRepo;
     private final StudentProgrammeRepo studentProgrammeRepo;
     private final CourseEnrollmentRepo courseEnrollmentRepo;
+    private final PrerequisiteRuleService prerequisiteRuleService;
+    private final ProgrammeCourseLevelService programmeCourseLevelService;
+    private final SeatInventoryService seatInventoryService;
 
 
     // Add a new programme
@@ -74,7 +77,11 @@ public class ProgrammeService {
             //cause we use @Mappings in Jpa
             courseProgrammeRepo.deleteAllByProgramme(programme);
             coursePrerequisiteRepo.deleteAllByProgramme(programme);
+            prerequisiteRuleService.evictAll();
+            programmeCourseLevelService.evict(programme.getId());
             studentProgrammeRepo.deleteAllByProgramme(programme);
+            courseEnrollmentRepo.findByProgrammeAndCurrentlyTakingTrue(programme)
+                    .forEach(seatInventoryService::releaseAfterCommit);
             courseEnrollmentRepo.deleteAllByProgramme(programme);
             programmeRepo.delete(programme);
         } else {
@@ -0,0 +1,359 @@
+package group7.enrollmentSystem.services;
+
+import group7.enrollmentSystem.dtos.classDtos.SeatCountDto;
+import group7.enrollmentSystem.helpers.TransactionHooks;
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.CourseEnrollment;
+import group7.enrollmentSystem.models.SeatLedger;
+import group7.enrollmentSystem.repos.CourseEnrollmentRepo;
+import group7.enrollmentSystem.repos.SeatLedgerRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seats taken per course offering, that is per course, year and semester, with the capacity held across every app
+ * node. The SeatLedger row of an offering counts the seats all nodes have leased from it. A node leases a block of
+ * seats with one conditional update that only succeeds while the block fits under the capacity, then hands them to
+ * enrollments with a compare-and-set on an in-memory counter, so the registration surge never waits on a row lock
+ * for a popular course. The block doubles while a node keeps using it up between flushes.
+ * <p>
+ * Every {@value #FLUSH_INTERVAL_MS} ms and on shutdown a node hands the seats it has not given out back to the
+ * ledger, released seats included. A node that found the ledger full turns requests away without asking it
+ * again until then, so a course can look full on one node for that long while another holds its last seats.
+ * <p>
+ * On first use the ledger is checked against the enrollments currently being taken. A row below them is raised; a
+ * row above them is lowered once no node has leased or handed back seats for {@value #IDLE_MINUTES} minutes, which
+ * is how seats held by a node that stopped without handing them back are recovered.
+ */
+@Service
+public class SeatInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatInventoryService.class);
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final int MIN_LEASE = 8;
+    private static final int MAX_LEASE = 256;
+    private static final long IDLE_MINUTES = 10;
+
+    private final SeatLedgerRepo seatLedgerRepo;
+    private final CourseEnrollmentRepo courseEnrollmentRepo;
+    // Ledger writes commit on their own, so a lease is neither held until nor undone with the enrollment's transaction
+    private final TransactionTemplate ownTransaction;
+
+    private final Map<SeatKey, Seats> seats = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("seat-ledger-flush").daemon().factory());
+    private volatile boolean recovered;
+
+    // An enrollment's year is the year of its dateEnrolled, so a counter never carries into the same semester a year on
+    private record SeatKey(long courseId, int year, int semester) {
+    }
+
+    private static final class Seats {
+        final SeatKey key;
+        // Leased from the ledger and not given to an enrollment yet
+        final AtomicInteger free = new AtomicInteger();
+        volatile Long ledgerId;
+        // Set when the ledger had no seat left, so requests for a full course are turned away here until the flush
+        volatile boolean full;
+        // Guarded by this Seats
+        int block;
+        boolean leasedSinceFlush;
+
+        Seats(SeatKey key) {
+            this.key = key;
+        }
+    }
+
+    public SeatInventoryService(SeatLedgerRepo seatLedgerRepo, CourseEnrollmentRepo courseEnrollmentRepo,
+                                PlatformTransactionManager transactionManager) {
+        this.seatLedgerRepo = seatLedgerRepo;
+        this.courseEnrollmentRepo = courseEnrollmentRepo;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // After the CommandLineRunners, so seed enrollments are counted before the first request
+    @EventListener(ApplicationReadyEvent.class)
+    void recoverOnStartup() {
+        if (!recovered) {
+            recover();
+        }
+    }
+
+    @PostConstruct
+    void startFlusher() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopFlusher() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    /**
+     * Takes a seat in the course for the year and semester, or returns false when it is full. A course without a
+     * capacity is never full but is still counted.
+     */
+    public boolean tryReserve(Course course, int year, int semester) {
+        Seats seats = seats(new SeatKey(course.getId(), year, semester));
+        int capacity = course.getCapacity() == null ? Integer.MAX_VALUE : course.getCapacity();
+        do {
+            if (takeFree(seats)) {
+                return true;
+            }
+        } while (!seats.full && lease(seats, capacity));
+        return false;
+    }
+
+    /**
+     * Takes a seat for an enrollment being written in the current transaction. The seat is handed back if
+     * the transaction rolls back.
+     */
+    public void reserve(Course course, int year, int semester) {
+        if (!tryReserve(course, year, semester)) {
+            throw new RuntimeException(course.getCourseCode() + " is full for Semester " + semester + ".");
+        }
+        TransactionHooks.onRollback(() -> release(course.getId(), year, semester));
+    }
+
+    /**
+     * Takes the seat of an enrollment that is being made current in the current transaction.
+     */
+    public void reserve(CourseEnrollment enrollment) {
+        reserve(enrollment.getCourse(), yearOf(enrollment), enrollment.getSemesterEnrolled());
+    }
+
+    /**
+     * Hands a seat back once the current transaction commits, so a cancellation that rolls back
+     * never frees a seat someone else could take.
+     */
+    public void releaseAfterCommit(Long courseId, int year, int semester) {
+        seats(new SeatKey(courseId, year, semester));
+        TransactionHooks.afterCommit(() -> release(courseId, year, semester));
+    }
+
+    /**
+     * Hands back the seat of an enrollment that stops being current in the current transaction: cancelled,
+     * passed, failed or deleted.
+     */
+    public void releaseAfterCommit(CourseEnrollment enrollment) {
+        releaseAfterCommit(enrollment.getCourse().getId(), yearOf(enrollment), enrollment.getSemesterEnrolled());
+    }
+
+    /**
+     * Hands a seat back to this node, which can give it out again or returns it to the ledger with the next flush,
+     * whichever node took it.
+     */
+    public void release(Long courseId, int year, int semester) {
+        seats(new SeatKey(courseId, year, semester)).free.incrementAndGet();
+    }
+
+    /**
+     * The seats given to enrollments, as this node sees them: seats another node has leased and not given out yet
+     * count as taken until it hands them back.
+     */
+    public synchronized int getSeatsTaken(Long courseId, int year, int semester) {
+        Seats seats = seats(new SeatKey(courseId, year, semester));
+        int leased = ownTransaction.execute(status -> seatLedgerRepo
+                .findByCourseIdAndAcademicYearAndSemester(courseId, year, semester)
+                .map(SeatLedger::getSeatsTaken).orElse(0));
+        return Math.max(0, leased - seats.free.get());
+    }
+
+    // Enrollments without a date are counted under year 0, as the recovery query does
+    public static int yearOf(CourseEnrollment enrollment) {
+        return enrollment.getDateEnrolled() == null ? 0 : enrollment.getDateEnrolled().getYear();
+    }
+
+    /**
+     * Hands every seat this node has leased and not given out back to the ledger in one transaction.
+     */
+    public synchronized void flush() {
+        Map<Seats, Integer> unused = new HashMap<>();
+        for (Seats current : seats.values()) {
+            synchronized (current) {
+                current.leasedSinceFlush = false;
+                current.full = false;
+                int count = current.free.getAndSet(0);
+                if (count > 0) {
+                    unused.put(current, count);
+                }
+            }
+        }
+        if (unused.isEmpty()) {
+            return;
+        }
+        try {
+            unused.keySet().forEach(this::ledgerId);
+            LocalDateTime now = LocalDateTime.now();
+            ownTransaction.executeWithoutResult(status -> unused.forEach((current, count) ->
+                    seatLedgerRepo.handBack(current.ledgerId, count, now)));
+        } catch (RuntimeException e) {
+            unused.forEach((current, count) -> current.free.addAndGet(count));
+            throw e;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Seat ledger flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private static boolean takeFree(Seats seats) {
+        AtomicInteger free = seats.free;
+        int current;
+        do {
+            current = free.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!free.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    /**
+     * Leases the next block for the offering, or as many seats as are left under the capacity. One thread leases
+     * while the others on this node wait for its seats.
+     *
+     * @return false when no seat is left
+     */
+    private boolean lease(Seats seats, int capacity) {
+        synchronized (seats) {
+            if (seats.free.get() > 0) {
+                return true;
+            }
+            if (seats.full) {
+                return false;
+            }
+            seats.block = seats.leasedSinceFlush ? Math.min(seats.block * 2, MAX_LEASE) : MIN_LEASE;
+            int wanted = seats.block;
+            while (wanted > 0) {
+                Long ledgerId = ledgerId(seats);
+                int asked = wanted;
+                if (ownTransaction.execute(status ->
+                        seatLedgerRepo.lease(ledgerId, asked, capacity, LocalDateTime.now())) > 0) {
+                    seats.leasedSinceFlush = true;
+                    seats.free.addAndGet(asked);
+                    return true;
+                }
+                // Each read in a transaction of its own, so it sees what the other nodes have leased since
+                Optional<Integer> leased = ownTransaction.execute(status -> seatLedgerRepo.findSeatsTaken(ledgerId));
+                if (leased.isEmpty()) {
+                    seats.ledgerId = null;
+                    continue;
+                }
+                wanted = Math.min(seats.block, capacity - leased.get());
+            }
+            seats.full = true;
+            return false;
+        }
+    }
+
+    // The offering's ledger row, created on its first lease or release
+    private Long ledgerId(Seats seats) {
+        Long ledgerId = seats.ledgerId;
+        if (ledgerId != null) {
+            return ledgerId;
+        }
+        SeatKey key = seats.key;
+        try {
+            ledgerId = ownTransaction.execute(status -> seatLedgerRepo
+                    .findByCourseIdAndAcademicYearAndSemester(key.courseId(), key.year(), key.semester())
+                    .orElseGet(() -> seatLedgerRepo.saveAndFlush(new SeatLedger(key.courseId(), key.year(), key.semester())))
+                    .getId());
+        } catch (DataIntegrityViolationException e) {
+            // Created by another node at the same moment
+            ledgerId = ownTransaction.execute(status -> seatLedgerRepo
+                    .findByCourseIdAndAcademicYearAndSemester(key.courseId(), key.year(), key.semester())
+                    .orElseThrow().getId());
+        }
+        seats.ledgerId = ledgerId;
+        return ledgerId;
+    }
+
+    private Seats seats(SeatKey key) {
+        if (!recovered) {
+            recover();
+        }
+        Seats current = seats.get(key);
+        return current != null ? current : seats.computeIfAbsent(key, Seats::new);
+    }
+
+    /**
+     * Runs in its own transaction so it only counts committed enrollments. Changes still in flight lease or hand
+     * back their seats as usual, which is why every path resolves its counter before registering a hook.
+     */
+    private synchronized void recover() {
+        if (recovered) {
+            return;
+        }
+        Map<SeatKey, Long> ledgerIds;
+        try {
+            ledgerIds = ownTransaction.execute(status -> repairLedger());
+        } catch (DataIntegrityViolationException e) {
+            // Another node starting at the same time created a row first
+            ledgerIds = ownTransaction.execute(status -> repairLedger());
+        }
+        // Only once committed, so a counter never points at a row that was rolled back
+        ledgerIds.forEach((key, ledgerId) -> seats.computeIfAbsent(key, Seats::new).ledgerId = ledgerId);
+        recovered = true;
+    }
+
+    private Map<SeatKey, Long> repairLedger() {
+        Map<SeatKey, SeatLedger> rows = new HashMap<>();
+        for (SeatLedger row : seatLedgerRepo.findAll()) {
+            rows.put(new SeatKey(row.getCourseId(), row.getAcademicYear(), row.getSemester()), row);
+        }
+        Map<SeatKey, Integer> enrolled = new HashMap<>();
+        for (SeatCountDto count : courseEnrollmentRepo.countCurrentlyTakingByCourseAndSemester()) {
+            enrolled.put(new SeatKey(count.getCourseId(), count.getAcademicYear(), count.getSemester()),
+                    (int) count.getSeatsTaken());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime idleBefore = now.minusMinutes(IDLE_MINUTES);
+        Set<SeatKey> keys = new HashSet<>(rows.keySet());
+        keys.addAll(enrolled.keySet());
+        Map<SeatKey, Long> ledgerIds = new HashMap<>();
+        int repaired = 0;
+        for (SeatKey key : keys) {
+            int actual = enrolled.getOrDefault(key, 0);
+            SeatLedger row = rows.get(key);
+            if (row == null) {
+                row = new SeatLedger(key.courseId(), key.year(), key.semester());
+                row.setSeatsTaken(actual);
+                row.setUpdatedAt(now);
+                seatLedgerRepo.saveAndFlush(row);
+                repaired++;
+            } else {
+                repaired += seatLedgerRepo.repair(row.getId(), actual, now, idleBefore);
+            }
+            ledgerIds.put(key, row.getId());
+        }
+        if (repaired > 0) {
+            logger.info("Seat ledger repaired for {} course offering(s) from current enrollments", repaired);
+        }
+        return ledgerIds;
+    }
+}
@@ -0,0 +1,48 @@
+package group7.enrollmentSystem.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-process locks serialising enrollment writes per student, shared by every path that adds enrollments.
+ * They keep requests for the same student queued in memory instead of each holding a connection while it waits for
+ * the student's row lock, which is what serialises them across app nodes.
+ */
+@Component
+public class StudentEnrollmentLocks {
+
+    private static final int STRIPES = 64;
+
+    private final Lock[] stripes = new Lock[STRIPES];
+
+    public StudentEnrollmentLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock forStudent(Long studentId) {
+        return stripes[stripe(studentId)];
+    }
+
+    /**
+     * The stripes covering all the students, each once and in stripe order, so callers taking them in list order
+     * cannot deadlock with each other.
+     */
+    public List<Lock> forStudents(Collection<Long> studentIds) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Long studentId : studentIds) {
+            indexes.add(stripe(studentId));
+        }
+        return indexes.stream().map(index -> stripes[index]).toList();
+    }
+
+    private static int stripe(Long studentId) {
+        return Math.floorMod(Long.hashCode(studentId), STRIPES);
+    }
+}
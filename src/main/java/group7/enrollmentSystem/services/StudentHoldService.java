@@ -8,21 +8,21 @@ import group7.enrollmentSystem.dtos.classDtos.StudentHoldViewDto;
 import group7.enrollmentSystem.dtos.serverKtDtos.MessageDto;
 import group7.enrollmentSystem.enums.OnHoldTypes;
 import group7.enrollmentSystem.helpers.EmailService;
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
 import group7.enrollmentSystem.models.HoldServiceRestriction;
 import group7.enrollmentSystem.models.OnHoldStatus;
 import group7.enrollmentSystem.models.Student;
 import group7.enrollmentSystem.models.StudentHoldHistory;
-import group7.enrollmentSystem.repos.HoldServiceRestrictionRepo;
 import group7.enrollmentSystem.repos.StudentHoldHistoryRepo;
 import group7.enrollmentSystem.repos.StudentRepo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,8 +30,11 @@ import java.util.stream.Collectors;
 public class StudentHoldService {
     private final StudentRepo studentRepo;
     private final StudentHoldHistoryRepo studentHoldHistoryRepo;
-    private final HoldServiceRestrictionRepo restrictionRepo;
     private final EmailService emailService;
+    private final HoldRestrictionMatrixService holdRestrictionMatrixService;
+    private final StudentDocumentVersions studentDocumentVersions;
+
+    private static final String ACCESS_SNAPSHOT_ATTRIBUTE = StudentHoldService.class.getName() + ".accessSnapshot:";
 
     public enum HoldRestrictionType {
         COURSE_ENROLLMENT,
@@ -44,88 +47,122 @@ public class StudentHoldService {
         GRADUATION_APPLICATION
     }
 
-    public StudentHoldViewDto getStudentHoldDetails(String email) {
-        Student student = studentRepo.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
+    /**
+     * Immutable view of what one student may access, covering every {@link HoldRestrictionType}.
+     * For each blocked service it keeps the first active hold that blocks it, which is the hold reported to the student.
+     */
+    public record AccessSnapshot(String studentId, String fullName, String email, List<OnHoldTypes> activeHolds,
+                                 int blockedMask, Map<HoldRestrictionType, OnHoldTypes> restrictingHolds) {
 
-        StudentHoldViewDto dto = new StudentHoldViewDto();
-        dto.setStudentId(student.getStudentId());
-        dto.setFullName(student.getFirstName() + " " + student.getLastName());
-        dto.setEmail(student.getEmail());
+        public AccessSnapshot {
+            activeHolds = List.copyOf(activeHolds);
+            restrictingHolds = Map.copyOf(restrictingHolds);
+        }
+
+        public boolean hasHold() {
+            return !activeHolds.isEmpty();
+        }
+
+        public boolean canAccess(HoldRestrictionType restrictionType) {
+            return !HoldRestrictionMatrixService.isBlocked(blockedMask, restrictionType);
+        }
+
+        public OnHoldTypes getRestrictingHold(HoldRestrictionType restrictionType) {
+            return restrictingHolds.get(restrictionType);
+        }
 
-        List<OnHoldStatus> activeHolds = student.getOnHoldStatusList().stream()
+        public String getHoldMessage() {
+            return hasHold() ? "Account has " + activeHolds.size() + " active hold(s)" : "No active holds";
+        }
+    }
+
+    /**
+     * The student's access snapshot, built once per HTTP request and shared by every check made while handling it.
+     * Outside a request it is built on each call.
+     */
+    public AccessSnapshot getAccessSnapshot(String email) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        String attribute = ACCESS_SNAPSHOT_ATTRIBUTE + email;
+        if (request != null && request.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST) instanceof AccessSnapshot snapshot) {
+            return snapshot;
+        }
+
+        Student student = studentRepo.findByEmail(email)
+                .orElseThrow(() -> new CustomExceptions.StudentNotFoundException(email));
+        AccessSnapshot snapshot = buildAccessSnapshot(student);
+        if (request != null) {
+            request.setAttribute(attribute, snapshot, RequestAttributes.SCOPE_REQUEST);
+        }
+        return snapshot;
+    }
+
+    private AccessSnapshot buildAccessSnapshot(Student student) {
+        List<OnHoldTypes> activeHolds = student.getOnHoldStatusList().stream()
                 .filter(OnHoldStatus::isOnHold)
+                .map(OnHoldStatus::getOnHoldType)
                 .toList();
 
-        dto.setHasHold(!activeHolds.isEmpty());
-        dto.setActiveHolds(activeHolds);
+        int blockedMask = 0;
+        Map<HoldRestrictionType, OnHoldTypes> restrictingHolds = new EnumMap<>(HoldRestrictionType.class);
+        for (OnHoldTypes holdType : activeHolds) {
+            int holdMask = holdRestrictionMatrixService.getBlockedMask(holdType);
+            blockedMask |= holdMask;
+            for (HoldRestrictionType restrictionType : HoldRestrictionType.values()) {
+                if (HoldRestrictionMatrixService.isBlocked(holdMask, restrictionType)) {
+                    restrictingHolds.putIfAbsent(restrictionType, holdType);
+                }
+            }
+        }
+
+        return new AccessSnapshot(student.getStudentId(), student.getFirstName() + " " + student.getLastName(),
+                student.getEmail(), activeHolds, blockedMask, restrictingHolds);
+    }
 
-        if (dto.isHasHold()) {
-            dto.setHoldMessage("Account has " + activeHolds.size() + " active hold(s)");
-            applyServiceRestrictions(dto, activeHolds);
-        } else {
-            dto.setHoldMessage("No active holds");
-            enableAllServices(dto);
+    private void forgetAccessSnapshot(String email) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(ACCESS_SNAPSHOT_ATTRIBUTE + email, RequestAttributes.SCOPE_REQUEST);
         }
+    }
+
+    public StudentHoldViewDto getStudentHoldDetails(String email) {
+        AccessSnapshot snapshot = getAccessSnapshot(email);
 
+        StudentHoldViewDto dto = new StudentHoldViewDto();
+        dto.setStudentId(snapshot.studentId());
+        dto.setFullName(snapshot.fullName());
+        dto.setEmail(snapshot.email());
+        dto.setHasHold(snapshot.hasHold());
+        dto.setActiveHolds(snapshot.activeHolds());
+        dto.setHoldMessage(snapshot.getHoldMessage());
+
+        dto.setCanRegisterCourses(snapshot.canAccess(HoldRestrictionType.COURSE_ENROLLMENT));
+        dto.setCanViewCompletedCourses(snapshot.canAccess(HoldRestrictionType.VIEW_COMPLETED_COURSES));
+        dto.setCanViewStudentAudit(snapshot.canAccess(HoldRestrictionType.STUDENT_AUDIT));
+        dto.setCanGenerateTranscript(snapshot.canAccess(HoldRestrictionType.GENERATE_TRANSCRIPT));
+        dto.setCanViewApplicationPage(snapshot.canAccess(HoldRestrictionType.FORMS_APPLICATION));
+        dto.setCanRequestGradeChange(snapshot.canAccess(HoldRestrictionType.GRADE_CHANGE_REQUEST));
+        dto.setCanApplyForCompassionate(snapshot.canAccess(HoldRestrictionType.COMPASSIONATE_APPLICATION));
+        dto.setCanApplyForGraduation(snapshot.canAccess(HoldRestrictionType.GRADUATION_APPLICATION));
         return dto;
     }
 
     public void checkAccess(String email, HoldRestrictionType restrictionType) {
-        OnHoldTypes restrictingHoldType = getFirstRestrictingHoldType(email, restrictionType);
+        OnHoldTypes restrictingHoldType = getAccessSnapshot(email).getRestrictingHold(restrictionType);
         if (restrictingHoldType != null) {
             throw new CustomExceptions.StudentOnHoldException(restrictingHoldType);
         }
     }
 
     public boolean hasRestriction(String email, HoldRestrictionType restrictionType) {
-        return getFirstRestrictingHoldType(email, restrictionType) != null;
+        return !getAccessSnapshot(email).canAccess(restrictionType);
     }
 
-    private OnHoldTypes getFirstRestrictingHoldType(String email, HoldRestrictionType restrictionType) {
-        Student student = studentRepo.findByEmail(email)
-                .orElseThrow(() -> new CustomExceptions.StudentNotFoundException(email));
-
-        return student.getOnHoldStatusList().stream()
-                .filter(OnHoldStatus::isOnHold)
-                .map(OnHoldStatus::getOnHoldType)
-                .filter(holdType -> isRestricted(holdType, restrictionType))
-                .findFirst()
-                .orElse(null);
-    }
-
-    private boolean isRestricted(OnHoldTypes holdType, HoldRestrictionType restrictionType) {
-        HoldServiceRestriction restriction = restrictionRepo.findByHoldType(holdType);
-        if (restriction == null) return false;
-
-        return switch (restrictionType) {
-            case COURSE_ENROLLMENT -> restriction.isBlockCourseEnrollment();
-            case VIEW_COMPLETED_COURSES -> restriction.isBlockViewCompletedCourses();
-            case STUDENT_AUDIT -> restriction.isBlockStudentAudit();
-            case GENERATE_TRANSCRIPT -> restriction.isBlockGenerateTranscript();
-            case FORMS_APPLICATION -> restriction.isBlockViewApplicationPage();
-            case GRADE_CHANGE_REQUEST -> restriction.isBlockGradeChangeRequest();
-            case COMPASSIONATE_APPLICATION -> restriction.isBlockCompassionateApplication();
-            case GRADUATION_APPLICATION -> restriction.isBlockGraduationApplication();
-        };
-    }
-
-    private void applyServiceRestrictions(StudentHoldViewDto dto, List<OnHoldStatus> activeHolds) {
-        enableAllServices(dto); // Start with all enabled
-
-        activeHolds.forEach(hold -> {
-            HoldServiceRestriction restriction = restrictionRepo.findByHoldType(hold.getOnHoldType());
-            if (restriction != null) {
-                if (restriction.isBlockCourseEnrollment()) dto.setCanRegisterCourses(false);
-                if (restriction.isBlockViewCompletedCourses()) dto.setCanViewCompletedCourses(false);
-                if (restriction.isBlockStudentAudit()) dto.setCanViewStudentAudit(false);
-                if (restriction.isBlockGenerateTranscript()) dto.setCanGenerateTranscript(false);
-                if (restriction.isBlockViewApplicationPage()) dto.setCanViewApplicationPage(false);
-                if (restriction.isBlockGradeChangeRequest()) dto.setCanRequestGradeChange(false);
-                if (restriction.isBlockCompassionateApplication()) dto.setCanApplyForCompassionate(false);
-                if (restriction.isBlockGraduationApplication()) dto.setCanApplyForGraduation(false);
-            }
-        });
+    /**
+     * Bitmask of the services blocked by the student's active holds; test it with {@link HoldRestrictionMatrixService#isBlocked}.
+     */
+    public int getBlockedServicesMask(Student student) {
+        return holdRestrictionMatrixService.getBlockedMask(student.getOnHoldStatusList());
     }
 
     public List<StudentHoldDto> getAllStudentsWithHoldStatus() {
@@ -238,6 +275,8 @@ public class StudentHoldService {
         }
 
         studentRepo.save(student);
+        forgetAccessSnapshot(student.getEmail());
+        studentDocumentVersions.bump(studentId);
 
         // Record in history
         StudentHoldHistory history = StudentHoldHistory.create(studentId, holdType, true, actionBy);
@@ -261,6 +300,8 @@ public class StudentHoldService {
                 .ifPresent(hold -> {
                     hold.setOnHold(false);
                     studentRepo.save(student);
+                    forgetAccessSnapshot(student.getEmail());
+                    studentDocumentVersions.bump(studentId);
 
                     // Record in history
                     StudentHoldHistory history = StudentHoldHistory.create(
@@ -281,15 +322,4 @@ public class StudentHoldService {
     public List<StudentHoldHistoryDto> getHoldHistoryByStudent(Long studentId) {
         return studentHoldHistoryRepo.findHistoryByStudentId(studentId);
     }
-
-    private void enableAllServices(StudentHoldViewDto dto) {
-        dto.setCanRegisterCourses(true);
-        dto.setCanViewCompletedCourses(true);
-        dto.setCanViewStudentAudit(true);
-        dto.setCanGenerateTranscript(true);
-        dto.setCanViewApplicationPage(true);
-        dto.setCanRequestGradeChange(true);
-        dto.setCanApplyForCompassionate(true);
-        dto.setCanApplyForGraduation(true);
-    }
 }
\ No newline at end of file
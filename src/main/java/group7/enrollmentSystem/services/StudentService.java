@@ -1,13 +1,12 @@
 package group7.enrollmentSystem.services;
 
-import com.itextpdf.text.DocumentException;
 import group7.enrollmentSystem.config.CustomExceptions;
 import group7.enrollmentSystem.dtos.appDtos.EnrollCourseRequest;
 import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentDto;
+import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentStatusDto;
 import group7.enrollmentSystem.dtos.classDtos.CoursesTranscriptDTO;
+import group7.enrollmentSystem.dtos.classDtos.EnrollmentPageDto;
 import group7.enrollmentSystem.dtos.classDtos.InvoiceDto;
-import group7.enrollmentSystem.enums.PrerequisiteType;
-import group7.enrollmentSystem.enums.SpecialPrerequisiteType;
 import group7.enrollmentSystem.helpers.*;
 import group7.enrollmentSystem.models.*;
 import group7.enrollmentSystem.repos.*;
@@ -16,18 +15,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,16 +39,22 @@ public class StudentService {
     private final CourseEnrollmentRepo courseEnrollmentRepo;
     private final StudentProgrammeRepo studentProgrammeRepo;
     private final CourseProgrammeRepo courseProgrammeRepo;
-    private final EnrollmentStateRepo enrollmentStateRepo;
+    private final EnrollmentStateService enrollmentStateService;
     private final StudentProgrammeService studentProgrammeService;
     private final CourseEnrollmentService courseEnrollmentService;
-    private final InvoicePdfGeneratorService invoicePdfGeneratorService;
     private final GradeService gradeService;
     private final Random random = new Random();
     private final StudentHoldService studentHoldService;
     private final EmailService emailService;
+    private final PrerequisiteRuleService prerequisiteRuleService;
+    private final ProgrammeCourseLevelService programmeCourseLevelService;
+    private final CourseIndex courseIndex;
+    private final SeatInventoryService seatInventoryService;
+    private final UploadStore uploadStore;
 
-    private final CoursesTranscriptPdfGeneratorService coursesTranscriptPdfGeneratorService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final StudentEnrollmentLocks enrollmentLocks;
 
     public List<CourseEnrollmentDto> getEligibleCourses(String email) {
         Student student = studentRepo.findByEmail(email)
@@ -57,176 +63,83 @@ public class StudentService {
         Programme programme = studentProgrammeRepo.findStudentCurrentProgramme(student)
                 .orElseThrow(() -> new RuntimeException("Programme not found for student with email: " + email));
 
-        EnrollmentState enrollmentState = enrollmentStateRepo.findById(1L).orElseThrow();
-        boolean isSemesterOne = enrollmentState.isSemesterOne();
-
-        List<Long> courseIdsForSem = isSemesterOne
-                ? courseProgrammeRepo.getCourseIdsByProgrammeAndSemester1(programme)
-                : courseProgrammeRepo.getCourseIdsByProgrammeAndSemester2(programme);
-        List<Long> courseIdsForProgramme = courseProgrammeRepo.getCourseIdsByProgramme(programme);
-        List<Long> completedCourseIds = courseEnrollmentRepo.getCompletedCourseIdsByStudent(student);
-        List<Long> appliedCourseIds = courseEnrollmentRepo.getAppliedCourseIdsByStudent(student);
-
-        List<CourseEnrollmentDto> eligibleDtos = new ArrayList<>();
-
-        for (Long courseId : courseIdsForSem) {
-            if (appliedCourseIds.contains(courseId)) continue;
-            if (completedCourseIds.contains(courseId)) continue;
-
-            if (isEligibleForCourse(courseId, completedCourseIds, programme, courseIdsForProgramme)) {
-                Course course = courseRepo.findById(courseId).orElseThrow();
-                eligibleDtos.add(new CourseEnrollmentDto(
-                        course.getId(),
-                        course.getCourseCode(),
-                        course.getTitle(),
-                        course.getCost(),
-                        false
-                ));
-            }
-        }
-
-        return eligibleDtos;
-    }
-
-    private boolean isEligibleForCourse(Long courseId, List<Long> completedCourseIds, Programme studentProgramme, List<Long> courseIdsForProgramme) {
-        List<CoursePrerequisite> cps = coursePrerequisiteRepo.findByCourseId(courseId);
-        if (cps.isEmpty()) return true;
-
-        Set<Integer> parentGroupIds = cps.stream()
-                .filter(cp -> cp.isParent() && !cp.isChild())
-                .map(CoursePrerequisite::getGroupId)
-                .collect(Collectors.toSet());
-
-        Map<Integer, Boolean> groupCache = new HashMap<>();
-        List<Boolean> parentGroupResults = new ArrayList<>();
-
-        for (Integer groupId : parentGroupIds) {
-            boolean groupValid = evaluateGroup(groupId, cps, completedCourseIds, groupCache, studentProgramme, courseIdsForProgramme);
-            parentGroupResults.add(groupValid);
-        }
-
-        return combineWithOperatorToNext(parentGroupIds, cps, parentGroupResults);
+        return getEnrollmentPage(student, programme, enrollmentStateService.isSemesterOne()).getEligibleCourses();
     }
 
-    private boolean evaluateGroup(
-            int groupId,
-            List<CoursePrerequisite> allPrereqs,
-            List<Long> completedCourseIds,
-            Map<Integer, Boolean> groupCache,
-            Programme studentProgramme,
-            List<Long> courseIdsForProgramme
-    ) {
-        if (groupCache.containsKey(groupId)) {
-            return groupCache.get(groupId);
-        }
-
-        List<CoursePrerequisite> groupEntries = allPrereqs.stream()
-                .filter(cp -> cp.getGroupId() == groupId)
-                .toList();
-
-        if (groupEntries.isEmpty()) return true;
-
-        PrerequisiteType type = groupEntries.getFirst().getPrerequisiteType();
-        List<Boolean> conditions = new ArrayList<>();
-
-        for (CoursePrerequisite cp : groupEntries) {
-            // Handle special prerequisites
-            if (cp.isSpecial()) {
-                if (cp.getSpecialType() == SpecialPrerequisiteType.ADMISSION_PROGRAMME) {
-                    if (cp.getProgramme() != null && cp.getProgramme().getId().equals(studentProgramme.getId())) {
-                        conditions.add(true); // student is admitted to required programme
-                    } else {
-                        conditions.add(false); // not admitted to this programme
-                    }
-                } else if (cp.getSpecialType() == SpecialPrerequisiteType.COMPLETION_LEVEL_PERCENT) {
-                    short level = cp.getTargetLevel();
-                    double requiredPercent = cp.getPercentageValue();
-
-                    List<Long> levelCourseIds = courseIdsForProgramme.stream()
-                            .map(id -> courseRepo.findById(id).orElse(null))
-                            .filter(Objects::nonNull)
-                            .filter(c -> c.getLevel() == level)
-                            .map(Course::getId)
-                            .toList();
-
-                    long total = levelCourseIds.size();
-                    long completed = levelCourseIds.stream().filter(completedCourseIds::contains).count();
-                    System.out.println("Total: " + total + ", Completed: " + completed + ", Required Percent: " + requiredPercent);
-                    boolean met = total > 0 && ((double) completed / total) >= requiredPercent;
-                    conditions.add(met);
-                }
-                continue;// skip normal logic if special handled
+    /**
+     * Eligible and currently enrolled courses for the enrollment page. Reads the programme's course rows,
+     * the student's enrollment history and, for rules not cached yet, their prerequisite rows in one query each.
+     */
+    public EnrollmentPageDto getEnrollmentPage(Student student, Programme programme, boolean isSemesterOne) {
+        List<CourseEnrollmentDto> semesterCourses =
+                courseProgrammeRepo.getCourseRowsByProgrammeAndSemester(programme, isSemesterOne);
+        List<CourseEnrollmentStatusDto> history = courseEnrollmentRepo.getEnrollmentStatusByStudent(student);
+
+        List<Long> completedCourseIds = new ArrayList<>();
+        List<Long> appliedCourseIds = new ArrayList<>();
+        List<CourseEnrollmentDto> enrolledDtos = new ArrayList<>();
+        for (CourseEnrollmentStatusDto row : history) {
+            if (row.isCompleted() && !row.isFailed()) {
+                completedCourseIds.add(row.getCourseId());
             }
-
-            // Skip if this prerequisite is program-specific and doesn't match
-            if (cp.getProgramme() != null && !cp.getProgramme().getId().equals(studentProgramme.getId())) {
-                continue;
-            }
-
-            if (cp.getPrerequisite() != null) {
-                boolean passed = completedCourseIds.contains(cp.getPrerequisite().getId());
-                conditions.add(passed);
-            }
-
-            if (cp.getChildId() != 0) {
-                boolean childValid = groupCache.containsKey(cp.getChildId())
-                        ? groupCache.get(cp.getChildId())
-                        : evaluateGroup(cp.getChildId(), allPrereqs, completedCourseIds, groupCache, studentProgramme, courseIdsForProgramme);
-                groupCache.putIfAbsent(cp.getChildId(), childValid);
-                conditions.add(childValid);
+            if (row.isCurrentlyTaking()) {
+                appliedCourseIds.add(row.getCourseId());
+                enrolledDtos.add(new CourseEnrollmentDto(
+                        row.getCourseId(), row.getCourseCode(), row.getTitle(), row.getCost(), row.isPaid()));
             }
         }
 
-        if (conditions.isEmpty()) {
-            groupCache.put(groupId, true);
-            return true;
+        long[] completed = courseIndex.toBits(completedCourseIds);
+        long[] applied = courseIndex.toBits(appliedCourseIds);
+        List<CourseEnrollmentDto> candidates = new ArrayList<>();
+        for (CourseEnrollmentDto course : semesterCourses) {
+            int index = courseIndex.indexOf(course.getCourseId());
+            if (CourseIndex.get(applied, index) || CourseIndex.get(completed, index)) continue;
+            candidates.add(course);
         }
 
-        boolean finalResult = type == PrerequisiteType.AND
-                ? conditions.stream().allMatch(Boolean::booleanValue)
-                : conditions.stream().anyMatch(Boolean::booleanValue);
+        Map<Long, PrerequisiteRuleService.Rule> rules = prerequisiteRuleService.getRules(
+                candidates.stream().map(CourseEnrollmentDto::getCourseId).toList());
+        PrerequisiteRuleService.EligibilityContext ctx = eligibilityContext(programme, completed);
+        List<CourseEnrollmentDto> eligibleDtos = candidates.stream()
+                .filter(course -> rules.get(course.getCourseId()).test(ctx))
+                .toList();
 
-        groupCache.put(groupId, finalResult);
-        return finalResult;
+        return new EnrollmentPageDto(eligibleDtos, enrolledDtos);
     }
 
-    private boolean combineWithOperatorToNext(Set<Integer> groupIds, List<CoursePrerequisite> allCps, List<Boolean> groupResults) {
-        List<Integer> sortedGroupIds = new ArrayList<>(groupIds);
-        Collections.sort(sortedGroupIds);
-
-        if (groupResults.isEmpty()) return false;
-
-        boolean result = groupResults.get(0);
-
-        for (int i = 1; i < groupResults.size(); i++) {
-            int finalI = i;
-
-            PrerequisiteType operator = allCps.stream()
-                    .filter(cp -> cp.getGroupId() == sortedGroupIds.get(finalI - 1) && cp.isParent())
-                    .findFirst()
-                    .map(CoursePrerequisite::getOperatorToNext)
-                    .orElse(PrerequisiteType.AND);
-
-            boolean nextResult = groupResults.get(i);
-            result = switch (operator) {
-                case AND -> result && nextResult;
-                case OR -> result || nextResult;
-            };
-        }
-
-        return result;
+    private PrerequisiteRuleService.EligibilityContext eligibilityContext(Programme studentProgramme, long[] completed) {
+        Long programmeId = studentProgramme.getId();
+        return new PrerequisiteRuleService.EligibilityContext(programmeId, completed,
+                level -> programmeCourseLevelService.getCoursesAtLevel(programmeId, level));
     }
+
+    /**
+     * Enrolls the student in the selected courses. Requests for the same student are serialised: in-process by a
+     * striped lock, and across app nodes by a row lock on the student taken as the transaction's first statement,
+     * so the quota and duplicate checks below always see every earlier committed enrollment.
+     */
     public void enrollStudent(EnrollCourseRequest request) {
-        EnrollmentState state = enrollmentStateRepo.findById(1L)
-                .orElseThrow(() -> new RuntimeException("Enrollment state not found"));
-        if (!state.isOpen()) {
-            throw new RuntimeException("The course enrollment period is closed. Please contact Student Administrative Services for more info.");
+        Lock lock = enrollmentLocks.forStudent(request.getUserId());
+        lock.lock();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> enrollStudentLocked(request));
+        } finally {
+            lock.unlock();
         }
-        Optional<Student> optionalStudent = studentRepo.findById(request.getUserId());
+    }
+
+    private void enrollStudentLocked(EnrollCourseRequest request) {
+        Optional<Student> optionalStudent = studentRepo.findByIdForUpdate(request.getUserId());
         if(!optionalStudent.isPresent()) {
             throw new RuntimeException("Student not found with ID: " + request.getUserId());
         }
         Student student = optionalStudent.get();
+        // One snapshot for the whole request, so open and semester come from the same version
+        EnrollmentStateService.Snapshot state = enrollmentStateService.getState();
+        if (!state.isOpen()) {
+            throw new RuntimeException("The course enrollment period is closed. Please contact Student Administrative Services for more info.");
+        }
         Programme programme = studentProgrammeRepo.findStudentCurrentProgramme(student)
                 .orElseThrow(() -> new RuntimeException("Programme not found for student with ID: " + student.getId()));
         int currentlyApplied = studentRepo.getCurrentlyAppliedByStudent(student);
@@ -238,38 +151,45 @@ public class StudentService {
         if(currentlyApplied + request.getSelectedCourses().size() > 4){
             throw new RuntimeException("You have reached the maximum number of courses you can apply for (4).");
         }
+        if (new HashSet<>(request.getSelectedCourses()).size() != request.getSelectedCourses().size()) {
+            throw new RuntimeException("The same course was selected more than once.");
+        }
         //Check for any holds
-        int holdSize = StudentHoldService.HoldRestrictionType.values().length;
-        for(int i = 0; i < holdSize; i++) {
-            if(studentHoldService.hasRestriction(student.getEmail(),
-                    StudentHoldService.HoldRestrictionType.values()[i])){
+        int blockedServices = studentHoldService.getBlockedServicesMask(student);
+        for (StudentHoldService.HoldRestrictionType restrictionType : StudentHoldService.HoldRestrictionType.values()) {
+            if (HoldRestrictionMatrixService.isBlocked(blockedServices, restrictionType)) {
                 throw new RuntimeException("You cannot enroll in courses due to a hold on your account: " +
-                        StudentHoldService.HoldRestrictionType.values()[i]);
+                        restrictionType);
             }
         }
-        Map<String, Object> response = validateEnrollmentRequest(student,programme,request.getSelectedCourses());
+        Map<String, Object> response = validateEnrollmentRequest(student,programme,request.getSelectedCourses(),state.isSemesterOne());
 
         if((boolean)response.get("isEligible")) {
-            int semester = enrollmentStateRepo.isSemesterOne() ? 1 : 2;
-            for (String courseCode : request.getSelectedCourses()) {
-                Course course = courseRepo.findByCourseCode(courseCode)
-                        .orElseThrow(() -> new RuntimeException("Course not found with code: " + courseCode));
+            int semester = state.getSemester();
+            LocalDate today = LocalDate.now();
+            @SuppressWarnings("unchecked")
+            List<Course> courses = (List<Course>) response.get("courses");
+            List<CourseEnrollment> enrollments = new ArrayList<>(courses.size());
+            for (Course course : courses) {
+                seatInventoryService.reserve(course, today.getYear(), semester);
                 CourseEnrollment enrollment = new CourseEnrollment();
                 enrollment.setStudent(student);
                 enrollment.setCourse(course);
                 enrollment.setCurrentlyTaking(true);
-                enrollment.setDateEnrolled(LocalDate.now());
+                enrollment.setDateEnrolled(today);
                 enrollment.setProgramme(programme);
                 enrollment.setSemesterEnrolled(semester);
                 enrollment.setPaid(false);
-                courseEnrollmentRepo.save(enrollment);
+                enrollments.add(enrollment);
             }
+            // One batched insert for the whole selection
+            courseEnrollmentRepo.saveAll(enrollments);
         } else {
             throw new RuntimeException((String)response.get("message"));
         }
     }
 
-    private Map<String, Object> validateEnrollmentRequest(Student student,Programme programme, List<String> selectedCourses) {
+    private Map<String, Object> validateEnrollmentRequest(Student student,Programme programme, List<String> selectedCourses, boolean semesterOne) {
         Map<String, Object> response = new HashMap<>();
         // Retrieve courses by course codes.
         List<Course> courses = courseRepo.findByCourseCodeIn(selectedCourses);
@@ -279,14 +199,17 @@ public class StudentService {
             throw new RuntimeException("One or more selected courses could not be found.");
         }
 
-        // Get all course IDs for the student's programme.
-        List<Long> courseIdsForProgramme = courseProgrammeRepo.getCourseIdsByProgramme(programme);
+        // Reject courses the student is already taking
+        List<CourseEnrollment> alreadyTaking = courseEnrollmentRepo.findByStudentAndCourseInAndCurrentlyTakingTrue(student, courses);
+        if (!alreadyTaking.isEmpty()) {
+            throw new RuntimeException("You are already enrolled in " + alreadyTaking.get(0).getCourse().getCourseCode() + ".");
+        }
 
         // Get the student's completed courses.
         List<Long> completedCourseIds = courseEnrollmentRepo.getCompletedCourseIdsByStudent(student);
         // Check if course is offered in current sem
         for (Course course : courses) {
-            if(enrollmentStateRepo.isSemesterOne()) {
+            if(semesterOne) {
                 if(!course.isOfferedSem1()){
                     response.put("isEligible", false);
                     response.put("message","You are not eligible to enroll in " + course.getCourseCode() + ". It is not offered in Semester 1.");
@@ -302,14 +225,17 @@ public class StudentService {
             }
         }
         // Check prerequisites for each selected course.
+        PrerequisiteRuleService.EligibilityContext ctx =
+                eligibilityContext(programme, courseIndex.toBits(completedCourseIds));
         for (Course course : courses) {
-            if (!isEligibleForCourse(course.getId(), completedCourseIds, programme, courseIdsForProgramme)) {
+            if (!prerequisiteRuleService.isSatisfied(course.getId(), ctx)) {
                 response.put("isEligible", false);
                 response.put("message","You are not eligible to enroll in " + course.getCourseCode() + ". Please check the prerequisites.");
                 return response;
             }
         }
         response.put("isEligible", true);
+        response.put("courses", courses);
         return response;
     }
 
@@ -317,7 +243,10 @@ public class StudentService {
         return studentRepo.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Student not found with email: " + email));
     }
-    public byte[] generateInvoicePdfForStudent(String email) throws DocumentException, IOException {
+    /**
+     * Collects the student's invoice, to be written with InvoicePdfGeneratorService.
+     */
+    public InvoiceDto getInvoiceForStudent(String email) {
         Student student = studentRepo.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
@@ -349,7 +278,7 @@ public class StudentService {
         invoiceDto.setEnrolledCourses(enrolledCourses);
         invoiceDto.setTotalDue(totalDue);
 
-        return invoicePdfGeneratorService.generateInvoicePdf(invoiceDto);
+        return invoiceDto;
     }
 
 
@@ -380,8 +309,10 @@ public class StudentService {
         courseEnrollment.setCancelled(true);
         courseEnrollment.setCurrentlyTaking(false);
         courseEnrollmentRepo.save(courseEnrollment);
+        seatInventoryService.releaseAfterCommit(courseEnrollment);
     }
 
+    @Transactional
     public void passEnrolledCourses(long userId, List<String> selectedCourses) {
         Student student = studentRepo.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Student not found with ID: " + userId));
@@ -404,6 +335,7 @@ public class StudentService {
                 enrollment.setCancelled(false);
                 enrollment.setFailed(false);
                 courseEnrollmentRepo.save(enrollment);
+                seatInventoryService.releaseAfterCommit(enrollment);
             }
         }
     }
@@ -415,6 +347,7 @@ public class StudentService {
         int lowestPassingMark = gradeService.getLowestPassingMark();
         return this.random.nextInt(0,lowestPassingMark+1);//101 because the upperbound is exclusive
     }
+    @Transactional
     public void failEnrolledCourses(long userId, List<String> selectedCourses) {
         Student student = studentRepo.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Student not found with ID: " + userId));
@@ -433,6 +366,7 @@ public class StudentService {
                 enrollment.setCurrentlyTaking(false);
                 enrollment.setCancelled(false);
                 courseEnrollmentRepo.save(enrollment);
+                seatInventoryService.releaseAfterCommit(enrollment);
             }
         }
     }
@@ -441,20 +375,14 @@ public class StudentService {
         Student student = studentRepo.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
-        String filename = UUID.randomUUID() + "_" + file.getOriginalFilename();
-
-        // This will resolve to: <project-root>/uploadedFiles/
-        Path uploadPath = Paths.get("uploadedFiles/");
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        String previous = student.getPfpFilePath();
+        try (InputStream in = file.getInputStream()) {
+            student.setPfpFilePath(uploadStore.store(in, file.getOriginalFilename()));
         }
-
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        // Store relative path for use in frontend
-        student.setPfpFilePath(filename);
         studentRepo.save(student);
+        if (previous != null) {
+            uploadStore.release(previous);
+        }
     }
     public Resource getProfilePicture(Long userId) throws IOException {
         Student student = studentRepo.findById(userId)
@@ -465,12 +393,14 @@ public class StudentService {
             throw new IllegalArgumentException("No profile picture uploaded for student");
         }
 
-        Path filePath = Paths.get("uploadedFiles").resolve(filename);
-        if (!Files.exists(filePath)) {
+        // Pictures from before the upload store are named relative to uploadedFiles/
+        Resource picture = uploadStore.isReference(filename)
+                ? uploadStore.getResource(filename)
+                : new UrlResource(Paths.get("uploadedFiles").resolve(filename).toUri());
+        if (!picture.exists()) {
             throw new FileNotFoundException("Profile picture file not found on server");
         }
-
-        return new UrlResource(filePath.toUri());
+        return picture;
     }
 
     public void payCourse(Long courseId, String studentEmail) {
@@ -483,6 +413,7 @@ public class StudentService {
         courseEnrollmentRepo.save(ce);
     }
 
+    @Transactional
     public void completeCourse(Long courseId, String name) {
         Course c = courseRepo.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found with ID: " + courseId));
@@ -498,7 +429,9 @@ public class StudentService {
         ce.setGrade(grade);
         ce.setMark(mark);
         courseEnrollmentRepo.save(ce);
+        seatInventoryService.releaseAfterCommit(ce);
     }
+    @Transactional
     public void failCourse(Long courseId, String name) {
         Course c = courseRepo.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found with ID: " + courseId));
@@ -514,8 +447,10 @@ public class StudentService {
         ce.setGrade(grade);
         ce.setMark(mark);
         courseEnrollmentRepo.save(ce);
+        seatInventoryService.releaseAfterCommit(ce);
     }
 
+    @Transactional
     public void requestGradeChange(Long enrollmentId, String studentEmail) {
         CourseEnrollment ce = courseEnrollmentRepo.findById(enrollmentId).orElseThrow(
                 () -> new RuntimeException("Enrollment not found with ID: " + enrollmentId));
@@ -544,7 +479,10 @@ public class StudentService {
         emailService.notifyAdminGradeChangeRequest("adriandougjonajitino@gmail.com",adminModel);
     }
 
-    public byte[] generateCoursesTranscriptPdfForStudent(String email) throws DocumentException, IOException {
+    /**
+     * Collects the student's completed courses, to be written with CoursesTranscriptPdfGeneratorService.
+     */
+    public CoursesTranscriptDTO getCoursesTranscriptForStudent(String email) {
         Student student = studentRepo.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
@@ -600,7 +538,7 @@ public class StudentService {
         dto.setPassedCourses(passed);  // Subset: passed
         dto.setFailedCourses(failed);  // Subset: failed
 
-        return coursesTranscriptPdfGeneratorService.generateTranscriptPdf(dto);
+        return dto;
     }
 
 }
@@ -135,6 +135,7 @@ function openEditModal(button) {
     const level            = button.getAttribute('data-level');
     const offeredSem1      = (button.getAttribute('data-offeredsem1') === 'true');
     const offeredSem2      = (button.getAttribute('data-offeredsem2') === 'true');
+    const capacity         = button.getAttribute('data-capacity');
 
     // Fix: Get programme codes (like "BSE BNS")
     let currentProgrammeCodes = [];
@@ -151,6 +152,7 @@ function openEditModal(button) {
     document.getElementById('editLevel').value         = level;
     document.getElementById('editOfferedSem1').checked = offeredSem1;
     document.getElementById('editOfferedSem2').checked = offeredSem2;
+    document.getElementById('editCapacity').value      = capacity || '';
 
     // Programmes checkboxes
     const container = document.getElementById('editProgrammeList');
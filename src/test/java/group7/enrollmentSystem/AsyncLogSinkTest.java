@@ -0,0 +1,173 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.aspects.EmailLoggingAspect;
+import group7.enrollmentSystem.helpers.AsyncLogSink;
+import group7.enrollmentSystem.helpers.EmailService;
+import group7.enrollmentSystem.models.EmailOutbox;
+import group7.enrollmentSystem.services.EmailOutboxService;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AsyncLogSink: ordering under concurrent producers, size and age rotation, and email timings
+ * logged through it from several threads.
+ */
+public class AsyncLogSinkTest {
+
+    @TempDir
+    Path logDir;
+
+    private AsyncLogSink logSink;
+
+    @AfterEach
+    void tearDown() {
+        if (logSink != null) {
+            logSink.close();
+        }
+    }
+
+    /**
+     * Every line from every producer is written, and each producer's lines keep their order.
+     */
+    @Test
+    void testConcurrentProducersKeepOrder() throws Exception {
+        logSink = new AsyncLogSink(logDir.toString(), 16384, 10 * 1024 * 1024, 60);
+        AsyncLogSink.LogFile file = logSink.file("app.log");
+        assertSame(file, logSink.file("app.log"));
+
+        List<CompletableFuture<Void>> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int producer = t;
+            producers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    file.append(producer + " " + i + "\n");
+                }
+            }));
+        }
+        CompletableFuture.allOf(producers.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertTrue(logSink.flush(5, TimeUnit.SECONDS));
+
+        List<String> lines = Files.readAllLines(logDir.resolve("app.log"));
+        assertEquals(8000, lines.size());
+        int[] next = new int[4];
+        for (String line : lines) {
+            String[] parts = line.split(" ");
+            int producer = Integer.parseInt(parts[0]);
+            assertEquals(next[producer]++, Integer.parseInt(parts[1]));
+        }
+        assertEquals(0, logSink.getDropped());
+    }
+
+    /**
+     * A file about to pass the size limit is renamed aside and a new one started, without losing lines.
+     */
+    @Test
+    void testRotatesBySize() throws Exception {
+        logSink = new AsyncLogSink(logDir.toString(), 1024, 1000, 60);
+        AsyncLogSink.LogFile file = logSink.file("app.log");
+        for (int i = 0; i < 100; i++) {
+            file.append(String.format("line %03d %s%n", i, "x".repeat(39)));
+        }
+        assertTrue(logSink.flush(5, TimeUnit.SECONDS));
+
+        List<Path> files = logFiles();
+        assertTrue(files.size() >= 5, files.toString());
+        assertTrue(files.contains(logDir.resolve("app.log")));
+        long lines = 0;
+        for (Path path : files) {
+            assertTrue(Files.size(path) <= 1000, path + " is " + Files.size(path) + " bytes");
+            lines += Files.readAllLines(path).size();
+        }
+        assertEquals(100, lines);
+    }
+
+    /**
+     * A file open longer than the age limit is rotated on the next write.
+     */
+    @Test
+    void testRotatesByAge() throws Exception {
+        logSink = new AsyncLogSink(logDir.toString(), 1024, 1000, 0);
+        AsyncLogSink.LogFile file = logSink.file("app.log");
+        for (int i = 0; i < 3; i++) {
+            file.append("line " + i + "\n");
+            assertTrue(logSink.flush(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(3, logFiles().size());
+        assertEquals(List.of("line 2"), Files.readAllLines(logDir.resolve("app.log")));
+    }
+
+    /**
+     * Emails sent at the same time from different threads each get their own id and the duration of their own send.
+     */
+    @Test
+    void testEmailTimingsAcrossThreads() throws Exception {
+        logSink = new AsyncLogSink(logDir.toString(), 1024, 10 * 1024 * 1024, 60);
+        JavaMailSenderImpl mailSender = mock(JavaMailSenderImpl.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        Transport transport = mock(Transport.class);
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            return null;
+        }).when(transport).sendMessage(any(), any());
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(
+                new EmailService(mailSender, mock(SpringTemplateEngine.class), mock(EmailOutboxService.class)));
+        factory.addAspect(new EmailLoggingAspect(logSink));
+        EmailService emailService = factory.getProxy();
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> deliver(emailService, transport, "s11000001@student.usp.ac.fj"));
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> deliver(emailService, transport, "s11000002@student.usp.ac.fj"));
+        CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+        assertTrue(logSink.flush(5, TimeUnit.SECONDS));
+
+        String log = Files.readString(logDir.resolve("email_logs.log"));
+        Matcher timings = Pattern.compile("EMAIL \\[E(\\d)] PROCESSING TIME .* Time: (\\d+) ms").matcher(log);
+        List<String> ids = new ArrayList<>();
+        while (timings.find()) {
+            ids.add(timings.group(1));
+            long millis = Long.parseLong(timings.group(2));
+            assertTrue(millis >= 200 && millis < 2000, "E" + timings.group(1) + " took " + millis + " ms");
+        }
+        assertEquals(2, ids.size());
+        assertNotEquals(ids.get(0), ids.get(1));
+        assertEquals(2, log.split("SENT SUCCESSFULLY", -1).length - 1);
+    }
+
+    private static void deliver(EmailService emailService, Transport transport, String recipient) {
+        try {
+            emailService.deliver(transport, new EmailOutbox("key-" + recipient, recipient, "Hold Placed", "notification", "<p>Hold</p>"));
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Path> logFiles() throws IOException {
+        try (Stream<Path> files = Files.list(logDir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package group7.enrollmentSystem;
+
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import group7.enrollmentSystem.dtos.classDtos.BulkExportJobDto;
+import group7.enrollmentSystem.dtos.classDtos.CoursesTranscriptDTO;
+import group7.enrollmentSystem.dtos.classDtos.StudentFullAuditDto;
+import group7.enrollmentSystem.enums.BulkExportStatus;
+import group7.enrollmentSystem.helpers.CoursesTranscriptPdfGeneratorService;
+import group7.enrollmentSystem.helpers.GradeService;
+import group7.enrollmentSystem.helpers.PdfRenderingService;
+import group7.enrollmentSystem.helpers.ProgrammeAuditPdfGeneratorService;
+import group7.enrollmentSystem.models.Programme;
+import group7.enrollmentSystem.models.Student;
+import group7.enrollmentSystem.models.StudentProgramme;
+import group7.enrollmentSystem.repos.ProgrammeRepo;
+import group7.enrollmentSystem.repos.StudentProgrammeRepo;
+import group7.enrollmentSystem.repos.StudentRepo;
+import group7.enrollmentSystem.services.BulkDocumentExportService;
+import group7.enrollmentSystem.services.StudentProgrammeAuditService;
+import group7.enrollmentSystem.services.StudentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * The programme document export against an in-memory database: every current student of the programme gets a
+ * transcript and an audit in the ZIP, renders never exceed the pool size, and a student whose documents fail is
+ * reported without stopping the export.
+ */
+@DataJpaTest(properties = {"bulk-export.threads=3", "bulk-export.directory=target/bulk-export-test"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BulkDocumentExportService.class, CoursesTranscriptPdfGeneratorService.class,
+        ProgrammeAuditPdfGeneratorService.class, PdfRenderingService.class})
+public class BulkDocumentExportTest {
+
+    private static final int STUDENTS = 20;
+    private static final String FAILING_STUDENT = "S11000007";
+
+    @MockBean private StudentService studentService;
+    @MockBean private StudentProgrammeAuditService studentProgrammeAuditService;
+    @MockBean private GradeService gradeService;
+
+    @Autowired private BulkDocumentExportService bulkDocumentExportService;
+    @Autowired private StudentRepo studentRepo;
+    @Autowired private ProgrammeRepo programmeRepo;
+    @Autowired private StudentProgrammeRepo studentProgrammeRepo;
+
+    private final AtomicInteger rendering = new AtomicInteger();
+    private final AtomicInteger maxRendering = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        Programme software = programme("BSE", "Bachelor of Software Engineering");
+        Programme networks = programme("BNS", "Bachelor of Networks and Security");
+        for (int i = 0; i < STUDENTS; i++) {
+            enrol(student(String.format("S110000%02d", i)), software);
+        }
+        enrol(student("S12000001"), networks);
+
+        when(studentService.getCoursesTranscriptForStudent(anyString())).thenAnswer(invocation -> {
+            String studentId = invocation.getArgument(0, String.class).substring(0, 9).toUpperCase();
+            if (studentId.equals(FAILING_STUDENT)) {
+                throw new RuntimeException("No current programme found for the student");
+            }
+            slowRender();
+            CoursesTranscriptDTO transcript = new CoursesTranscriptDTO();
+            transcript.setStudentId(studentId);
+            transcript.setStudentName("Student " + studentId);
+            transcript.setProgramme("Bachelor of Software Engineering");
+            return transcript;
+        });
+        when(studentProgrammeAuditService.getFullAudit(anyString())).thenAnswer(invocation ->
+                new StudentFullAuditDto(invocation.getArgument(0), "Student", "Bachelor of Software Engineering",
+                        "Active", List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        studentProgrammeRepo.deleteAllInBatch();
+        studentRepo.deleteAll();
+        programmeRepo.deleteAllInBatch();
+    }
+
+    /**
+     * The ZIP holds a stored transcript and audit for each current BSE student and an errors.txt naming the one
+     * that failed; the BNS student is not included and at most three students were rendered at once.
+     */
+    @Test
+    void testProgrammeExport() throws Exception {
+        BulkExportJobDto started = bulkDocumentExportService.startProgrammeExport("BSE");
+        assertNull(started.getDownloadUrl());
+
+        BulkExportJobDto job = awaitFinished(started.getId());
+        assertEquals(BulkExportStatus.COMPLETED, job.getStatus());
+        assertEquals(STUDENTS, job.getStudents());
+        assertEquals(STUDENTS - 1, job.getExported());
+        assertEquals(1, job.getFailed());
+        assertEquals(1, job.getErrors().size());
+        assertTrue(job.getErrors().get(0).startsWith(FAILING_STUDENT + ": No current programme"));
+        assertEquals("/api/admin/exports/" + job.getId() + "/download", job.getDownloadUrl());
+        assertTrue(maxRendering.get() <= 3, "rendered " + maxRendering.get() + " at once");
+
+        Path zipPath = bulkDocumentExportService.getExportFile(job.getId()).orElseThrow();
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            Map<String, ZipEntry> entries = new HashMap<>();
+            zip.stream().forEach(entry -> entries.put(entry.getName(), entry));
+            assertEquals(2 * (STUDENTS - 1) + 1, entries.size());
+            assertFalse(entries.containsKey(FAILING_STUDENT + "/transcript.pdf"));
+            assertFalse(entries.keySet().stream().anyMatch(name -> name.startsWith("S12000001")));
+            assertTrue(entries.values().stream().allMatch(entry -> entry.getMethod() == ZipEntry.STORED));
+
+            PdfReader transcript = new PdfReader(zip.getInputStream(entries.get("S11000003/transcript.pdf")));
+            assertTrue(PdfTextExtractor.getTextFromPage(transcript, 1).contains("S11000003"));
+            transcript.close();
+            PdfReader audit = new PdfReader(zip.getInputStream(entries.get("S11000012/audit.pdf")));
+            assertTrue(PdfTextExtractor.getTextFromPage(audit, 1).contains("Student ID: S11000012"));
+            audit.close();
+            String errors = new String(zip.getInputStream(entries.get("errors.txt")).readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(errors.startsWith(FAILING_STUDENT));
+        }
+    }
+
+    /**
+     * An unknown programme code is rejected before any job is queued.
+     */
+    @Test
+    void testUnknownProgrammeIsRejected() {
+        int jobs = bulkDocumentExportService.getJobs().size();
+        assertThrows(IllegalArgumentException.class, () -> bulkDocumentExportService.startProgrammeExport("XYZ"));
+        assertEquals(jobs, bulkDocumentExportService.getJobs().size());
+    }
+
+    private BulkExportJobDto awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            BulkExportJobDto job = bulkDocumentExportService.getJob(jobId).orElseThrow();
+            if (job.getStatus() == BulkExportStatus.COMPLETED || job.getStatus() == BulkExportStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Export " + jobId + " did not finish");
+    }
+
+    // Holds the render for a moment so overlapping renders can be counted
+    private void slowRender() throws InterruptedException {
+        int now = rendering.incrementAndGet();
+        maxRendering.accumulateAndGet(now, Math::max);
+        Thread.sleep(20);
+        rendering.decrementAndGet();
+    }
+
+    private Programme programme(String code, String name) {
+        Programme programme = new Programme();
+        programme.setProgrammeCode(code);
+        programme.setName(name);
+        return programmeRepo.save(programme);
+    }
+
+    private Student student(String studentId) {
+        Student student = new Student(studentId, "Student", studentId, "Suva", "1234567");
+        student.setEmail(studentId.toLowerCase() + "@student.usp.ac.fj");
+        return studentRepo.save(student);
+    }
+
+    private void enrol(Student student, Programme programme) {
+        StudentProgramme studentProgramme = new StudentProgramme();
+        studentProgramme.setStudent(student);
+        studentProgramme.setProgramme(programme);
+        studentProgramme.setCurrentProgramme(true);
+        studentProgrammeRepo.save(studentProgramme);
+    }
+}
@@ -0,0 +1,204 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.dtos.classDtos.CourseDto;
+import group7.enrollmentSystem.dtos.classDtos.PrerequisiteRenderDto;
+import group7.enrollmentSystem.enums.PrerequisiteType;
+import group7.enrollmentSystem.enums.SpecialPrerequisiteType;
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.CoursePrerequisite;
+import group7.enrollmentSystem.models.CourseProgramme;
+import group7.enrollmentSystem.models.Programme;
+import group7.enrollmentSystem.services.CourseIndex;
+import group7.enrollmentSystem.services.CourseService;
+import group7.enrollmentSystem.services.PrerequisiteRuleService;
+import group7.enrollmentSystem.services.ProgrammeCourseLevelService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query-count regression tests for CourseService: the admin course list and prerequisite
+ * diagrams must not issue statements per course.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({CourseService.class, PrerequisiteRuleService.class, ProgrammeCourseLevelService.class, CourseIndex.class})
+public class CourseServiceQueryCountTest {
+
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private CourseService courseService;
+
+    private Programme bse;
+    private Programme bns;
+    private Course cs211;
+
+    @BeforeEach
+    void setUp() {
+        bse = programme("BSE");
+        bns = programme("BNS");
+
+        Course cs111 = course("CS111", bse, bns);
+        Course cs112 = course("CS112", bse);
+        cs211 = course("CS211", bse);
+        Course cs311 = course("CS311", bse, bns);
+        for (int i = 0; i < 20; i++) {
+            Course filler = course("CS4" + String.format("%02d", i), bse);
+            row(filler, 1, true, false, PrerequisiteType.AND, cs311, null);
+        }
+
+        // CS211: CS111 AND CS112 (BSE students only)
+        row(cs211, 1, true, false, PrerequisiteType.AND, cs111, null);
+        row(cs211, 1, true, false, PrerequisiteType.AND, cs112, bse);
+
+        // CS311: CS211 OR (Admission into BSE/BNS AND CS112 AND 75% of 300-level)
+        CoursePrerequisite link = row(cs311, 1, true, false, PrerequisiteType.OR, cs211, null);
+        link.setChildId(2);
+        CoursePrerequisite admissionBse = row(cs311, 2, false, true, PrerequisiteType.AND, null, bse);
+        admissionBse.setSpecial(true);
+        admissionBse.setSpecialType(SpecialPrerequisiteType.ADMISSION_PROGRAMME);
+        CoursePrerequisite admissionBns = row(cs311, 2, false, true, PrerequisiteType.AND, null, bns);
+        admissionBns.setSpecial(true);
+        admissionBns.setSpecialType(SpecialPrerequisiteType.ADMISSION_PROGRAMME);
+        row(cs311, 2, false, true, PrerequisiteType.AND, cs112, null);
+        CoursePrerequisite percent = row(cs311, 2, false, true, PrerequisiteType.AND, null, null);
+        percent.setSpecial(true);
+        percent.setSpecialType(SpecialPrerequisiteType.COMPLETION_LEVEL_PERCENT);
+        percent.setTargetLevel((short) 300);
+        percent.setPercentageValue(0.75);
+
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * Courses, programme links and prerequisite rows are each loaded with a single statement.
+     */
+    @Test
+    void testAllCoursesUsesConstantNumberOfQueries() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<CourseDto> courses = courseService.getAllCoursesWithProgrammesAndPrereqs();
+
+        assertEquals(24, courses.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * The expression strings and programme codes are the same as before batching.
+     */
+    @Test
+    void testAllCoursesExpressions() {
+        Map<String, CourseDto> byCode = courseService.getAllCoursesWithProgrammesAndPrereqs().stream()
+                .collect(Collectors.toMap(CourseDto::getCourseCode, Function.identity()));
+
+        assertFalse(byCode.get("CS111").isHasPreReqs());
+        assertNull(byCode.get("CS111").getPrerequisites());
+        assertEquals(List.of("BSE", "BNS"), byCode.get("CS111").getProgrammes());
+
+        assertEquals("(CS111(Any) AND CS112(BSE))", byCode.get("CS211").getPrerequisites());
+        assertEquals("(CS211(Any) OR ({Admission into BSE OR BNS} AND CS112(Any) AND {75% of 300-level courses}))",
+                byCode.get("CS311").getPrerequisites());
+        assertTrue(byCode.get("CS311").isHasPreReqs());
+        assertEquals("CS311(Any)", byCode.get("CS400").getPrerequisites());
+    }
+
+    /**
+     * A batch of diagrams is one cache sweep once rendered, and a prerequisite change only re-renders that course.
+     */
+    @Test
+    void testRenderCacheBulkLookupAndInvalidation() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> courseIds = courseService.getAllCourses().stream().map(Course::getId).toList();
+
+        statistics.clear();
+        Map<Long, PrerequisiteRenderDto> cold = courseService.getRenderedPrerequisites(courseIds);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(courseIds.size(), cold.size());
+
+        statistics.clear();
+        Map<Long, PrerequisiteRenderDto> warm = courseService.getRenderedPrerequisites(courseIds);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertSame(cold.get(cs211.getId()), warm.get(cs211.getId()));
+
+        PrerequisiteRenderDto cs211Render = warm.get(cs211.getId());
+        assertEquals("(CS111(Any) AND CS112(BSE))", cs211Render.getExpression());
+        assertEquals(courseService.flattenMermaid(cs211Render.getMermaid()), cs211Render.getFlatMermaid());
+
+        courseService.deletePrerequisites(em.find(Course.class, cs211.getId()));
+        em.flush();
+        em.clear();
+        statistics.clear();
+        Map<Long, PrerequisiteRenderDto> afterDelete = courseService.getRenderedPrerequisites(courseIds);
+        assertEquals("%% No prerequisites found for this course", afterDelete.get(cs211.getId()).getMermaid());
+        assertNull(afterDelete.get(cs211.getId()).getExpression());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Streaming a batch prefetches with two statements and hands every course to the sink exactly once,
+     * with the same renders the map-based lookup returns.
+     */
+    @Test
+    void testStreamedRendersArePrefetchedOnce() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> courseIds = courseService.getAllCourses().stream().map(Course::getId).toList();
+
+        statistics.clear();
+        Map<Long, PrerequisiteRenderDto> streamed = new LinkedHashMap<>();
+        courseService.streamRenderedPrerequisites(courseIds, (id, render) -> assertNull(streamed.put(id, render)));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(Set.copyOf(courseIds), streamed.keySet());
+        assertEquals(streamed, courseService.getRenderedPrerequisites(courseIds));
+        assertEquals("(CS111(Any) AND CS112(BSE))", streamed.get(cs211.getId()).getExpression());
+    }
+
+    private Programme programme(String code) {
+        Programme programme = new Programme();
+        programme.setProgrammeCode(code);
+        programme.setName(code);
+        return em.persist(programme);
+    }
+
+    private Course course(String code, Programme... programmes) {
+        Course course = new Course();
+        course.setCourseCode(code);
+        course.setTitle(code);
+        course.setLevel((short) (100 * (code.charAt(2) - '0')));
+        em.persist(course);
+        for (Programme programme : programmes) {
+            em.persist(new CourseProgramme(null, course, programme, false));
+        }
+        return course;
+    }
+
+    private CoursePrerequisite row(Course course, int groupId, boolean parent, boolean child,
+                                   PrerequisiteType type, Course prerequisite, Programme programme) {
+        CoursePrerequisite cp = new CoursePrerequisite();
+        cp.setCourse(course);
+        cp.setGroupId(groupId);
+        cp.setParent(parent);
+        cp.setChild(child);
+        cp.setParentId(child ? 1 : 0);
+        cp.setPrerequisiteType(type);
+        cp.setPrerequisite(prerequisite);
+        cp.setProgramme(programme);
+        return em.persist(cp);
+    }
+}
@@ -0,0 +1,308 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.dtos.classDtos.EmailOutboxStatsDto;
+import group7.enrollmentSystem.enums.EmailOutboxStatus;
+import group7.enrollmentSystem.helpers.EmailService;
+import group7.enrollmentSystem.models.EmailOutbox;
+import group7.enrollmentSystem.repos.EmailOutboxRepo;
+import group7.enrollmentSystem.services.EmailOutboxDispatcher;
+import group7.enrollmentSystem.services.EmailOutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The email outbox against an in-memory database and a minimal SMTP server: emails roll back with their
+ * transaction, an email is queued once until it is sent, a batch shares one connection, rows claimed by another
+ * instance are left to it, and throttling or rejected recipients lead to backoff and retry or to failure.
+ */
+@DataJpaTest(properties = {"email.outbox.batch-size=10", "email.outbox.backoff-seconds=1",
+        "email.outbox.poll-interval-ms=3600000"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({EmailOutboxService.class, EmailOutboxDispatcher.class, EmailService.class, EmailOutboxTest.MailConfig.class})
+public class EmailOutboxTest {
+
+    private static final SmtpStandIn smtp = SmtpStandIn.start();
+
+    @TestConfiguration
+    static class MailConfig {
+        @Bean
+        JavaMailSenderImpl mailSender() {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(smtp.getPort());
+            mailSender.getJavaMailProperties().put("mail.smtp.from", "noreply@usp.ac.fj");
+            return mailSender;
+        }
+    }
+
+    @MockBean private SpringTemplateEngine templateEngine;
+
+    @Autowired private EmailOutboxService emailOutboxService;
+    @Autowired private EmailOutboxDispatcher emailOutboxDispatcher;
+    @Autowired private EmailOutboxRepo emailOutboxRepo;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        emailOutboxRepo.deleteAll();
+        smtp.reset();
+    }
+
+    /**
+     * An email queued in a transaction that rolls back is never stored, so it is never sent.
+     */
+    @Test
+    void testRolledBackEmailIsNotQueued() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Placed", "notification", "<p>Hold</p>");
+            status.setRollbackOnly();
+        });
+        assertEquals(0, emailOutboxRepo.count());
+    }
+
+    /**
+     * The same email queued twice before it goes out is stored and sent once, and the dropped copy is counted; a
+     * different body is a different email.
+     */
+    @Test
+    void testDuplicateIsQueuedOnce() {
+        long droppedBefore = emailOutboxDispatcher.getStats().getDroppedDuplicates();
+        assertTrue(emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Placed", "notification", "<p>Fees</p>"));
+        assertFalse(emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Placed", "notification", "<p>Fees</p>"));
+        assertTrue(emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Placed", "notification", "<p>Library</p>"));
+
+        emailOutboxDispatcher.dispatchDue();
+        assertEquals(2, smtp.messages.size());
+        assertEquals(droppedBefore + 1, emailOutboxDispatcher.getStats().getDroppedDuplicates());
+    }
+
+    /**
+     * An email identical to one already sent is a new event, as when a hold is placed, lifted and placed again, so
+     * it is queued and sent again.
+     */
+    @Test
+    void testRepeatAfterSendIsSent() {
+        assertTrue(emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Placed", "notification", "<p>Fees</p>"));
+        emailOutboxDispatcher.dispatchDue();
+        assertTrue(emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Removed", "notification", "<p>Fees</p>"));
+        emailOutboxDispatcher.dispatchDue();
+        assertTrue(emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Placed", "notification", "<p>Fees</p>"));
+        emailOutboxDispatcher.dispatchDue();
+
+        assertEquals(3, smtp.messages.size());
+        assertEquals(3, emailOutboxRepo.countByStatus(EmailOutboxStatus.SENT));
+    }
+
+    /**
+     * A backlog is sent in batches with one connection per batch and every row is marked sent.
+     */
+    @Test
+    void testBatchSharesOneConnection() {
+        for (int i = 0; i < 25; i++) {
+            emailOutboxService.enqueue("s110000" + i + "@student.usp.ac.fj", "Grade Change", "notification", "<p>" + i + "</p>");
+        }
+
+        emailOutboxDispatcher.dispatchDue();
+
+        assertEquals(25, smtp.messages.size());
+        assertEquals(3, smtp.connections.get());
+        assertTrue(emailOutboxRepo.findAll().stream().allMatch(email ->
+                email.getStatus() == EmailOutboxStatus.SENT && email.getSentAt() != null && email.getAttempts() == 1));
+        EmailOutboxStatsDto stats = emailOutboxDispatcher.getStats();
+        assertEquals(0, stats.getQueueDepth());
+        assertTrue(stats.getSent() >= 25);
+    }
+
+    /**
+     * When the server starts throttling, the failed email backs off, the rest of the batch stays queued and
+     * sending pauses; once the pause and backoff pass, everything is delivered.
+     */
+    @Test
+    void testThrottlingBacksOffAndRetries() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            emailOutboxService.enqueue("s110000" + i + "@student.usp.ac.fj", "Grade Change", "notification", "<p>" + i + "</p>");
+        }
+        smtp.throttleAfter = 2;
+
+        emailOutboxDispatcher.dispatchDue();
+
+        assertEquals(2, smtp.messages.size());
+        List<EmailOutbox> pending = emailOutboxRepo.findAll().stream()
+                .filter(email -> email.getStatus() == EmailOutboxStatus.PENDING).toList();
+        assertEquals(2, pending.size());
+        EmailOutbox throttled = pending.stream().filter(email -> email.getAttempts() == 1).findFirst().orElseThrow();
+        assertTrue(throttled.getLastError().contains("421"), throttled.getLastError());
+        assertTrue(throttled.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(emailOutboxDispatcher.getStats().getPausedUntil());
+
+        emailOutboxDispatcher.dispatchDue();
+        assertEquals(2, smtp.messages.size());
+
+        smtp.throttleAfter = Integer.MAX_VALUE;
+        Thread.sleep(1200);
+        emailOutboxDispatcher.dispatchDue();
+        assertEquals(4, smtp.messages.size());
+        assertEquals(0, emailOutboxRepo.countByStatus(EmailOutboxStatus.PENDING));
+    }
+
+    /**
+     * Rows another instance has claimed are left to it, so nothing is sent twice; once the claim is older than the
+     * claim timeout, as when that instance stopped mid-batch, they are taken over and sent.
+     */
+    @Test
+    void testClaimedBatchIsLeftToItsClaimer() {
+        for (int i = 0; i < 3; i++) {
+            emailOutboxService.enqueue("s110000" + i + "@student.usp.ac.fj", "Grade Change", "notification", "<p>" + i + "</p>");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = emailOutboxRepo.findDueIds(now, now.minusMinutes(10), PageRequest.of(0, 10));
+        assertEquals(3, emailOutboxRepo.claim(due, "other-instance", now, now.minusMinutes(10)));
+        assertEquals(0, emailOutboxRepo.claim(due, "this-instance", now, now.minusMinutes(10)));
+
+        emailOutboxDispatcher.dispatchDue();
+        assertEquals(0, smtp.messages.size());
+        assertEquals(3, emailOutboxRepo.countByStatus(EmailOutboxStatus.SENDING));
+
+        List<EmailOutbox> abandoned = emailOutboxRepo.findByClaimTokenOrderById("other-instance");
+        abandoned.forEach(email -> email.setClaimedAt(now.minusMinutes(11)));
+        emailOutboxRepo.saveAll(abandoned);
+
+        emailOutboxDispatcher.dispatchDue();
+        assertEquals(3, smtp.messages.size());
+        assertEquals(3, emailOutboxRepo.countByStatus(EmailOutboxStatus.SENT));
+    }
+
+    /**
+     * A recipient the server rejects outright fails without retries, and the rest of the batch still goes out.
+     */
+    @Test
+    void testRejectedRecipientFailsAtOnce() {
+        smtp.rejectedRecipients.add("nobody@student.usp.ac.fj");
+        emailOutboxService.enqueue("nobody@student.usp.ac.fj", "Hold Placed", "notification", "<p>Hold</p>");
+        emailOutboxService.enqueue("s11000001@student.usp.ac.fj", "Hold Placed", "notification", "<p>Hold</p>");
+
+        emailOutboxDispatcher.dispatchDue();
+
+        assertEquals(1, smtp.messages.size());
+        assertEquals(1, emailOutboxRepo.countByStatus(EmailOutboxStatus.SENT));
+        assertEquals(1, emailOutboxRepo.countByStatus(EmailOutboxStatus.FAILED));
+        assertNull(emailOutboxDispatcher.getStats().getPausedUntil());
+    }
+
+    /**
+     * Just enough SMTP to accept mail: counts connections, records messages, and can reject recipients or start
+     * answering 421 after a number of messages.
+     */
+    static class SmtpStandIn {
+        private final ServerSocket serverSocket;
+        final AtomicInteger connections = new AtomicInteger();
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final List<String> rejectedRecipients = new CopyOnWriteArrayList<>();
+        volatile int throttleAfter = Integer.MAX_VALUE;
+
+        private SmtpStandIn(ServerSocket serverSocket) {
+            this.serverSocket = serverSocket;
+        }
+
+        static SmtpStandIn start() {
+            try {
+                SmtpStandIn standIn = new SmtpStandIn(new ServerSocket(0));
+                Thread.ofPlatform().name("smtp-stand-in").daemon().start(standIn::accept);
+                return standIn;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void reset() {
+            connections.set(0);
+            messages.clear();
+            rejectedRecipients.clear();
+            throttleAfter = Integer.MAX_VALUE;
+        }
+
+        private void accept() {
+            while (true) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread.ofPlatform().daemon().start(() -> converse(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void converse(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+                reply(out, "220 stand-in ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 stand-in");
+                    } else if (command.startsWith("MAIL FROM")) {
+                        if (messages.size() >= throttleAfter) {
+                            reply(out, "421 4.7.0 Try again later, closing connection");
+                            return;
+                        }
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("RCPT TO")) {
+                        String recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                        reply(out, rejectedRecipients.contains(recipient) ? "550 5.1.1 No such user" : "250 OK");
+                    } else if (command.equals("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            data.append(line).append('\n');
+                        }
+                        messages.add(data.toString());
+                        reply(out, "250 OK queued");
+                    } else if (command.equals("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}
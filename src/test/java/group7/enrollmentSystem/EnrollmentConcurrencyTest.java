@@ -0,0 +1,219 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.dtos.appDtos.EnrollCourseRequest;
+import group7.enrollmentSystem.helpers.CoursesTranscriptPdfGeneratorService;
+import group7.enrollmentSystem.helpers.EmailService;
+import group7.enrollmentSystem.helpers.GradeService;
+import group7.enrollmentSystem.helpers.InvoicePdfGeneratorService;
+import group7.enrollmentSystem.helpers.UploadStore;
+import group7.enrollmentSystem.models.*;
+import group7.enrollmentSystem.repos.*;
+import group7.enrollmentSystem.services.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test for the enrollment write path: hundreds of parallel submits for the same few students,
+ * spread over two StudentService instances standing in for two app nodes, must never exceed the
+ * 4-course quota, create duplicate enrollments or oversell a capped course.
+ */
+@DataJpaTest(properties = "spring.datasource.hikari.maximum-pool-size=40")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StudentService.class, SeatInventoryService.class, EnrollmentStateService.class, PrerequisiteRuleService.class, ProgrammeCourseLevelService.class,
+        CourseIndex.class, StudentEnrollmentLocks.class})
+public class EnrollmentConcurrencyTest {
+
+    private static final int REQUESTS = 500;
+    private static final int STUDENTS = 5;
+    private static final int CS111_SEATS = 3;
+
+    @MockBean private StudentProgrammeService studentProgrammeService;
+    @MockBean private CourseEnrollmentService courseEnrollmentService;
+    @MockBean private InvoicePdfGeneratorService invoicePdfGeneratorService;
+    @MockBean private GradeService gradeService;
+    @MockBean private StudentHoldService studentHoldService;
+    @MockBean private EmailService emailService;
+    @MockBean private CoursesTranscriptPdfGeneratorService coursesTranscriptPdfGeneratorService;
+    @MockBean private UploadStore uploadStore;
+
+    @Autowired private StudentService studentService;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private AutowireCapableBeanFactory beanFactory;
+    @Autowired private StudentRepo studentRepo;
+    @Autowired private ProgrammeRepo programmeRepo;
+    @Autowired private CourseRepo courseRepo;
+    @Autowired private CourseProgrammeRepo courseProgrammeRepo;
+    @Autowired private StudentProgrammeRepo studentProgrammeRepo;
+    @Autowired private CourseEnrollmentRepo courseEnrollmentRepo;
+    @Autowired private EnrollmentStateRepo enrollmentStateRepo;
+    @Autowired private SeatLedgerRepo seatLedgerRepo;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final List<Long> studentIds = new ArrayList<>();
+    private final List<String> courseCodes = List.of("CS111", "CS112", "CS140", "CS150", "MA111", "MA161", "ST131");
+
+    @BeforeEach
+    void setUp() {
+        EnrollmentState state = new EnrollmentState();
+        state.setId(1L);
+        state.setOpen(true);
+        state.setSemesterOne(true);
+        enrollmentStateRepo.save(state);
+
+        Programme programme = new Programme();
+        programme.setProgrammeCode("BSE");
+        programme.setName("Bachelor of Software Engineering");
+        programmeRepo.save(programme);
+
+        for (String code : courseCodes) {
+            Course course = new Course();
+            course.setCourseCode(code);
+            course.setTitle(code);
+            course.setLevel((short) 100);
+            course.setOfferedSem1(true);
+            if (code.equals("CS111")) {
+                course.setCapacity(CS111_SEATS);
+            }
+            courseRepo.save(course);
+            courseProgrammeRepo.save(new CourseProgramme(null, course, programme, false));
+        }
+
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student("S1100000" + i, "Student", String.valueOf(i), "Suva", "1234567");
+            student.setEmail("s1100000" + i + "@student.usp.ac.fj");
+            studentRepo.save(student);
+            StudentProgramme studentProgramme = new StudentProgramme();
+            studentProgramme.setStudent(student);
+            studentProgramme.setProgramme(programme);
+            studentProgramme.setCurrentProgramme(true);
+            studentProgrammeRepo.save(studentProgramme);
+            studentIds.add(student.getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        courseEnrollmentRepo.deleteAll();
+        studentProgrammeRepo.deleteAll();
+        courseProgrammeRepo.deleteAll();
+        courseRepo.deleteAll();
+        studentRepo.deleteAll();
+        programmeRepo.deleteAll();
+        enrollmentStateRepo.deleteAll();
+        seatLedgerRepo.deleteAll();
+    }
+
+    /**
+     * 500 parallel submits of one or two courses each: every student ends with at most 4 current courses,
+     * none of them twice, CS111 keeps to its seats, and exactly the accepted submits were written and counted.
+     */
+    @Test
+    void testNoOverEnrollmentUnderContention() throws Exception {
+        // A second instance has its own lock stripes and seat counters, so only the database keeps the two apart
+        StudentService otherNode = beanFactory.createBean(StudentService.class);
+        ReflectionTestUtils.setField(otherNode, "enrollmentLocks", new StudentEnrollmentLocks());
+        SeatInventoryService otherSeats = new SeatInventoryService(seatLedgerRepo, courseEnrollmentRepo, transactionManager);
+        ReflectionTestUtils.setField(otherNode, "seatInventoryService", otherSeats);
+        List<StudentService> nodes = List.of(studentService, otherNode);
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger acceptedCourses = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < REQUESTS; i++) {
+            StudentService node = nodes.get(i % nodes.size());
+            long studentId = studentIds.get(random.nextInt(studentIds.size()));
+            List<String> selected = new ArrayList<>(courseCodes);
+            Collections.shuffle(selected, random);
+            List<String> request = List.copyOf(selected.subList(0, 1 + random.nextInt(2)));
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    node.enrollStudent(new EnrollCourseRequest(request, studentId));
+                    acceptedCourses.addAndGet(request.size());
+                } catch (RuntimeException rejected) {
+                    // quota reached, already enrolled or course full
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        List<CourseEnrollment> enrollments = courseEnrollmentRepo.findAll();
+        assertEquals(acceptedCourses.get(), enrollments.size());
+        Map<Long, List<String>> coursesByStudent = enrollments.stream()
+                .collect(Collectors.groupingBy(e -> e.getStudent().getId(),
+                        Collectors.mapping(e -> e.getCourse().getCourseCode(), Collectors.toList())));
+        for (Long studentId : studentIds) {
+            List<String> courses = coursesByStudent.getOrDefault(studentId, List.of());
+            assertTrue(courses.size() <= 4, "student " + studentId + " has " + courses);
+            assertEquals(courses.size(), new HashSet<>(courses).size(), "duplicate enrollment " + courses);
+        }
+
+        // Seats the nodes leased and did not give out go back to the ledger with their next flush
+        otherSeats.flush();
+        seatInventoryService.flush();
+        Map<Long, Long> rowsByCourse = enrollments.stream()
+                .collect(Collectors.groupingBy(e -> e.getCourse().getId(), Collectors.counting()));
+        for (Course course : courseRepo.findAll()) {
+            long rows = rowsByCourse.getOrDefault(course.getId(), 0L);
+            assertEquals(rows, seatInventoryService.getSeatsTaken(course.getId(), LocalDate.now().getYear(), 1),
+                    course.getCourseCode());
+            if (course.getCapacity() != null) {
+                assertTrue(rows <= course.getCapacity(), course.getCourseCode() + " has " + rows + " students");
+            }
+        }
+    }
+
+    /**
+     * A course with one seat: passing or failing the student in it hands the seat back, so the next student can
+     * enroll straight away instead of finding the course full until a restart.
+     */
+    @Test
+    void testFinishedEnrollmentFreesItsSeat() {
+        Course seminar = new Course();
+        seminar.setCourseCode("CS241");
+        seminar.setTitle("Seminar");
+        seminar.setLevel((short) 100);
+        seminar.setOfferedSem1(true);
+        seminar.setCapacity(1);
+        courseRepo.save(seminar);
+        courseProgrammeRepo.save(new CourseProgramme(null, seminar, programmeRepo.findByProgrammeCode("BSE").orElseThrow(), false));
+        List<String> request = List.of("CS241");
+
+        studentService.enrollStudent(new EnrollCourseRequest(request, studentIds.get(0)));
+        RuntimeException full = assertThrows(RuntimeException.class,
+                () -> studentService.enrollStudent(new EnrollCourseRequest(request, studentIds.get(1))));
+        assertEquals("CS241 is full for Semester 1.", full.getMessage());
+
+        studentService.passEnrolledCourses(studentIds.get(0), request);
+        studentService.enrollStudent(new EnrollCourseRequest(request, studentIds.get(1)));
+
+        studentService.failCourse(seminar.getId(), "s11000001@student.usp.ac.fj");
+        studentService.enrollStudent(new EnrollCourseRequest(request, studentIds.get(2)));
+        assertEquals(1, seatInventoryService.getSeatsTaken(seminar.getId(), LocalDate.now().getYear(), 1));
+    }
+}
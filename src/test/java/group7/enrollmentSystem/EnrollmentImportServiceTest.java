@@ -0,0 +1,266 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.dtos.classDtos.EnrollmentImportResultDto;
+import group7.enrollmentSystem.models.*;
+import group7.enrollmentSystem.repos.*;
+import group7.enrollmentSystem.enums.OnHoldTypes;
+import group7.enrollmentSystem.enums.PrerequisiteType;
+import group7.enrollmentSystem.services.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Bulk enrollment import against an in-memory database: rows land with their programme, bad lines and rows failing
+ * the enrollment checks are reported without stopping the import, and the whole cohort is written with a few dozen
+ * batched statements.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({EnrollmentImportService.class, EnrollmentStateService.class, SeatInventoryService.class, PrerequisiteRuleService.class,
+        ProgrammeCourseLevelService.class, HoldRestrictionMatrixService.class, CourseIndex.class, StudentEnrollmentLocks.class})
+public class EnrollmentImportServiceTest {
+
+    private static final int STUDENTS = 300;
+
+    @Autowired private EnrollmentImportService enrollmentImportService;
+    @Autowired private SeatInventoryService seatInventoryService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private StudentRepo studentRepo;
+    @Autowired private ProgrammeRepo programmeRepo;
+    @Autowired private CourseRepo courseRepo;
+    @Autowired private StudentProgrammeRepo studentProgrammeRepo;
+    @Autowired private CourseEnrollmentRepo courseEnrollmentRepo;
+    @Autowired private EnrollmentStateRepo enrollmentStateRepo;
+    @SpyBean private SeatLedgerRepo seatLedgerRepo;
+    @Autowired private CoursePrerequisiteRepo coursePrerequisiteRepo;
+    @Autowired private HoldServiceRestrictionRepo holdServiceRestrictionRepo;
+
+    private Programme programme;
+    private Course cs111;
+    private Course cs112;
+    private Course ma111;
+
+    @BeforeEach
+    void setUp() {
+        EnrollmentState state = new EnrollmentState();
+        state.setId(1L);
+        state.setOpen(true);
+        state.setSemesterOne(true);
+        enrollmentStateRepo.save(state);
+
+        programme = new Programme();
+        programme.setProgrammeCode("BSE");
+        programme.setName("Bachelor of Software Engineering");
+        programmeRepo.save(programme);
+
+        cs111 = course("CS111", true);
+        cs112 = course("CS112", true);
+        ma111 = course("MA111", false);
+
+        List<Student> students = new ArrayList<>();
+        List<StudentProgramme> studentProgrammes = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student(studentId(i), "Student", String.valueOf(i), "Suva", "1234567");
+            student.setEmail(studentId(i).toLowerCase() + "@student.usp.ac.fj");
+            students.add(student);
+            StudentProgramme studentProgramme = new StudentProgramme();
+            studentProgramme.setStudent(student);
+            studentProgramme.setProgramme(programme);
+            studentProgramme.setCurrentProgramme(true);
+            studentProgrammes.add(studentProgramme);
+        }
+        studentRepo.saveAll(students);
+        studentProgrammeRepo.saveAll(studentProgrammes);
+
+        CourseEnrollment existing = new CourseEnrollment();
+        existing.setStudent(students.get(0));
+        existing.setCourse(cs111);
+        existing.setCurrentlyTaking(true);
+        existing.setSemesterEnrolled(1);
+        existing.setDateEnrolled(LocalDate.now());
+        courseEnrollmentRepo.save(existing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coursePrerequisiteRepo.deleteAllInBatch();
+        holdServiceRestrictionRepo.deleteAllInBatch();
+        courseEnrollmentRepo.deleteAllInBatch();
+        studentProgrammeRepo.deleteAllInBatch();
+        studentRepo.deleteAll();
+        courseRepo.deleteAllInBatch();
+        programmeRepo.deleteAllInBatch();
+        enrollmentStateRepo.deleteAllInBatch();
+        seatLedgerRepo.deleteAllInBatch();
+    }
+
+    /**
+     * Every student gets CS111 and CS112 in Semester 1 and MA111 in Semester 2. The existing CS111 row and
+     * five bad lines are skipped and described; seats are counted once the import commits.
+     */
+    @Test
+    void testCohortImport() throws Exception {
+        StringBuilder csv = new StringBuilder("studentId,courseCode,semester\n");
+        for (int i = 0; i < STUDENTS; i++) {
+            csv.append(studentId(i)).append(",CS111,1\n");
+            csv.append(studentId(i)).append(",CS112\n");
+            csv.append(studentId(i)).append(",MA111,2\n");
+        }
+        csv.append("S99999999,CS111,1\n");
+        csv.append(studentId(1)).append(",XX999,1\n");
+        csv.append(studentId(1)).append(",CS112,1\n");
+        csv.append(studentId(2)).append(",MA111,1\n");
+        csv.append(studentId(3)).append(",CS112,3\n");
+        csv.append("\n");
+        // The existing row only counts if it was written before the counters were first loaded
+        int cs111Before = seatInventoryService.getSeatsTaken(cs111.getId(), LocalDate.now().getYear(), 1);
+
+        EnrollmentImportResultDto result = enrollmentImportService.importCsv(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3 * STUDENTS - 1, result.getImported());
+        assertEquals(6, result.getSkipped());
+        assertEquals(List.of(
+                "Line 2: " + studentId(0) + " is already enrolled in CS111",
+                "Line " + (3 * STUDENTS + 6) + ": semester must be 1 or 2",
+                "Line " + (3 * STUDENTS + 2) + ": unknown student S99999999",
+                "Line " + (3 * STUDENTS + 3) + ": unknown course XX999",
+                "Line " + (3 * STUDENTS + 4) + ": " + studentId(1) + " is already enrolled in CS112",
+                "Line " + (3 * STUDENTS + 5) + ": MA111 is not offered in Semester 1"
+        ).stream().sorted().toList(), result.getErrors().stream().sorted().toList());
+
+        List<CourseEnrollment> enrollments = courseEnrollmentRepo.findAll();
+        assertEquals(3 * STUDENTS, enrollments.size());
+        assertTrue(enrollments.stream().filter(e -> e.getProgramme() != null)
+                .allMatch(e -> e.getProgramme().getId().equals(programme.getId())));
+        assertEquals(3 * STUDENTS - 1, enrollments.stream().filter(e -> e.getProgramme() != null).count());
+
+        assertEquals(cs111Before + STUDENTS - 1, seatInventoryService.getSeatsTaken(cs111.getId(), LocalDate.now().getYear(), 1));
+        assertEquals(STUDENTS, seatInventoryService.getSeatsTaken(cs112.getId(), LocalDate.now().getYear(), 1));
+        assertEquals(STUDENTS, seatInventoryService.getSeatsTaken(ma111.getId(), LocalDate.now().getYear(), 2));
+    }
+
+    /**
+     * The inserts go out in JDBC batches with pooled ids, so statements grow with rows / batch size, not rows.
+     */
+    @Test
+    void testImportIsBatched() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i < STUDENTS; i++) {
+            csv.append(studentId(i)).append(",CS111,1\n");
+            csv.append(studentId(i)).append(",CS112,1\n");
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        clearInvocations(seatLedgerRepo);
+
+        EnrollmentImportResultDto result = enrollmentImportService.importCsv(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2 * (STUDENTS - 1), result.getImported());
+        // Seat ledger rows written by the background flush meanwhile are not the import's
+        assertEquals(2 * (STUDENTS - 1), statistics.getEntityStatistics(CourseEnrollment.class.getName()).getInsertCount());
+        // Seat leases, and the hand-backs of the background flush meanwhile, are the seat ledger's; one statement each
+        long ledgerStatements = mockingDetails(seatLedgerRepo).getInvocations().size();
+        // A few lookups and the row locks, then per 50 rows one sequence call and one insert batch
+        assertTrue(statistics.getPrepareStatementCount() - ledgerStatements <= 5 + 2 * (2 * STUDENTS / 50 + 1),
+                "statements: " + statistics.getPrepareStatementCount() + ", of them seat ledger: " + ledgerStatements);
+    }
+
+    /**
+     * Rows get the checks of a student's own enrollment: a student on hold, over the 4-course quota or missing a
+     * prerequisite is turned away, as is the row after a course's last seat; the other rows are still imported.
+     */
+    @Test
+    void testRowsFailingEnrollmentChecksAreRejected() throws Exception {
+        Course cs211 = course("CS211", true);
+        CoursePrerequisite prerequisite = new CoursePrerequisite();
+        prerequisite.setCourse(cs211);
+        prerequisite.setPrerequisite(cs111);
+        prerequisite.setGroupId(1);
+        prerequisite.setParent(true);
+        prerequisite.setPrerequisiteType(PrerequisiteType.AND);
+        coursePrerequisiteRepo.save(prerequisite);
+        Course cs311 = course("CS311", true);
+        cs311.setCapacity(1);
+        courseRepo.save(cs311);
+        Course cs113 = course("CS113", true);
+        Course cs114 = course("CS114", true);
+
+        CourseEnrollment passed = new CourseEnrollment();
+        passed.setStudent(studentRepo.findByStudentId(studentId(1)).orElseThrow());
+        passed.setCourse(cs111);
+        passed.setCompleted(true);
+        passed.setDateEnrolled(LocalDate.now().minusYears(1));
+        courseEnrollmentRepo.save(passed);
+
+        HoldServiceRestriction restriction = new HoldServiceRestriction();
+        restriction.setHoldType(OnHoldTypes.UNPAID_FEES);
+        holdServiceRestrictionRepo.save(restriction);
+        Student onHold = studentRepo.findByStudentId(studentId(5)).orElseThrow();
+        OnHoldStatus hold = new OnHoldStatus();
+        hold.setOnHoldType(OnHoldTypes.UNPAID_FEES);
+        hold.setOnHold(true);
+        onHold.getOnHoldStatusList().add(hold);
+        studentRepo.save(onHold);
+
+        String csv = studentId(1) + ",CS211,1\n"
+                + studentId(2) + ",CS211,1\n"
+                + studentId(3) + ",CS311,1\n"
+                + studentId(4) + ",CS311,1\n"
+                + studentId(5) + ",CS112,1\n"
+                + studentId(6) + ",CS111,1\n"
+                + studentId(6) + ",CS112,1\n"
+                + studentId(6) + ",CS113,1\n"
+                + studentId(6) + ",CS114,1\n"
+                + studentId(6) + ",MA111,2\n";
+
+        EnrollmentImportResultDto result = enrollmentImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(6, result.getImported());
+        assertEquals(List.of(
+                "Line 2: " + studentId(2) + " does not meet the prerequisites for CS211",
+                "Line 4: CS311 is full for Semester 1",
+                "Line 5: " + studentId(5) + " has a hold on their account",
+                "Line 10: " + studentId(6) + " already has the maximum of 4 courses"
+        ), result.getErrors());
+        assertEquals(1, seatInventoryService.getSeatsTaken(cs311.getId(), LocalDate.now().getYear(), 1));
+        assertEquals(6, courseEnrollmentRepo.findAll().stream().filter(e -> e.isCurrentlyTaking()
+                && e.getDateEnrolled().equals(LocalDate.now()) && e.getProgramme() != null).count());
+    }
+
+    private Course course(String code, boolean offeredSem1) {
+        Course course = new Course();
+        course.setCourseCode(code);
+        course.setTitle(code);
+        course.setLevel((short) 100);
+        course.setOfferedSem1(offeredSem1);
+        course.setOfferedSem2(true);
+        return courseRepo.save(course);
+    }
+
+    private static String studentId(int i) {
+        return String.format("S11%06d", i);
+    }
+}
@@ -0,0 +1,154 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentDto;
+import group7.enrollmentSystem.dtos.classDtos.EnrollmentPageDto;
+import group7.enrollmentSystem.enums.PrerequisiteType;
+import group7.enrollmentSystem.helpers.CoursesTranscriptPdfGeneratorService;
+import group7.enrollmentSystem.helpers.EmailService;
+import group7.enrollmentSystem.helpers.GradeService;
+import group7.enrollmentSystem.helpers.InvoicePdfGeneratorService;
+import group7.enrollmentSystem.helpers.UploadStore;
+import group7.enrollmentSystem.models.*;
+import group7.enrollmentSystem.services.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the enrollment page read path against an in-memory database:
+ * the right courses come back and the page stays within its round-trip budget.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({StudentService.class, EnrollmentStateService.class, PrerequisiteRuleService.class, ProgrammeCourseLevelService.class, CourseIndex.class,
+        StudentEnrollmentLocks.class})
+public class EnrollmentPageQueryTest {
+
+    @MockBean private StudentProgrammeService studentProgrammeService;
+    @MockBean private CourseEnrollmentService courseEnrollmentService;
+    @MockBean private InvoicePdfGeneratorService invoicePdfGeneratorService;
+    @MockBean private GradeService gradeService;
+    @MockBean private StudentHoldService studentHoldService;
+    @MockBean private EmailService emailService;
+    @MockBean private CoursesTranscriptPdfGeneratorService coursesTranscriptPdfGeneratorService;
+    @MockBean private UploadStore uploadStore;
+    @MockBean private SeatInventoryService seatInventoryService;
+
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private StudentService studentService;
+
+    private Student student;
+    private Programme programme;
+
+    @BeforeEach
+    void setUp() {
+        programme = new Programme();
+        programme.setProgrammeCode("BSE");
+        programme.setName("Bachelor of Software Engineering");
+        em.persist(programme);
+
+        Course cs111 = course("CS111", 100, true, false);
+        Course cs112 = course("CS112", 100, false, true);
+        Course cs211 = course("CS211", 200, true, false);
+        Course cs212 = course("CS212", 200, true, false);
+        Course cs215 = course("CS215", 200, true, false);
+        Course cs218 = course("CS218", 200, true, false);
+
+        prerequisite(cs211, cs111);
+        prerequisite(cs212, cs112);
+
+        student = new Student("S11000001", "Ana", "Tui", "Suva", "1234567");
+        student.setEmail("s11000001@student.usp.ac.fj");
+        em.persist(student);
+
+        enrollment(cs111, true, false, false);
+        enrollment(cs218, false, false, true);
+        enrollment(cs215, true, true, false);
+
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * Completed and applied courses are left out, prerequisites are applied, and the enrolled list
+     * only has courses currently being taken.
+     */
+    @Test
+    void testEnrollmentPageContents() {
+        EnrollmentPageDto page = studentService.getEnrollmentPage(student, programme, true);
+
+        assertEquals(List.of("CS211", "CS215"),
+                page.getEligibleCourses().stream().map(CourseEnrollmentDto::getCourseCode).sorted().toList());
+        assertEquals(List.of("CS218"),
+                page.getEnrolledCourses().stream().map(CourseEnrollmentDto::getCourseCode).toList());
+        assertTrue(page.getEnrolledCourses().getFirst().isPaid());
+    }
+
+    /**
+     * Cold: course rows, enrollment history and one IN query for prerequisite rows.
+     * Warm: prerequisite rules come from the cache.
+     */
+    @Test
+    void testEnrollmentPageRoundTrips() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        studentService.getEnrollmentPage(student, programme, true);
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "cold page used " + statistics.getPrepareStatementCount() + " statements");
+
+        em.clear();
+        statistics.clear();
+        studentService.getEnrollmentPage(student, programme, true);
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "warm page used " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    private Course course(String code, int level, boolean sem1, boolean sem2) {
+        Course course = new Course();
+        course.setCourseCode(code);
+        course.setTitle(code);
+        course.setLevel((short) level);
+        course.setCost(500);
+        course.setOfferedSem1(sem1);
+        course.setOfferedSem2(sem2);
+        em.persist(course);
+        em.persist(new CourseProgramme(null, course, programme, false));
+        return course;
+    }
+
+    private void prerequisite(Course course, Course prerequisite) {
+        CoursePrerequisite cp = new CoursePrerequisite();
+        cp.setCourse(course);
+        cp.setPrerequisite(prerequisite);
+        cp.setGroupId(1);
+        cp.setParent(true);
+        cp.setPrerequisiteType(PrerequisiteType.AND);
+        em.persist(cp);
+    }
+
+    private void enrollment(Course course, boolean completed, boolean failed, boolean currentlyTaking) {
+        CourseEnrollment enrollment = new CourseEnrollment();
+        enrollment.setStudent(student);
+        enrollment.setCourse(course);
+        enrollment.setProgramme(programme);
+        enrollment.setCompleted(completed);
+        enrollment.setFailed(failed);
+        enrollment.setCurrentlyTaking(currentlyTaking);
+        enrollment.setPaid(currentlyTaking);
+        enrollment.setDateEnrolled(LocalDate.now());
+        em.persist(enrollment);
+    }
+}
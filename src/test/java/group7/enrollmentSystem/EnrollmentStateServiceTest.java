@@ -0,0 +1,119 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.models.EnrollmentState;
+import group7.enrollmentSystem.repos.EnrollmentStateRepo;
+import group7.enrollmentSystem.services.EnrollmentStateService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EnrollmentStateService: reads come from the snapshot, local toggles publish on commit,
+ * and toggles made on another node are picked up by the version poll.
+ */
+public class EnrollmentStateServiceTest {
+
+    private EnrollmentStateRepo enrollmentStateRepo;
+    private EnrollmentStateService enrollmentStateService;
+    private EnrollmentState row;
+
+    @BeforeEach
+    void setUp() {
+        row = state(true, true, 3L);
+        enrollmentStateRepo = mock(EnrollmentStateRepo.class);
+        when(enrollmentStateRepo.findById(1L)).thenAnswer(invocation -> Optional.of(copy(row)));
+        when(enrollmentStateRepo.findVersion()).thenAnswer(invocation -> row.getVersion());
+        // Stands in for the database: the saved row gets the next version
+        when(enrollmentStateRepo.saveAndFlush(any())).thenAnswer(invocation -> {
+            EnrollmentState saved = invocation.getArgument(0);
+            row = state(saved.isOpen(), saved.isSemesterOne(), row.getVersion() + 1);
+            return copy(row);
+        });
+        enrollmentStateService = new EnrollmentStateService(enrollmentStateRepo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * The row is read once; later reads and an unchanged poll only cost the version query.
+     */
+    @Test
+    void testReadsComeFromSnapshot() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(enrollmentStateService.isOpen());
+            assertEquals(1, enrollmentStateService.getState().getSemester());
+        }
+        enrollmentStateService.pollForChanges();
+
+        verify(enrollmentStateRepo, times(1)).findById(1L);
+        verify(enrollmentStateRepo, times(1)).findVersion();
+    }
+
+    /**
+     * A toggle is only visible to readers once its transaction commits.
+     */
+    @Test
+    void testToggleIsPublishedOnCommit() {
+        assertTrue(enrollmentStateService.isOpen());
+
+        TransactionSynchronizationManager.initSynchronization();
+        EnrollmentStateService.Snapshot toggled = enrollmentStateService.toggleOpen();
+        assertFalse(toggled.isOpen());
+        assertEquals(4L, toggled.version());
+        assertTrue(enrollmentStateService.isOpen());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        assertFalse(enrollmentStateService.isOpen());
+        assertTrue(enrollmentStateService.isSemesterOne());
+    }
+
+    /**
+     * A toggle on another node moves the version; the next poll reloads the row, and a failed poll keeps the
+     * current snapshot.
+     */
+    @Test
+    void testPollPicksUpRemoteToggle() {
+        assertTrue(enrollmentStateService.isSemesterOne());
+
+        row = state(true, false, 4L);
+        assertTrue(enrollmentStateService.isSemesterOne());
+        enrollmentStateService.pollForChanges();
+        assertFalse(enrollmentStateService.isSemesterOne());
+        assertEquals(4L, enrollmentStateService.getState().version());
+
+        when(enrollmentStateRepo.findVersion()).thenThrow(new RuntimeException("connection lost"));
+        enrollmentStateService.pollForChanges();
+        assertFalse(enrollmentStateService.isSemesterOne());
+        verify(enrollmentStateRepo, times(2)).findById(1L);
+    }
+
+    private static EnrollmentState state(boolean open, boolean semesterOne, Long version) {
+        EnrollmentState state = new EnrollmentState();
+        state.setId(1L);
+        state.setOpen(open);
+        state.setSemesterOne(semesterOne);
+        state.setVersion(version);
+        return state;
+    }
+
+    private static EnrollmentState copy(EnrollmentState state) {
+        return state(state.isOpen(), state.isSemesterOne(), state.getVersion());
+    }
+}
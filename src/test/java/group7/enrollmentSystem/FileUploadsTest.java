@@ -0,0 +1,179 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.helpers.FileUploads;
+import group7.enrollmentSystem.helpers.UploadStore;
+import group7.enrollmentSystem.repos.StoredUploadRepo;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for serving uploaded files: ZIPs are streamed with compressed formats stored, single files go through
+ * the container's sendfile when it offers it, and otherwise stream with Content-Length and Range support.
+ */
+public class FileUploadsTest {
+
+    @TempDir
+    Path uploads;
+
+    private FileUploads fileUploads;
+    private byte[] scan;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileUploads = new FileUploads(new UploadStore(
+                mock(StoredUploadRepo.class), mock(PlatformTransactionManager.class), uploads.resolve("store").toString()));
+        scan = new byte[200_000];
+        new Random(7).nextBytes(scan);
+        Files.write(uploads.resolve("medical.pdf"), scan);
+        Files.writeString(uploads.resolve("statement.txt"), "I was unwell during the final exam. ".repeat(100));
+        Files.createDirectories(uploads.resolve("other"));
+        Files.writeString(uploads.resolve("other").resolve("medical.pdf"), "%PDF second");
+    }
+
+    /**
+     * The PDF is stored and the text deflated, a repeated file name gets a number, a missing file is skipped, and
+     * the caller's stream is left open.
+     */
+    @Test
+    void testZipStoresCompressedFormats() throws Exception {
+        OpenStream out = new OpenStream();
+        fileUploads.writeZip(List.of(
+                uploads.resolve("medical.pdf").toString(),
+                uploads.resolve("statement.txt").toString(),
+                uploads.resolve("missing.png").toString(),
+                uploads.resolve("other").resolve("medical.pdf").toString()), out);
+        assertFalse(out.closed);
+
+        Map<String, Integer> methods = new LinkedHashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                methods.put(entry.getName(), entry.getMethod());
+                contents.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        assertEquals(List.of("medical.pdf", "statement.txt", "medical (2).pdf"), List.copyOf(methods.keySet()));
+        assertEquals(ZipEntry.STORED, methods.get("medical.pdf"));
+        assertEquals(ZipEntry.DEFLATED, methods.get("statement.txt"));
+        assertArrayEquals(scan, contents.get("medical.pdf"));
+        assertEquals("%PDF second", new String(contents.get("medical (2).pdf")));
+    }
+
+    /**
+     * When the container supports sendfile, the response carries only headers and the file is handed to the
+     * connector through the request attributes.
+     */
+    @Test
+    void testSendfileWhenSupported() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        Path file = uploads.resolve("medical.pdf");
+
+        ResponseEntity<Resource> response = fileUploads.serveFile(file.toString(), request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(scan.length, response.getHeaders().getContentLength());
+        assertEquals(MediaType.APPLICATION_PDF, response.getHeaders().getContentType());
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals((long) scan.length, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    /**
+     * Without sendfile the file is streamed from disk, and a missing file is a 404.
+     */
+    @Test
+    void testStreamsWithoutSendfile() throws Exception {
+        ResponseEntity<Resource> response = fileUploads.serveFile(
+                uploads.resolve("medical.pdf").toString(), new MockHttpServletRequest());
+        assertInstanceOf(FileSystemResource.class, response.getBody());
+        assertEquals(scan.length, response.getBody().contentLength());
+
+        assertEquals(HttpStatus.NOT_FOUND, fileUploads.serveFile(
+                uploads.resolve("missing.pdf").toString(), new MockHttpServletRequest()).getStatusCode());
+    }
+
+    /**
+     * Through Spring MVC, a full download has Content-Length and Accept-Ranges, and a Range gets 206 with just
+     * those bytes.
+     */
+    @Test
+    void testRangeRequests() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FileController(fileUploads)).build();
+        String body = "{\"fileName\":\"" + uploads.resolve("medical.pdf").toString().replace("\\", "\\\\") + "\"}";
+
+        MvcResult full = mockMvc.perform(post("/getFile").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, scan.length))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn();
+        assertArrayEquals(scan, full.getResponse().getContentAsByteArray());
+
+        MvcResult partial = mockMvc.perform(post("/getFile").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.RANGE, "bytes=1000-1999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/" + scan.length))
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(scan, 1000, 2000), partial.getResponse().getContentAsByteArray());
+    }
+
+    // The admin getFile endpoint without the rest of AdminApiController's dependencies
+    @RestController
+    static class FileController {
+        private final FileUploads fileUploads;
+
+        FileController(FileUploads fileUploads) {
+            this.fileUploads = fileUploads;
+        }
+
+        @PostMapping("/getFile")
+        ResponseEntity<Resource> getFile(@RequestBody Map<String, String> request, HttpServletRequest servletRequest)
+                throws IOException {
+            return fileUploads.serveFile(request.get("fileName"), servletRequest);
+        }
+    }
+
+    // Records whether the ZIP writer closed the caller's stream
+    private static class OpenStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
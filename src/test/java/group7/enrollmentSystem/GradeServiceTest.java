@@ -0,0 +1,112 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.helpers.GradeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GradeService: the compiled lookup matches the thresholds at every mark, the external file is
+ * seeded from the bundled defaults, and edits to it are picked up while the app runs.
+ */
+public class GradeServiceTest {
+
+    @TempDir
+    Path configDir;
+
+    private Path configFile;
+    private GradeService gradeService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        configFile = configDir.resolve("grades.json");
+        gradeService = new GradeService(configFile.toString());
+        gradeService.loadGradeThresholds();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        gradeService.stopWatcher();
+    }
+
+    /**
+     * With the bundled thresholds every mark maps to the highest grade it reaches, including the boundaries.
+     */
+    @Test
+    void testLookupMatchesBundledThresholds() {
+        assertTrue(Files.exists(configFile));
+        assertEquals("F", gradeService.getGrade(0));
+        assertEquals("F", gradeService.getGrade(39));
+        assertEquals("E", gradeService.getGrade(40));
+        assertEquals("D", gradeService.getGrade(50));
+        assertEquals("R", gradeService.getGrade(55));
+        assertEquals("C", gradeService.getGrade(64));
+        assertEquals("A", gradeService.getGrade(84));
+        assertEquals("A+", gradeService.getGrade(85));
+        assertEquals("A+", gradeService.getGrade(100));
+        assertEquals("A+", gradeService.getGrade(120));
+        assertEquals("F", gradeService.getGrade(-5));
+
+        assertEquals(4.5, gradeService.getGradePoint("A+"));
+        assertEquals(1.5, gradeService.getGradePoint("R"));
+        assertEquals(0.0, gradeService.getGradePoint("Z"));
+        assertEquals(0.0, gradeService.getGradePoint(null));
+        assertEquals(50, gradeService.getLowestPassingMark());
+    }
+
+    /**
+     * Saving new thresholds applies them at once and writes the file; thresholds without D are rejected
+     * and leave the current ones in place.
+     */
+    @Test
+    void testSetGradeThresholds() throws Exception {
+        Map<String, Map<String, Object>> thresholds = new LinkedHashMap<>();
+        thresholds.put("A", Map.of("mark", 70, "gpa", 4.0));
+        thresholds.put("D", Map.of("mark", 45, "gpa", 1.0));
+        gradeService.setGradeThresholds(thresholds);
+
+        assertEquals("F", gradeService.getGrade(44));
+        assertEquals("D", gradeService.getGrade(45));
+        assertEquals("A", gradeService.getGrade(70));
+        assertEquals(45, gradeService.getLowestPassingMark());
+        assertTrue(Files.readString(configFile).contains("\"mark\" : 70"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> gradeService.setGradeThresholds(Map.of("A", Map.of("mark", 70, "gpa", 4.0))));
+        assertEquals(45, gradeService.getLowestPassingMark());
+    }
+
+    /**
+     * An edit to the external file is applied by the watcher; a broken edit is ignored.
+     */
+    @Test
+    void testFileEditsAreReloaded() throws Exception {
+        Files.writeString(configFile, """
+                { "P": { "mark": 60, "gpa": 2.0 }, "D": { "mark": 30, "gpa": 1.0 } }
+                """);
+        awaitGrade(60, "P");
+        assertEquals(30, gradeService.getLowestPassingMark());
+
+        Files.writeString(configFile, "{ \"P\": { \"mark\": ");
+        Thread.sleep(500);
+        gradeService.reload();
+        assertEquals("P", gradeService.getGrade(60));
+        assertEquals(30, gradeService.getLowestPassingMark());
+    }
+
+    private void awaitGrade(int mark, String grade) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!grade.equals(gradeService.getGrade(mark)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(grade, gradeService.getGrade(mark));
+    }
+}
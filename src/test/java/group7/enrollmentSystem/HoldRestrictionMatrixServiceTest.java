@@ -0,0 +1,117 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.enums.OnHoldTypes;
+import group7.enrollmentSystem.models.HoldServiceRestriction;
+import group7.enrollmentSystem.models.OnHoldStatus;
+import group7.enrollmentSystem.repos.HoldServiceRestrictionRepo;
+import group7.enrollmentSystem.services.HoldRestrictionMatrixService;
+import group7.enrollmentSystem.services.StudentHoldService.HoldRestrictionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for HoldRestrictionMatrixService.
+ * Covers compiling the restriction table into per-hold bitmasks, combining active holds and refreshing.
+ */
+public class HoldRestrictionMatrixServiceTest {
+
+    private HoldServiceRestrictionRepo restrictionRepo;
+    private HoldRestrictionMatrixService holdRestrictionMatrixService;
+
+    @BeforeEach
+    void setUp() {
+        restrictionRepo = mock(HoldServiceRestrictionRepo.class);
+        holdRestrictionMatrixService = new HoldRestrictionMatrixService(restrictionRepo);
+    }
+
+    /**
+     * Each hold type blocks exactly the services flagged on its row, hold types without a row block nothing,
+     * and the table is read once.
+     */
+    @Test
+    void testMatrixCompiledOnce() {
+        HoldServiceRestriction fees = restriction(OnHoldTypes.UNPAID_FEES);
+        fees.setBlockViewCompletedCourses(false);
+        fees.setBlockStudentAudit(false);
+        when(restrictionRepo.findAll()).thenReturn(List.of(fees));
+
+        assertEquals(EnumSet.complementOf(EnumSet.of(HoldRestrictionType.VIEW_COMPLETED_COURSES, HoldRestrictionType.STUDENT_AUDIT)),
+                holdRestrictionMatrixService.getBlockedServices(OnHoldTypes.UNPAID_FEES));
+        assertTrue(holdRestrictionMatrixService.getBlockedServices(OnHoldTypes.DISCIPLINARY_ISSUES).isEmpty());
+
+        int mask = holdRestrictionMatrixService.getBlockedMask(OnHoldTypes.UNPAID_FEES);
+        assertTrue(HoldRestrictionMatrixService.isBlocked(mask, HoldRestrictionType.COURSE_ENROLLMENT));
+        assertFalse(HoldRestrictionMatrixService.isBlocked(mask, HoldRestrictionType.STUDENT_AUDIT));
+        assertEquals(0, holdRestrictionMatrixService.getBlockedMask(OnHoldTypes.DISCIPLINARY_ISSUES));
+
+        verify(restrictionRepo, times(1)).findAll();
+    }
+
+    /**
+     * Only active holds count towards a student's mask, and their restrictions are combined.
+     */
+    @Test
+    void testActiveHoldsCombined() {
+        HoldServiceRestriction fees = none(OnHoldTypes.UNPAID_FEES);
+        fees.setBlockCourseEnrollment(true);
+        HoldServiceRestriction progress = none(OnHoldTypes.UNSATISFACTORY_ACADEMIC_PROGRESS);
+        progress.setBlockGenerateTranscript(true);
+        HoldServiceRestriction disciplinary = none(OnHoldTypes.DISCIPLINARY_ISSUES);
+        disciplinary.setBlockGraduationApplication(true);
+        when(restrictionRepo.findAll()).thenReturn(List.of(fees, progress, disciplinary));
+
+        int mask = holdRestrictionMatrixService.getBlockedMask(List.of(
+                hold(OnHoldTypes.UNPAID_FEES, true),
+                hold(OnHoldTypes.UNSATISFACTORY_ACADEMIC_PROGRESS, true),
+                hold(OnHoldTypes.DISCIPLINARY_ISSUES, false)));
+
+        assertEquals(HoldRestrictionMatrixService.bit(HoldRestrictionType.COURSE_ENROLLMENT)
+                | HoldRestrictionMatrixService.bit(HoldRestrictionType.GENERATE_TRANSCRIPT), mask);
+    }
+
+    /**
+     * After a refresh the next check sees the updated table.
+     */
+    @Test
+    void testRefreshReloadsTable() {
+        HoldServiceRestriction before = restriction(OnHoldTypes.UNPAID_FEES);
+        HoldServiceRestriction after = none(OnHoldTypes.UNPAID_FEES);
+        when(restrictionRepo.findAll()).thenReturn(List.of(before)).thenReturn(List.of(after));
+
+        assertNotEquals(0, holdRestrictionMatrixService.getBlockedMask(OnHoldTypes.UNPAID_FEES));
+        holdRestrictionMatrixService.refresh();
+        assertEquals(0, holdRestrictionMatrixService.getBlockedMask(OnHoldTypes.UNPAID_FEES));
+    }
+
+    private static HoldServiceRestriction restriction(OnHoldTypes holdType) {
+        HoldServiceRestriction restriction = new HoldServiceRestriction();
+        restriction.setHoldType(holdType);
+        return restriction;
+    }
+
+    private static HoldServiceRestriction none(OnHoldTypes holdType) {
+        HoldServiceRestriction restriction = restriction(holdType);
+        restriction.setBlockCourseEnrollment(false);
+        restriction.setBlockViewCompletedCourses(false);
+        restriction.setBlockStudentAudit(false);
+        restriction.setBlockGenerateTranscript(false);
+        restriction.setBlockViewApplicationPage(false);
+        restriction.setBlockGradeChangeRequest(false);
+        restriction.setBlockCompassionateApplication(false);
+        restriction.setBlockGraduationApplication(false);
+        return restriction;
+    }
+
+    private static OnHoldStatus hold(OnHoldTypes holdType, boolean active) {
+        OnHoldStatus hold = new OnHoldStatus();
+        hold.setOnHoldType(holdType);
+        hold.setOnHold(active);
+        return hold;
+    }
+}
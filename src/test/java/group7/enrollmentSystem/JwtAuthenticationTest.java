@@ -0,0 +1,177 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.config.JwtAuthenticationFilter;
+import group7.enrollmentSystem.helpers.JwtService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JWT verification: cached verification, refresh deduplication and the static-path skip
+ * in JwtAuthenticationFilter.
+ */
+public class JwtAuthenticationTest {
+
+    private Key key;
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        jwtService = new JwtService(key);
+        filter = new JwtAuthenticationFilter(jwtService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * A verified token is served from the cache; a token that reuses its signature with another payload,
+     * or one signed with another key, is still rejected.
+     */
+    @Test
+    void testVerifiedTokensAreCached() {
+        String token = jwtService.generateToken("s11000001@student.usp.ac.fj", List.of("ROLE_STUDENT"), 3600);
+
+        JwtService.VerifiedToken first = jwtService.verify(token);
+        assertEquals("s11000001@student.usp.ac.fj", first.subject());
+        assertEquals(List.of("ROLE_STUDENT"), first.authorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertSame(first, jwtService.verify(token));
+
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"admin@usp.ac.fj\",\"roles\":[\"ROLE_ADMIN\"]}".getBytes(StandardCharsets.UTF_8));
+        assertThrows(JwtException.class, () -> jwtService.verify(parts[0] + "." + forgedPayload + "." + parts[2]));
+
+        String otherKey = new JwtService(Keys.secretKeyFor(SignatureAlgorithm.HS256))
+                .generateToken("admin@usp.ac.fj", List.of("ROLE_ADMIN"), 3600);
+        assertThrows(JwtException.class, () -> jwtService.verify(otherKey));
+    }
+
+    /**
+     * A cached token stops being accepted once it expires.
+     */
+    @Test
+    void testCachedTokenExpires() throws Exception {
+        String token = signed("s11000001@student.usp.ac.fj", System.currentTimeMillis(), System.currentTimeMillis() + 1500);
+        jwtService.verify(token);
+
+        Thread.sleep(2000);
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    /**
+     * A token older than the refresh window gets one replacement per subject and roles, reused for later requests and
+     * carrying the roles from the old token. A fresh token gets none.
+     */
+    @Test
+    void testRefreshIsIssuedOncePerGrant() {
+        long twentyMinutesAgo = System.currentTimeMillis() - 20 * 60 * 1000;
+        String old = signed("admin@usp.ac.fj", twentyMinutesAgo, twentyMinutesAgo + 3600 * 1000);
+
+        String replacement = jwtService.refreshIfDue(jwtService.verify(old)).orElseThrow();
+        assertEquals(replacement, jwtService.refreshIfDue(jwtService.verify(old)).orElseThrow());
+
+        JwtService.VerifiedToken refreshed = jwtService.verify(replacement);
+        assertEquals("admin@usp.ac.fj", refreshed.subject());
+        assertEquals(List.of("ROLE_ADMIN"), refreshed.roles());
+        assertTrue(jwtService.refreshIfDue(refreshed).isEmpty());
+    }
+
+    /**
+     * Tokens of one subject with different roles each get a replacement with their own roles; the same roles in
+     * another order share one.
+     */
+    @Test
+    void testRefreshIsKeptPerRoles() {
+        long twentyMinutesAgo = System.currentTimeMillis() - 20 * 60 * 1000;
+        String student = signed("s11000001@student.usp.ac.fj", List.of("ROLE_STUDENT"), twentyMinutesAgo);
+        String both = signed("s11000001@student.usp.ac.fj", List.of("ROLE_STUDENT", "ROLE_ADMIN"), twentyMinutesAgo);
+        String reordered = signed("s11000001@student.usp.ac.fj", List.of("ROLE_ADMIN", "ROLE_STUDENT"),
+                twentyMinutesAgo);
+
+        String bothReplacement = jwtService.refreshIfDue(jwtService.verify(both)).orElseThrow();
+        String studentReplacement = jwtService.refreshIfDue(jwtService.verify(student)).orElseThrow();
+        assertNotEquals(bothReplacement, studentReplacement);
+        assertEquals(List.of("ROLE_STUDENT"), jwtService.verify(studentReplacement).roles());
+        assertEquals(List.of("ROLE_STUDENT", "ROLE_ADMIN"), jwtService.verify(bothReplacement).roles());
+        assertEquals(bothReplacement, jwtService.refreshIfDue(jwtService.verify(reordered)).orElseThrow());
+    }
+
+    /**
+     * The filter authenticates from the token and sends the replacement header; static resources are not filtered.
+     */
+    @Test
+    void testFilter() throws Exception {
+        long twentyMinutesAgo = System.currentTimeMillis() - 20 * 60 * 1000;
+        String old = signed("admin@usp.ac.fj", twentyMinutesAgo, twentyMinutesAgo + 3600 * 1000);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/admin/courses");
+        request.setServletPath("/api/admin/courses");
+        request.addHeader("Authorization", "Bearer " + old);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader("X-New-Token"));
+        assertEquals("admin@usp.ac.fj", SecurityContextHolder.getContext().getAuthentication().getName());
+
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest stylesheet = new MockHttpServletRequest("GET", "/styles/admin.css");
+        stylesheet.setServletPath("/styles/admin.css");
+        stylesheet.addHeader("Authorization", "Bearer not-a-token");
+        MockHttpServletResponse styleResponse = new MockHttpServletResponse();
+        filter.doFilter(stylesheet, styleResponse, new MockFilterChain());
+        assertEquals(200, styleResponse.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/api/admin/courses");
+        invalid.setServletPath("/api/admin/courses");
+        invalid.addHeader("Authorization", "Bearer not-a-token");
+        MockHttpServletResponse invalidResponse = new MockHttpServletResponse();
+        filter.doFilter(invalid, invalidResponse, new MockFilterChain());
+        assertEquals(401, invalidResponse.getStatus());
+    }
+
+    private String signed(String subject, long issuedAt, long expiresAt) {
+        String role = subject.startsWith("admin") ? "ROLE_ADMIN" : "ROLE_STUDENT";
+        return signed(subject, List.of(role), issuedAt, expiresAt);
+    }
+
+    // Valid for an hour from when it was issued
+    private String signed(String subject, List<String> roles, long issuedAt) {
+        return signed(subject, roles, issuedAt, issuedAt + 3600 * 1000);
+    }
+
+    private String signed(String subject, List<String> roles, long issuedAt, long expiresAt) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .addClaims(Map.of("roles", roles))
+                .setIssuedAt(new Date(issuedAt))
+                .setExpiration(new Date(expiresAt))
+                .signWith(key)
+                .compact();
+    }
+}
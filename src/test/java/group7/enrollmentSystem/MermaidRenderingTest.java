@@ -0,0 +1,199 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.dtos.classDtos.PrerequisiteRenderDto;
+import group7.enrollmentSystem.enums.PrerequisiteType;
+import group7.enrollmentSystem.enums.SpecialPrerequisiteType;
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.CoursePrerequisite;
+import group7.enrollmentSystem.models.Programme;
+import group7.enrollmentSystem.repos.CoursePrerequisiteRepo;
+import group7.enrollmentSystem.repos.CourseProgrammeRepo;
+import group7.enrollmentSystem.repos.CourseRepo;
+import group7.enrollmentSystem.repos.ProgrammeRepo;
+import group7.enrollmentSystem.services.CourseService;
+import group7.enrollmentSystem.services.PrerequisiteRuleService;
+import group7.enrollmentSystem.services.ProgrammeCourseLevelService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Golden-file tests for the Mermaid prerequisite diagrams.
+ * The seed prerequisites restored by DataInitializer are rendered for every course and compared
+ * with the diagrams in {@code src/test/resources/mermaid}.
+ */
+public class MermaidRenderingTest {
+
+    // Course ids follow the insertion order in DataInitializer.initializeCourses
+    private static final List<String> SEED_COURSE_CODES = List.of(
+            "MA111", "MA161", "MG101", "ST131", "UU200", "IS221", "IS222", "IS314", "IS328", "IS333",
+            "UU114", "UU100A", "CS001", "CS111", "CS112", "CS140", "CS150", "CS211", "CS214", "CS215",
+            "CS218", "CS219", "CS230", "CS241", "CS310", "CS311", "CS317", "CS324", "CS341", "CS350",
+            "CS351", "CS352", "CS400", "CS401", "CS402", "CS403", "CS404", "CS412", "CS415", "CS424",
+            "CS427");
+    private static final List<String> SEED_PROGRAMME_CODES = List.of("BSE", "BNS", "APD");
+
+    private static final Pattern ROW = Pattern.compile("\\(([^()]*)\\)");
+
+    private Map<Long, Course> courses;
+    private List<CoursePrerequisite> prerequisites;
+    private CourseService courseService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        courses = new LinkedHashMap<>();
+        for (int i = 0; i < SEED_COURSE_CODES.size(); i++) {
+            Course course = new Course();
+            course.setId(i + 1L);
+            course.setCourseCode(SEED_COURSE_CODES.get(i));
+            courses.put(course.getId(), course);
+        }
+        prerequisites = loadSeedPrerequisites();
+
+        CourseRepo courseRepo = mock(CourseRepo.class);
+        CoursePrerequisiteRepo coursePrerequisiteRepo = mock(CoursePrerequisiteRepo.class);
+        when(courseRepo.findAllById(any())).thenReturn(List.copyOf(courses.values()));
+        when(coursePrerequisiteRepo.findByCourseIds(any())).thenReturn(prerequisites);
+        courseService = new CourseService(courseRepo, coursePrerequisiteRepo, mock(CourseProgrammeRepo.class),
+                mock(ProgrammeRepo.class), mock(PrerequisiteRuleService.class), mock(ProgrammeCourseLevelService.class));
+    }
+
+    /**
+     * Every seed course with prerequisites renders exactly the stored diagram, in both the
+     * multi-line and the flattened form.
+     */
+    @Test
+    void testSeedDiagramsMatchGoldenFiles() throws IOException {
+        Map<Long, PrerequisiteRenderDto> renders = courseService.getRenderedPrerequisites(courses.keySet());
+
+        Set<Long> withPrerequisites = new TreeSet<>();
+        prerequisites.forEach(cp -> withPrerequisites.add(cp.getCourse().getId()));
+        assertFalse(withPrerequisites.isEmpty());
+
+        for (Long courseId : withPrerequisites) {
+            String courseCode = courses.get(courseId).getCourseCode();
+            String golden = readResource("mermaid/" + courseCode + ".mmd");
+            PrerequisiteRenderDto render = renders.get(courseId);
+            assertEquals(golden, render.getMermaid(), courseCode);
+            assertEquals(courseService.flattenMermaid(golden), render.getFlatMermaid(), courseCode);
+        }
+    }
+
+    /**
+     * Courses without seed prerequisites keep the placeholder comment.
+     */
+    @Test
+    void testCourseWithoutPrerequisites() {
+        PrerequisiteRenderDto render = courseService.getRenderedPrerequisites(List.of(1L)).get(1L);
+        assertEquals("%% No prerequisites found for this course", render.getMermaid());
+        assertNull(render.getExpression());
+    }
+
+    /**
+     * Labels are never re-parsed, so a course code containing an operator word stays one leaf.
+     */
+    @Test
+    void testLabelsContainingOperatorWordsStayLeaves() {
+        Course crossListed = new Course();
+        crossListed.setId(99L);
+        crossListed.setCourseCode("CS111 OR IS121");
+        Course course = courses.get(18L);
+        CoursePrerequisite first = row(course, 1, PrerequisiteType.AND, crossListed);
+        CoursePrerequisite second = row(course, 1, PrerequisiteType.AND, courses.get(15L));
+
+        CourseRepo courseRepo = mock(CourseRepo.class);
+        CoursePrerequisiteRepo coursePrerequisiteRepo = mock(CoursePrerequisiteRepo.class);
+        when(courseRepo.findAllById(any())).thenReturn(List.of(course));
+        when(coursePrerequisiteRepo.findByCourseIds(any())).thenReturn(List.of(first, second));
+        CourseService service = new CourseService(courseRepo, coursePrerequisiteRepo, mock(CourseProgrammeRepo.class),
+                mock(ProgrammeRepo.class), mock(PrerequisiteRuleService.class), mock(ProgrammeCourseLevelService.class));
+
+        assertEquals("graph TD\n"
+                        + "N0[\"CS211 (Main Course)\"]\n"
+                        + "N1[\"AND\"]\n"
+                        + "N2[\"CS111 OR IS121(Any)\"]\n"
+                        + "N3[\"CS112(Any)\"]\n"
+                        + "N1 --> N2\n"
+                        + "N1 --> N3\n"
+                        + "N0 --> N1\n",
+                service.getRenderedPrerequisites(course.getId()).getMermaid());
+    }
+
+    private List<CoursePrerequisite> loadSeedPrerequisites() throws IOException {
+        String dump = readResource("backup/course_prerequisite_backup1.sql");
+        String values = dump.substring(dump.indexOf("INSERT INTO `course_prerequisite` VALUES"));
+        values = values.substring(0, values.indexOf(";"));
+
+        // id, child_id, group_id, is_child, is_parent, operator_to_next, parent_id, percentage_value,
+        // prerequisite_type, special, special_type, target_level, course_id, prerequisite_id, programme_id
+        List<CoursePrerequisite> rows = new ArrayList<>();
+        Matcher matcher = ROW.matcher(values);
+        while (matcher.find()) {
+            String[] c = matcher.group(1).split(",");
+            CoursePrerequisite cp = new CoursePrerequisite();
+            cp.setId(Long.parseLong(c[0]));
+            cp.setChildId(Integer.parseInt(c[1]));
+            cp.setGroupId(Integer.parseInt(c[2]));
+            cp.setChild(bit(c[3]));
+            cp.setParent(bit(c[4]));
+            cp.setOperatorToNext(isNull(c[5]) ? null : PrerequisiteType.valueOf(unquote(c[5])));
+            cp.setParentId(Integer.parseInt(c[6]));
+            cp.setPercentageValue(Double.parseDouble(c[7]));
+            cp.setPrerequisiteType(isNull(c[8]) ? null : PrerequisiteType.valueOf(unquote(c[8])));
+            cp.setSpecial(bit(c[9]));
+            cp.setSpecialType(isNull(c[10]) ? null : SpecialPrerequisiteType.valueOf(unquote(c[10])));
+            cp.setTargetLevel(Short.parseShort(c[11]));
+            cp.setCourse(courses.get(Long.parseLong(c[12])));
+            cp.setPrerequisite(isNull(c[13]) ? null : courses.get(Long.parseLong(c[13])));
+            cp.setProgramme(isNull(c[14]) ? null : programme(Integer.parseInt(c[14])));
+            rows.add(cp);
+        }
+        return rows;
+    }
+
+    private static boolean bit(String value) {
+        return !value.endsWith("'\\0'");
+    }
+
+    private static boolean isNull(String value) {
+        return value.equals("NULL");
+    }
+
+    private static String unquote(String value) {
+        return value.substring(1, value.length() - 1);
+    }
+
+    private static Programme programme(int id) {
+        Programme programme = new Programme();
+        programme.setId((long) id);
+        programme.setProgrammeCode(SEED_PROGRAMME_CODES.get(id - 1));
+        return programme;
+    }
+
+    private static CoursePrerequisite row(Course course, int groupId, PrerequisiteType type, Course prerequisite) {
+        CoursePrerequisite cp = new CoursePrerequisite();
+        cp.setCourse(course);
+        cp.setGroupId(groupId);
+        cp.setParent(true);
+        cp.setPrerequisiteType(type);
+        cp.setPrerequisite(prerequisite);
+        return cp;
+    }
+
+    private static String readResource(String path) throws IOException {
+        try (InputStream in = MermaidRenderingTest.class.getClassLoader().getResourceAsStream(path)) {
+            assertNotNull(in, "missing resource " + path);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.config.CustomExceptions;
+import group7.enrollmentSystem.models.User;
+import group7.enrollmentSystem.repos.UserRepo;
+import group7.enrollmentSystem.services.PasswordVerificationService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PasswordVerificationService: checks run on the hashing pool, a full queue is rejected at once,
+ * and hashes at another cost are re-encoded after a successful login.
+ */
+public class PasswordVerificationServiceTest {
+
+    private final UserRepo userRepo = mock(UserRepo.class);
+
+    /**
+     * Passwords are checked off the calling thread and counted in the stats.
+     */
+    @Test
+    void testChecksRunOnPool() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        List<String> threads = new ArrayList<>();
+        PasswordEncoder recording = new PasswordEncoder() {
+            public String encode(CharSequence raw) {
+                return encoder.encode(raw);
+            }
+
+            public boolean matches(CharSequence raw, String encoded) {
+                threads.add(Thread.currentThread().getName());
+                return encoder.matches(raw, encoded);
+            }
+        };
+        PasswordVerificationService service = new PasswordVerificationService(recording, userRepo, 4, 10, 5);
+        String hash = encoder.encode("12345");
+
+        assertTrue(service.matches("12345", hash));
+        assertFalse(service.matches("54321", hash));
+
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("password-check-")), threads.toString());
+        assertEquals(2, service.getStats().getVerifications());
+        assertEquals(0, service.getStats().getRejected());
+    }
+
+    /**
+     * With every worker busy and the queue full, the next login fails straight away with the retry hint.
+     */
+    @Test
+    void testFullQueueIsRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.matches(any(), any())).thenAnswer(invocation -> release.await(10, TimeUnit.SECONDS));
+        PasswordVerificationService service = new PasswordVerificationService(blocking, userRepo, 10, 2, 7);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<CompletableFuture<Boolean>> waiting = new ArrayList<>();
+        for (int i = 0; i < cores + 2; i++) {
+            waiting.add(CompletableFuture.supplyAsync(() -> service.matches("12345", "hash")));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((service.getStats().getActiveThreads() < cores || service.getStats().getQueueDepth() < 2)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, service.getStats().getQueueDepth());
+
+        long startedAt = System.nanoTime();
+        CustomExceptions.LoginThrottledException throttled = assertThrows(CustomExceptions.LoginThrottledException.class,
+                () -> service.matches("12345", "hash"));
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(7, throttled.getRetryAfterSeconds());
+        assertEquals(1, service.getStats().getRejected());
+
+        release.countDown();
+        for (CompletableFuture<Boolean> login : waiting) {
+            assertTrue(login.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * A hash at another cost is replaced after a successful check, guarded by the old hash; one at the
+     * configured cost is left alone.
+     */
+    @Test
+    void testRehashToConfiguredCost() {
+        BCryptPasswordEncoder tuned = new BCryptPasswordEncoder(5);
+        PasswordVerificationService service = new PasswordVerificationService(tuned, userRepo, 5, 10, 5);
+        when(userRepo.updatePasswordIfUnchanged(anyLong(), anyString(), anyString())).thenReturn(1);
+
+        User user = new User();
+        user.setId(42L);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("12345"));
+        assertTrue(service.needsRehash(user.getPassword()));
+        assertTrue(service.matches("12345", user.getPassword()));
+        service.rehashIfNeeded(user, "12345");
+
+        ArgumentCaptor<String> upgraded = ArgumentCaptor.forClass(String.class);
+        verify(userRepo, timeout(5000)).updatePasswordIfUnchanged(eq(42L), eq(user.getPassword()), upgraded.capture());
+        assertTrue(upgraded.getValue().startsWith("$2a$05$"));
+        assertTrue(tuned.matches("12345", upgraded.getValue()));
+
+        User current = new User();
+        current.setId(43L);
+        current.setPassword(upgraded.getValue());
+        assertFalse(service.needsRehash(current.getPassword()));
+        service.rehashIfNeeded(current, "12345");
+        verify(userRepo, after(200).never()).updatePasswordIfUnchanged(eq(43L), anyString(), anyString());
+    }
+}
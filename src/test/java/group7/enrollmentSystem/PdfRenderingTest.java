@@ -0,0 +1,171 @@
+package group7.enrollmentSystem;
+
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import group7.enrollmentSystem.dtos.classDtos.*;
+import group7.enrollmentSystem.helpers.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the PDF generators on the shared PdfRenderingService: each document has the logo and its
+ * content, long documents run over several pages, the caller's stream stays open, and documents rendered at the
+ * same time from the shared resources come out whole.
+ */
+public class PdfRenderingTest {
+
+    private InvoicePdfGeneratorService invoiceGenerator;
+    private CoursesTranscriptPdfGeneratorService transcriptGenerator;
+    private ProgrammeAuditPdfGeneratorService auditGenerator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        PdfRenderingService pdfRenderingService = new PdfRenderingService();
+        GradeService gradeService = mock(GradeService.class);
+        when(gradeService.getGradePoint(anyString())).thenAnswer(invocation ->
+                "F".equals(invocation.getArgument(0)) ? 0.0 : 3.0);
+
+        invoiceGenerator = new InvoicePdfGeneratorService(pdfRenderingService);
+        transcriptGenerator = new CoursesTranscriptPdfGeneratorService(gradeService, pdfRenderingService);
+        auditGenerator = new ProgrammeAuditPdfGeneratorService(pdfRenderingService);
+    }
+
+    /**
+     * The invoice has the logo header template on its first page, its header and courses, and is written to a stream that is
+     * left open for the caller.
+     */
+    @Test
+    void testInvoiceStreamsWithLogo() throws Exception {
+        OpenStream out = new OpenStream();
+        invoiceGenerator.writeInvoicePdf(invoice(), out);
+        assertFalse(out.closed);
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        String text = PdfTextExtractor.getTextFromPage(reader, 1);
+        assertTrue(text.contains("STUDENT INVOICE / STATEMENT"));
+        assertTrue(text.contains("CS111"));
+        assertTrue(text.contains("TOTAL DUE: $1300.0"));
+        PRStream header = xObjects(reader.getPageN(1))
+                .filter(stream -> PdfName.FORM.equals(stream.getAsName(PdfName.SUBTYPE)))
+                .findFirst().orElseThrow();
+        PRStream logo = xObjects(header)
+                .filter(stream -> stream.contains(PdfName.SMASK))
+                .findFirst().orElseThrow();
+        assertEquals(PdfName.FLATEDECODE, logo.getAsName(PdfName.FILTER));
+        assertEquals(320 * 320, PdfReader.getStreamBytes(logo).length);
+        assertEquals(320 * 320, PdfReader.getStreamBytes((PRStream) logo.getAsStream(PdfName.SMASK)).length);
+        reader.close();
+    }
+
+    /**
+     * A transcript long enough to run over several pages has its title on the first and its last course on the
+     * last.
+     */
+    @Test
+    void testLongTranscriptRunsOverPages() throws Exception {
+        OpenStream out = new OpenStream();
+        transcriptGenerator.writeTranscriptPdf(transcript(60), out);
+
+        PdfReader reader = new PdfReader(out.toByteArray());
+        assertTrue(reader.getNumberOfPages() > 1);
+        assertTrue(PdfTextExtractor.getTextFromPage(reader, 1).contains("ACADEMIC TRANSCRIPT"));
+        assertTrue(PdfTextExtractor.getTextFromPage(reader, reader.getNumberOfPages()).contains("CS159"));
+        reader.close();
+    }
+
+    /**
+     * Audits rendered on several threads at once share the logo and fonts and each comes out complete.
+     */
+    @Test
+    void testConcurrentDocuments() throws Exception {
+        List<CompletableFuture<byte[]>> documents = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String studentId = "S1100000" + i;
+            documents.add(CompletableFuture.supplyAsync(() -> {
+                OpenStream out = new OpenStream();
+                try {
+                    auditGenerator.writeAuditPdf(audit(studentId), out);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return out.toByteArray();
+            }));
+        }
+
+        for (int i = 0; i < documents.size(); i++) {
+            PdfReader reader = new PdfReader(documents.get(i).get(10, TimeUnit.SECONDS));
+            String text = PdfTextExtractor.getTextFromPage(reader, 1);
+            assertTrue(text.contains("USP Student Audit"));
+            assertTrue(text.contains("Student ID: S1100000" + i));
+            reader.close();
+        }
+    }
+
+    private static Stream<PRStream> xObjects(PdfDictionary owner) {
+        PdfDictionary xObjects = owner.getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+        return xObjects.getKeys().stream().map(key -> (PRStream) xObjects.getAsStream(key));
+    }
+
+    private static InvoiceDto invoice() {
+        InvoiceDto invoice = new InvoiceDto();
+        invoice.setStudentId("S11000001");
+        invoice.setStudentName("Jone Vaka");
+        invoice.setProgramme("Bachelor of Software Engineering");
+        invoice.setEnrolledCourses(List.of(
+                new CourseEnrollmentDto(1L, "CS111", "Introduction to Computing Science", 650, false),
+                new CourseEnrollmentDto(2L, "MA111", "Calculus and Linear Algebra", 650, false)));
+        invoice.setTotalDue(1300);
+        return invoice;
+    }
+
+    private static CoursesTranscriptDTO transcript(int courses) {
+        CoursesTranscriptDTO transcript = new CoursesTranscriptDTO();
+        transcript.setStudentId("S11000001");
+        transcript.setStudentName("Jone Vaka");
+        transcript.setProgramme("Bachelor of Software Engineering");
+        for (int i = 0; i < courses; i++) {
+            CoursesTranscriptDTO.CourseTranscriptRow row = new CoursesTranscriptDTO.CourseTranscriptRow();
+            row.setCourseCode("CS" + (100 + i));
+            row.setTitle("Course " + i);
+            row.setGrade(i % 10 == 0 ? "F" : "B");
+            row.setMark(i % 10 == 0 ? 40 : 70);
+            row.setFailed(i % 10 == 0);
+            transcript.getCompletedCourses().add(row);
+            (row.isFailed() ? transcript.getFailedCourses() : transcript.getPassedCourses()).add(row);
+        }
+        return transcript;
+    }
+
+    private static StudentFullAuditDto audit(String studentId) {
+        List<CourseAuditDto> courses = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            courses.add(new CourseAuditDto((long) i, "Course " + i, "CS" + (100 + i), i % 3 == 0,
+                    (short) (i / 4 + 1), i % 3 == 1, false));
+        }
+        return new StudentFullAuditDto(studentId, "Jone Vaka", "Bachelor of Software Engineering", "Active", courses);
+    }
+
+    // Records whether the generator closed the caller's stream
+    private static class OpenStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.enums.PrerequisiteType;
+import group7.enrollmentSystem.enums.SpecialPrerequisiteType;
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.CoursePrerequisite;
+import group7.enrollmentSystem.models.Programme;
+import group7.enrollmentSystem.repos.CoursePrerequisiteRepo;
+import group7.enrollmentSystem.services.CourseIndex;
+import group7.enrollmentSystem.services.PrerequisiteRuleService;
+import group7.enrollmentSystem.services.PrerequisiteRuleService.EligibilityContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PrerequisiteRuleService.
+ * Covers compiling prerequisite rows into rule trees, evaluation and cache eviction.
+ */
+public class PrerequisiteRuleServiceTest {
+
+    private CoursePrerequisiteRepo coursePrerequisiteRepo;
+    private CourseIndex courseIndex;
+    private PrerequisiteRuleService prerequisiteRuleService;
+
+    private final Programme bse = programme(1L);
+    private final Programme bns = programme(2L);
+
+    @BeforeEach
+    void setUp() {
+        coursePrerequisiteRepo = mock(CoursePrerequisiteRepo.class);
+        courseIndex = new CourseIndex();
+        prerequisiteRuleService = new PrerequisiteRuleService(coursePrerequisiteRepo, courseIndex);
+    }
+
+    /**
+     * A course without prerequisite rows is always available.
+     */
+    @Test
+    void testNoPrerequisitesIsSatisfied() {
+        when(coursePrerequisiteRepo.findByCourseId(10L)).thenReturn(List.of());
+
+        assertTrue(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of())));
+    }
+
+    /**
+     * (A AND B) OR C - parent groups are combined using operatorToNext of the earlier group.
+     */
+    @Test
+    void testParentGroupsCombinedWithOperatorToNext() {
+        List<CoursePrerequisite> rows = new ArrayList<>();
+        rows.add(courseRow(1, PrerequisiteType.AND, PrerequisiteType.OR, 1L, null));
+        rows.add(courseRow(1, PrerequisiteType.AND, PrerequisiteType.OR, 2L, null));
+        rows.add(courseRow(2, PrerequisiteType.AND, null, 3L, null));
+        when(coursePrerequisiteRepo.findByCourseId(10L)).thenReturn(rows);
+
+        assertTrue(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of(1L, 2L))));
+        assertTrue(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of(3L))));
+        assertFalse(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of(1L))));
+    }
+
+    /**
+     * A AND (Admission into BSE OR 50% of 300-level) - child groups and special leaves.
+     */
+    @Test
+    void testChildGroupWithSpecialPrerequisites() {
+        List<CoursePrerequisite> rows = new ArrayList<>();
+        rows.add(courseRow(1, PrerequisiteType.AND, null, 1L, null));
+        CoursePrerequisite childLink = courseRow(1, PrerequisiteType.AND, null, null, null);
+        childLink.setChildId(2);
+        rows.add(childLink);
+
+        CoursePrerequisite admission = childRow(2, PrerequisiteType.OR);
+        admission.setSpecial(true);
+        admission.setSpecialType(SpecialPrerequisiteType.ADMISSION_PROGRAMME);
+        admission.setProgramme(bse);
+        rows.add(admission);
+
+        CoursePrerequisite percent = childRow(2, PrerequisiteType.OR);
+        percent.setSpecial(true);
+        percent.setSpecialType(SpecialPrerequisiteType.COMPLETION_LEVEL_PERCENT);
+        percent.setTargetLevel((short) 300);
+        percent.setPercentageValue(0.5);
+        rows.add(percent);
+        when(coursePrerequisiteRepo.findByCourseId(10L)).thenReturn(rows);
+
+        assertTrue(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of(1L))));
+        assertFalse(prerequisiteRuleService.isSatisfied(10L, ctx(bns, Set.of(1L))));
+        assertTrue(prerequisiteRuleService.isSatisfied(10L, ctx(bns, Set.of(1L, 30L))));
+        assertFalse(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of(30L))));
+    }
+
+    /**
+     * Rows scoped to another programme are skipped rather than failed.
+     */
+    @Test
+    void testProgrammeScopedRowsAreSkipped() {
+        List<CoursePrerequisite> rows = new ArrayList<>();
+        rows.add(courseRow(1, PrerequisiteType.AND, null, 1L, bse));
+        rows.add(courseRow(1, PrerequisiteType.AND, null, 2L, null));
+        when(coursePrerequisiteRepo.findByCourseId(10L)).thenReturn(rows);
+
+        assertFalse(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of(2L))));
+        assertTrue(prerequisiteRuleService.isSatisfied(10L, ctx(bns, Set.of(2L))));
+    }
+
+    /**
+     * The compiled tree is reused until the course is evicted.
+     */
+    @Test
+    void testRuleIsCachedUntilEvicted() {
+        when(coursePrerequisiteRepo.findByCourseId(10L))
+                .thenReturn(List.of(courseRow(1, PrerequisiteType.AND, null, 1L, null)))
+                .thenReturn(List.of());
+
+        assertFalse(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of())));
+        assertFalse(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of())));
+        verify(coursePrerequisiteRepo, times(1)).findByCourseId(10L);
+
+        prerequisiteRuleService.evict(10L);
+
+        assertTrue(prerequisiteRuleService.isSatisfied(10L, ctx(bse, Set.of())));
+        verify(coursePrerequisiteRepo, times(2)).findByCourseId(10L);
+    }
+
+    /**
+     * A child group that points back at its parent is rejected.
+     */
+    @Test
+    void testCyclicGroupsAreRejected() {
+        CoursePrerequisite parent = courseRow(1, PrerequisiteType.AND, null, null, null);
+        parent.setChildId(2);
+        CoursePrerequisite child = childRow(2, PrerequisiteType.AND);
+        child.setChildId(1);
+
+        assertThrows(IllegalStateException.class,
+                () -> prerequisiteRuleService.compile(List.of(parent, child)));
+    }
+
+    private EligibilityContext ctx(Programme programme, Set<Long> completed) {
+        long[] levelCourses = courseIndex.toBits(List.of(30L, 31L));
+        return new EligibilityContext(programme.getId(), courseIndex.toBits(completed),
+                level -> level == 300 ? levelCourses : new long[0]);
+    }
+
+    private CoursePrerequisite courseRow(int groupId, PrerequisiteType type, PrerequisiteType operatorToNext,
+                                         Long prerequisiteId, Programme programme) {
+        CoursePrerequisite cp = new CoursePrerequisite();
+        cp.setGroupId(groupId);
+        cp.setParent(true);
+        cp.setPrerequisiteType(type);
+        cp.setOperatorToNext(operatorToNext);
+        cp.setProgramme(programme);
+        if (prerequisiteId != null) {
+            Course course = new Course();
+            course.setId(prerequisiteId);
+            cp.setPrerequisite(course);
+        }
+        return cp;
+    }
+
+    private CoursePrerequisite childRow(int groupId, PrerequisiteType type) {
+        CoursePrerequisite cp = new CoursePrerequisite();
+        cp.setGroupId(groupId);
+        cp.setChild(true);
+        cp.setParentId(1);
+        cp.setPrerequisiteType(type);
+        return cp;
+    }
+
+    private static Programme programme(Long id) {
+        Programme programme = new Programme();
+        programme.setId(id);
+        return programme;
+    }
+}
@@ -0,0 +1,78 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.dtos.interfaceDtos.CourseIdAndLevel;
+import group7.enrollmentSystem.repos.CourseProgrammeRepo;
+import group7.enrollmentSystem.services.CourseIndex;
+import group7.enrollmentSystem.services.ProgrammeCourseLevelService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ProgrammeCourseLevelService.
+ * Covers grouping a programme's courses by level, caching and eviction.
+ */
+public class ProgrammeCourseLevelServiceTest {
+
+    private CourseProgrammeRepo courseProgrammeRepo;
+    private CourseIndex courseIndex;
+    private ProgrammeCourseLevelService programmeCourseLevelService;
+
+    @BeforeEach
+    void setUp() {
+        courseProgrammeRepo = mock(CourseProgrammeRepo.class);
+        courseIndex = new CourseIndex();
+        programmeCourseLevelService = new ProgrammeCourseLevelService(courseProgrammeRepo, courseIndex);
+    }
+
+    /**
+     * Courses are grouped by level and the repository is only hit once per programme.
+     */
+    @Test
+    void testCoursesGroupedByLevelAndCached() {
+        when(courseProgrammeRepo.getCourseIdsAndLevelsByProgrammeId(1L)).thenReturn(List.of(
+                course(10L, (short) 100), course(11L, (short) 300), course(12L, (short) 300)));
+
+        long[] level300 = programmeCourseLevelService.getCoursesAtLevel(1L, (short) 300);
+        assertEquals(2, CourseIndex.count(level300));
+        assertTrue(courseIndex.contains(level300, 11L));
+        assertTrue(courseIndex.contains(level300, 12L));
+        assertFalse(courseIndex.contains(level300, 10L));
+        assertEquals(0, CourseIndex.count(programmeCourseLevelService.getCoursesAtLevel(1L, (short) 400)));
+
+        programmeCourseLevelService.getCoursesAtLevel(1L, (short) 100);
+        verify(courseProgrammeRepo, times(1)).getCourseIdsAndLevelsByProgrammeId(1L);
+    }
+
+    /**
+     * Evicting a programme reloads its courses on the next lookup.
+     */
+    @Test
+    void testEvictReloadsProgramme() {
+        when(courseProgrammeRepo.getCourseIdsAndLevelsByProgrammeId(1L))
+                .thenReturn(List.of(course(10L, (short) 100)))
+                .thenReturn(List.of(course(10L, (short) 100), course(11L, (short) 100)));
+
+        assertEquals(1, CourseIndex.count(programmeCourseLevelService.getCoursesAtLevel(1L, (short) 100)));
+        programmeCourseLevelService.evict(1L);
+        assertEquals(2, CourseIndex.count(programmeCourseLevelService.getCoursesAtLevel(1L, (short) 100)));
+    }
+
+    private static CourseIdAndLevel course(Long id, short level) {
+        return new CourseIdAndLevel() {
+            @Override
+            public Long getCourseId() {
+                return id;
+            }
+
+            @Override
+            public Short getLevel() {
+                return level;
+            }
+        };
+    }
+}
@@ -0,0 +1,269 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.CourseEnrollment;
+import group7.enrollmentSystem.models.SeatLedger;
+import group7.enrollmentSystem.models.Student;
+import group7.enrollmentSystem.repos.CourseEnrollmentRepo;
+import group7.enrollmentSystem.repos.CourseRepo;
+import group7.enrollmentSystem.repos.SeatLedgerRepo;
+import group7.enrollmentSystem.repos.StudentRepo;
+import group7.enrollmentSystem.services.SeatInventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SeatInventoryService against an in-memory database, with two instances standing in for two app nodes: capacity
+ * under contention on both, seats leased in blocks and handed back on flush, transaction-bound reserve and
+ * release, and the ledger repaired from the enrollments on first use.
+ */
+@DataJpaTest(properties = "spring.datasource.hikari.maximum-pool-size=40")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SeatInventoryServiceTest {
+
+    private static final int YEAR = 2025;
+
+    @Autowired private SeatLedgerRepo seatLedgerRepo;
+    @Autowired private CourseEnrollmentRepo courseEnrollmentRepo;
+    @Autowired private CourseRepo courseRepo;
+    @Autowired private StudentRepo studentRepo;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private SeatInventoryService node;
+    private SeatInventoryService otherNode;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        node = new SeatInventoryService(seatLedgerRepo, courseEnrollmentRepo, transactionManager);
+        otherNode = new SeatInventoryService(seatLedgerRepo, courseEnrollmentRepo, transactionManager);
+        course = course("CS111", 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        courseEnrollmentRepo.deleteAllInBatch();
+        studentRepo.deleteAll();
+        courseRepo.deleteAllInBatch();
+        seatLedgerRepo.deleteAllInBatch();
+    }
+
+    /**
+     * 16 threads racing for 50 seats through both nodes: exactly 50 reservations succeed, and once both nodes have
+     * handed back what they did not give out the ledger holds exactly those.
+     */
+    @Test
+    void testCapacityHeldUnderContention() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            SeatInventoryService seats = i % 2 == 0 ? node : otherNode;
+            futures.add(pool.submit(() -> {
+                start.await();
+                if (seats.tryReserve(course, YEAR, 1)) {
+                    accepted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(50, accepted.get());
+        node.flush();
+        otherNode.flush();
+        assertEquals(50, ledger(1).getSeatsTaken());
+        assertEquals(50, node.getSeatsTaken(course.getId(), YEAR, 1));
+        assertEquals(0, node.getSeatsTaken(course.getId(), YEAR, 2));
+        RuntimeException full = assertThrows(RuntimeException.class, () -> otherNode.reserve(course, YEAR, 1));
+        assertEquals("CS111 is full for Semester 1.", full.getMessage());
+    }
+
+    /**
+     * A node leases a block, and the other gets only what is left under the capacity; the course is full for it
+     * until the first node hands its unused seats back and it flushes itself. A seat released on either node goes back
+ * to the ledger.
+     */
+    @Test
+    void testNodesLeaseSeatsFromOneLedger() {
+        course.setCapacity(12);
+        assertTrue(node.tryReserve(course, YEAR, 1));
+        assertEquals(8, ledger(1).getSeatsTaken());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(otherNode.tryReserve(course, YEAR, 1));
+        }
+        assertFalse(otherNode.tryReserve(course, YEAR, 1));
+        assertEquals(12, ledger(1).getSeatsTaken());
+
+        // Both flush within one interval of each other; until its own, the node that found the course full says so
+        node.flush();
+        assertFalse(otherNode.tryReserve(course, YEAR, 1));
+        otherNode.flush();
+        assertEquals(5, ledger(1).getSeatsTaken());
+        assertEquals(5, node.getSeatsTaken(course.getId(), YEAR, 1));
+        for (int i = 0; i < 7; i++) {
+            assertTrue(otherNode.tryReserve(course, YEAR, 1));
+        }
+        assertFalse(otherNode.tryReserve(course, YEAR, 1));
+        assertFalse(node.tryReserve(course, YEAR, 1));
+
+        node.release(course.getId(), YEAR, 1);
+        node.flush();
+        otherNode.flush();
+        assertEquals(11, ledger(1).getSeatsTaken());
+        assertTrue(otherNode.tryReserve(course, YEAR, 1));
+    }
+
+    /**
+     * A node using up its seats between flushes leases twice as many each time, so a burst of reservations only
+     * takes a few ledger updates; after a flush it starts from the small block again.
+     */
+    @Test
+    void testLeasesGrowWhileUsedUp() {
+        course.setCapacity(null);
+        for (int i = 0; i < 9; i++) {
+            node.tryReserve(course, YEAR, 1);
+        }
+        assertEquals(8 + 16, ledger(1).getSeatsTaken());
+        for (int i = 0; i < 16; i++) {
+            node.tryReserve(course, YEAR, 1);
+        }
+        assertEquals(8 + 16 + 32, ledger(1).getSeatsTaken());
+
+        node.flush();
+        assertEquals(25, ledger(1).getSeatsTaken());
+        node.tryReserve(course, YEAR, 1);
+        assertEquals(25 + 8, ledger(1).getSeatsTaken());
+    }
+
+    /**
+     * A seat taken in a transaction that rolls back is handed back; a cancellation only frees its seat on commit.
+     */
+    @Test
+    void testSeatsFollowTransactionOutcome() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            node.reserve(course, YEAR, 1);
+            assertEquals(1, node.getSeatsTaken(course.getId(), YEAR, 1));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, node.getSeatsTaken(course.getId(), YEAR, 1));
+
+        node.reserve(course, YEAR, 1);
+        transaction.executeWithoutResult(status -> {
+            node.releaseAfterCommit(course.getId(), YEAR, 1);
+            status.setRollbackOnly();
+        });
+        assertEquals(1, node.getSeatsTaken(course.getId(), YEAR, 1));
+
+        transaction.executeWithoutResult(status -> node.releaseAfterCommit(course.getId(), YEAR, 1));
+        assertEquals(0, node.getSeatsTaken(course.getId(), YEAR, 1));
+
+        // Never goes below zero
+        node.flush();
+        otherNode.release(course.getId(), YEAR, 1);
+        otherNode.flush();
+        assertEquals(0, ledger(1).getSeatsTaken());
+    }
+
+    /**
+     * On first use a ledger row below the current enrollments is raised and a missing one created; a row above
+     * them is lowered when nothing has leased from it for a while, and kept while another node may hold its seats.
+     */
+    @Test
+    void testRecoveryRepairsStaleLedger() {
+        Course idle = course("CS112", 50);
+        Course busy = course("CS140", 50);
+        Course unrecorded = course("MA111", 50);
+        enroll(course, 2);
+        enroll(idle, 1);
+        enroll(busy, 1);
+        enroll(unrecorded, 3);
+        ledgerRow(course, 0, LocalDateTime.now());
+        ledgerRow(idle, 9, LocalDateTime.now().minusHours(1));
+        ledgerRow(busy, 9, LocalDateTime.now());
+
+        assertEquals(2, node.getSeatsTaken(course.getId(), YEAR, 1));
+        assertEquals(1, node.getSeatsTaken(idle.getId(), YEAR, 1));
+        assertEquals(9, node.getSeatsTaken(busy.getId(), YEAR, 1));
+        assertEquals(3, node.getSeatsTaken(unrecorded.getId(), YEAR, 1));
+        assertEquals(4, seatLedgerRepo.count());
+    }
+
+    /**
+     * The same semester of another year is a separate offering: seats taken last year do not fill this year's
+     * course, and an enrollment's seat is handed back to the year it was taken in.
+     */
+    @Test
+    void testSeatsAreCountedPerYear() {
+        course.setCapacity(1);
+        assertTrue(node.tryReserve(course, YEAR, 1));
+        assertFalse(node.tryReserve(course, YEAR, 1));
+        assertTrue(node.tryReserve(course, YEAR + 1, 1));
+
+        CourseEnrollment lastYear = new CourseEnrollment();
+        lastYear.setCourse(course);
+        lastYear.setSemesterEnrolled(1);
+        lastYear.setDateEnrolled(LocalDate.of(YEAR, 3, 1));
+        node.releaseAfterCommit(lastYear);
+        assertEquals(0, node.getSeatsTaken(course.getId(), YEAR, 1));
+        assertEquals(1, node.getSeatsTaken(course.getId(), YEAR + 1, 1));
+    }
+
+    private Course course(String code, Integer capacity) {
+        Course course = new Course();
+        course.setCourseCode(code);
+        course.setTitle(code);
+        course.setCapacity(capacity);
+        return courseRepo.save(course);
+    }
+
+    private void enroll(Course course, int students) {
+        for (int i = 0; i < students; i++) {
+            String studentId = "S" + course.getCourseCode() + i;
+            Student student = new Student(studentId, "Student", studentId, "Suva", "1234567");
+            student.setEmail(studentId.toLowerCase() + "@student.usp.ac.fj");
+            studentRepo.save(student);
+            CourseEnrollment enrollment = new CourseEnrollment();
+            enrollment.setStudent(student);
+            enrollment.setCourse(course);
+            enrollment.setCurrentlyTaking(true);
+            enrollment.setSemesterEnrolled(1);
+            enrollment.setDateEnrolled(LocalDate.of(YEAR, 2, 1));
+            courseEnrollmentRepo.save(enrollment);
+        }
+    }
+
+    private void ledgerRow(Course course, int seatsTaken, LocalDateTime updatedAt) {
+        SeatLedger row = new SeatLedger(course.getId(), YEAR, 1);
+        row.setSeatsTaken(seatsTaken);
+        row.setUpdatedAt(updatedAt);
+        seatLedgerRepo.save(row);
+    }
+
+    private SeatLedger ledger(int semester) {
+        return seatLedgerRepo.findByCourseIdAndAcademicYearAndSemester(course.getId(), YEAR, semester).orElseThrow();
+    }
+}
@@ -0,0 +1,216 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.helpers.GradeService;
+import group7.enrollmentSystem.helpers.StudentDocumentCache;
+import group7.enrollmentSystem.helpers.StudentDocumentCache.DocumentType;
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.CourseEnrollment;
+import group7.enrollmentSystem.models.Student;
+import group7.enrollmentSystem.repos.CourseEnrollmentRepo;
+import group7.enrollmentSystem.repos.CourseRepo;
+import group7.enrollmentSystem.repos.StudentDocumentGenerationRepo;
+import group7.enrollmentSystem.repos.StudentRepo;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The student document cache against an in-memory database: repeat downloads are served from disk or answered
+ * with 304, writes to a student's enrollments move only that student's ETag, versions stored in the database are seen
+ * by every node and only move when a change commits, and the least recently downloaded documents are deleted once
+ * the cache is full.
+ */
+@DataJpaTest(properties = {"document-cache.directory=target/document-cache-test", "document-cache.max-bytes=3000"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StudentDocumentVersions.class, StudentDocumentCache.class})
+public class StudentDocumentCacheTest {
+
+    private static final int DOCUMENT_BYTES = 1000;
+
+    @MockBean private GradeService gradeService;
+
+    @Autowired private StudentDocumentCache studentDocumentCache;
+    @Autowired private StudentRepo studentRepo;
+    @Autowired private CourseRepo courseRepo;
+    @Autowired private CourseEnrollmentRepo courseEnrollmentRepo;
+    @Autowired private StudentDocumentGenerationRepo studentDocumentGenerationRepo;
+    @Autowired private EntityManager entityManager;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final Map<Long, AtomicInteger> renders = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        courseEnrollmentRepo.deleteAllInBatch();
+        studentRepo.deleteAll();
+        courseRepo.deleteAllInBatch();
+    }
+
+    /**
+     * The second download is the stored file, and a download naming the current ETag gets a 304 with no body;
+     * neither renders again.
+     */
+    @Test
+    void testRepeatDownloadIsServedFromDisk() throws Exception {
+        ResponseEntity<Resource> first = download(9001L, null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertEquals(DOCUMENT_BYTES, first.getHeaders().getContentLength());
+        assertTrue(first.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("filename=\"transcript.pdf\""));
+        String body = read(first);
+
+        ResponseEntity<Resource> second = download(9001L, null);
+        assertEquals(body, read(second));
+        assertEquals(etag, second.getHeaders().getETag());
+
+        ResponseEntity<Resource> revalidated = download(9001L, "W/\"other\", " + etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertEquals(etag, revalidated.getHeaders().getETag());
+        assertNull(revalidated.getBody());
+
+        assertEquals(1, renders.get(9001L).get());
+    }
+
+    /**
+     * A new enrollment moves the ETag of that student only, and the next download renders their document again;
+     * a change to a course moves every student's.
+     */
+    @Test
+    void testEnrollmentChangeMovesThatStudentsVersion() throws Exception {
+        Student ana = student("S11000001");
+        Student ben = student("S11000002");
+        Course course = new Course();
+        course.setCourseCode("CS111");
+        course.setTitle("Introduction to Computing Science");
+        courseRepo.save(course);
+        String anaBefore = read(download(ana.getId(), null)).substring(0, 20);
+        String anaEtag = studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ana.getId());
+        String benEtag = studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ben.getId());
+
+        CourseEnrollment enrollment = new CourseEnrollment();
+        enrollment.setStudent(ana);
+        enrollment.setCourse(course);
+        enrollment.setCurrentlyTaking(true);
+        enrollment.setSemesterEnrolled(1);
+        enrollment.setDateEnrolled(LocalDate.now());
+        courseEnrollmentRepo.save(enrollment);
+
+        assertNotEquals(anaEtag, studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ana.getId()));
+        assertEquals(benEtag, studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ben.getId()));
+        ResponseEntity<Resource> refreshed = download(ana.getId(), anaEtag);
+        assertEquals(HttpStatus.OK, refreshed.getStatusCode());
+        assertNotEquals(anaBefore, read(refreshed).substring(0, 20));
+        assertEquals(2, renders.get(ana.getId()).get());
+
+        course.setTitle("Computing Science I");
+        courseRepo.save(course);
+        assertNotEquals(benEtag, studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ben.getId()));
+    }
+
+    /**
+     * The version is read from the database, so a change committed through another app node's versions moves the
+     * ETag here too; a change that rolls back moves nothing, and the student saved again keeps the counted version.
+     */
+    @Test
+    void testVersionIsSharedAcrossNodes() throws Exception {
+        Student ana = student("S11000003");
+        Course course = new Course();
+        course.setCourseCode("CS112");
+        course.setTitle("Data Structures and Algorithms");
+        courseRepo.save(course);
+        String etag = studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ana.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            CourseEnrollment enrollment = new CourseEnrollment();
+            enrollment.setStudent(ana);
+            enrollment.setCourse(course);
+            enrollment.setCurrentlyTaking(true);
+            courseEnrollmentRepo.save(enrollment);
+            status.setRollbackOnly();
+        });
+        assertEquals(etag, studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ana.getId()));
+
+        StudentDocumentVersions otherNode = new StudentDocumentVersions(
+                studentRepo, studentDocumentGenerationRepo, entityManager, transactionManager);
+        otherNode.bump(ana.getId());
+        String moved = studentDocumentCache.getETag(DocumentType.TRANSCRIPT, ana.getId());
+        assertNotEquals(etag, moved);
+        assertEquals(1, studentRepo.findDocumentVersion(ana.getId()).orElseThrow() - documentVersion(etag));
+
+        ana.setAddress("Lautoka");
+        studentRepo.save(ana);
+        assertTrue(studentRepo.findDocumentVersion(ana.getId()).orElseThrow() > documentVersion(moved));
+    }
+
+    /**
+     * With room for three documents, a fourth evicts the one downloaded longest ago, which is then rendered again.
+     */
+    @Test
+    void testLeastRecentlyDownloadedIsEvicted() throws Exception {
+        for (long studentId = 9101; studentId <= 9103; studentId++) {
+            read(download(studentId, null));
+        }
+        read(download(9101L, null));
+        read(download(9104L, null));
+
+        read(download(9101L, null));
+        read(download(9103L, null));
+        read(download(9104L, null));
+        assertEquals(1, renders.get(9101L).get());
+        assertEquals(1, renders.get(9103L).get());
+        assertEquals(1, renders.get(9104L).get());
+
+        read(download(9102L, null));
+        assertEquals(2, renders.get(9102L).get());
+    }
+
+    // Each render writes a document of DOCUMENT_BYTES that starts with the student id and render number
+    private ResponseEntity<Resource> download(Long studentId, String ifNoneMatch) throws IOException {
+        return studentDocumentCache.download(DocumentType.TRANSCRIPT, studentId, ifNoneMatch, out -> {
+            int render = renders.computeIfAbsent(studentId, id -> new AtomicInteger()).incrementAndGet();
+            String header = String.format("%%PDF %d render %d ", studentId, render);
+            out.write((header + "x".repeat(DOCUMENT_BYTES - header.length())).getBytes(StandardCharsets.US_ASCII));
+        });
+    }
+
+    private static String read(ResponseEntity<Resource> response) throws IOException {
+        try (InputStream in = response.getBody().getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+
+    // The student's own part of an ETag such as "transcript-7-0.3.0", after the shared generation
+    private static long documentVersion(String etag) {
+        return Long.parseLong(etag.split("-")[2].split("\\.")[1]);
+    }
+
+    private Student student(String studentId) {
+        Student student = new Student(studentId, "Student", studentId, "Suva", "1234567");
+        student.setEmail(studentId.toLowerCase() + "@student.usp.ac.fj");
+        return studentRepo.save(student);
+    }
+}
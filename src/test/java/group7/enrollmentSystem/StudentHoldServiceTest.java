@@ -0,0 +1,133 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.config.CustomExceptions;
+import group7.enrollmentSystem.dtos.classDtos.StudentHoldViewDto;
+import group7.enrollmentSystem.enums.OnHoldTypes;
+import group7.enrollmentSystem.helpers.EmailService;
+import group7.enrollmentSystem.helpers.StudentDocumentVersions;
+import group7.enrollmentSystem.models.OnHoldStatus;
+import group7.enrollmentSystem.models.Student;
+import group7.enrollmentSystem.repos.StudentHoldHistoryRepo;
+import group7.enrollmentSystem.repos.StudentRepo;
+import group7.enrollmentSystem.services.HoldRestrictionMatrixService;
+import group7.enrollmentSystem.services.StudentHoldService;
+import group7.enrollmentSystem.services.StudentHoldService.HoldRestrictionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the per-request hold access snapshot in StudentHoldService.
+ */
+public class StudentHoldServiceTest {
+
+    private static final String EMAIL = "s11000001@student.usp.ac.fj";
+
+    private StudentRepo studentRepo;
+    private HoldRestrictionMatrixService holdRestrictionMatrixService;
+    private StudentHoldService studentHoldService;
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        studentRepo = mock(StudentRepo.class);
+        holdRestrictionMatrixService = mock(HoldRestrictionMatrixService.class);
+        studentHoldService = new StudentHoldService(studentRepo, mock(StudentHoldHistoryRepo.class),
+                mock(EmailService.class), holdRestrictionMatrixService, mock(StudentDocumentVersions.class));
+
+        student = new Student("S11000001", "Ana", "Tui", "Suva", "1234567");
+        student.setId(1L);
+        student.setEmail(EMAIL);
+        student.getOnHoldStatusList().add(hold(OnHoldTypes.DISCIPLINARY_ISSUES, false));
+        student.getOnHoldStatusList().add(hold(OnHoldTypes.UNPAID_FEES, true));
+        student.getOnHoldStatusList().add(hold(OnHoldTypes.UNSATISFACTORY_ACADEMIC_PROGRESS, true));
+        when(studentRepo.findByEmail(EMAIL)).thenReturn(Optional.of(student));
+        when(studentRepo.findById(1L)).thenReturn(Optional.of(student));
+
+        when(holdRestrictionMatrixService.getBlockedMask(OnHoldTypes.UNPAID_FEES))
+                .thenReturn(HoldRestrictionMatrixService.bit(HoldRestrictionType.COURSE_ENROLLMENT));
+        when(holdRestrictionMatrixService.getBlockedMask(OnHoldTypes.UNSATISFACTORY_ACADEMIC_PROGRESS))
+                .thenReturn(HoldRestrictionMatrixService.bit(HoldRestrictionType.COURSE_ENROLLMENT)
+                        | HoldRestrictionMatrixService.bit(HoldRestrictionType.STUDENT_AUDIT));
+        when(holdRestrictionMatrixService.getBlockedMask(OnHoldTypes.DISCIPLINARY_ISSUES))
+                .thenReturn(HoldRestrictionMatrixService.bit(HoldRestrictionType.GRADUATION_APPLICATION));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * The snapshot covers every service and reports the first active hold blocking each one. Its active holds are
+     * hold types in an unmodifiable list, not the student's hold entities.
+     */
+    @Test
+    void testSnapshotContents() {
+        StudentHoldService.AccessSnapshot snapshot = studentHoldService.getAccessSnapshot(EMAIL);
+
+        assertTrue(snapshot.hasHold());
+        assertEquals("Account has 2 active hold(s)", snapshot.getHoldMessage());
+        assertFalse(snapshot.canAccess(HoldRestrictionType.COURSE_ENROLLMENT));
+        assertFalse(snapshot.canAccess(HoldRestrictionType.STUDENT_AUDIT));
+        assertTrue(snapshot.canAccess(HoldRestrictionType.GRADUATION_APPLICATION));
+        assertEquals(OnHoldTypes.UNPAID_FEES, snapshot.getRestrictingHold(HoldRestrictionType.COURSE_ENROLLMENT));
+        assertEquals(OnHoldTypes.UNSATISFACTORY_ACADEMIC_PROGRESS, snapshot.getRestrictingHold(HoldRestrictionType.STUDENT_AUDIT));
+        assertNull(snapshot.getRestrictingHold(HoldRestrictionType.GRADUATION_APPLICATION));
+        assertEquals(List.of(OnHoldTypes.UNPAID_FEES, OnHoldTypes.UNSATISFACTORY_ACADEMIC_PROGRESS), snapshot.activeHolds());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.activeHolds().clear());
+
+        CustomExceptions.StudentOnHoldException e = assertThrows(CustomExceptions.StudentOnHoldException.class,
+                () -> studentHoldService.checkAccess(EMAIL, HoldRestrictionType.COURSE_ENROLLMENT));
+        assertEquals(OnHoldTypes.UNPAID_FEES, e.getHoldType());
+
+        StudentHoldViewDto view = studentHoldService.getStudentHoldDetails(EMAIL);
+        assertFalse(view.isCanRegisterCourses());
+        assertTrue(view.isCanViewCompletedCourses());
+        assertEquals("Ana Tui", view.getFullName());
+    }
+
+    /**
+     * Within one HTTP request every check shares a single student load; a hold change drops the memoised snapshot.
+     */
+    @Test
+    void testSnapshotMemoisedPerRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        studentHoldService.checkAccess(EMAIL, HoldRestrictionType.GRADUATION_APPLICATION);
+        studentHoldService.hasRestriction(EMAIL, HoldRestrictionType.STUDENT_AUDIT);
+        studentHoldService.getStudentHoldDetails(EMAIL);
+        assertSame(studentHoldService.getAccessSnapshot(EMAIL), studentHoldService.getAccessSnapshot(EMAIL));
+        verify(studentRepo, times(1)).findByEmail(EMAIL);
+
+        studentHoldService.placeStudentOnHold(1L, OnHoldTypes.DISCIPLINARY_ISSUES, "admin@usp.ac.fj");
+        assertFalse(studentHoldService.getAccessSnapshot(EMAIL).canAccess(HoldRestrictionType.GRADUATION_APPLICATION));
+        verify(studentRepo, times(2)).findByEmail(EMAIL);
+    }
+
+    /**
+     * Outside a request nothing is memoised.
+     */
+    @Test
+    void testNoMemoisationOutsideRequest() {
+        studentHoldService.hasRestriction(EMAIL, HoldRestrictionType.STUDENT_AUDIT);
+        studentHoldService.hasRestriction(EMAIL, HoldRestrictionType.STUDENT_AUDIT);
+        verify(studentRepo, times(2)).findByEmail(EMAIL);
+    }
+
+    private static OnHoldStatus hold(OnHoldTypes holdType, boolean active) {
+        OnHoldStatus hold = new OnHoldStatus();
+        hold.setOnHoldType(holdType);
+        hold.setOnHold(active);
+        return hold;
+    }
+}
@@ -0,0 +1,136 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.aspects.LatencyHistogram;
+import group7.enrollmentSystem.aspects.TracingAspect;
+import group7.enrollmentSystem.dtos.classDtos.MethodLatencyDto;
+import group7.enrollmentSystem.dtos.classDtos.TracingSettingsDto;
+import group7.enrollmentSystem.helpers.AsyncLogSink;
+import group7.enrollmentSystem.models.Student;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TracingAspect: latency and error counting, the runtime package switch and bounded summaries.
+ */
+public class TracingAspectTest {
+
+    @Service
+    public static class CourseLookup {
+        public String find(String courseCode) {
+            if (courseCode == null) {
+                throw new IllegalArgumentException("Course code is required");
+            }
+            return courseCode.toUpperCase();
+        }
+    }
+
+    @TempDir
+    Path logDir;
+
+    private AsyncLogSink logSink;
+    private TracingAspect tracingAspect;
+    private CourseLookup courseLookup;
+
+    @BeforeEach
+    void setUp() {
+        logSink = new AsyncLogSink(logDir.toString(), 64, 1024 * 1024, 60);
+        tracingAspect = new TracingAspect(logSink, 1.0, List.of(), 20, 1000);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new CourseLookup());
+        factory.addAspect(tracingAspect);
+        courseLookup = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logSink.close();
+    }
+
+    /**
+     * Every call is counted in the method's histogram, failed calls also as errors, and sampled calls reach trace.log.
+     */
+    @Test
+    void testRecordsLatencyAndErrors() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals("CS111", courseLookup.find("cs111"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> courseLookup.find(null));
+
+        MethodLatencyDto find = method("CourseLookup.find(..)");
+        assertEquals(11, find.getCalls());
+        assertEquals(1, find.getErrors());
+        assertTrue(find.getP50Micros() <= find.getP99Micros());
+
+        assertTrue(logSink.flush(5, TimeUnit.SECONDS));
+        List<String> lines = Files.readAllLines(logDir.resolve("trace.log"));
+        assertEquals(11, lines.size());
+        assertTrue(lines.get(10).contains("!!! CourseLookup.find(..)"));
+        assertTrue(lines.get(10).contains("threw IllegalArgumentException: Course code is requi...(23 chars)"));
+    }
+
+    /**
+     * Calls into a disabled package are not recorded until the package is enabled again; a bad rate is refused.
+     */
+    @Test
+    void testDisabledPackageIsSkipped() {
+        tracingAspect.updateSettings(new TracingSettingsDto(1.0, List.of("group7.enrollmentSystem")));
+        courseLookup.find("cs111");
+        assertTrue(tracingAspect.getStats().getMethods().isEmpty());
+
+        tracingAspect.updateSettings(new TracingSettingsDto(1.0, List.of("group7.enrollmentSystem.services")));
+        courseLookup.find("cs111");
+        assertEquals(1, method("CourseLookup.find(..)").getCalls());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> tracingAspect.updateSettings(new TracingSettingsDto(1.5, List.of())));
+    }
+
+    /**
+     * Arguments and results are summarised by type and size, never by calling an entity's toString.
+     */
+    @Test
+    void testSummariesAreBounded() {
+        assertEquals("byte[5000]", tracingAspect.summarize(new byte[5000]));
+        assertEquals("CS111", tracingAspect.summarize("CS111"));
+        assertEquals("aaaaaaaaaaaaaaaaaaaa...(500 chars)", tracingAspect.summarize("a".repeat(500)));
+        assertEquals("ArrayList[size=3]", tracingAspect.summarize(new ArrayList<>(List.of(1, 2, 3))));
+        assertEquals("Student", tracingAspect.summarize(new Student()));
+        assertEquals("null", tracingAspect.summarize(null));
+    }
+
+    /**
+     * Percentiles report the upper bound of the power-of-two bucket they fall in.
+     */
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100_000);
+        }
+        histogram.record(50_000_000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(128, histogram.percentileMicros(50));
+        assertEquals(128, histogram.percentileMicros(99));
+        assertEquals(65536, histogram.percentileMicros(100));
+        assertEquals(50_000, histogram.getMaxMicros());
+    }
+
+    private MethodLatencyDto method(String name) {
+        return tracingAspect.getStats().getMethods().stream()
+                .filter(method -> method.getMethod().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,257 @@
+package group7.enrollmentSystem;
+
+import group7.enrollmentSystem.config.UploadStoreMigration;
+import group7.enrollmentSystem.helpers.UploadStore;
+import group7.enrollmentSystem.models.*;
+import group7.enrollmentSystem.repos.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The content-addressed upload store against an in-memory database: identical uploads share one file under its
+ * sharded hash path, the file goes when its last reference does, an upload in a rolled back transaction is
+ * released, and files uploaded before the store are moved in with the rows naming them updated, also after a run
+ * that stopped part way.
+ */
+@DataJpaTest(properties = {"upload-store.directory=target/upload-store-test", "upload-store.migrate-legacy=false"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UploadStore.class, UploadStoreMigration.class})
+public class UploadStoreTest {
+
+    private static final Path DIRECTORY = Paths.get("target/upload-store-test");
+    private static final byte[] SCAN = "%PDF medical certificate".getBytes(StandardCharsets.US_ASCII);
+
+    @Autowired private UploadStore uploadStore;
+    @Autowired private UploadStoreMigration uploadStoreMigration;
+    @Autowired private StoredUploadRepo storedUploadRepo;
+    @Autowired private StudentRepo studentRepo;
+    @Autowired private ProgrammeRepo programmeRepo;
+    @Autowired private CompassionateApplicationRepo compassionateApplicationRepo;
+    @Autowired private GraduationApplicationRepo graduationApplicationRepo;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clearDirectory();
+        Files.createDirectories(DIRECTORY.resolve(".tmp"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        compassionateApplicationRepo.deleteAll();
+        graduationApplicationRepo.deleteAllInBatch();
+        studentRepo.deleteAll();
+        programmeRepo.deleteAllInBatch();
+        storedUploadRepo.deleteAllInBatch();
+        clearDirectory();
+    }
+
+    /**
+     * The same content uploaded under two names is one file at ab/cd/<sha256> with two references; each reference
+     * keeps its own name, and no temp file is left behind.
+     */
+    @Test
+    void testIdenticalUploadsAreStoredOnce() throws Exception {
+        String first = store(SCAN, "medical.pdf");
+        String second = store(SCAN, "../scans/certificate.pdf");
+        String other = store("%PDF statement".getBytes(StandardCharsets.US_ASCII), "statement.pdf");
+
+        String hash = sha256(SCAN);
+        Path blob = DIRECTORY.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash).toAbsolutePath();
+        assertEquals("sha256:" + hash + "/medical.pdf", first);
+        assertEquals("sha256:" + hash + "/certificate.pdf", second);
+        assertEquals(blob, uploadStore.resolve(first));
+        assertEquals(blob, uploadStore.resolve(second));
+        assertArrayEquals(SCAN, Files.readAllBytes(blob));
+        assertNotEquals(blob, uploadStore.resolve(other));
+        assertEquals(2, uploadStore.getReferenceCount(first));
+        assertEquals(1, uploadStore.getReferenceCount(other));
+        assertEquals("certificate.pdf", uploadStore.fileName(second));
+        assertEquals("certificate.pdf", uploadStore.getResource(second).getFilename());
+        try (Stream<Path> temps = Files.list(DIRECTORY.resolve(".tmp"))) {
+            assertEquals(0, temps.count());
+        }
+    }
+
+    /**
+     * Releasing one of two references keeps the file; releasing the last deletes it and its row, and the next upload
+     * of the same content writes it again.
+     */
+    @Test
+    void testLastReleaseDeletesTheFile() throws Exception {
+        String first = store(SCAN, "medical.pdf");
+        String second = store(SCAN, "medical.pdf");
+        Path blob = uploadStore.resolve(first);
+
+        uploadStore.release(first);
+        assertEquals(1, uploadStore.getReferenceCount(second));
+        assertTrue(Files.exists(blob));
+
+        uploadStore.release(second);
+        assertEquals(0, uploadStore.getReferenceCount(second));
+        assertFalse(Files.exists(blob));
+        assertFalse(storedUploadRepo.existsById(sha256(SCAN)));
+
+        String again = store(SCAN, "medical.pdf");
+        assertEquals(1, uploadStore.getReferenceCount(again));
+        assertArrayEquals(SCAN, Files.readAllBytes(blob));
+    }
+
+    /**
+     * An upload made in a transaction that rolls back gives its reference up again, and a release inside a
+     * transaction waits for the commit.
+     */
+    @Test
+    void testTransactionOutcomeDecidesTheReference() throws Exception {
+        String kept = store(SCAN, "medical.pdf");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            assertEquals(2, uploadStore.getReferenceCount(store(SCAN, "medical.pdf")));
+            status.setRollbackOnly();
+        });
+        assertEquals(1, uploadStore.getReferenceCount(kept));
+
+        transaction.executeWithoutResult(status -> {
+            uploadStore.release(kept);
+            assertEquals(1, uploadStore.getReferenceCount(kept));
+        });
+        assertEquals(0, uploadStore.getReferenceCount(kept));
+        assertFalse(Files.exists(uploadStore.resolve(kept)));
+    }
+
+    /**
+     * Legacy documents, signatures and profile pictures are moved into the store under the names they were uploaded
+     * with, the old files are deleted, a missing file keeps its path, and a second run finds nothing to do.
+     */
+    @Test
+    void testMigrationMovesLegacyFiles() throws Exception {
+        Path medical = legacyFile("medical_3f2b8c1e-9a4d-4e7f-b6c2-1d5e8f9a0b3c.pdf", SCAN);
+        Path signature = legacyFile("7c9e6679-7425-40de-944b-e07fc1f90ae7_signature.png", "png".getBytes());
+        Path picture = legacyFile("0b4e7a2c-5d61-4f3a-8e9b-2c7d1a6f4e58_photo.jpg", "jpg".getBytes());
+        String missing = DIRECTORY.resolve("lost_a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d.pdf").toString();
+
+        Student student = new Student("S11000001", "Student", "S11000001", "Suva", "1234567");
+        student.setEmail("s11000001@student.usp.ac.fj");
+        student.setPfpFilePath(picture.getFileName().toString());
+        student = studentRepo.save(student);
+        Programme programme = new Programme();
+        programme.setProgrammeCode("BSE");
+        programme.setName("Bachelor of Software Engineering");
+        programme = programmeRepo.save(programme);
+
+        CompassionateApplication compassionate = new CompassionateApplication();
+        compassionate.setStudent(student);
+        compassionate.setDocumentPaths(new ArrayList<>(List.of(medical.toString(), missing)));
+        compassionate.setStudentSignatureFilePath(signature.toString());
+        compassionate = compassionateApplicationRepo.save(compassionate);
+        GraduationApplication graduation = new GraduationApplication();
+        graduation.setStudent(student);
+        graduation.setProgramme(programme);
+        graduation.setStudentSignatureFilePath(signature.toString());
+        graduation = graduationApplicationRepo.save(graduation);
+
+        assertEquals(3, uploadStoreMigration.migrate());
+
+        Long compassionateId = compassionate.getId();
+        List<String> documents = new TransactionTemplate(transactionManager).execute(status ->
+                new ArrayList<>(compassionateApplicationRepo.findById(compassionateId).orElseThrow().getDocumentPaths()));
+        assertEquals("medical.pdf", uploadStore.fileName(documents.get(0)));
+        assertArrayEquals(SCAN, Files.readAllBytes(uploadStore.resolve(documents.get(0))));
+        assertEquals(missing, documents.get(1));
+
+        String compassionateSignature = compassionateApplicationRepo.findById(compassionateId).orElseThrow()
+                .getStudentSignatureFilePath();
+        String graduationSignature = graduationApplicationRepo.findById(graduation.getId()).orElseThrow()
+                .getStudentSignatureFilePath();
+        assertEquals("signature.png", uploadStore.fileName(compassionateSignature));
+        assertEquals(compassionateSignature, graduationSignature);
+        assertEquals(2, uploadStore.getReferenceCount(graduationSignature));
+
+        String pfp = studentRepo.findById(student.getId()).orElseThrow().getPfpFilePath();
+        assertEquals("photo.jpg", uploadStore.fileName(pfp));
+        assertArrayEquals("jpg".getBytes(), Files.readAllBytes(uploadStore.resolve(pfp)));
+
+        assertFalse(Files.exists(medical));
+        assertFalse(Files.exists(signature));
+        assertFalse(Files.exists(picture));
+        assertEquals(0, uploadStoreMigration.migrate());
+    }
+
+    /**
+     * A run that stopped after a row committed left its flat file behind; the next run finds the row already in the
+     * store, deletes the file no row names any more, and a run after that finds nothing to do.
+     */
+    @Test
+    void testRestartDeletesFilesOfCommittedRows() throws Exception {
+        Path left = legacyFile("medical_3f2b8c1e-9a4d-4e7f-b6c2-1d5e8f9a0b3c.pdf", SCAN);
+        Path named = legacyFile("7c9e6679-7425-40de-944b-e07fc1f90ae7_signature.png", "png".getBytes());
+        Student student = new Student("S11000002", "Student", "S11000002", "Suva", "1234567");
+        student.setEmail("s11000002@student.usp.ac.fj");
+        student = studentRepo.save(student);
+        CompassionateApplication compassionate = new CompassionateApplication();
+        compassionate.setStudent(student);
+        compassionate.setDocumentPaths(new ArrayList<>(List.of(store(SCAN, "medical.pdf"))));
+        compassionate.setStudentSignatureFilePath(named.toString());
+        compassionateApplicationRepo.save(compassionate);
+
+        assertEquals(1, uploadStoreMigration.migrate());
+        assertFalse(Files.exists(left));
+        assertFalse(Files.exists(named));
+        try (Stream<Path> files = Files.list(DIRECTORY)) {
+            assertTrue(files.noneMatch(Files::isRegularFile));
+        }
+        assertEquals(0, uploadStoreMigration.migrate());
+    }
+
+    private String store(byte[] content, String fileName) {
+        try {
+            return uploadStore.store(new ByteArrayInputStream(content), fileName);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Path legacyFile(String name, byte[] content) throws IOException {
+        return Files.write(DIRECTORY.resolve(name), content);
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static void clearDirectory() throws IOException {
+        if (!Files.exists(DIRECTORY)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(DIRECTORY)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                if (!file.equals(DIRECTORY)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package group7.enrollmentSystem.benchmarks;
+
+import group7.enrollmentSystem.models.*;
+import group7.enrollmentSystem.repos.*;
+import group7.enrollmentSystem.services.EnrollmentImportService;
+import group7.enrollmentSystem.services.EnrollmentStateService;
+import group7.enrollmentSystem.services.SeatInventoryService;
+import jakarta.persistence.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Writing a cohort of enrollment rows into H2: one IDENTITY insert per row (how CourseEnrollment ids were
+ * generated before) against JDBC batches with pooled sequence ids, plus the whole CSV import for reference.
+ * H2 runs in process, so this understates the gain: a real database also saves a network round trip per row.
+ * Run {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EnrollmentImportBenchmark {
+
+    private static final int STUDENTS = 5000;
+
+    @Entity(name = "IdentityEnrollment")
+    @Table(name = "identity_enrollment")
+    public static class IdentityEnrollment {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+        private Long studentId;
+        private Long courseId;
+        private int semesterEnrolled;
+        private LocalDate dateEnrolled;
+    }
+
+    @Entity(name = "PooledEnrollment")
+    @Table(name = "pooled_enrollment")
+    public static class PooledEnrollment {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_enrollment_seq")
+        @SequenceGenerator(name = "pooled_enrollment_seq", sequenceName = "pooled_enrollment_seq",
+                allocationSize = IdSequences.ALLOCATION_SIZE)
+        private Long id;
+        private Long studentId;
+        private Long courseId;
+        private int semesterEnrolled;
+        private LocalDate dateEnrolled;
+    }
+
+    // Only active when started from here, so the application's component scan in tests skips it
+    @SpringBootConfiguration
+    @ConditionalOnProperty("enrollment-import-benchmark")
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = {Course.class, IdentityEnrollment.class})
+    @EnableJpaRepositories(basePackageClasses = CourseRepo.class)
+    @Import({EnrollmentImportService.class, EnrollmentStateService.class, SeatInventoryService.class})
+    static class ImportContext {
+    }
+
+    private ConfigurableApplicationContext context;
+    private EnrollmentImportService enrollmentImportService;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private CourseEnrollmentRepo courseEnrollmentRepo;
+    private byte[] csv;
+    private List<Long> studentIds;
+    private List<Long> courseIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ImportContext.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "enrollment-import-benchmark=true",
+                        "spring.config.name=enrollment-import-benchmark",
+                        "spring.datasource.url=jdbc:h2:mem:import;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "logging.level.root=WARN")
+                .run();
+        enrollmentImportService = context.getBean(EnrollmentImportService.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        courseEnrollmentRepo = context.getBean(CourseEnrollmentRepo.class);
+
+        EnrollmentState state = new EnrollmentState();
+        state.setId(1L);
+        state.setOpen(true);
+        state.setSemesterOne(true);
+        context.getBean(EnrollmentStateRepo.class).save(state);
+
+        CourseRepo courseRepo = context.getBean(CourseRepo.class);
+        courseIds = new ArrayList<>();
+        for (String code : List.of("CS111", "CS112")) {
+            Course course = new Course();
+            course.setCourseCode(code);
+            course.setTitle(code);
+            course.setLevel((short) 100);
+            course.setOfferedSem1(true);
+            courseIds.add(courseRepo.save(course).getId());
+        }
+
+        List<Student> students = new ArrayList<>();
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < STUDENTS; i++) {
+            String studentId = String.format("S11%06d", i);
+            Student student = new Student(studentId, "Student", String.valueOf(i), "Suva", "1234567");
+            student.setEmail(studentId.toLowerCase() + "@student.usp.ac.fj");
+            students.add(student);
+            rows.append(studentId).append(",CS111\n").append(studentId).append(",CS112\n");
+        }
+        studentIds = context.getBean(StudentRepo.class).saveAll(students).stream().map(Student::getId).toList();
+        csv = rows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearEnrollments() {
+        courseEnrollmentRepo.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            entityManager.joinTransaction();
+            entityManager.createQuery("DELETE FROM IdentityEnrollment").executeUpdate();
+            entityManager.createQuery("DELETE FROM PooledEnrollment").executeUpdate();
+            entityManager.close();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int identityInserts() {
+        return insertAll(IdentityEnrollment::new, (row, ids) -> {
+            row.studentId = ids[0];
+            row.courseId = ids[1];
+            row.semesterEnrolled = 1;
+            row.dateEnrolled = LocalDate.now();
+        });
+    }
+
+    @Benchmark
+    public int pooledBatchedInserts() {
+        return insertAll(PooledEnrollment::new, (row, ids) -> {
+            row.studentId = ids[0];
+            row.courseId = ids[1];
+            row.semesterEnrolled = 1;
+            row.dateEnrolled = LocalDate.now();
+        });
+    }
+
+    @Benchmark
+    public int csvImport() throws Exception {
+        return enrollmentImportService.importCsv(new ByteArrayInputStream(csv)).getImported();
+    }
+
+    private <T> int insertAll(Supplier<T> rows, BiConsumer<T, Long[]> fill) {
+        return transactionTemplate.execute(status -> {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            entityManager.joinTransaction();
+            int inserted = 0;
+            for (Long studentId : studentIds) {
+                for (Long courseId : courseIds) {
+                    T row = rows.get();
+                    fill.accept(row, new Long[]{studentId, courseId});
+                    entityManager.persist(row);
+                    if (++inserted % 1000 == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            }
+            entityManager.flush();
+            entityManager.close();
+            return inserted;
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(EnrollmentImportBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
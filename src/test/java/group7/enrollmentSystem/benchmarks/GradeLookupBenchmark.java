@@ -0,0 +1,98 @@
+package group7.enrollmentSystem.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import group7.enrollmentSystem.helpers.GradeService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grading a batch of marks: the compiled 0-100 lookup table against the previous implementation, which sorted
+ * the threshold map on every call. Run {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradeLookupBenchmark {
+
+    private static final int MARKS = 1024;
+
+    private GradeService gradeService;
+    private Path configDir;
+    private Map<String, Map<String, Object>> gradeData;
+    private int[] marks;
+
+    @Setup
+    public void setUp() throws Exception {
+        configDir = Files.createTempDirectory("grades");
+        gradeService = new GradeService(configDir.resolve("grades.json").toString());
+        gradeService.loadGradeThresholds();
+        try (InputStream bundled = new ClassPathResource("configs/grades.json").getInputStream()) {
+            gradeData = new ObjectMapper().readValue(bundled, new TypeReference<>() {});
+        }
+        Random random = new Random(42);
+        marks = new int[MARKS];
+        for (int i = 0; i < MARKS; i++) {
+            marks[i] = random.nextInt(101);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        gradeService.stopWatcher();
+        Files.deleteIfExists(configDir.resolve("grades.json"));
+        Files.deleteIfExists(configDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MARKS)
+    public void lookupTable(Blackhole blackhole) {
+        for (int mark : marks) {
+            blackhole.consume(gradeService.getGrade(mark));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MARKS)
+    public void sortedMapPerCall(Blackhole blackhole) {
+        for (int mark : marks) {
+            blackhole.consume(sortedMapGrade(mark));
+        }
+    }
+
+    // GradeService.getGrade before the lookup table
+    private String sortedMapGrade(int mark) {
+        return gradeData.entrySet().stream()
+                .sorted((e1, e2) -> {
+                    Integer v1 = (Integer) e1.getValue().get("mark");
+                    Integer v2 = (Integer) e2.getValue().get("mark");
+                    return v2.compareTo(v1);
+                })
+                .filter(entry -> mark >= (Integer) entry.getValue().get("mark"))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse("F");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(GradeLookupBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
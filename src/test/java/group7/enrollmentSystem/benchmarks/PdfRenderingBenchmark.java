@@ -0,0 +1,148 @@
+package group7.enrollmentSystem.benchmarks;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import group7.enrollmentSystem.dtos.classDtos.CourseEnrollmentDto;
+import group7.enrollmentSystem.dtos.classDtos.InvoiceDto;
+import group7.enrollmentSystem.helpers.InvoicePdfGeneratorService;
+import group7.enrollmentSystem.helpers.PdfRenderingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoices rendered per second on one thread (one core): the old generator, which decoded the logo, built its
+ * fonts and buffered the document into a byte[] for every invoice, against the generator on the shared
+ * PdfRenderingService streaming to the response. The response is a discarding stream here, so both sides pay
+ * only for rendering. Run {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PdfRenderingBenchmark {
+
+    private InvoiceDto invoice;
+    private InvoicePdfGeneratorService invoiceGenerator;
+
+    @Setup
+    public void setUp() throws Exception {
+        invoice = new InvoiceDto();
+        invoice.setStudentId("S11000001");
+        invoice.setStudentName("Jone Vaka");
+        invoice.setProgramme("Bachelor of Software Engineering");
+        List<CourseEnrollmentDto> courses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            courses.add(new CourseEnrollmentDto((long) i, "CS1" + i + "1", "Course " + i, 650, false));
+        }
+        invoice.setEnrolledCourses(courses);
+        invoice.setTotalDue(2600);
+
+        invoiceGenerator = new InvoicePdfGeneratorService(new PdfRenderingService());
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) throws Exception {
+        byte[] pdf = legacyInvoicePdf(invoice);
+        OutputStream response = OutputStream.nullOutputStream();
+        response.write(pdf);
+        blackhole.consume(pdf);
+    }
+
+    @Benchmark
+    public void shared() throws Exception {
+        invoiceGenerator.writeInvoicePdf(invoice, OutputStream.nullOutputStream());
+    }
+
+    // InvoicePdfGeneratorService before PdfRenderingService: the same content, with the logo decoded and the fonts
+    // built per document and the whole PDF buffered
+    private static byte[] legacyInvoicePdf(InvoiceDto invoiceDto) throws Exception {
+        Document document = new Document();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfWriter.getInstance(document, out);
+        document.open();
+
+        Font titleFont = new Font(Font.FontFamily.HELVETICA, 16, Font.BOLD);
+        Font headerFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD);
+        Font normalFont = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
+        Font fineheaderFont = new Font(Font.FontFamily.HELVETICA, 8, Font.BOLD);
+        Font finePrint = new Font(Font.FontFamily.HELVETICA, 8, Font.NORMAL);
+
+        ClassPathResource imageResource = new ClassPathResource("static/images/usp_logo.png");
+        Image logo = Image.getInstance(imageResource.getURL());
+        logo.scaleToFit(110, 110);
+        document.add(logo);
+        document.add(new Paragraph("\n"));
+
+        document.add(new Paragraph("STUDENT INVOICE / STATEMENT", titleFont));
+        document.add(new Paragraph("\n"));
+        document.add(new Paragraph("Date Printed: " + java.time.LocalDate.now(), normalFont));
+        document.add(new Paragraph("Invoice No: U1234567", normalFont));
+        document.add(new Paragraph("Student ID: " + invoiceDto.getStudentId(), normalFont));
+        document.add(new Paragraph("Student Name: " + invoiceDto.getStudentName(), normalFont));
+        document.add(new Paragraph("Programme: " + invoiceDto.getProgramme(), normalFont));
+        document.add(new Paragraph("\n"));
+
+        PdfPTable table = new PdfPTable(5);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(10f);
+        table.setWidths(new float[]{3, 2, 2, 2, 2});
+        for (String header : new String[]{"Description", "Courses", "Reg Status", "Charges", "Credit"}) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            table.addCell(cell);
+        }
+        for (CourseEnrollmentDto course : invoiceDto.getEnrolledCourses()) {
+            table.addCell(new PdfPCell(new Phrase(course.getTitle(), normalFont)));
+            table.addCell(new PdfPCell(new Phrase(course.getCourseCode(), normalFont)));
+            table.addCell(new PdfPCell(new Phrase("**Registered**", normalFont)));
+            table.addCell(new PdfPCell(new Phrase("$" + course.getCost(), normalFont)));
+            table.addCell(new PdfPCell(new Phrase("$0.00", normalFont)));
+        }
+        document.add(table);
+
+        document.add(new Paragraph("\nTOTAL DUE: $" + invoiceDto.getTotalDue(), titleFont));
+        document.add(new Paragraph("\n"));
+        document.add(new Paragraph("Terms and Conditions", fineheaderFont));
+        String[][] terms = {
+                {"1. Payment Deadline: ", "all fees and payment arrangements must be completed by the fee deadline specified in this invoice/statement."},
+                {"2. Account Deactivation: ", "all fees and payment arrangements must be completed by the fee deadline specified in this invoice/statement."},
+                {"2. Account Deactivation: ", "Accounts in default after the fee deadline will be deactivated/placed on HOLD for 1 week, after which the\n" +
+                        " accounts will be deregistered (registrations cancelled)."},
+                {"3. Release of Holds: ", "Account HOLDS will be released upon payment of fees and applicable late payment penalties, provided deregistration\n" +
+                        " has not yet been processed. Please allow 3 working days for payment update and account re-activation."},
+                {"4. Deregistration Process: ", "Deregistration will be processed for all deactivated/HOLD accounts within 2 weeks after the fee deadline. Students\n" +
+                        " are liable for accommodation and other ancillary fees after deregistration."}};
+        for (String[] term : terms) {
+            Paragraph paragraph = new Paragraph();
+            paragraph.add(new Chunk(term[0], fineheaderFont));
+            paragraph.add(new Chunk(term[1], finePrint));
+            document.add(paragraph);
+        }
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PdfRenderingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,213 @@
+package group7.enrollmentSystem.benchmarks;
+
+import group7.enrollmentSystem.enums.PrerequisiteType;
+import group7.enrollmentSystem.enums.SpecialPrerequisiteType;
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.CoursePrerequisite;
+import group7.enrollmentSystem.models.Programme;
+import group7.enrollmentSystem.services.CourseIndex;
+import group7.enrollmentSystem.services.PrerequisiteRuleService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares eligibility for a whole programme's course list using the old row-streaming,
+ * List.contains based evaluation against compiled rules evaluated over course bitsets.
+ * Run {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrerequisiteEvaluationBenchmark {
+
+    @Param({"60", "240"})
+    public int programmeSize;
+
+    private Programme programme;
+    private List<Long> programmeCourseIds;
+    private List<Long> completedCourseIds;
+    private List<Long> appliedCourseIds;
+    private Map<Long, List<CoursePrerequisite>> rowsByCourseId;
+    private Map<Long, PrerequisiteRuleService.Rule> rulesByCourseId;
+    private Map<Long, Short> levelByCourseId;
+    private Map<Short, long[]> coursesByLevel;
+    private CourseIndex courseIndex;
+    private PrerequisiteRuleService prerequisiteRuleService;
+
+    @Setup
+    public void setUp() {
+        programme = new Programme();
+        programme.setId(1L);
+        courseIndex = new CourseIndex();
+        prerequisiteRuleService = new PrerequisiteRuleService(null, courseIndex);
+
+        programmeCourseIds = new ArrayList<>();
+        levelByCourseId = new HashMap<>();
+        rowsByCourseId = new HashMap<>();
+        rulesByCourseId = new HashMap<>();
+        Random random = new Random(42);
+
+        for (long id = 1; id <= programmeSize; id++) {
+            programmeCourseIds.add(id);
+            levelByCourseId.put(id, (short) (100 * (1 + (id - 1) * 4 / programmeSize)));
+            List<CoursePrerequisite> rows = id > 10 ? prerequisiteRows(id, random) : List.of();
+            rowsByCourseId.put(id, rows);
+            rulesByCourseId.put(id, prerequisiteRuleService.compile(rows));
+        }
+        completedCourseIds = programmeCourseIds.subList(0, programmeSize / 2);
+        appliedCourseIds = programmeCourseIds.subList(programmeSize / 2, programmeSize / 2 + 3);
+        coursesByLevel = new HashMap<>();
+        programmeCourseIds.stream()
+                .collect(Collectors.groupingBy(levelByCourseId::get))
+                .forEach((level, ids) -> coursesByLevel.put(level, courseIndex.toBits(ids)));
+    }
+
+    /**
+     * (A AND B) OR (C OR D OR (Admission into programme OR 50% of 200-level)).
+     */
+    private List<CoursePrerequisite> prerequisiteRows(long courseId, Random random) {
+        List<CoursePrerequisite> rows = new ArrayList<>();
+        rows.add(row(1, true, false, PrerequisiteType.AND, PrerequisiteType.OR, randomEarlier(courseId, random)));
+        rows.add(row(1, true, false, PrerequisiteType.AND, PrerequisiteType.OR, randomEarlier(courseId, random)));
+        rows.add(row(2, true, false, PrerequisiteType.OR, null, randomEarlier(courseId, random)));
+        rows.add(row(2, true, false, PrerequisiteType.OR, null, randomEarlier(courseId, random)));
+        CoursePrerequisite childLink = row(2, true, false, PrerequisiteType.OR, null, null);
+        childLink.setChildId(3);
+        rows.add(childLink);
+
+        CoursePrerequisite admission = row(3, false, true, PrerequisiteType.OR, null, null);
+        admission.setSpecial(true);
+        admission.setSpecialType(SpecialPrerequisiteType.ADMISSION_PROGRAMME);
+        Programme other = new Programme();
+        other.setId(2L);
+        admission.setProgramme(other);
+        rows.add(admission);
+
+        CoursePrerequisite percent = row(3, false, true, PrerequisiteType.OR, null, null);
+        percent.setSpecial(true);
+        percent.setSpecialType(SpecialPrerequisiteType.COMPLETION_LEVEL_PERCENT);
+        percent.setTargetLevel((short) 200);
+        percent.setPercentageValue(0.5);
+        rows.add(percent);
+        return rows;
+    }
+
+    private Long randomEarlier(long courseId, Random random) {
+        return 1 + (long) random.nextInt((int) courseId - 1);
+    }
+
+    private CoursePrerequisite row(int groupId, boolean parent, boolean child, PrerequisiteType type,
+                                   PrerequisiteType operatorToNext, Long prerequisiteId) {
+        CoursePrerequisite cp = new CoursePrerequisite();
+        cp.setGroupId(groupId);
+        cp.setParent(parent);
+        cp.setChild(child);
+        cp.setPrerequisiteType(type);
+        cp.setOperatorToNext(operatorToNext);
+        if (prerequisiteId != null) {
+            Course course = new Course();
+            course.setId(prerequisiteId);
+            cp.setPrerequisite(course);
+        }
+        return cp;
+    }
+
+    @Benchmark
+    public void listBased(Blackhole bh) {
+        for (Long courseId : programmeCourseIds) {
+            if (appliedCourseIds.contains(courseId)) continue;
+            if (completedCourseIds.contains(courseId)) continue;
+            bh.consume(listEligible(rowsByCourseId.get(courseId)));
+        }
+    }
+
+    @Benchmark
+    public void bitsetBased(Blackhole bh) {
+        long[] completed = courseIndex.toBits(completedCourseIds);
+        long[] applied = courseIndex.toBits(appliedCourseIds);
+        PrerequisiteRuleService.EligibilityContext ctx = new PrerequisiteRuleService.EligibilityContext(
+                programme.getId(), completed, coursesByLevel::get);
+        for (Long courseId : programmeCourseIds) {
+            int index = courseIndex.indexOf(courseId);
+            if (CourseIndex.get(applied, index) || CourseIndex.get(completed, index)) continue;
+            bh.consume(rulesByCourseId.get(courseId).test(ctx));
+        }
+    }
+
+    // The evaluation StudentService used before prerequisite rules were compiled.
+    private boolean listEligible(List<CoursePrerequisite> cps) {
+        if (cps.isEmpty()) return true;
+        Set<Integer> parentGroupIds = cps.stream()
+                .filter(cp -> cp.isParent() && !cp.isChild())
+                .map(CoursePrerequisite::getGroupId)
+                .collect(Collectors.toSet());
+        Map<Integer, Boolean> groupCache = new HashMap<>();
+        List<Boolean> results = new ArrayList<>();
+        for (Integer groupId : parentGroupIds) {
+            results.add(listEvaluateGroup(groupId, cps, groupCache));
+        }
+        List<Integer> sortedGroupIds = new ArrayList<>(parentGroupIds);
+        Collections.sort(sortedGroupIds);
+        boolean result = results.get(0);
+        for (int i = 1; i < results.size(); i++) {
+            int finalI = i;
+            PrerequisiteType operator = cps.stream()
+                    .filter(cp -> cp.getGroupId() == sortedGroupIds.get(finalI - 1) && cp.isParent())
+                    .findFirst()
+                    .map(CoursePrerequisite::getOperatorToNext)
+                    .orElse(PrerequisiteType.AND);
+            result = operator == PrerequisiteType.AND ? result && results.get(i) : result || results.get(i);
+        }
+        return result;
+    }
+
+    private boolean listEvaluateGroup(int groupId, List<CoursePrerequisite> all, Map<Integer, Boolean> groupCache) {
+        if (groupCache.containsKey(groupId)) return groupCache.get(groupId);
+        List<CoursePrerequisite> entries = all.stream().filter(cp -> cp.getGroupId() == groupId).toList();
+        if (entries.isEmpty()) return true;
+        List<Boolean> conditions = new ArrayList<>();
+        for (CoursePrerequisite cp : entries) {
+            if (cp.isSpecial()) {
+                if (cp.getSpecialType() == SpecialPrerequisiteType.ADMISSION_PROGRAMME) {
+                    conditions.add(cp.getProgramme() != null && cp.getProgramme().getId().equals(programme.getId()));
+                } else {
+                    List<Long> levelIds = programmeCourseIds.stream()
+                            .filter(id -> levelByCourseId.get(id) == cp.getTargetLevel())
+                            .toList();
+                    long done = levelIds.stream().filter(completedCourseIds::contains).count();
+                    conditions.add(!levelIds.isEmpty() && (double) done / levelIds.size() >= cp.getPercentageValue());
+                }
+                continue;
+            }
+            if (cp.getPrerequisite() != null) {
+                conditions.add(completedCourseIds.contains(cp.getPrerequisite().getId()));
+            }
+            if (cp.getChildId() != 0) {
+                conditions.add(listEvaluateGroup(cp.getChildId(), all, groupCache));
+            }
+        }
+        boolean result = entries.getFirst().getPrerequisiteType() == PrerequisiteType.AND
+                ? conditions.stream().allMatch(Boolean::booleanValue)
+                : conditions.stream().anyMatch(Boolean::booleanValue);
+        groupCache.put(groupId, result);
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PrerequisiteEvaluationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
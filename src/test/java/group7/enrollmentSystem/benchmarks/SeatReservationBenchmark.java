@@ -0,0 +1,101 @@
+package group7.enrollmentSystem.benchmarks;
+
+import group7.enrollmentSystem.models.Course;
+import group7.enrollmentSystem.models.SeatLedger;
+import group7.enrollmentSystem.repos.CourseEnrollmentRepo;
+import group7.enrollmentSystem.repos.SeatLedgerRepo;
+import group7.enrollmentSystem.services.SeatInventoryService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Registration-surge contention on the seat counters: every thread reserves and releases seats in a handful
+ * of popular courses, compared with the same counters guarded by one monitor. Released seats stay with the node,
+ * so after the first lease of each course the loop never reaches the ledger.
+ * Run {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatReservationBenchmark {
+
+    @Param({"1", "8"})
+    public int courses;
+
+    private Course[] hotCourses;
+    private SeatInventoryService seatInventoryService;
+    private int[] lockedSeats;
+
+    @Setup
+    public void setUp() {
+        // Every lease is granted and the ledger row exists, so only the in-memory counters are measured
+        SeatLedgerRepo seatLedgerRepo = mock(SeatLedgerRepo.class);
+        SeatLedger row = new SeatLedger();
+        row.setId(1L);
+        when(seatLedgerRepo.findByCourseIdAndAcademicYearAndSemester(anyLong(), anyInt(), anyInt()))
+                .thenReturn(Optional.of(row));
+        when(seatLedgerRepo.lease(anyLong(), anyInt(), anyInt(), any())).thenReturn(1);
+        seatInventoryService = new SeatInventoryService(seatLedgerRepo, mock(CourseEnrollmentRepo.class),
+                mock(PlatformTransactionManager.class));
+        hotCourses = new Course[courses];
+        for (int i = 0; i < courses; i++) {
+            Course course = new Course();
+            course.setId(i + 1L);
+            course.setCourseCode("CS1" + i);
+            course.setCapacity(200);
+            hotCourses[i] = course;
+        }
+        lockedSeats = new int[courses];
+    }
+
+    @Benchmark
+    public boolean atomicCounters() {
+        Course course = hotCourses[ThreadLocalRandom.current().nextInt(hotCourses.length)];
+        boolean reserved = seatInventoryService.tryReserve(course, 2025, 1);
+        if (reserved) {
+            seatInventoryService.release(course.getId(), 2025, 1);
+        }
+        return reserved;
+    }
+
+    @Benchmark
+    public boolean synchronizedCounters() {
+        int index = ThreadLocalRandom.current().nextInt(hotCourses.length);
+        boolean reserved;
+        synchronized (this) {
+            reserved = lockedSeats[index] < hotCourses[index].getCapacity();
+            if (reserved) {
+                lockedSeats[index]++;
+            }
+        }
+        if (reserved) {
+            synchronized (this) {
+                lockedSeats[index]--;
+            }
+        }
+        return reserved;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SeatReservationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
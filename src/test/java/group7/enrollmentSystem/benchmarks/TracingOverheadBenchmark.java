@@ -0,0 +1,170 @@
+package group7.enrollmentSystem.benchmarks;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import group7.enrollmentSystem.aspects.TracingAspect;
+import group7.enrollmentSystem.enums.OnHoldTypes;
+import group7.enrollmentSystem.helpers.AsyncLogSink;
+import group7.enrollmentSystem.models.OnHoldStatus;
+import group7.enrollmentSystem.models.Student;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of the logging aspect around a hot service call: no aspect, the old LoggerService (five INFO lines with
+ * the full arguments and result per call), the sampled TracingAspect, and TracingAspect with the package disabled.
+ * Logging goes to files in a temporary directory, as it does under {@code logs/} in the application.
+ * Run {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingOverheadBenchmark {
+
+    /**
+     * Stands in for a programme's student listing and a transcript download.
+     */
+    @Service
+    public static class StudentDirectory {
+        private final List<Student> students = new ArrayList<>();
+        private final byte[] transcript = new byte[64 * 1024];
+
+        public StudentDirectory() {
+            for (int i = 0; i < 25; i++) {
+                Student student = new Student("S110000" + i, "First" + i, "Last" + i, "Suva", "679000" + i);
+                student.setEmail("s110000" + i + "@student.usp.ac.fj");
+                for (int h = 0; h < 3; h++) {
+                    OnHoldStatus hold = new OnHoldStatus();
+                    hold.setOnHoldType(OnHoldTypes.values()[h % OnHoldTypes.values().length]);
+                    student.getOnHoldStatusList().add(hold);
+                }
+                students.add(student);
+            }
+        }
+
+        public List<Student> findByProgramme(String programmeCode) {
+            return students;
+        }
+
+        public byte[] transcript(String studentId) {
+            return transcript;
+        }
+    }
+
+    // LoggerService before TracingAspect replaced it
+    @Aspect
+    public static class LegacyLoggerService {
+        private static final Logger logger = LoggerFactory.getLogger(LegacyLoggerService.class);
+
+        @Around("within(@org.springframework.stereotype.Service *)")
+        public Object logExecution(ProceedingJoinPoint joinPoint) throws Throwable {
+            String methodName = joinPoint.getSignature().toShortString();
+            logger.info(">>> " + methodName + " called at " + LocalDateTime.now());
+            logger.info("    Arguments: " + Arrays.toString(joinPoint.getArgs()));
+            try {
+                Object result = joinPoint.proceed();
+                logger.info("<<< " + methodName + " returned: " + result);
+                return result;
+            } finally {
+                logger.info("    Completed at " + LocalDateTime.now() + " [" + methodName + "]");
+                logger.info("---------------------------------------------------");
+            }
+        }
+    }
+
+    @Param({"none", "legacy", "sampled", "disabled"})
+    public String aspect;
+
+    private StudentDirectory directory;
+    private Path logDir;
+    private AsyncLogSink logSink;
+
+    @Setup
+    public void setUp() throws Exception {
+        logDir = Files.createTempDirectory("tracing-benchmark");
+        logToFile(logDir.resolve("generalSystemLogs.txt"));
+        logSink = new AsyncLogSink(logDir.toString(), 16384, 10 * 1024 * 1024, 1440);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new StudentDirectory());
+        switch (aspect) {
+            case "legacy" -> factory.addAspect(new LegacyLoggerService());
+            case "sampled" -> factory.addAspect(new TracingAspect(logSink, 0.01, List.of(), 120, 1000));
+            case "disabled" -> factory.addAspect(new TracingAspect(logSink, 0.01,
+                    List.of(StudentDirectory.class.getPackageName()), 120, 1000));
+            default -> {
+            }
+        }
+        directory = aspect.equals("none") ? new StudentDirectory() : factory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(Logger.ROOT_LOGGER_NAME).detachAndStopAllAppenders();
+        logSink.close();
+        try (Stream<Path> files = Files.list(logDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(logDir);
+    }
+
+    @Benchmark
+    public List<Student> studentListing() {
+        return directory.findByProgramme("BSE");
+    }
+
+    @Benchmark
+    public byte[] transcriptDownload() {
+        return directory.transcript("S1100001");
+    }
+
+    private static void logToFile(Path file) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %-5level [%thread] %logger{36} : %msg%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+        root.setLevel(Level.INFO);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TracingOverheadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}